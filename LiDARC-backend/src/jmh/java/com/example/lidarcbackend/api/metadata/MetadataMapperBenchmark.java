@@ -0,0 +1,89 @@
+package com.example.lidarcbackend.api.metadata;
+
+import com.example.lidarcbackend.api.metadata.dtos.FileMetadataDTO;
+import com.example.lidarcbackend.model.entity.CoordinateSystem;
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.Folder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a page of files to metadata DTOs, alone and together with the JSON serialization done by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataMapperBenchmark {
+
+    @Param({"100", "10000"})
+    private int pageSize;
+
+    private final MetadataMapper mapper = new MetadataMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private List<File> page;
+
+    @Setup
+    public void setUp() {
+        CoordinateSystem coordinateSystem = new CoordinateSystem();
+        coordinateSystem.setAuthority("EPSG");
+        coordinateSystem.setCode("31256");
+        Folder folder = new Folder();
+        folder.setId(3L);
+        folder.setName("Flight 2024");
+
+        page = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            File file = new File();
+            file.setId(id);
+            file.setFilename("upload-" + id + ".laz");
+            file.setOriginalFilename("tile_" + id + ".laz");
+            file.setCaptureYear((short) 2024);
+            file.setSizeBytes(250_000_000L + id);
+            file.setMinX(id * 10.0);
+            file.setMinY(id * 10.0);
+            file.setMinZ(150.0);
+            file.setMaxX(id * 10.0 + 1000);
+            file.setMaxY(id * 10.0 + 1000);
+            file.setMaxZ(420.0);
+            file.setSystemIdentifier("RIEGL VQ-1560");
+            file.setLasVersion("1.4");
+            file.setCaptureSoftware("RiPROCESS");
+            file.setUploaded(true);
+            file.setFileCreationDate(LocalDate.of(2024, 6, 1));
+            file.setPointCount(40_000_000L);
+            file.setUploadedAt(Instant.parse("2024-07-01T10:15:30Z"));
+            file.setStatus(File.FileStatus.PROCESSED);
+            file.setFolder(folder);
+            file.setCoordinateSystem(coordinateSystem);
+            file.setActive(true);
+            page.add(file);
+        }
+    }
+
+    @Benchmark
+    public List<FileMetadataDTO> toDto() {
+        List<FileMetadataDTO> dtos = new ArrayList<>(page.size());
+        for (File file : page) {
+            dtos.add(mapper.toDto(file));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public byte[] toDtoAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(toDto());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Streaming of a cached chunking result through {@link ChunkingSseService}. The emitter has no response attached,
+ * so the events are only built and buffered; this isolates the slicing and event construction from network I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkingSseServiceBenchmark {
+
+    @Param({"4", "32"})
+    private int payloadMegabytes;
+
+    @Param({"16384", "65536", "262144"})
+    private int streamChunkSize;
+
+    private ChunkingSseService sseService;
+    private String rawJson;
+
+    @Setup
+    public void setUp() {
+        sseService = new ChunkingSseService(mock(ChunkingResultCacheService.class, withSettings().stubOnly()), streamChunkSize);
+
+        int targetLength = payloadMegabytes * 1024 * 1024;
+        StringBuilder json = new StringBuilder(targetLength + 256);
+        json.append("{\"chunked_cells\":[");
+        int cell = 0;
+        while (json.length() < targetLength) {
+            if (cell > 0) {
+                json.append(',');
+            }
+            json.append("{\"x\":").append(cell % 1000 * 2.0)
+                .append(",\"y\":").append(cell / 1000 * 2.0)
+                .append(",\"veg_height_max_a\":").append(14.25 + cell % 7)
+                .append(",\"veg_height_max_b\":").append(15.5 + cell % 5)
+                .append(",\"delta_z\":").append(0.75 - cell % 3 * 0.25)
+                .append('}');
+            cell++;
+        }
+        json.append("],\"statistics\":{},\"group_mapping\":{}}");
+        rawJson = json.toString();
+    }
+
+    @Benchmark
+    public SseEmitter streamCachedResult() {
+        SseEmitter emitter = new SseEmitter();
+        sseService.streamResultToEmitter(emitter, rawJson, 42L, 16);
+        return emitter;
+    }
+}
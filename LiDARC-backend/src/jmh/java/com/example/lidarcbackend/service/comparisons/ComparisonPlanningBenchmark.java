@@ -0,0 +1,142 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import com.example.lidarcbackend.api.comparison.ComparisonMapper;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonEstimateDTO;
+import com.example.lidarcbackend.api.comparison.dtos.CreateComparisonRequest;
+import com.example.lidarcbackend.api.comparison.dtos.GridParameters;
+import com.example.lidarcbackend.api.metadata.MetadataMapper;
+import com.example.lidarcbackend.configuration.ComparisonEstimateProperties;
+import com.example.lidarcbackend.configuration.ComparisonShardingProperties;
+import com.example.lidarcbackend.configuration.MinioProperties;
+import com.example.lidarcbackend.model.entity.Comparison;
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.repository.*;
+import com.example.lidarcbackend.service.IInboxService;
+import com.example.lidarcbackend.service.IJobTrackingService;
+import com.example.lidarcbackend.service.files.IMetadataService;
+import com.example.lidarcbackend.service.files.WorkerStartService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.MinioClient;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Region planning of a comparison on synthetic tile layouts, measured through the dry-run estimate
+ * so nothing is persisted. Repositories are stub-only mocks that return the prepared files.
+ * <ul>
+ *     <li>mosaic: square tiles overlapping their neighbours by one cell, like a flight strip mosaic</li>
+ *     <li>stacked: randomly placed tiles of mixed size piling up over the same area</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComparisonPlanningBenchmark {
+
+    private static final double TILE_SIZE = 10.0;
+
+    @Param({"mosaic", "stacked"})
+    private String layout;
+
+    @Param({"100", "2500"})
+    private int files;
+
+    private ComparisonService comparisonService;
+    private CreateComparisonRequest request;
+
+    @Setup
+    public void setUp() {
+        int tilesPerSide = (int) Math.ceil(Math.sqrt(files));
+        List<File> tiles = "mosaic".equals(layout) ? mosaic(tilesPerSide) : stacked(tilesPerSide);
+
+        FileRepository fileRepository = stub(FileRepository.class);
+        when(fileRepository.findAllWithFolderAndCoordinateSystemByIdIn(any())).thenReturn(tiles);
+        ComparisonMapper comparisonMapper = stub(ComparisonMapper.class);
+        when(comparisonMapper.toEntityFromRequest(any())).thenReturn(new Comparison());
+
+        comparisonService = new ComparisonService(
+            stub(ComparisonRepository.class), stub(ComparisonFileRepository.class), stub(ComparisonFolderRepository.class),
+            fileRepository, stub(FolderRepository.class), stub(IMetadataService.class), stub(IJobTrackingService.class),
+            stub(IInboxService.class), stub(Validator.class), stub(RabbitTemplate.class), comparisonMapper, new ObjectMapper(),
+            new MetadataMapper(), stub(ReportRepository.class), stub(WorkerStartService.class),
+            stub(ApplicationEventPublisher.class),
+            stub(MinioClient.class), new MinioProperties(), stub(ChunkingResultCacheService.class),
+            stub(ComparisonFileShardRepository.class), new ComparisonShardingProperties(),
+            stub(PreprocessingResultRepository.class), new ComparisonEstimateProperties(),
+            stub(ComparisonPairRepository.class), stub(EntityManager.class));
+
+        GridParameters grid = new GridParameters();
+        grid.setCellWidth(1);
+        grid.setCellHeight(1);
+        grid.setxMin(0.0);
+        grid.setyMin(0.0);
+        grid.setxMax(tilesPerSide * TILE_SIZE);
+        grid.setyMax(tilesPerSide * TILE_SIZE);
+        request = new CreateComparisonRequest();
+        request.setGrid(grid);
+        request.setFolderAFiles(tiles.stream().map(File::getId).toList());
+    }
+
+    @Benchmark
+    public ComparisonEstimateDTO planComparison() throws Exception {
+        return comparisonService.estimateComparison(request, List.of());
+    }
+
+    private List<File> mosaic(int tilesPerSide) {
+        List<File> tiles = new ArrayList<>();
+        for (int row = 0; row < tilesPerSide; row++) {
+            for (int col = 0; col < tilesPerSide && tiles.size() < files; col++) {
+                tiles.add(tile(tiles.size() + 1L, col * TILE_SIZE - 1, (col + 1) * TILE_SIZE + 1,
+                    row * TILE_SIZE - 1, (row + 1) * TILE_SIZE + 1));
+            }
+        }
+        return tiles;
+    }
+
+    private List<File> stacked(int tilesPerSide) {
+        Random random = new Random(42);
+        double extent = tilesPerSide * TILE_SIZE;
+        List<File> tiles = new ArrayList<>();
+        while (tiles.size() < files) {
+            double width = TILE_SIZE * (1 + random.nextInt(4)) + random.nextDouble();
+            double height = TILE_SIZE * (1 + random.nextInt(4)) + random.nextDouble();
+            double xMin = random.nextDouble() * extent;
+            double yMin = random.nextDouble() * extent;
+            tiles.add(tile(tiles.size() + 1L, xMin, xMin + width, yMin, yMin + height));
+        }
+        return tiles;
+    }
+
+    private File tile(long id, double xMin, double xMax, double yMin, double yMax) {
+        File file = new File();
+        file.setId(id);
+        file.setFilename("tile-" + id + ".laz");
+        file.setOriginalFilename("tile-" + id + ".laz");
+        file.setPointCount(1_000_000L);
+        file.setMinX(xMin);
+        file.setMaxX(xMax);
+        file.setMinY(yMin);
+        file.setMaxY(yMax);
+        return file;
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+}
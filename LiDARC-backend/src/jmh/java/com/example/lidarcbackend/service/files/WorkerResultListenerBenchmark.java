@@ -0,0 +1,155 @@
+package com.example.lidarcbackend.service.files;
+
+import com.example.lidarcbackend.configuration.WorkerResultLaneProperties;
+import com.example.lidarcbackend.model.DTO.worker.ChunkingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.ComparisonResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
+import com.example.lidarcbackend.service.comparisons.IComparisonService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.lang.reflect.Type;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Conversion of worker result messages into the typed records handed to {@link WorkerResultListener}, using the same
+ * converter as the listener containers. The services behind the listener are stub-only mocks, so only the
+ * deserialization and the dispatch onto the result lanes is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkerResultListenerBenchmark {
+
+    private static final Type COMPARISON_RESULT =
+        new ParameterizedTypeReference<WorkerResultMessage<ComparisonResultPayload>>() {}.getType();
+    private static final Type CHUNKING_RESULT =
+        new ParameterizedTypeReference<WorkerResultMessage<ChunkingResultPayload>>() {}.getType();
+
+    /**
+     * Side length of the chunked cell matrix in the legacy chunking payload that is sent when Redis is unavailable.
+     */
+    @Param({"100", "500"})
+    private int matrixSide;
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private ResultLaneExecutor resultLanes;
+    private WorkerResultListener listener;
+    private Message preprocessingMessage;
+    private Message comparisonMessage;
+    private Message chunkingMessage;
+
+    @Setup
+    public void setUp() throws Exception {
+        resultLanes = new ResultLaneExecutor(new WorkerResultLaneProperties());
+        listener = new WorkerResultListener(
+            mock(IMetadataService.class, withSettings().stubOnly()),
+            mock(IComparisonService.class, withSettings().stubOnly()),
+            converter, resultLanes);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        preprocessingMessage = toMessage(objectMapper, null, Map.of(
+            "type", "preprocessing_result",
+            "status", "success",
+            "job_id", "4a7c1f5e-9d3b-4f0a-8a61-3f2b7c9d0e11",
+            "payload", Map.of(
+                "comparisonId", 42,
+                "fileId", 7,
+                "result", Map.of("bucket", "preprocessed", "objectKey", "42/7/result.csv"))));
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (String metric : List.of("mean", "median", "std", "min", "max", "p5", "p95")) {
+            statistics.put(metric, Map.of("group_a", 12.5, "group_b", 13.25, "difference", 0.75));
+        }
+        comparisonMessage = toMessage(objectMapper, COMPARISON_RESULT, Map.of(
+            "type", "comparison_result",
+            "status", "success",
+            "job_id", "0f1e2d3c-4b5a-6978-8695-a4b3c2d1e0f9",
+            "payload", Map.of(
+                "comparisonId", 42,
+                "result", Map.of("bucket", "comparisons", "objectKey", "42/result.json"),
+                "statistics", statistics)));
+
+        List<List<Map<String, Object>>> matrix = new ArrayList<>(matrixSide);
+        for (int row = 0; row < matrixSide; row++) {
+            List<Map<String, Object>> cells = new ArrayList<>(matrixSide);
+            for (int col = 0; col < matrixSide; col++) {
+                Map<String, Object> cell = new LinkedHashMap<>();
+                cell.put("x", col * 2.0);
+                cell.put("y", row * 2.0);
+                cell.put("veg_height_max_a", 14.2 + col % 7);
+                cell.put("veg_height_max_b", 15.1 + row % 5);
+                cell.put("delta_z", 0.9 - (col % 3) * 0.3);
+                cell.put("count_a", 120 + col % 11);
+                cell.put("count_b", 118 + row % 13);
+                cells.add(cell);
+            }
+            matrix.add(cells);
+        }
+        chunkingMessage = toMessage(objectMapper, CHUNKING_RESULT, Map.of(
+            "type", "chunking_comparison_result",
+            "status", "success",
+            "job_id", "",
+            "payload", Map.of(
+                "comparisonId", 42,
+                "chunkSize", 1,
+                "chunked_cells", matrix,
+                "statistics", statistics,
+                "group_mapping", Map.of("a", "Flight 2023", "b", "Flight 2024"))));
+    }
+
+    @TearDown
+    public void tearDown() {
+        resultLanes.destroy();
+    }
+
+    @Benchmark
+    public void preprocessingResult() {
+        // Batch listeners get the raw messages and decode them one by one
+        listener.handlePreprocessingResults(List.of(preprocessingMessage));
+    }
+
+    @Benchmark
+    public Object comparisonResult() {
+        WorkerResultMessage<ComparisonResultPayload> result = convert(comparisonMessage);
+        listener.handleComparisonResult(result);
+        return result;
+    }
+
+    @Benchmark
+    public Object chunkingResultWithCells() {
+        WorkerResultMessage<ChunkingResultPayload> result = convert(chunkingMessage);
+        listener.handleChunkingComparisonResult(result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <P> WorkerResultMessage<P> convert(Message message) {
+        return (WorkerResultMessage<P>) converter.fromMessage(message);
+    }
+
+    private static Message toMessage(ObjectMapper objectMapper, Type argumentType, Map<String, Object> body)
+        throws Exception {
+        // The Python worker sends plain JSON without type headers, the container infers the listener argument type
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding("UTF-8");
+        properties.setInferredArgumentType(argumentType);
+        return new Message(objectMapper.writeValueAsBytes(body), properties);
+    }
+}
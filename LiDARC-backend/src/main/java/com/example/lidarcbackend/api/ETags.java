@@ -0,0 +1,46 @@
+package com.example.lidarcbackend.api;
+
+import com.example.lidarcbackend.model.DTO.CollectionVersion;
+
+/**
+ * Weak ETags derived from entity versions, so a conditional GET can be answered without assembling the response.
+ * They are weak because the same version may be rendered with different query parameters or encodings.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String ofEntity(String resource, Long id, Long version) {
+        return "W/\"" + resource + "-" + id + "-" + version + "\"";
+    }
+
+    /**
+     * ETag of an entity whose response embeds rows of other tables, those rows change without touching the entity.
+     */
+    public static String ofEntity(String resource, Long id, Long version, CollectionVersion... embedded) {
+        StringBuilder tag = new StringBuilder("W/\"").append(resource).append('-').append(id).append('-').append(version);
+        appendVersions(tag, embedded);
+        return tag.append('"').toString();
+    }
+
+    /**
+     * ETag over one or more whole tables, used for list endpoints independent of paging and search parameters.
+     * The versions are the write counters of the tables, so no listing query runs for a matching If-None-Match.
+     */
+    public static String ofCollection(String resource, Long... versions) {
+        StringBuilder tag = new StringBuilder("W/\"").append(resource);
+        for (Long version : versions) {
+            tag.append('-').append(version == null ? 0 : version);
+        }
+        return tag.append('"').toString();
+    }
+
+    private static void appendVersions(StringBuilder tag, CollectionVersion... versions) {
+        for (CollectionVersion version : versions) {
+            tag.append('-').append(version.count())
+                .append('.').append(version.maxId() == null ? 0 : version.maxId())
+                .append('.').append(version.versionSum() == null ? 0 : version.versionSum());
+        }
+    }
+}
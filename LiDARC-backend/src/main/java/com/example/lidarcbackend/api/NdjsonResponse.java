@@ -0,0 +1,44 @@
+package com.example.lidarcbackend.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Newline-delimited JSON response that writes every item as soon as the producer hands it over,
+ * instead of serializing a complete list at once.
+ */
+public final class NdjsonResponse {
+
+    private NdjsonResponse() {
+    }
+
+    /**
+     * @param producer passes every item of the response to the given consumer, runs on the async request thread
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, Consumer<Consumer<T>> producer) {
+        StreamingResponseBody body = out -> {
+            try {
+                producer.accept(item -> writeLine(objectMapper, out, item));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static void writeLine(ObjectMapper objectMapper, OutputStream out, Object item) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(item));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
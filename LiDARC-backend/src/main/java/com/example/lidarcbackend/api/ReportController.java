@@ -1,10 +1,13 @@
 package com.example.lidarcbackend.api;
 
 import com.example.lidarcbackend.exception.NotFoundException;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
 import com.example.lidarcbackend.model.DTO.ImageInfoDto;
 import com.example.lidarcbackend.model.DTO.ReportInfoDto;
 import com.example.lidarcbackend.service.IImageService;
 import com.example.lidarcbackend.service.reports.IReportService;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -54,6 +57,14 @@ public class ReportController {
         return ResponseEntity.ok(reports);
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<ReportInfoDto>> scrollReports(
+            @RequestParam(required = false) String search,
+            @Valid @ModelAttribute CursorRequest request) {
+        log.info("GET /api/v1/reports/scroll");
+        return ResponseEntity.ok(this.reportService.scrollReports(request, search));
+    }
+
     @PostMapping("/images")
     public ResponseEntity<List<ImageInfoDto>> uploadImages(@RequestPart(value = "files", required = false) MultipartFile[] files) {
         log.info("POST /api/v1/reports/images");
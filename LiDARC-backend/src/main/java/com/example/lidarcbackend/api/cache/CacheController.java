@@ -0,0 +1,32 @@
+package com.example.lidarcbackend.api.cache;
+
+import com.example.lidarcbackend.api.cache.dtos.CacheRegionStatsDTO;
+import com.example.lidarcbackend.service.cache.ICacheStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+public class CacheController {
+    private final ICacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    public CacheController(ICacheStatisticsService cacheStatisticsService) {
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    /**
+     * Hit and miss counts of the second-level cache regions
+     *
+     * @return one entry per region, counted since startup
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheRegionStatsDTO>> getStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getRegionStatistics());
+    }
+}
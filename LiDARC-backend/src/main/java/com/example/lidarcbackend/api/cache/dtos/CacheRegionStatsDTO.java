@@ -0,0 +1,35 @@
+package com.example.lidarcbackend.api.cache.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheRegionStatsDTO {
+    private String region;
+
+    private long size;
+
+    /**
+     * Null if the region is not bounded by size.
+     */
+    private Long maxSize;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Share of lookups answered from the region, 1.0 before the first lookup.
+     */
+    private double hitRate;
+
+    /**
+     * Entries removed because the region was full or the entry expired.
+     */
+    private long evictionCount;
+}
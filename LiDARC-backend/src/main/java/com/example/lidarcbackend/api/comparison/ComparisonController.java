@@ -1,16 +1,26 @@
 package com.example.lidarcbackend.api.comparison;
 
+import com.example.lidarcbackend.api.ETags;
+import com.example.lidarcbackend.api.NdjsonResponse;
 import com.example.lidarcbackend.api.comparison.dtos.ComparisonDTO;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonEstimateDTO;
 import com.example.lidarcbackend.api.comparison.dtos.ComparisonRequest;
 import com.example.lidarcbackend.api.comparison.dtos.ComparisonResponse;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonSummaryDTO;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonSummaryResponse;
 import com.example.lidarcbackend.api.comparison.dtos.CreateComparisonRequest;
 import com.example.lidarcbackend.exception.NotFoundException;
 import com.example.lidarcbackend.exception.ValidationException;
+import com.example.lidarcbackend.model.DTO.CollectionVersion;
 import com.example.lidarcbackend.model.DTO.CreateReportDto;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
 import com.example.lidarcbackend.model.DTO.ReportInfoDto;
 import com.example.lidarcbackend.service.comparisons.ChunkingSseService;
 import com.example.lidarcbackend.service.comparisons.IComparisonService;
+import com.example.lidarcbackend.service.comparisons.IComparisonSummaryService;
 import com.example.lidarcbackend.service.reports.IReportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -29,9 +39,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.nio.file.Paths;
@@ -43,29 +55,53 @@ import java.util.Optional;
 @Slf4j
 public class ComparisonController {
     private final IComparisonService comparisonService;
+    private final IComparisonSummaryService comparisonSummaryService;
     private final IReportService reportService;
     private final ChunkingSseService chunkingSseService;
+    private final ObjectMapper objectMapper;
     @Value("${app.upload.dir:uploads}")
     private String UPLOAD_DIRECTORY; //TODO: MAYBE CHANGE TO MINIO BUCKET IF WANTED
 
 
     @Autowired
-    public ComparisonController(IComparisonService comparisonService, IReportService reportService, ChunkingSseService chunkingSseService) {
+    public ComparisonController(IComparisonService comparisonService, IComparisonSummaryService comparisonSummaryService,
+                                IReportService reportService, ChunkingSseService chunkingSseService, ObjectMapper objectMapper) {
         this.comparisonService = comparisonService;
+        this.comparisonSummaryService = comparisonSummaryService;
         this.reportService = reportService;
         this.chunkingSseService = chunkingSseService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * The list endpoints share one ETag over all comparisons. A matching If-None-Match is answered with 304
+     * before any comparison is loaded, {@link WebRequest#checkNotModified} also sets the ETag of the response.
+     */
     @GetMapping("/all")
-    public ResponseEntity<List<ComparisonDTO>> getAllComparisons() {
+    public ResponseEntity<List<ComparisonDTO>> getAllComparisons(WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
         List<ComparisonDTO> comparisons = comparisonService.getAllComparisons();
         return ResponseEntity.ok(comparisons);
     }
 
+    /**
+     * Same content as {@link #getAllComparisons} as newline-delimited JSON, written while the comparisons are read.
+     */
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllComparisons() {
+        return NdjsonResponse.of(objectMapper, comparisonService::streamAllComparisons);
+    }
+
     @GetMapping("/paged")
     public ResponseEntity<ComparisonResponse> getPagedComparisons(
         @RequestParam(required = false) String search,
-        @Valid @ModelAttribute ComparisonRequest request) {
+        @Valid @ModelAttribute ComparisonRequest request,
+        WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
         Sort sort = request.isAscending() ?
             Sort.by(request.getSortBy()).ascending() :
             Sort.by(request.getSortBy()).descending();
@@ -82,8 +118,53 @@ public class ComparisonController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Paged comparison list read from the summary read model: name, status, latest report, file count,
+     * folder names and capture-year range, without the file details of {@link #getPagedComparisons}.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<ComparisonSummaryResponse> getComparisonSummaries(
+        @RequestParam(required = false) String search,
+        @Valid @ModelAttribute ComparisonRequest request,
+        WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
+        Sort sort = request.isAscending() ?
+            Sort.by(request.getSortBy()).ascending() :
+            Sort.by(request.getSortBy()).descending();
+
+        Page<ComparisonSummaryDTO> result = comparisonSummaryService.getSummaries(
+            PageRequest.of(request.getPage(), request.getSize(), sort), search);
+        return ResponseEntity.ok(new ComparisonSummaryResponse(
+            result.getContent(),
+            result.getTotalElements(),
+            result.getNumber(),
+            request.getSize()
+        ));
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<ComparisonDTO>> scrollComparisons(
+        @RequestParam(required = false) String search,
+        @Valid @ModelAttribute CursorRequest request,
+        WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok(comparisonService.scrollComparisons(request, search));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ComparisonDTO> getComparison(@PathVariable Long id) throws NotFoundException {
+    public ResponseEntity<ComparisonDTO> getComparison(@PathVariable Long id, WebRequest webRequest) throws NotFoundException {
+        Optional<Long> version = comparisonService.findComparisonVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        CollectionVersion[] embedded = comparisonService.getEmbeddedVersions(id).toArray(CollectionVersion[]::new);
+        if (webRequest.checkNotModified(ETags.ofEntity("comparison", id, version.get(), embedded))) {
+            return null;
+        }
         ComparisonDTO dto = comparisonService.getComparison(id);
         if (dto == null) {
             return ResponseEntity.notFound().build();
@@ -128,6 +209,18 @@ public class ComparisonController {
         }
     }
 
+    @PostMapping("/estimate")
+    public ResponseEntity<ComparisonEstimateDTO> estimateComparison(
+        @RequestBody @Valid CreateComparisonRequest request
+    ) throws ValidationException {
+        try {
+            return ResponseEntity.ok(comparisonService.estimateComparison(request, request.getFileMetadataIds()));
+        } catch (NotFoundException e) {
+            logClientError(HttpStatus.NOT_FOUND, "Files for comparison estimate not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteComparison(@PathVariable Long id) {
         try {
@@ -177,6 +270,10 @@ public class ComparisonController {
     }
 
 
+    private boolean isCollectionNotModified(WebRequest webRequest) {
+        return webRequest.checkNotModified(ETags.ofCollection("comparisons", comparisonService.getComparisonsVersion()));
+    }
+
     /**
      * Logs client-side errors with status, message, and exception details.
      *
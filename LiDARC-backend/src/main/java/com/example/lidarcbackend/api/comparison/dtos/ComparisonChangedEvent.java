@@ -0,0 +1,7 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+/**
+ * Published whenever a comparison, its files or its reports were written, so read models can be refreshed.
+ */
+public record ComparisonChangedEvent(Long comparisonId) {
+}
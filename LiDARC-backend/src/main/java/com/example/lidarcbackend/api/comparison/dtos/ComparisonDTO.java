@@ -47,6 +47,8 @@ public class ComparisonDTO {
 
     private Double outlierDeviationFactor;
 
+    private List<ComparisonPairDTO> pairs;
+
     public ComparisonDTO() {
 
     }
@@ -0,0 +1,25 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One acquisition (e.g. one flight year) of a multi-epoch comparison. Its files are preprocessed once and shared by
+ * every pair the epoch takes part in. The worker subtracts the alphabetically first epoch of a pair from the other,
+ * so names that sort chronologically (e.g. "2019", "2021") give time-series differences.
+ */
+@Getter
+@Setter
+public class ComparisonEpoch {
+    @NotBlank
+    private String name;
+
+    private Long folderId;
+
+    @NotEmpty
+    private List<Long> fileIds;
+}
@@ -0,0 +1,54 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+import com.example.lidarcbackend.model.DTO.BoundingBox;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of planning a comparison without persisting it. The covered fraction is the share of the AOI cells
+ * covered by every group, i.e. the cells that can actually be compared.
+ */
+@Getter
+@Setter
+public class ComparisonEstimateDTO {
+    private long cellCount;
+
+    private int preprocessingJobs;
+
+    private int reusedFiles;
+
+    private double coveredFraction;
+
+    private long estimatedPoints;
+
+    private long estimatedRuntimeSeconds;
+
+    private List<GroupEstimate> groups = new ArrayList<>();
+
+    private List<JobEstimate> jobs = new ArrayList<>();
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class GroupEstimate {
+        private String groupName;
+        private int includedFiles;
+        private int excludedFiles;
+        private double coveredFraction;
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class JobEstimate {
+        private String groupName;
+        private Long fileId;
+        private List<BoundingBox> bboxes;
+        private long cellCount;
+        private long estimatedPoints;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+import com.example.lidarcbackend.model.DTO.StartComparisonJobDto;
+
+public record ComparisonJobReadyEvent(StartComparisonJobDto job) {
+}
@@ -0,0 +1,24 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ComparisonPairDTO {
+    private String groupA;
+
+    private String groupB;
+
+    private String status;
+
+    private String resultBucket;
+
+    private String resultObjectKey;
+
+    private String errorMessage;
+}
@@ -0,0 +1,19 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+/**
+ * Which pairs of epochs a multi-epoch comparison produces difference outputs for.
+ */
+public enum ComparisonPairing {
+    /**
+     * Each epoch against the following one, in request order.
+     */
+    CONSECUTIVE,
+    /**
+     * The first epoch against every later one.
+     */
+    BASELINE,
+    /**
+     * Every epoch against every other one.
+     */
+    ALL_PAIRS
+}
@@ -2,6 +2,7 @@ package com.example.lidarcbackend.api.comparison.dtos;
 
 import com.example.lidarcbackend.model.DTO.StartPreProcessJobDto;
 import com.example.lidarcbackend.model.entity.ComparisonFile;
+import com.example.lidarcbackend.model.entity.ComparisonFileShard;
 import lombok.*;
 
 import java.util.ArrayList;
@@ -13,15 +14,30 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 public class ComparisonPlan {
+    @Builder.Default
     private List<ComparisonFile> filesToInclude = new ArrayList<>();
+    @Builder.Default
     private List<ComparisonFile> filesToExclude = new ArrayList<>();
+    @Builder.Default
     private List<StartPreProcessJobDto> jobsToStart = new ArrayList<>();
+    @Builder.Default
+    private List<ComparisonFileShard> shardsToSave = new ArrayList<>();
 
     public void addIncludedFile(ComparisonFile file, StartPreProcessJobDto job) {
         this.filesToInclude.add(file);
         this.jobsToStart.add(job);
     }
 
+    public void addReusedFile(ComparisonFile file) {
+        this.filesToInclude.add(file);
+    }
+
+    public void addShardedFile(ComparisonFile file, List<StartPreProcessJobDto> jobs, List<ComparisonFileShard> shards) {
+        this.filesToInclude.add(file);
+        this.jobsToStart.addAll(jobs);
+        this.shardsToSave.addAll(shards);
+    }
+
     public void addExcludedFile(ComparisonFile file) {
         this.filesToExclude.add(file);
     }
@@ -30,5 +46,6 @@ public class ComparisonPlan {
         this.filesToInclude.addAll(other.getFilesToInclude());
         this.filesToExclude.addAll(other.getFilesToExclude());
         this.jobsToStart.addAll(other.getJobsToStart());
+        this.shardsToSave.addAll(other.getShardsToSave());
     }
 }
@@ -0,0 +1,29 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class ComparisonSummaryDTO {
+    private Long id;
+
+    private String name;
+
+    private String status;
+
+    private LocalDateTime createdAt;
+
+    private String latestReport;
+
+    private int fileCount;
+
+    private List<String> folderNames;
+
+    private Short captureYearMin;
+
+    private Short captureYearMax;
+}
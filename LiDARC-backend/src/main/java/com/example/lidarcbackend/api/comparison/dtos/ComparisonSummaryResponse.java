@@ -0,0 +1,17 @@
+package com.example.lidarcbackend.api.comparison.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ComparisonSummaryResponse {
+    private List<ComparisonSummaryDTO> items;
+    private long totalItems;
+    private int page;
+    private int size;
+}
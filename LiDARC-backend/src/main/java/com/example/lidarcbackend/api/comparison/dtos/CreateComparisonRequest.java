@@ -38,6 +38,24 @@ public class CreateComparisonRequest {
 
     private Double outlierDeviationFactor;
 
+    /**
+     * Optional previous comparison of the same groups. Its files keep their regions and preprocessing results,
+     * only cells of added or removed files are preprocessed again.
+     */
+    private Long baseComparisonId;
+
+    /**
+     * Alternative to folder A / folder B for comparing more than two epochs on one grid. Every epoch is preprocessed
+     * once and the requested pairs are compared from those shared results, all tracked by this comparison.
+     */
+    @Valid
+    private List<ComparisonEpoch> epochs;
+
+    /**
+     * Pairs of epochs to produce difference outputs for, defaults to {@link ComparisonPairing#CONSECUTIVE}.
+     */
+    private ComparisonPairing pairing;
+
     @NotNull
     @Valid
     private GridParameters grid;
@@ -1,9 +1,13 @@
 package com.example.lidarcbackend.api.metadata;
 
+import com.example.lidarcbackend.api.ETags;
+import com.example.lidarcbackend.api.NdjsonResponse;
 import com.example.lidarcbackend.api.metadata.dtos.FolderFilesDTO;
 import com.example.lidarcbackend.api.metadata.dtos.*;
 import com.example.lidarcbackend.exception.BadRequestException;
 import com.example.lidarcbackend.exception.NotFoundException;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
 import com.example.lidarcbackend.service.files.CoordinateSystemService;
 import com.example.lidarcbackend.service.files.MetadataService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,12 +21,16 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import io.swagger.v3.oas.annotations.Parameter;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/metadata")
@@ -46,20 +54,28 @@ class MetadataApiController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<FileMetadataDTO> getMetadataById(@PathVariable Long id) {
-        if (!metadataService.existsWithId(id)) {
+    public ResponseEntity<FileMetadataDTO> getMetadataById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<Long> version = metadataService.findMetadataVersion(id);
+        if (version.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        if (webRequest.checkNotModified(ETags.ofEntity("metadata", id, version.get()))) {
+            return null;
+        }
         return ResponseEntity.ok(metadataService.GetMetadata(id.toString()));
     }
 
     /**
-     * List all file metadata without a folder
+     * List all file metadata without a folder. Like all metadata listings, answers with 304 if the
+     * If-None-Match header still matches the version of all files and folders.
      *
      * @return list of metadata
      */
     @GetMapping("/unassigned/all")
-    public ResponseEntity<List<FileMetadataDTO>> getAllMetadataWithoutFolder() {
+    public ResponseEntity<List<FileMetadataDTO>> getAllMetadataWithoutFolder(WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
         try {
             List<FileMetadataDTO> metadata = metadataService.getAllMetadataWithoutFolder();
             List<FileMetadataDTO> content = metadata.stream()
@@ -72,6 +88,16 @@ class MetadataApiController {
         }
     }
 
+    /**
+     * Stream all file metadata without a folder as newline-delimited JSON
+     *
+     * @return one metadata object per line, newest upload first
+     */
+    @GetMapping(value = "/unassigned/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllMetadataWithoutFolder() {
+        return NdjsonResponse.of(objectMapper, metadataService::streamAllMetadataWithoutFolder);
+    }
+
     /**
      * List metadata without folder paged
      *
@@ -82,7 +108,11 @@ class MetadataApiController {
     @GetMapping("/unassigned/paged")
     public ResponseEntity<MetadataResponse> getPagedMetadataWithoutFolder(
             @RequestParam(required = false) String search,
-            @Valid @ModelAttribute MetadataRequest request) {
+            @Valid @ModelAttribute MetadataRequest request,
+            WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
         try {
             Sort sort = request.isAscending() ?
                     Sort.by(request.getSortBy()).ascending() :
@@ -106,8 +136,28 @@ class MetadataApiController {
         }
     }
 
+    /**
+     * List metadata without folder with keyset pagination, ordered by upload time
+     *
+     * @param request CursorRequest(cursor, size, ascending, includeTotal)
+     * @return page of metadata with the cursor of the following page
+     */
+    @GetMapping("/unassigned/scroll")
+    public ResponseEntity<CursorPageDto<FileMetadataDTO>> scrollMetadataWithoutFolder(
+            @RequestParam(required = false) String search,
+            @Valid @ModelAttribute CursorRequest request,
+            WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok(metadataService.scrollMetadataWithoutFolder(request, search));
+    }
+
     @GetMapping("/assigned/grouped-by-folder/all")
-    public ResponseEntity<List<FolderFilesDTO>> getMetadataGroupedByFolder() {
+    public ResponseEntity<List<FolderFilesDTO>> getMetadataGroupedByFolder(WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
         try {
             return ResponseEntity.ok(metadataService.getMetadataGroupedByFolder());
         } catch (Exception e) {
@@ -116,12 +166,21 @@ class MetadataApiController {
         }
     }
 
+    @GetMapping(value = "/assigned/grouped-by-folder/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMetadataGroupedByFolder() {
+        return NdjsonResponse.of(objectMapper, metadataService::streamMetadataGroupedByFolder);
+    }
+
     //TODO Filter items for only active items
     @GetMapping("/all/grouped-by-folder/paged")
     public ResponseEntity<ComparableResponse> getAllMetadataGroupedByFolderPaged(
             @RequestParam(required = false) String search,
-            @Valid @ModelAttribute ComparableRequest request
+            @Valid @ModelAttribute ComparableRequest request,
+            WebRequest webRequest
     ) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
         try {
             Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), Sort.unsorted());
             Page<ComparableItemDTO> result = metadataService.getAllMetadataGroupedByFolderPaged(pageable, search);
@@ -137,6 +196,17 @@ class MetadataApiController {
         }
     }
 
+    @GetMapping("/all/grouped-by-folder/scroll")
+    public ResponseEntity<CursorPageDto<ComparableItemDTO>> scrollAllMetadataGroupedByFolder(
+            @RequestParam(required = false) String search,
+            @Valid @ModelAttribute CursorRequest request,
+            WebRequest webRequest) {
+        if (isCollectionNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok(metadataService.scrollComparables(request, search));
+    }
+
     /**
      * Delete metadata by ID
      *
@@ -171,4 +241,9 @@ class MetadataApiController {
         metadataService.assignFolder(metadataIds, folderId);
         return ResponseEntity.noContent().build();
     }
+
+    private boolean isCollectionNotModified(WebRequest webRequest) {
+        List<Long> versions = metadataService.getMetadataVersions();
+        return webRequest.checkNotModified(ETags.ofCollection("metadata", versions.toArray(Long[]::new)));
+    }
 }
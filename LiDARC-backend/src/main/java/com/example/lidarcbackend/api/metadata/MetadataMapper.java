@@ -1,6 +1,7 @@
 package com.example.lidarcbackend.api.metadata;
 
 import com.example.lidarcbackend.api.metadata.dtos.FileMetadataDTO;
+import com.example.lidarcbackend.api.metadata.dtos.FileMetadataProjection;
 import com.example.lidarcbackend.model.entity.File;
 import org.springframework.stereotype.Component;
 
@@ -41,13 +42,51 @@ public class MetadataMapper {
         dto.setActive(entity.getActive());
 
         if (entity.getCoordinateSystem() != null) {
-            String authority = entity.getCoordinateSystem().getAuthority();
-            String code = entity.getCoordinateSystem().getCode();
-            if (authority != null && code != null) {
-                dto.setCoordinateSystem(authority + ":" + code);
-            }
+            dto.setCoordinateSystem(formatCoordinateSystem(
+                entity.getCoordinateSystem().getAuthority(), entity.getCoordinateSystem().getCode()));
         }
 
         return dto;
     }
+
+    public FileMetadataDTO toDto(FileMetadataProjection row) {
+        if (row == null) {
+            return null;
+        }
+
+        FileMetadataDTO dto = new FileMetadataDTO();
+
+        dto.setId(row.id());
+        dto.setFilename(row.filename());
+        dto.setOriginalFilename(row.originalFilename());
+        dto.setCaptureYear(row.captureYear());
+        dto.setSizeBytes(row.sizeBytes());
+
+        dto.setMinX(row.minX());
+        dto.setMinY(row.minY());
+        dto.setMinZ(row.minZ());
+
+        dto.setMaxX(row.maxX());
+        dto.setMaxY(row.maxY());
+        dto.setMaxZ(row.maxZ());
+
+        dto.setSystemIdentifier(row.systemIdentifier());
+        dto.setLasVersion(row.lasVersion());
+        dto.setCaptureSoftware(row.captureSoftware());
+        dto.setUploaded(row.uploaded());
+        dto.setFileCreationDate(row.fileCreationDate());
+        dto.setPointCount(row.pointCount());
+        dto.setUploadedAt(row.uploadedAt());
+        dto.setStatus(row.status().toString());
+        dto.setFolderId(row.folderId());
+        dto.setErrorMessage(row.errorMsg());
+        dto.setActive(row.active());
+        dto.setCoordinateSystem(formatCoordinateSystem(row.coordinateSystemAuthority(), row.coordinateSystemCode()));
+
+        return dto;
+    }
+
+    private static String formatCoordinateSystem(String authority, String code) {
+        return authority != null && code != null ? authority + ":" + code : null;
+    }
 }
@@ -0,0 +1,10 @@
+package com.example.lidarcbackend.api.metadata.dtos;
+
+/**
+ * Comparable row with its keyset position: the sort timestamp in microseconds since the epoch and a key that is
+ * unique across folders and files (folder id, or negated file id).
+ */
+public interface ComparableKeysetProjection extends ComparableProjection {
+    Long getSortMicros();
+    Long getItemKey();
+}
@@ -0,0 +1,38 @@
+package com.example.lidarcbackend.api.metadata.dtos;
+
+import com.example.lidarcbackend.model.entity.File;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * The columns of {@link FileMetadataDTO} read by a constructor expression, with the coordinate system joined in.
+ * Listing metadata this way neither hydrates {@link File} entities nor registers them for dirty checking.
+ */
+public record FileMetadataProjection(
+    Long id,
+    String filename,
+    String originalFilename,
+    Short captureYear,
+    Long sizeBytes,
+    Double minX,
+    Double minY,
+    Double minZ,
+    Double maxX,
+    Double maxY,
+    Double maxZ,
+    String systemIdentifier,
+    String lasVersion,
+    String captureSoftware,
+    Boolean uploaded,
+    LocalDate fileCreationDate,
+    Long pointCount,
+    Instant uploadedAt,
+    File.FileStatus status,
+    Long folderId,
+    String coordinateSystemAuthority,
+    String coordinateSystemCode,
+    String errorMsg,
+    Boolean active
+) {
+}
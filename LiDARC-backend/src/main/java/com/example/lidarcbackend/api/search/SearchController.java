@@ -0,0 +1,43 @@
+package com.example.lidarcbackend.api.search;
+
+import com.example.lidarcbackend.api.search.dtos.SearchHitDTO;
+import com.example.lidarcbackend.api.search.dtos.SearchType;
+import com.example.lidarcbackend.service.search.ISearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/search")
+@Slf4j
+public class SearchController {
+    private final ISearchService searchService;
+
+    @Autowired
+    public SearchController(ISearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * Ranked name search across comparisons, files, folders and reports
+     *
+     * @param q     search text, matched as exact name, prefix, substring or fuzzy (typo tolerant)
+     * @param types restricts the search to these types, all types if omitted
+     * @param limit maximum number of hits
+     * @return hits ordered by descending score
+     */
+    @GetMapping
+    public ResponseEntity<List<SearchHitDTO>> search(
+        @RequestParam String q,
+        @RequestParam(required = false) Set<SearchType> types,
+        @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(searchService.search(q, types, limit));
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.lidarcbackend.api.search.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHitDTO {
+    private SearchType type;
+
+    private Long id;
+
+    private String label;
+
+    /**
+     * Exact matches score above prefix matches, which score above substring and fuzzy matches.
+     */
+    private double score;
+}
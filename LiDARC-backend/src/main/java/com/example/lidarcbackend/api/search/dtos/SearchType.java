@@ -0,0 +1,8 @@
+package com.example.lidarcbackend.api.search.dtos;
+
+public enum SearchType {
+    COMPARISON,
+    FILE,
+    FOLDER,
+    REPORT
+}
@@ -0,0 +1,28 @@
+package com.example.lidarcbackend.configuration;
+
+/**
+ * Names of the Hibernate second-level cache regions. Every region needs bounds under {@code app.cache.regions}.
+ */
+public final class CacheRegions {
+
+    public static final String COORDINATE_SYSTEMS = "coordinate-systems";
+    public static final String FOLDERS = "folders";
+    public static final String FOLDER_FILES = "folder-files";
+    public static final String FILES = "files";
+    /**
+     * Filename to id of {@link com.example.lidarcbackend.model.entity.File}, used by the natural id lookups.
+     */
+    public static final String FILE_NAMES = "file-names";
+    /**
+     * Results of cacheable queries, only the ids are stored and the entities are read from their own regions.
+     */
+    public static final String QUERY_RESULTS = "default-query-results-region";
+    /**
+     * Last write per table, cached query results older than a write to one of their tables are discarded.
+     * Must not expire before the query results.
+     */
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    private CacheRegions() {
+    }
+}
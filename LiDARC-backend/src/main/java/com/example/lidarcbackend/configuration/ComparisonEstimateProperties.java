@@ -0,0 +1,20 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throughput figures used to predict the runtime of a comparison before it is created.
+ * The prediction is points / pointsPerSecond plus a fixed overhead per job, divided by the worker concurrency.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.comparison.estimate")
+@Getter
+@Setter
+public class ComparisonEstimateProperties {
+    private double pointsPerSecond = 1_000_000;
+    private double jobOverheadSeconds = 2.0;
+    private int workerConcurrency = 1;
+}
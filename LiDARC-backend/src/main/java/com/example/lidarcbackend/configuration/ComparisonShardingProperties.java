@@ -0,0 +1,22 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Controls when a single file is split into several preprocessing jobs.
+ * A file is sharded if its point count or byte size exceeds the threshold, the shards are aligned to square
+ * tiles of {@code tileCells} x {@code tileCells} grid cells.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.comparison.sharding")
+@Getter
+@Setter
+public class ComparisonShardingProperties {
+    private boolean enabled = true;
+    private long pointThreshold = 50_000_000L;
+    private long byteThreshold = 1_073_741_824L;
+    private long tileCells = 500;
+}
@@ -0,0 +1,22 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Relay of the worker job outbox. Up to {@code batchSize} messages are published at once and confirmed by the
+ * broker within {@code confirmTimeout}, sent messages are deleted once they are older than {@code retention}.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.outbox")
+@Getter
+@Setter
+public class OutboxProperties {
+    private int batchSize = 200;
+    private Duration confirmTimeout = Duration.ofSeconds(10);
+    private Duration retention = Duration.ofDays(1);
+}
@@ -1,8 +1,10 @@
 package com.example.lidarcbackend.configuration;
 
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -61,6 +63,8 @@ public class RabbitConfig {
     public static final String WORKER_COMPARISON_RESULT_ROUTING_KEY = "worker.comparison.result";
     public static final String WORKER_CHUNKING_COMPARISON_RESULT_ROUTING_KEY = "worker.chunking.comparison.result";
 
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchListenerContainerFactory";
+
 
 
 
@@ -78,4 +82,23 @@ public class RabbitConfig {
         return template;
     }
 
+    /**
+     * Listener containers that hand the listener a list of messages. The whole list is acknowledged after the listener
+     * returns, or rejected and redelivered if it throws. The prefetch has to cover a full batch.
+     */
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            WorkerResultBatchProperties batchProperties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchProperties.getSize());
+        factory.setReceiveTimeout(batchProperties.getReceiveTimeout().toMillis());
+        factory.setPrefetchCount(Math.max(batchProperties.getSize(), batchProperties.getPrefetch()));
+        return factory;
+    }
+
 }
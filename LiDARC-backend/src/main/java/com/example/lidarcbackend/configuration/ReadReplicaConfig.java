@@ -0,0 +1,73 @@
+package com.example.lidarcbackend.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to a streaming replica, everything else keeps using the primary from
+ * {@code spring.datasource}. Without {@code app.datasource.replica.enabled} the auto-configured datasource is used.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties, ReadReplicaProperties replica) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .driverClassName(dataSourceProperties.determineDriverClassName())
+            .url(replica.getUrl())
+            .username(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername())
+            .password(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword())
+            .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(@Qualifier("primaryDataSource") DataSource primary,
+                                           @Qualifier("replicaDataSource") DataSource replica) {
+        return new ReplicaLagGuard(primary, replica);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, ReplicaLagGuard replicaLagGuard) {
+        return new LazyConnectionDataSourceProxy(new TransactionRoutingDataSource(primary, replicaLagGuard));
+    }
+
+    /**
+     * With open-in-view one session spans the request, and it would otherwise keep the connection of its first
+     * transaction, so a write after a read-only transaction would end up on the replica.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer connectionPerTransactionCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streaming replica that serves read-only transactions. Username and password default to those of the primary,
+ * the pool is configured under {@code app.datasource.replica.hikari}.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.datasource.replica")
+@Getter
+@Setter
+public class ReadReplicaProperties {
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+}
@@ -0,0 +1,77 @@
+package com.example.lidarcbackend.configuration;
+
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps read-only transactions on the primary while the replica has not yet replayed a write that clients read back
+ * right away. After a comparison changed, e.g. it was created or a report was added, the WAL position of the primary
+ * is recorded on commit, and the replica serves reads again once its replay position has passed it.
+ * Other writes do not wait for the replica, so the status updates of the workers do not pull the reads back to the primary.
+ */
+@Slf4j
+public class ReplicaLagGuard {
+
+    private static final String PRIMARY_LSN_SQL = "SELECT CAST(pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0') AS BIGINT)";
+    // NULL if the server is not in recovery, it then has no replication lag
+    private static final String REPLAY_LSN_SQL = "SELECT CAST(pg_wal_lsn_diff(pg_last_wal_replay_lsn(), '0/0') AS BIGINT)";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final AtomicLong requiredLsn = new AtomicLong();
+    private final AtomicLong replayedLsn = new AtomicLong();
+
+    public ReplicaLagGuard(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    /**
+     * Reads issued from now on go to the primary until the replica has replayed everything committed so far.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onComparisonChanged(ComparisonChangedEvent event) {
+        try {
+            requiredLsn.accumulateAndGet(queryLsn(primary, PRIMARY_LSN_SQL), Math::max);
+        } catch (SQLException e) {
+            log.warn("Could not read the WAL position of the primary, reads may not see the latest write", e);
+        }
+    }
+
+    /**
+     * The replica if it has replayed the required position, otherwise the primary. The replay position is only
+     * queried while a required position is outstanding.
+     */
+    DataSource readDataSource() {
+        long required = requiredLsn.get();
+        if (required <= replayedLsn.get()) {
+            return replica;
+        }
+        try {
+            replayedLsn.accumulateAndGet(queryLsn(replica, REPLAY_LSN_SQL), Math::max);
+        } catch (SQLException e) {
+            log.warn("Could not read the replay position of the replica, reading from the primary", e);
+            return primary;
+        }
+        return required <= replayedLsn.get() ? replica : primary;
+    }
+
+    private static long queryLsn(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            long lsn = resultSet.getLong(1);
+            return resultSet.wasNull() ? Long.MAX_VALUE : lsn;
+        }
+    }
+}
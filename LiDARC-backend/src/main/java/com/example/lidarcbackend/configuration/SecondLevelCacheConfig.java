@@ -0,0 +1,47 @@
+package com.example.lidarcbackend.configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * In-process Caffeine caches behind the Hibernate second-level cache, created up front with the bounds of
+ * {@link SecondLevelCacheProperties}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public CacheManager secondLevelCacheManager(SecondLevelCacheProperties properties) {
+        // A URI of its own per context, the provider would otherwise share one manager between application contexts
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("lidarc-second-level-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        properties.getRegions().forEach((name, region) -> {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(region.getMaxSize()));
+            if (region.getTtl() != null) {
+                configuration.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+            }
+            // Hibernate stores immutable cache entries, copying them on every access would only cost time
+            configuration.setStoreByValue(false);
+            configuration.setNativeStatisticsEnabled(true);
+            cacheManager.createCache(name, configuration);
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounds of the second-level cache regions, keyed by the names in {@link CacheRegions}.
+ * Entries are evicted once a region holds {@code maxSize} entries and expire {@code ttl} after they were written,
+ * a region without ttl only evicts by size.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.cache")
+@Getter
+@Setter
+public class SecondLevelCacheProperties {
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maxSize = 10_000;
+        private Duration ttl;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.lidarcbackend.configuration;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out replica connections inside read-only transactions, as far as the {@link ReplicaLagGuard} allows,
+ * and primary connections everywhere else. Has to sit behind a lazy connection proxy, the transaction manager
+ * fetches the connection before the transaction is marked read-only.
+ */
+class TransactionRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaLagGuard replicaLagGuard;
+
+    TransactionRoutingDataSource(DataSource primary, ReplicaLagGuard replicaLagGuard) {
+        this.primary = primary;
+        this.replicaLagGuard = replicaLagGuard;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return determineTarget().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTarget().getConnection(username, password);
+    }
+
+    private DataSource determineTarget() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            ? replicaLagGuard.readDataSource()
+            : primary;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Inbox of the worker results. The last {@code cacheSize} processed results, at most {@code cacheTtl} old, are
+ * recognized in memory, older ones by their row in inbox_message, which is kept for {@code retention}.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.worker.inbox")
+@Getter
+@Setter
+public class WorkerInboxProperties {
+    private long cacheSize = 100_000;
+    private Duration cacheTtl = Duration.ofHours(6);
+    private Duration retention = Duration.ofDays(7);
+}
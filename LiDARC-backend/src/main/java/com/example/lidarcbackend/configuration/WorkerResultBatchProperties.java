@@ -0,0 +1,24 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Batching of the preprocessing and metadata result queues. The listener receives up to {@code size} messages at
+ * once, or fewer if no further message arrives within {@code receiveTimeout}. A size of 1 handles every message on
+ * its own. Up to {@code prefetch} unacknowledged messages are held per consumer, redelivering them after a crash
+ * is harmless because the inbox drops results that were already processed.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.worker.result-batch")
+@Getter
+@Setter
+public class WorkerResultBatchProperties {
+    private int size = 50;
+    private Duration receiveTimeout = Duration.ofMillis(500);
+    private int prefetch = 500;
+}
@@ -0,0 +1,20 @@
+package com.example.lidarcbackend.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Concurrency of the worker result listeners. Every result queue is read by {@code consumers} consumers, and the
+ * results are handed to {@code count} ordered lanes by comparison or folder, so different comparisons progress in
+ * parallel while the results of one comparison are never handled at the same time.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.worker.result-lanes")
+@Getter
+@Setter
+public class WorkerResultLaneProperties {
+    private int count = 16;
+    private int consumers = 4;
+}
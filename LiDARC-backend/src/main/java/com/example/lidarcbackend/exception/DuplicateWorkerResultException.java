@@ -0,0 +1,11 @@
+package com.example.lidarcbackend.exception;
+
+/**
+ * Thrown at commit when another transaction already recorded some of the worker results as processed. The
+ * transaction rolls back and the listener rejects the messages, the redelivered duplicates are dropped by the inbox.
+ */
+public class DuplicateWorkerResultException extends RuntimeException {
+    public DuplicateWorkerResultException(String message) {
+        super(message);
+    }
+}
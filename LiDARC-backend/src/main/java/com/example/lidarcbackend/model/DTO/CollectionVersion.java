@@ -0,0 +1,13 @@
+package com.example.lidarcbackend.model.DTO;
+
+/**
+ * Version of a set of rows, read with one aggregate query.
+ * Inserts raise the highest id, deletes lower the count and updates raise the sum of the row versions,
+ * so any change of the rows yields a different value.
+ *
+ * @param count      number of rows
+ * @param maxId      highest id, null for no rows
+ * @param versionSum sum of all row versions, null for no rows
+ */
+public record CollectionVersion(Long count, Long maxId, Long versionSum) {
+}
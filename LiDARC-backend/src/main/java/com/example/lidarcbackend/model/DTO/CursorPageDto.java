@@ -0,0 +1,26 @@
+package com.example.lidarcbackend.model.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items;
+
+    /**
+     * Opaque token for the following page, null on the last page.
+     */
+    private String nextCursor;
+
+    /**
+     * Number of all matching items, only set if requested.
+     */
+    private Long totalItems;
+}
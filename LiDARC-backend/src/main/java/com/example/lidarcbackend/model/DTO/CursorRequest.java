@@ -0,0 +1,28 @@
+package com.example.lidarcbackend.model.DTO;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Request for one page of a keyset-paginated listing. The first page is requested without a cursor, every
+ * following page with the {@code nextCursor} of the previous response.
+ */
+@Getter
+@Setter
+public class CursorRequest {
+
+    private String cursor;
+
+    @Min(value = 1, message = "Page size must be greater than zero")
+    @Max(value = 100, message = "Page size cannot exceed 100")
+    private Integer size = 20;
+
+    private boolean ascending = false;
+
+    /**
+     * Counting all matches costs a full scan, so the total is only computed on request.
+     */
+    private boolean includeTotal = false;
+}
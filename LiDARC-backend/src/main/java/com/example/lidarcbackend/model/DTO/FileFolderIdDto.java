@@ -0,0 +1,10 @@
+package com.example.lidarcbackend.model.DTO;
+
+/**
+ * Folder of a file, looked up by the file name the workers report.
+ *
+ * @param filename the unique file name
+ * @param folderId id of the folder, null if the file is not in a folder
+ */
+public record FileFolderIdDto(String filename, Long folderId) {
+}
@@ -1,5 +1,6 @@
 package com.example.lidarcbackend.model.DTO;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -10,6 +11,7 @@ import java.util.List;
 @Getter
 @Setter
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class StartComparisonJobDto {
     @NotNull
     private String jobId;
@@ -18,4 +20,16 @@ public class StartComparisonJobDto {
     private String comparisonId;
 
     private List<ComparisonWorkerInputFileDto> files;
+
+    /**
+     * Direction of the differences, the worker computes groupB - groupA. Without it the worker orders the group
+     * names of the files alphabetically.
+     */
+    private String groupA;
+
+    private String groupB;
+
+    public StartComparisonJobDto(String jobId, String comparisonId, List<ComparisonWorkerInputFileDto> files) {
+        this(jobId, comparisonId, files, null, null);
+    }
 }
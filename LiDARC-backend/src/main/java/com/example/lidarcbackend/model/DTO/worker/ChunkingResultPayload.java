@@ -0,0 +1,18 @@
+package com.example.lidarcbackend.model.DTO.worker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * With cached set the worker already wrote the result to Redis, otherwise the result fields are in the message.
+ * They are only forwarded to the cache, so they are kept as raw JSON.
+ */
+public record ChunkingResultPayload(
+    Long comparisonId,
+    Integer chunkSize,
+    Boolean cached,
+    @JsonProperty("chunked_cells") RawJson chunkedCells,
+    RawJson statistics,
+    @JsonProperty("group_mapping") RawJson groupMapping,
+    @JsonProperty("statistics_p") RawJson statisticsP
+) {
+}
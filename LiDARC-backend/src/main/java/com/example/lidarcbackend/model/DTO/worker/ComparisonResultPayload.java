@@ -0,0 +1,8 @@
+package com.example.lidarcbackend.model.DTO.worker;
+
+public record ComparisonResultPayload(
+    Long comparisonId,
+    String msg,
+    ResultLocation result
+) {
+}
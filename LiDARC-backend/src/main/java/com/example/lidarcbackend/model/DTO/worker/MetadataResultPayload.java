@@ -0,0 +1,28 @@
+package com.example.lidarcbackend.model.DTO.worker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record MetadataResultPayload(
+    @JsonProperty("file_name") String fileName,
+    String msg,
+    Metadata metadata
+) {
+
+    public record Metadata(
+        @JsonProperty("las_version") String lasVersion,
+        @JsonProperty("capture_software") String captureSoftware,
+        @JsonProperty("system_identifier") String systemIdentifier,
+        @JsonProperty("coordinate_system") String coordinateSystem,
+        @JsonProperty("capture_year") Integer captureYear,
+        @JsonProperty("size_bytes") Long sizeBytes,
+        @JsonProperty("min_x") Double minX,
+        @JsonProperty("min_y") Double minY,
+        @JsonProperty("min_z") Double minZ,
+        @JsonProperty("max_x") Double maxX,
+        @JsonProperty("max_y") Double maxY,
+        @JsonProperty("max_z") Double maxZ,
+        @JsonProperty("point_count") Long pointCount,
+        @JsonProperty("file_creation_date") String fileCreationDate
+    ) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.lidarcbackend.model.DTO.worker;
+
+public record PreprocessingResultPayload(
+    Long comparisonId,
+    Long fileId,
+    String msg,
+    ResultLocation result
+) {
+}
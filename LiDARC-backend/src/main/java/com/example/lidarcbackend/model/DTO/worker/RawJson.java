@@ -0,0 +1,32 @@
+package com.example.lidarcbackend.model.DTO.worker;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * A JSON value that is passed through unchanged. Reading copies the tokens of the value into a string without
+ * creating maps or lists for it, writing emits the string as is.
+ */
+@JsonDeserialize(using = RawJson.Deserializer.class)
+public record RawJson(@JsonValue @JsonRawValue String json) {
+
+    static class Deserializer extends JsonDeserializer<RawJson> {
+
+        @Override
+        public RawJson deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            StringWriter json = new StringWriter();
+            try (JsonGenerator generator = parser.getCodec().getFactory().createGenerator(json)) {
+                generator.copyCurrentStructure(parser);
+            }
+            return new RawJson(json.toString());
+        }
+    }
+}
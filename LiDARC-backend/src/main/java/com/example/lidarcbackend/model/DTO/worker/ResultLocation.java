@@ -0,0 +1,7 @@
+package com.example.lidarcbackend.model.DTO.worker;
+
+/**
+ * MinIO object a worker wrote its result to.
+ */
+public record ResultLocation(String bucket, String objectKey) {
+}
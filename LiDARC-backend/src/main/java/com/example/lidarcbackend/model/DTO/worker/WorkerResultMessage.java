@@ -0,0 +1,18 @@
+package com.example.lidarcbackend.model.DTO.worker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Envelope of every message on the worker result queues. The payload type is chosen by the listener method of the
+ * queue, so the message converter binds the JSON straight into it without building a map first.
+ */
+public record WorkerResultMessage<P>(
+    String status,
+    @JsonProperty("job_id") String jobId,
+    P payload
+) {
+
+    public boolean isSuccess() {
+        return "success".equalsIgnoreCase(status);
+    }
+}
@@ -16,7 +16,8 @@ import java.util.List;
 @AllArgsConstructor
 public class Comparison {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comparisons_id_seq")
+    @SequenceGenerator(name = "comparisons_id_seq", sequenceName = "comparisons_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name")
@@ -82,6 +83,14 @@ public class Comparison {
     @Column(name = "outlier_deviation_factor")
     private Double outlierDeviationFactor;
 
+    /**
+     * Incremented by the database on every update of the comparison and whenever its pairs or reports change,
+     * so the ETag of the comparison endpoints only depends on this column. Read-only, it is no optimistic lock:
+     * worker results and status updates write comparisons concurrently.
+     */
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
     public enum Status {
         PREPROCESSING,
         COMPARING,
@@ -35,6 +35,22 @@ public class ComparisonFile {
     @Column(name = "error_msg")
     private String errorMsg;
 
+    @Column(name = "input_hash")
+    private String inputHash;
+
+    /**
+     * Set once the file took a reference on the registered result of its input hash, only such files release one.
+     */
+    @Builder.Default
+    @Column(name = "holds_reference", nullable = false)
+    private boolean holdsReference = false;
+
+    /**
+     * Position of the file in its group during planning, earlier files claim overlapping cells first.
+     */
+    @Column(name = "claim_order")
+    private Integer claimOrder;
+
     @Column(name = "status", nullable = false)
     @Enumerated(EnumType.STRING)
     private Status status;
@@ -0,0 +1,60 @@
+package com.example.lidarcbackend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * One preprocessing job of a file that was split into grid-aligned tiles.
+ * The owning {@link ComparisonFile} is only completed once all of its shards are.
+ */
+@Entity
+@Table(name = "comparison_file_shard")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ComparisonFileShard {
+
+    @Id
+    @Column(name = "job_id")
+    private UUID jobId;
+
+    @Column(name = "comparison_id", nullable = false)
+    private Long comparisonId;
+
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+
+    @Column(name = "bucket")
+    private String bucket;
+
+    @Column(name = "object_key")
+    private String objectKey;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ComparisonFile.Status status;
+
+    @Column(name = "error_msg")
+    private String errorMsg;
+
+    /**
+     * Set when the shard reuses a registered preprocessing result instead of running a job.
+     */
+    @Column(name = "input_hash")
+    private String inputHash;
+
+    /**
+     * Set once the shard took a reference on the registered result of its input hash, only such shards release one.
+     */
+    @Builder.Default
+    @Column(name = "holds_reference", nullable = false)
+    private boolean holdsReference = false;
+}
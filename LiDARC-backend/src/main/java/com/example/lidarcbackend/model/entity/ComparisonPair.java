@@ -0,0 +1,64 @@
+package com.example.lidarcbackend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * Difference output between two epochs of a multi-epoch comparison, computed by its own comparison job from the
+ * preprocessing results shared by all pairs. The comparison is completed once all of its pairs are.
+ */
+@Entity
+@Table(name = "comparison_pair")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ComparisonPair {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comparison_pair_id_seq")
+    @SequenceGenerator(name = "comparison_pair_id_seq", sequenceName = "comparison_pair_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "comparison_id", nullable = false)
+    private Long comparisonId;
+
+    @Column(name = "pair_order", nullable = false)
+    private Integer pairOrder;
+
+    @Column(name = "group_a", nullable = false)
+    private String groupA;
+
+    @Column(name = "group_b", nullable = false)
+    private String groupB;
+
+    @Column(name = "job_id")
+    private UUID jobId;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(name = "result_bucket")
+    private String resultBucket;
+
+    @Column(name = "result_object_key")
+    private String resultObjectKey;
+
+    @Column(name = "error_msg")
+    private String errorMsg;
+
+    public enum Status {
+        PENDING,
+        COMPARING,
+        COMPLETED,
+        FAILED
+    }
+}
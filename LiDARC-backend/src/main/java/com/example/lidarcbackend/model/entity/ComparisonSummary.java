@@ -0,0 +1,60 @@
+package com.example.lidarcbackend.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One narrow row per comparison with everything the comparison list shows. The row is only written by
+ * {@link com.example.lidarcbackend.repository.ComparisonSummaryRepository#refresh}, never through the entity.
+ */
+@Entity
+@Immutable
+@Table(name = "comparison_summary")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ComparisonSummary {
+
+    @Id
+    @Column(name = "comparison_id")
+    private Long id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "latest_report_id")
+    private Long latestReportId;
+
+    @Column(name = "file_count", nullable = false)
+    private Integer fileCount;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "folder_names")
+    private List<String> folderNames;
+
+    @Column(name = "capture_year_min")
+    private Short captureYearMin;
+
+    @Column(name = "capture_year_max")
+    private Short captureYearMax;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
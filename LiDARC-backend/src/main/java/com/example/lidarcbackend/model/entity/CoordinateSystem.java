@@ -1,23 +1,31 @@
 package com.example.lidarcbackend.model.entity;
 
+import com.example.lidarcbackend.configuration.CacheRegions;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 @Entity
 @Getter
 @Setter
 @Table(name = "coordinate_system")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.COORDINATE_SYSTEMS)
 public class CoordinateSystem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coordinate_system_id_seq")
+    @SequenceGenerator(name = "coordinate_system_id_seq", sequenceName = "coordinate_system_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Authority is required")
@@ -1,5 +1,6 @@
 package com.example.lidarcbackend.model.entity;
 
+import com.example.lidarcbackend.configuration.CacheRegions;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -8,8 +9,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -20,15 +25,19 @@ import java.util.Set;
 
 @Entity
 @Table(name = "files")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.FILES)
+@NaturalIdCache(region = CacheRegions.FILE_NAMES)
 @Getter
 @Setter
 @Builder
 @AllArgsConstructor
 public class File {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "files_id_seq")
+    @SequenceGenerator(name = "files_id_seq", sequenceName = "files_id_seq", allocationSize = 50)
     private Long id;
 
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String filename;
 
@@ -104,6 +113,13 @@ public class File {
     @Column(name = "active")
     private Boolean active;
 
+    /**
+     * Incremented by the database on every update, also by bulk updates, and used for the ETags of the metadata
+     * endpoints. Read-only, it is no optimistic lock.
+     */
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
     public boolean isFinalized() {
         return this.status == FileStatus.FAILED || this.status == FileStatus.PROCESSED;
     }
@@ -1,5 +1,6 @@
 package com.example.lidarcbackend.model.entity;
 
+import com.example.lidarcbackend.configuration.CacheRegions;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -16,11 +17,14 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 @Entity
 @Table(name = "folders")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.FOLDERS)
 @Getter
 @Setter
 @Builder
@@ -41,12 +45,16 @@ public class Folder {
   private String status;
 
   @OneToMany(mappedBy = "folder")
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.FOLDER_FILES)
   private List<File> files;
 
   @ColumnDefault("true")
   @Column(name = "active")
   private Boolean active;
 
+  @Column(name = "version", insertable = false, updatable = false)
+  private Long version;
+
   public boolean isFinalized() {
      return Objects.equals(this.status, "FAILED") || Objects.equals(this.status, "PROCESSED");
   }
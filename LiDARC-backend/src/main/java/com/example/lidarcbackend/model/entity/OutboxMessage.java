@@ -0,0 +1,48 @@
+package com.example.lidarcbackend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Worker job written in the transaction that creates the job and published by the OutboxRelay after the commit.
+ * The payload is the message body as the Rabbit message converter renders it, so the relay sends the same bytes
+ * a direct publish would have sent.
+ */
+@Entity
+@Table(name = "outbox_message")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_message_id_seq")
+    @SequenceGenerator(name = "outbox_message_id_seq", sequenceName = "outbox_message_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "exchange", nullable = false)
+    private String exchange;
+
+    @Column(name = "routing_key", nullable = false)
+    private String routingKey;
+
+    @Column(name = "payload_type")
+    private String payloadType;
+
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+}
@@ -0,0 +1,41 @@
+package com.example.lidarcbackend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Preprocessing output shared between comparisons, addressed by the hash of everything that determines its content.
+ * The object in MinIO is only removed once no comparison file references it anymore.
+ */
+@Entity
+@Table(name = "preprocessing_result")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PreprocessingResult {
+    @Id
+    @Column(name = "input_hash")
+    private String inputHash;
+
+    @Column(name = "bucket", nullable = false)
+    private String bucket;
+
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount;
+
+    @Column(name = "created_at", updatable = false)
+    @CreationTimestamp
+    private Instant createdAt;
+}
@@ -19,7 +19,8 @@ import java.time.Instant;
 @NoArgsConstructor
 public class Report {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reports_id_seq")
+    @SequenceGenerator(name = "reports_id_seq", sequenceName = "reports_id_seq", allocationSize = 50)
     private Long id;
     private String fileName;
     private String title;
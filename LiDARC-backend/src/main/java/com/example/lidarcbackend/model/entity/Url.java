@@ -13,6 +13,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,7 +28,8 @@ import lombok.Setter;
 @AllArgsConstructor
 public class Url {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "urls_id_seq")
+  @SequenceGenerator(name = "urls_id_seq", sequenceName = "urls_id_seq", allocationSize = 50)
   private Long id;
 
   @JoinColumn(name = "file_id", nullable = false)
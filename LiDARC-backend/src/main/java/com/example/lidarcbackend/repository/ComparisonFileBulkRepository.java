@@ -0,0 +1,13 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.ComparisonFile;
+
+import java.util.Collection;
+
+public interface ComparisonFileBulkRepository {
+
+    /**
+     * Inserts new comparison files as one JDBC batch. The rows must not exist yet.
+     */
+    void insertAll(Collection<ComparisonFile> comparisonFiles);
+}
@@ -0,0 +1,46 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.ComparisonFile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.Collection;
+
+/**
+ * Plain JDBC batch for comparison files. Going through JPA would merge every entity with an assigned composite id,
+ * which costs one SELECT per row and prevents batching.
+ */
+class ComparisonFileBulkRepositoryImpl implements ComparisonFileBulkRepository {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL = """
+        INSERT INTO comparison_file (comparison_id, file_id, bucket, object_key, included, group_name, status, error_msg, input_hash, holds_reference, claim_order)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ComparisonFileBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(Collection<ComparisonFile> comparisonFiles) {
+        if (comparisonFiles.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, comparisonFiles, BATCH_SIZE, (ps, cf) -> {
+            ps.setLong(1, cf.getComparisonId());
+            ps.setLong(2, cf.getFileId());
+            ps.setString(3, cf.getBucket());
+            ps.setString(4, cf.getObjectKey());
+            ps.setObject(5, cf.getIncluded(), Types.BOOLEAN);
+            ps.setString(6, cf.getGroupName());
+            ps.setString(7, cf.getStatus().name());
+            ps.setString(8, cf.getErrorMsg());
+            ps.setString(9, cf.getInputHash());
+            ps.setBoolean(10, cf.isHoldsReference());
+            ps.setObject(11, cf.getClaimOrder(), Types.INTEGER);
+        });
+    }
+}
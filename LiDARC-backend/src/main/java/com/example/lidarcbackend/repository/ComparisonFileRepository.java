@@ -1,7 +1,9 @@
 package com.example.lidarcbackend.repository;
 
+import com.example.lidarcbackend.model.DTO.CollectionVersion;
 import com.example.lidarcbackend.model.entity.ComparisonFile;
 import com.example.lidarcbackend.model.entity.ComparisonFilePK;
+import com.example.lidarcbackend.repository.projection.ComparisonFileId;
 import com.example.lidarcbackend.repository.projection.FileUsageCount;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -9,25 +11,45 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ComparisonFileRepository extends JpaRepository<ComparisonFile, ComparisonFilePK> {
+public interface ComparisonFileRepository extends JpaRepository<ComparisonFile, ComparisonFilePK>, ComparisonFileBulkRepository {
     @Query("SELECT cfs FROM ComparisonFile cfs WHERE cfs.comparisonId = :comparisonId AND cfs.fileId = :fileId")
     Optional<ComparisonFile> findComparisonFiles(Long comparisonId, Long fileId);
 
     @Query("SELECT cf.fileId FROM ComparisonFile cf WHERE cf.comparisonId = :comparisonId")
     List<Long> getComparisonFilesByComparisonId(Long comparisonId);
 
+    @Query("""
+        SELECT new com.example.lidarcbackend.model.DTO.CollectionVersion(COUNT(f), MAX(f.id), SUM(f.version))
+        FROM File f
+        WHERE f.id IN (SELECT cf.fileId FROM ComparisonFile cf WHERE cf.comparisonId = :comparisonId)
+    """)
+    CollectionVersion findFileVersionByComparisonId(@Param("comparisonId") Long comparisonId);
+
+    @Query("""
+        SELECT cf.comparisonId AS comparisonId, cf.fileId AS fileId
+        FROM ComparisonFile cf
+        WHERE cf.comparisonId IN :comparisonIds
+        ORDER BY cf.comparisonId, cf.fileId
+    """)
+    List<ComparisonFileId> findFileIdsByComparisonIdIn(@Param("comparisonIds") Collection<Long> comparisonIds);
+
     List<ComparisonFile> findAllByComparisonIdAndIncludedTrue(Long comparisonId);
 
+    List<ComparisonFile> findAllByComparisonIdAndFileIdIn(Long comparisonId, Collection<Long> fileIds);
+
+    List<ComparisonFile> findAllByComparisonIdOrderByClaimOrderAscFileIdAsc(Long comparisonId);
+
     @Query("""
         SELECT CASE WHEN COUNT(cf) = 0 THEN true ELSE false END 
         FROM ComparisonFile cf 
         WHERE cf.comparisonId = :comparisonId 
         AND cf.included = true 
-        AND (cf.bucket IS NULL OR cf.objectKey IS NULL)
+        AND cf.status <> com.example.lidarcbackend.model.entity.ComparisonFile.Status.COMPLETED
     """)
     boolean areAllIncludedFilesReady(@Param("comparisonId") Long comparisonId);
 
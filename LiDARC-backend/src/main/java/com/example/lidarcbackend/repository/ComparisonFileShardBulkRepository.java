@@ -0,0 +1,13 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.ComparisonFileShard;
+
+import java.util.Collection;
+
+public interface ComparisonFileShardBulkRepository {
+
+    /**
+     * Inserts new shards as one JDBC batch. The rows must not exist yet.
+     */
+    void insertAll(Collection<ComparisonFileShard> shards);
+}
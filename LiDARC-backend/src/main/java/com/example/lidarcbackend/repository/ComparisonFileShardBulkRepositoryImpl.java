@@ -0,0 +1,42 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.ComparisonFileShard;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+
+/**
+ * Plain JDBC batch for shards, their ids are assigned up front so JPA would SELECT each one before inserting it.
+ */
+class ComparisonFileShardBulkRepositoryImpl implements ComparisonFileShardBulkRepository {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL = """
+        INSERT INTO comparison_file_shard (job_id, comparison_id, file_id, bucket, object_key, status, error_msg, input_hash, holds_reference)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ComparisonFileShardBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(Collection<ComparisonFileShard> shards) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, shards, BATCH_SIZE, (ps, shard) -> {
+            ps.setObject(1, shard.getJobId());
+            ps.setLong(2, shard.getComparisonId());
+            ps.setLong(3, shard.getFileId());
+            ps.setString(4, shard.getBucket());
+            ps.setString(5, shard.getObjectKey());
+            ps.setString(6, shard.getStatus().name());
+            ps.setString(7, shard.getErrorMsg());
+            ps.setString(8, shard.getInputHash());
+            ps.setBoolean(9, shard.isHoldsReference());
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.ComparisonFile;
+import com.example.lidarcbackend.model.entity.ComparisonFileShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ComparisonFileShardRepository extends JpaRepository<ComparisonFileShard, UUID>, ComparisonFileShardBulkRepository {
+
+    List<ComparisonFileShard> findAllByComparisonId(Long comparisonId);
+
+    /**
+     * Files among the given ones that still have a shard in another status, i.e. are not fully preprocessed yet.
+     */
+    @Query("""
+        SELECT DISTINCT s.fileId FROM ComparisonFileShard s
+        WHERE s.comparisonId = :comparisonId AND s.fileId IN :fileIds AND s.status <> :status
+    """)
+    List<Long> findFileIdsWithShardStatusNot(@Param("comparisonId") Long comparisonId,
+                                             @Param("fileIds") Collection<Long> fileIds,
+                                             @Param("status") ComparisonFile.Status status);
+}
@@ -1,5 +1,6 @@
 package com.example.lidarcbackend.repository;
 
+import com.example.lidarcbackend.model.DTO.CollectionVersion;
 import com.example.lidarcbackend.model.entity.ComparisonFolder;
 import com.example.lidarcbackend.model.entity.ComparisonFolderPK;
 import com.example.lidarcbackend.repository.projection.FileUsageCount;
@@ -21,6 +22,13 @@ public interface ComparisonFolderRepository extends JpaRepository<ComparisonFold
     @Query("SELECT cf.folderId FROM ComparisonFolder cf WHERE cf.comparisonId = :comparisonId")
     List<Long> getComparisonFoldersByComparisonId(Long comparisonId);
 
+    @Query("""
+        SELECT new com.example.lidarcbackend.model.DTO.CollectionVersion(COUNT(f), MAX(f.id), SUM(f.version))
+        FROM Folder f
+        WHERE f.id IN (SELECT cf.folderId FROM ComparisonFolder cf WHERE cf.comparisonId = :comparisonId)
+    """)
+    CollectionVersion findFolderVersionByComparisonId(@Param("comparisonId") Long comparisonId);
+
     @Query("SELECT cf FROM ComparisonFolder cf WHERE cf.comparisonId = :comparisonId")
     List<ComparisonFolder> findAllByComparisonId(@Param("comparisonId") int comparisonId);
 
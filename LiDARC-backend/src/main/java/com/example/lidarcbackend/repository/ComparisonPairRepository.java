@@ -0,0 +1,19 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.ComparisonPair;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ComparisonPairRepository extends JpaRepository<ComparisonPair, Long> {
+
+    List<ComparisonPair> findAllByComparisonIdOrderByPairOrderAsc(Long comparisonId);
+
+    Optional<ComparisonPair> findByJobId(UUID jobId);
+
+    boolean existsByComparisonIdAndStatusNot(Long comparisonId, ComparisonPair.Status status);
+}
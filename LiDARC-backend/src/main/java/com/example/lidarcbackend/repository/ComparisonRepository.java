@@ -1,13 +1,24 @@
 package com.example.lidarcbackend.repository;
 
 import com.example.lidarcbackend.model.entity.Comparison;
-import com.example.lidarcbackend.model.entity.File;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ComparisonRepository extends JpaRepository<Comparison, Long> {
@@ -17,4 +28,38 @@ public interface ComparisonRepository extends JpaRepository<Comparison, Long> {
             String originalFilename,
             Pageable pageable
     );
+
+    Window<Comparison> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Comparison> findByNameContainingIgnoreCase(String name, ScrollPosition position, Sort sort, Limit limit);
+
+    long countByNameContainingIgnoreCase(String name);
+
+    /**
+     * All comparisons, newest first, read through a server-side cursor. Needs an open transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Comparison c ORDER BY c.createdAt DESC, c.id DESC")
+    Stream<Comparison> streamAllNewestFirst();
+
+    @Query("SELECT c.version FROM Comparison c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Counter of committed writes to the comparisons table, maintained by a trigger.
+     */
+    @Query(value = "SELECT version FROM collection_version WHERE name = 'comparisons'", nativeQuery = true)
+    Long findCollectionVersion();
+
+    /**
+     * Marks the comparison as changed when only its pairs or reports were written.
+     * The update trigger raises the version by exactly one, like for any other update of the row.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Comparison c SET c.version = c.version + 1 WHERE c.id = :id")
+    void incrementVersion(@Param("id") Long id);
 }
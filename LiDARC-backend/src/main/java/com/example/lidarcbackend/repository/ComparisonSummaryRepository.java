@@ -0,0 +1,68 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.ComparisonSummary;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ComparisonSummaryRepository extends JpaRepository<ComparisonSummary, Long> {
+
+    Page<ComparisonSummary> findByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    /**
+     * Recomputes the summary row of the comparison from the source tables. Returns 0 if the comparison does not
+     * exist (anymore), its summary is then removed through the foreign key.
+     * The native spaces hint limits the second-level cache invalidation to this table, Hibernate would otherwise
+     * clear every region after a native write.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_NATIVE_SPACES, value = "comparison_summary"))
+    @Query(value = """
+        INSERT INTO comparison_summary (comparison_id, name, status, created_at, latest_report_id, file_count,
+                                        folder_names, capture_year_min, capture_year_max, updated_at)
+        SELECT c.id, c.name, c.status, c.created_at,
+               (SELECT r.id FROM reports r WHERE r.comparison_id = c.id ORDER BY r.creation_date DESC, r.id DESC LIMIT 1),
+               files.file_count, files.folder_names, files.capture_year_min, files.capture_year_max, now()
+        FROM comparisons c
+        CROSS JOIN LATERAL (
+            SELECT count(*) AS file_count,
+                   array_agg(DISTINCT fo.name ORDER BY fo.name) FILTER (WHERE fo.name IS NOT NULL) AS folder_names,
+                   min(f.capture_year) AS capture_year_min,
+                   max(f.capture_year) AS capture_year_max
+            FROM comparison_file cf
+            JOIN files f ON f.id = cf.file_id
+            LEFT JOIN folders fo ON fo.id = f.folder_id
+            WHERE cf.comparison_id = c.id
+        ) files
+        WHERE c.id = :comparisonId
+        ON CONFLICT (comparison_id) DO UPDATE SET
+            name = EXCLUDED.name,
+            status = EXCLUDED.status,
+            created_at = EXCLUDED.created_at,
+            latest_report_id = EXCLUDED.latest_report_id,
+            file_count = EXCLUDED.file_count,
+            folder_names = EXCLUDED.folder_names,
+            capture_year_min = EXCLUDED.capture_year_min,
+            capture_year_max = EXCLUDED.capture_year_max,
+            updated_at = EXCLUDED.updated_at
+    """, nativeQuery = true)
+    int refresh(@Param("comparisonId") Long comparisonId);
+
+    @Query(value = """
+        SELECT CAST(c.id AS BIGINT) FROM comparisons c
+        WHERE NOT EXISTS (SELECT 1 FROM comparison_summary s WHERE s.comparison_id = c.id)
+    """, nativeQuery = true)
+    List<Long> findComparisonIdsWithoutSummary();
+}
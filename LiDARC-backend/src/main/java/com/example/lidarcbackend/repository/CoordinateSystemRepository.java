@@ -1,7 +1,10 @@
 package com.example.lidarcbackend.repository;
 
 import com.example.lidarcbackend.model.entity.CoordinateSystem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
@@ -9,12 +12,14 @@ import java.util.Optional;
 public interface CoordinateSystemRepository extends JpaRepository<CoordinateSystem, Long> {
 
     /**
-     * Finds coordinate system by its authority and code
+     * Finds coordinate system by its authority and code.
+     * Looked up for every metadata result, so the result is query cached until a coordinate system is inserted.
      *
      * @param authority the authority of the coordinate system (e.g. EPSG, ESRI, ...)
      * @param code the code or identifier of the coordinate system
      * @return Optional containing the matching CoordinateSystem entity if found,
      *  *         or an empty Optional if no matching entity exists
      */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<CoordinateSystem> findByAuthorityAndCode(String authority, String code);
 }
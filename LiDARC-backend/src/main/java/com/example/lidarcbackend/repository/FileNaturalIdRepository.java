@@ -0,0 +1,22 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.File;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileNaturalIdRepository {
+
+    /**
+     * Finds a file by its unique filename through the natural id cache, so repeated lookups of the same file,
+     * e.g. for every job result of an upload, neither query the filename nor load the row again.
+     */
+    Optional<File> findFileByFilename(String filename);
+
+    /**
+     * Loads the files with the given filenames, only those missing from the natural id cache are queried, together
+     * in one statement. Unknown filenames are left out.
+     */
+    List<File> findFilesByFilenames(Collection<String> filenames);
+}
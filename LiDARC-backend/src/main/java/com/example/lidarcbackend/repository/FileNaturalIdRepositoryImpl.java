@@ -0,0 +1,43 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.File;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Natural id lookups of files. A derived query would be a query cache entry, which every write to the files table
+ * invalidates, while the natural id cache is only updated for the written file.
+ */
+class FileNaturalIdRepositoryImpl implements FileNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    FileNaturalIdRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<File> findFileByFilename(String filename) {
+        return entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(File.class)
+            .loadOptional(filename);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<File> findFilesByFilenames(Collection<String> filenames) {
+        return entityManager.unwrap(Session.class)
+            .byMultipleNaturalId(File.class)
+            .multiLoad(List.copyOf(filenames))
+            .stream()
+            .filter(Objects::nonNull)
+            .toList();
+    }
+}
@@ -1,44 +1,119 @@
 package com.example.lidarcbackend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import com.example.lidarcbackend.api.metadata.dtos.ComparableKeysetProjection;
 import com.example.lidarcbackend.api.metadata.dtos.ComparableProjection;
+import com.example.lidarcbackend.api.metadata.dtos.FileMetadataProjection;
+import com.example.lidarcbackend.model.DTO.FileFolderIdDto;
 import com.example.lidarcbackend.model.entity.Folder;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.lidarcbackend.model.entity.File;
 
 @Repository
-public interface FileRepository extends JpaRepository<File, Long> {
+public interface FileRepository extends JpaRepository<File, Long>, FileNaturalIdRepository {
+
+    /**
+     * Select list of all {@link FileMetadataProjection} queries, the rows alias is f.
+     */
+    String METADATA_PROJECTION = """
+            SELECT new com.example.lidarcbackend.api.metadata.dtos.FileMetadataProjection(
+                f.id, f.filename, f.originalFilename, f.captureYear, f.sizeBytes,
+                f.minX, f.minY, f.minZ, f.maxX, f.maxY, f.maxZ,
+                f.systemIdentifier, f.lasVersion, f.captureSoftware, f.uploaded, f.fileCreationDate,
+                f.pointCount, f.uploadedAt, f.status, f.folder.id, cs.authority, cs.code, f.errorMsg, f.active)
+            FROM File f LEFT JOIN f.coordinateSystem cs
+            """;
 
     Optional<File> findFileByFilenameAndUploaded(String filename, Boolean uploaded);
 
-    Optional<File> findFileByFilename(String filename);
+    @Query(METADATA_PROJECTION + " WHERE f.id = :id")
+    Optional<FileMetadataProjection> findMetadataById(@Param("id") Long id);
 
-    List<File> findAllByFolderIsNull(Sort sort);
+    @Query(METADATA_PROJECTION + " WHERE f.id IN :ids")
+    List<FileMetadataProjection> findMetadataByIdIn(@Param("ids") Collection<Long> ids);
 
-    Page<File> findPagedByFolderIsNullAndActiveTrue(Pageable pageable);
+    @Query(METADATA_PROJECTION + " WHERE f.folder IS NULL ORDER BY f.uploadedAt DESC")
+    List<FileMetadataProjection> findMetadataWithoutFolder();
 
-    Page<File> findPagedByFolderIsNullAndActiveTrueAndOriginalFilenameContainingIgnoreCase(
-            String originalFilename,
-            Pageable pageable
-    );
+    /**
+     * Active files without folder, optionally filtered by a case-insensitive part of the original filename.
+     */
+    @Query(
+            value = METADATA_PROJECTION + """
+                    WHERE f.folder IS NULL AND f.active = true
+                      AND (:search IS NULL OR UPPER(f.originalFilename) LIKE UPPER(CONCAT('%', :search, '%')))
+                    """,
+            countQuery = """
+                    SELECT COUNT(f) FROM File f
+                    WHERE f.folder IS NULL AND f.active = true
+                      AND (:search IS NULL OR UPPER(f.originalFilename) LIKE UPPER(CONCAT('%', :search, '%')))
+                    """
+    )
+    Page<FileMetadataProjection> findPagedMetadataWithoutFolder(@Param("search") String search, Pageable pageable);
+
+    Window<File> findByFolderIsNullAndActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<File> findByFolderIsNullAndActiveTrueAndOriginalFilenameContainingIgnoreCase(String originalFilename,
+                                                                                       ScrollPosition position, Sort sort, Limit limit);
+
+    long countByFolderIsNullAndActiveTrue();
+
+    long countByFolderIsNullAndActiveTrueAndOriginalFilenameContainingIgnoreCase(String originalFilename);
 
     List<File> findAllByFolderId(Long folderId, Sort sort);
 
-    List<File> findAllByFolderIdIn(
-            List<Long> folderIds,
-            Sort sort
-    );
+    @Query(METADATA_PROJECTION + " WHERE f.folder.id = :folderId ORDER BY f.uploadedAt DESC")
+    List<FileMetadataProjection> findMetadataByFolderId(@Param("folderId") Long folderId);
+
+    @Query(METADATA_PROJECTION + " WHERE f.folder.id IN :folderIds ORDER BY f.uploadedAt DESC")
+    List<FileMetadataProjection> findMetadataByFolderIdIn(@Param("folderIds") Collection<Long> folderIds);
 
-    List<File> findAllByFolderIsNotNull(Sort sort);
+    @Query(METADATA_PROJECTION + " WHERE f.folder IS NOT NULL ORDER BY f.uploadedAt DESC")
+    List<FileMetadataProjection> findMetadataWithFolder();
+
+    /**
+     * Files without folder, newest first, read through a server-side cursor. Needs an open transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT f FROM File f LEFT JOIN FETCH f.coordinateSystem WHERE f.folder IS NULL ORDER BY f.uploadedAt DESC, f.id DESC")
+    Stream<File> streamAllWithoutFolder();
+
+    /**
+     * Files with folder, read through a server-side cursor. Rows are ordered by folder (newest first) so the
+     * files of a folder arrive consecutively, within a folder the newest file comes first.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT f FROM File f JOIN FETCH f.folder fo LEFT JOIN FETCH f.coordinateSystem
+            ORDER BY fo.createdAt DESC, fo.id DESC, f.uploadedAt DESC, f.id DESC
+            """)
+    Stream<File> streamAllWithFolderGroupedByFolder();
+
+    @Query("SELECT f FROM File f LEFT JOIN FETCH f.folder LEFT JOIN FETCH f.coordinateSystem WHERE f.id IN :ids")
+    List<File> findAllWithFolderAndCoordinateSystemByIdIn(@Param("ids") Collection<Long> ids);
 
     @Query(
             value = """
@@ -74,8 +149,8 @@ public interface FileRepository extends JpaRepository<File, Long> {
                           AND fi.active = true
                     ) t
                     WHERE (:search IS NULL
-                           OR LOWER(t.folder_name) LIKE LOWER(CONCAT('%', :search, '%'))
-                           OR LOWER(t.file_name) LIKE LOWER(CONCAT('%', :search, '%')))
+                           OR UPPER(t.folder_name) LIKE UPPER(CONCAT('%', :search, '%'))
+                           OR UPPER(t.file_name) LIKE UPPER(CONCAT('%', :search, '%')))
                     ORDER BY t.sort_ts DESC
                     """,
             countQuery = """
@@ -93,6 +168,69 @@ public interface FileRepository extends JpaRepository<File, Long> {
     )
     Page<ComparableProjection> findComparables(@Param("search") String search, Pageable pageable);
 
+    /**
+     * Keyset variant of {@link #findComparables}: returns the rows after the given position, newest first.
+     * The position is ignored for the first page.
+     */
+    @Query(
+            value = """
+                    SELECT t.folder_id AS folderId, t.file_id AS fileId,
+                           CAST(EXTRACT(EPOCH FROM t.sort_ts) * 1000000 AS BIGINT) AS sortMicros, t.item_key AS itemKey
+                    FROM (
+                        SELECT f.id AS folder_id, NULL AS file_id, f.id AS item_key, f.created_at AS sort_ts,
+                               f.name AS folder_name, NULL AS file_name
+                        FROM folders f
+                        WHERE f.active = true
+                          AND EXISTS (
+                            SELECT 1
+                            FROM files fi
+                            WHERE fi.folder_id = f.id
+                              AND fi.active = true
+                        )
+
+                        UNION ALL
+
+                        SELECT NULL AS folder_id, fi.id AS file_id, -fi.id AS item_key, fi.uploaded_at AS sort_ts,
+                               NULL AS folder_name, fi.original_filename AS file_name
+                        FROM files fi
+                        WHERE fi.folder_id IS NULL
+                          AND fi.active = true
+                    ) t
+                    WHERE (:search IS NULL
+                           OR UPPER(t.folder_name) LIKE UPPER(CONCAT('%', :search, '%'))
+                           OR UPPER(t.file_name) LIKE UPPER(CONCAT('%', :search, '%')))
+                      AND (:firstPage = true
+                           OR (t.sort_ts, t.item_key) < (TIMESTAMP '1970-01-01 00:00:00' + :cursorMicros * INTERVAL '1 microsecond', :cursorKey))
+                    ORDER BY t.sort_ts DESC, t.item_key DESC
+                    LIMIT :limit
+                    """,
+            nativeQuery = true
+    )
+    List<ComparableKeysetProjection> findComparablesAfter(@Param("search") String search,
+                                                         @Param("firstPage") boolean firstPage,
+                                                         @Param("cursorMicros") long cursorMicros,
+                                                         @Param("cursorKey") long cursorKey,
+                                                         @Param("limit") int limit);
+
+    @Query(
+            value = """
+                    SELECT COUNT(*)
+                    FROM (
+                        SELECT f.name AS folder_name, NULL AS file_name FROM folders f
+                        WHERE f.active = true
+                          AND EXISTS (SELECT 1 FROM files fi WHERE fi.folder_id = f.id AND fi.active = true)
+                        UNION ALL
+                        SELECT NULL AS folder_name, fi.original_filename AS file_name FROM files fi
+                        WHERE fi.folder_id IS NULL AND fi.active = true
+                    ) t
+                    WHERE (:search IS NULL
+                           OR UPPER(t.folder_name) LIKE UPPER(CONCAT('%', :search, '%'))
+                           OR UPPER(t.file_name) LIKE UPPER(CONCAT('%', :search, '%')))
+                    """,
+            nativeQuery = true
+    )
+    long countComparables(@Param("search") String search);
+
 
     @Modifying
     @Query("""
@@ -106,4 +244,16 @@ public interface FileRepository extends JpaRepository<File, Long> {
     );
 
     long countByFolderId(Long folderId);
+
+    @Query("SELECT f.version FROM File f WHERE f.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Counter of committed writes to the files table, maintained by a trigger.
+     */
+    @Query(value = "SELECT version FROM collection_version WHERE name = 'files'", nativeQuery = true)
+    Long findCollectionVersion();
+
+    @Query("SELECT new com.example.lidarcbackend.model.DTO.FileFolderIdDto(f.filename, fo.id) FROM File f LEFT JOIN f.folder fo WHERE f.filename IN :filenames")
+    List<FileFolderIdDto> findFolderIdsByFilenameIn(@Param("filenames") Collection<String> filenames);
 }
@@ -12,4 +12,10 @@ public interface FolderRepository  extends JpaRepository<Folder, Long> {
     @Query("SELECT f FROM Folder f WHERE f.active = true " +
             "AND NOT EXISTS (SELECT 1 FROM ComparisonFolder cf WHERE cf.folderId = f.id)")
     List<Folder> findAllActiveAndUncompared();
+
+    /**
+     * Counter of committed writes to the folders table, maintained by a trigger.
+     */
+    @Query(value = "SELECT version FROM collection_version WHERE name = 'folders'", nativeQuery = true)
+    Long findCollectionVersion();
 }
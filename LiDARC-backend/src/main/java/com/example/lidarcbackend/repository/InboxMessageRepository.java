@@ -0,0 +1,56 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.JobType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Processed worker results by job id and job type. Claiming is a single INSERT for a whole batch of results.
+ */
+@Repository
+public class InboxMessageRepository {
+
+    private static final String CLAIM_SQL = """
+        INSERT INTO inbox_message (job_id, job_type, processed_at)
+        SELECT job_id, ?, now() FROM unnest(?) AS job_id
+        ON CONFLICT DO NOTHING
+        RETURNING job_id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InboxMessageRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records the job ids as processed. A row written by another transaction that is still open blocks until that
+     * transaction ends, so a job id is claimed by at most one committed transaction.
+     *
+     * @return the job ids that were not recorded yet
+     */
+    public Set<UUID> claim(JobType jobType, Collection<UUID> jobIds) {
+        Set<UUID> claimed = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CLAIM_SQL);
+            statement.setString(1, jobType.name());
+            statement.setArray(2, connection.createArrayOf("uuid", jobIds.toArray()));
+            return statement;
+        }, rs -> {
+            claimed.add(rs.getObject(1, UUID.class));
+        });
+        return claimed;
+    }
+
+    public int deleteProcessedBefore(Instant before) {
+        return jdbcTemplate.update("DELETE FROM inbox_message WHERE processed_at < ?", Timestamp.from(before));
+    }
+}
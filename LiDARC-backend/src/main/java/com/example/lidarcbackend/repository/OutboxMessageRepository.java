@@ -0,0 +1,37 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Oldest unsent messages, locked until the end of the transaction. Rows locked by another relay are skipped,
+     * so several backend instances relay disjoint batches.
+     */
+    @Query(value = """
+            SELECT * FROM outbox_message
+            WHERE sent_at IS NULL
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxMessage> lockUnsent(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.sentAt = :sentAt WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,14 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.PreprocessingResult;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PreprocessingResultBulkRepository {
+
+    /**
+     * Takes one reference on every registered result among the given hashes and returns those results.
+     */
+    List<PreprocessingResult> acquireAll(Collection<String> inputHashes);
+}
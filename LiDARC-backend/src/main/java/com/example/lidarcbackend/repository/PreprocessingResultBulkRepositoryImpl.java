@@ -0,0 +1,49 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.PreprocessingResult;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Plain JDBC for taking references, an UPDATE ... RETURNING is neither a query nor a modifying statement to JPA.
+ * The returned results are not attached to the persistence context.
+ */
+class PreprocessingResultBulkRepositoryImpl implements PreprocessingResultBulkRepository {
+
+    private static final String ACQUIRE_SQL = """
+        UPDATE preprocessing_result SET reference_count = reference_count + 1
+        WHERE input_hash = ANY(?)
+        RETURNING input_hash, bucket, object_key, reference_count, created_at
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PreprocessingResultBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<PreprocessingResult> acquireAll(Collection<String> inputHashes) {
+        if (inputHashes.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ACQUIRE_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", inputHashes.toArray()));
+            return statement;
+        }, (rs, rowNum) -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return PreprocessingResult.builder()
+                .inputHash(rs.getString("input_hash"))
+                .bucket(rs.getString("bucket"))
+                .objectKey(rs.getString("object_key"))
+                .referenceCount(rs.getInt("reference_count"))
+                .createdAt(createdAt == null ? null : createdAt.toInstant())
+                .build();
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.model.entity.PreprocessingResult;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PreprocessingResultRepository extends JpaRepository<PreprocessingResult, String>, PreprocessingResultBulkRepository {
+
+    /**
+     * Registers a freshly computed result with one reference. Returns 0 if an equal result is already registered.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_NATIVE_SPACES, value = "preprocessing_result"))
+    @Query(value = """
+        INSERT INTO preprocessing_result (input_hash, bucket, object_key, reference_count, created_at)
+        VALUES (:inputHash, :bucket, :objectKey, 1, now())
+        ON CONFLICT (input_hash) DO NOTHING
+    """, nativeQuery = true)
+    int registerIfAbsent(@Param("inputHash") String inputHash,
+                         @Param("bucket") String bucket,
+                         @Param("objectKey") String objectKey);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PreprocessingResult r SET r.referenceCount = r.referenceCount - 1 WHERE r.inputHash = :inputHash")
+    int release(@Param("inputHash") String inputHash);
+
+    @Query("SELECT r.referenceCount FROM PreprocessingResult r WHERE r.inputHash = :inputHash")
+    Optional<Integer> findReferenceCount(@Param("inputHash") String inputHash);
+}
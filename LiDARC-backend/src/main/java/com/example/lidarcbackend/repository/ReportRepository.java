@@ -1,12 +1,20 @@
 package com.example.lidarcbackend.repository;
 
 import com.example.lidarcbackend.model.entity.Report;
+import com.example.lidarcbackend.repository.projection.LatestReport;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,9 +23,27 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
 
     Optional<Report> findTopByComparisonIdOrderByCreationDateDesc(Long comparisonId);
 
+    /**
+     * Id of the newest report of each given comparison, comparisons without reports are left out.
+     */
+    @Query(value = """
+        SELECT DISTINCT ON (r.comparison_id) r.comparison_id AS comparisonId, r.id AS reportId
+        FROM reports r
+        WHERE r.comparison_id IN (:comparisonIds)
+        ORDER BY r.comparison_id, r.creation_date DESC, r.id DESC
+    """, nativeQuery = true)
+    List<LatestReport> findLatestReportsByComparisonIdIn(@Param("comparisonIds") Collection<Long> comparisonIds);
+
     List<Report> findByComparisonId(Long comparisonId, Pageable pageable);
 
     Page<Report> findByTitleContainingIgnoreCaseOrFileNameContainingIgnoreCase(String title, String fileName, Pageable pageable);
 
     Page<Report> findAll(Pageable pageable);
+
+    Window<Report> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Report> findByTitleContainingIgnoreCaseOrFileNameContainingIgnoreCase(String title, String fileName,
+                                                                              ScrollPosition position, Sort sort, Limit limit);
+
+    long countByTitleContainingIgnoreCaseOrFileNameContainingIgnoreCase(String title, String fileName);
 }
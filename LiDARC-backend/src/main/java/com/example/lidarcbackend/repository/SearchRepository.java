@@ -0,0 +1,79 @@
+package com.example.lidarcbackend.repository;
+
+import com.example.lidarcbackend.api.search.dtos.SearchHitDTO;
+import com.example.lidarcbackend.api.search.dtos.SearchType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked name search over comparisons, files, folders and reports. Every condition works on UPPER(column), which is
+ * covered by the pg_trgm GIN indexes of init.sql, so neither substring (LIKE '%x%') nor fuzzy (word similarity)
+ * matching needs a sequential scan.
+ */
+@Repository
+public class SearchRepository {
+
+    private static final Map<SearchType, Source> SOURCES = Map.of(
+        SearchType.COMPARISON, new Source("comparisons", "t.name", "TRUE", List.of("t.name")),
+        SearchType.FILE, new Source("files", "t.original_filename", "t.active = true", List.of("t.original_filename")),
+        SearchType.FOLDER, new Source("folders", "t.name", "t.active = true", List.of("t.name")),
+        SearchType.REPORT, new Source("reports", "COALESCE(t.title, t.file_name)", "TRUE", List.of("t.title", "t.file_name"))
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public SearchRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Best matches of the given types, ordered by score. At most {@code limit} hits are read per type.
+     */
+    public List<SearchHitDTO> search(String query, Collection<SearchType> types, int limit) {
+        String sql = types.stream()
+            .map(type -> branch(type, SOURCES.get(type)))
+            .collect(Collectors.joining("\nUNION ALL\n",
+                "SELECT type, id, label, score FROM (\n",
+                "\n) hits ORDER BY score DESC, type, id DESC LIMIT :limit"));
+        String escaped = escapeLike(query);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("query", query)
+            .addValue("prefix", escaped + "%")
+            .addValue("contains", "%" + escaped + "%")
+            .addValue("limit", limit);
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new SearchHitDTO(
+            SearchType.valueOf(rs.getString("type")),
+            rs.getLong("id"),
+            rs.getString("label"),
+            rs.getDouble("score")));
+    }
+
+    private static String branch(SearchType type, Source source) {
+        String match = source.columns().stream()
+            .map(column -> "UPPER(" + column + ") LIKE UPPER(:contains) OR UPPER(:query) <% UPPER(" + column + ")")
+            .collect(Collectors.joining(" OR "));
+        String score = source.columns().stream()
+            .map(column -> "COALESCE(word_similarity(UPPER(:query), UPPER(" + column + ")), 0)"
+                + " + CASE WHEN UPPER(" + column + ") = UPPER(:query) THEN 2"
+                + " WHEN UPPER(" + column + ") LIKE UPPER(:prefix) THEN 1 ELSE 0 END")
+            .collect(Collectors.joining(", ", "GREATEST(", ")"));
+        return "(SELECT '" + type.name() + "' AS type, CAST(t.id AS BIGINT) AS id, " + source.label() + " AS label, "
+            + "CAST(" + score + " AS DOUBLE PRECISION) AS score"
+            + " FROM " + source.table() + " t"
+            + " WHERE " + source.filter() + " AND (" + match + ")"
+            + " ORDER BY score DESC, t.id DESC LIMIT :limit)";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record Source(String table, String label, String filter, List<String> columns) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.lidarcbackend.repository.projection;
+
+public interface ComparisonFileId {
+    Long getComparisonId();
+    Long getFileId();
+}
@@ -0,0 +1,80 @@
+package com.example.lidarcbackend.service;
+
+import com.example.lidarcbackend.exception.BadRequestException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes keyset pagination positions as opaque continuation tokens. A position is the sort timestamp and id of
+ * the last item of a page, the id breaks ties between items with the same timestamp.
+ */
+public final class CursorCodec {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Instant sortKey, long id) {
+        String raw = VERSION + SEPARATOR + sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token created by {@link #encode}, returns null for a missing token (the first page).
+     *
+     * @throws BadRequestException if the token was not created by this codec
+     */
+    public static Position decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new Position(Instant.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Scroll position for a derived repository query sorted by the given timestamp property and id.
+     */
+    public static ScrollPosition toScrollPosition(String token, String sortProperty, Function<Instant, ?> toSortValue) {
+        Position position = decode(token);
+        if (position == null) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(sortProperty, toSortValue.apply(position.sortKey()));
+        keys.put("id", position.id());
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Token pointing behind the last item of the window, null if there is no further page.
+     */
+    public static <T> String nextCursor(Window<T> window, Function<T, Instant> sortKey, Function<T, Long> id) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        T last = window.getContent().getLast();
+        return encode(sortKey.apply(last), id.apply(last));
+    }
+
+    public record Position(Instant sortKey, long id) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.lidarcbackend.service;
+
+import com.example.lidarcbackend.model.JobType;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+public interface IInboxService {
+
+    /**
+     * Claims the results of the given jobs for the current transaction. Results known to be processed before are
+     * dropped without a database access, results that occur twice in the collection are returned once. The claims
+     * are recorded when the transaction commits, the commit fails with a
+     * {@link com.example.lidarcbackend.exception.DuplicateWorkerResultException} if another transaction recorded one
+     * of them first. The claim is rolled back together with the transaction, so a failed result is processed again
+     * on redelivery.
+     *
+     * @param jobType the type of the jobs the results belong to
+     * @param jobIds  the job ids of the received results
+     * @return the job ids whose results have to be processed
+     */
+    Set<UUID> claim(JobType jobType, Collection<UUID> jobIds);
+}
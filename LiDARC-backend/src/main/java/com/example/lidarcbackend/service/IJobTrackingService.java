@@ -3,6 +3,7 @@ package com.example.lidarcbackend.service;
 import com.example.lidarcbackend.model.TrackedJob;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -10,6 +11,8 @@ import java.util.UUID;
 public interface IJobTrackingService {
     void registerJob(TrackedJob job);
 
+    void registerJobs(Collection<TrackedJob> jobs);
+
     void completeJob(UUID jobId);
 
 
@@ -0,0 +1,110 @@
+package com.example.lidarcbackend.service;
+
+import com.example.lidarcbackend.configuration.WorkerInboxProperties;
+import com.example.lidarcbackend.exception.DuplicateWorkerResultException;
+import com.example.lidarcbackend.model.JobType;
+import com.example.lidarcbackend.repository.InboxMessageRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Deduplicates worker results. The check before processing only looks at an in-memory cache of processed results,
+ * so a result never waits for the database. The job ids of a batch are recorded in inbox_message with one INSERT
+ * right before the processing transaction commits, together with the business writes.
+ * <p>
+ * A duplicate the cache does not know, after a restart or from another backend instance, is processed once more and
+ * then caught by that INSERT. The commit fails, the batch is redelivered and the cache drops the duplicate.
+ * Job ids enter the cache only after their transaction committed, a rolled back batch is processed again.
+ */
+@Service
+@Slf4j
+public class InboxService implements IInboxService {
+
+    private final InboxMessageRepository inboxMessageRepository;
+    private final WorkerInboxProperties properties;
+    private final Cache<InboxKey, Boolean> processed;
+
+    public InboxService(InboxMessageRepository inboxMessageRepository, WorkerInboxProperties properties) {
+        this.inboxMessageRepository = inboxMessageRepository;
+        this.properties = properties;
+        this.processed = Caffeine.newBuilder()
+            .maximumSize(properties.getCacheSize())
+            .expireAfterWrite(properties.getCacheTtl())
+            .build();
+    }
+
+    @Override
+    public Set<UUID> claim(JobType jobType, Collection<UUID> jobIds) {
+        Set<UUID> unknown = new LinkedHashSet<>();
+        for (UUID jobId : jobIds) {
+            if (processed.getIfPresent(new InboxKey(jobType, jobId)) == null) {
+                unknown.add(jobId);
+            }
+        }
+        if (unknown.size() < jobIds.size()) {
+            log.info("Dropping {} duplicate {} results", jobIds.size() - unknown.size(), jobType);
+        }
+        if (unknown.isEmpty()) {
+            return unknown;
+        }
+
+        recordBeforeCommit(jobType, unknown);
+        return unknown;
+    }
+
+    @Scheduled(fixedDelayString = "${app.worker.inbox.cleanup-interval-ms:3600000}")
+    public void deleteExpiredEntries() {
+        int deleted = inboxMessageRepository.deleteProcessedBefore(Instant.now().minus(properties.getRetention()));
+        if (deleted > 0) {
+            log.info("Deleted {} expired inbox entries", deleted);
+        }
+    }
+
+    private void recordBeforeCommit(JobType jobType, Set<UUID> jobIds) {
+        Set<UUID> claimed = Set.copyOf(jobIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Set<UUID> recorded = inboxMessageRepository.claim(jobType, claimed);
+            remember(jobType, claimed);
+            jobIds.retainAll(recorded);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                Set<UUID> recorded = inboxMessageRepository.claim(jobType, claimed);
+                if (recorded.size() == claimed.size()) {
+                    return;
+                }
+                Set<UUID> duplicates = new LinkedHashSet<>(claimed);
+                duplicates.removeAll(recorded);
+                // Committed by another transaction, the redelivered copies can be dropped right away
+                remember(jobType, duplicates);
+                throw new DuplicateWorkerResultException(
+                    "%s results %s were processed by another transaction".formatted(jobType, duplicates));
+            }
+
+            @Override
+            public void afterCommit() {
+                remember(jobType, claimed);
+            }
+        });
+    }
+
+    private void remember(JobType jobType, Set<UUID> jobIds) {
+        jobIds.forEach(jobId -> processed.put(new InboxKey(jobType, jobId), Boolean.TRUE));
+    }
+
+    private record InboxKey(JobType jobType, UUID jobId) {
+    }
+}
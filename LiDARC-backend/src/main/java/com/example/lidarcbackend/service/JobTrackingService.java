@@ -1,5 +1,6 @@
 package com.example.lidarcbackend.service;
 
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonChangedEvent;
 import com.example.lidarcbackend.model.JobType;
 import com.example.lidarcbackend.model.TrackedJob;
 import com.example.lidarcbackend.model.entity.Comparison;
@@ -13,10 +14,12 @@ import com.example.lidarcbackend.repository.FolderRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,6 +36,7 @@ public class JobTrackingService implements IJobTrackingService {
     private final FolderRepository folderRepository;
     private final ComparisonFileRepository  comparisonFileRepository;
     private final ComparisonRepository  comparisonRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     @Override
@@ -44,6 +48,17 @@ public class JobTrackingService implements IJobTrackingService {
                 job.getTimeout());
     }
 
+    @Override
+    public void registerJobs(Collection<TrackedJob> jobsToRegister) {
+        if (jobsToRegister.isEmpty()) {
+            return;
+        }
+        for (TrackedJob job : jobsToRegister) {
+            jobs.put(job.getJobId(), job);
+        }
+        log.info("Registered {} jobs", jobsToRegister.size());
+    }
+
     @Override
     public void completeJob(UUID jobId) {
         TrackedJob removed = jobs.remove(jobId);
@@ -132,6 +147,7 @@ public class JobTrackingService implements IJobTrackingService {
                 comparison.setStatus(Comparison.Status.FAILED);
                 comparison.setErrorMessage("One or more preprocessing files timed out");
                 comparisonRepository.save(comparison);
+                eventPublisher.publishEvent(new ComparisonChangedEvent(comparisonId));
             }
         }
     }
@@ -146,6 +162,7 @@ public class JobTrackingService implements IJobTrackingService {
             comparison.setStatus(Comparison.Status.FAILED);
             comparison.setErrorMessage("Comparison job timed out");
             comparisonRepository.save(comparison);
+            eventPublisher.publishEvent(new ComparisonChangedEvent(comparisonId));
         }
     }
 
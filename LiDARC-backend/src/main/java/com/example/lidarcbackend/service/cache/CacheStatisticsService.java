@@ -0,0 +1,48 @@
+package com.example.lidarcbackend.service.cache;
+
+import com.example.lidarcbackend.api.cache.dtos.CacheRegionStatsDTO;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+@Service
+public class CacheStatisticsService implements ICacheStatisticsService {
+    private final CacheManager secondLevelCacheManager;
+
+    @Autowired
+    public CacheStatisticsService(CacheManager secondLevelCacheManager) {
+        this.secondLevelCacheManager = secondLevelCacheManager;
+    }
+
+    @Override
+    public List<CacheRegionStatsDTO> getRegionStatistics() {
+        List<String> regions = StreamSupport.stream(secondLevelCacheManager.getCacheNames().spliterator(), false)
+            .sorted()
+            .toList();
+
+        List<CacheRegionStatsDTO> statistics = new ArrayList<>(regions.size());
+        for (String region : regions) {
+            Cache<Object, Object> cache = secondLevelCacheManager.getCache(region);
+            // The counters of the Caffeine cache itself, the JCache statistics are only published through JMX
+            com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache = cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+            CacheStats stats = nativeCache.stats();
+            Long maxSize = nativeCache.policy().eviction().map(Policy.Eviction::getMaximum).orElse(null);
+            statistics.add(new CacheRegionStatsDTO(
+                region,
+                nativeCache.estimatedSize(),
+                maxSize,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount()));
+        }
+        return statistics;
+    }
+}
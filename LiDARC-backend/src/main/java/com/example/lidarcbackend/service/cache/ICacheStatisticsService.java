@@ -0,0 +1,13 @@
+package com.example.lidarcbackend.service.cache;
+
+import com.example.lidarcbackend.api.cache.dtos.CacheRegionStatsDTO;
+
+import java.util.List;
+
+public interface ICacheStatisticsService {
+
+    /**
+     * Size, hit, miss and eviction counts of every second-level cache region since startup, ordered by region name.
+     */
+    List<CacheRegionStatsDTO> getRegionStatistics();
+}
@@ -66,7 +66,7 @@ public class ChunkingSseService {
      * Sends a 'chunking-result-start' event, followed by multiple 'chunking-result-chunk' events,
      * and finally a 'chunking-result-end' event.
      */
-    private void streamResultToEmitter(SseEmitter emitter, String rawJson, Long comparisonId, int chunkSize) {
+    void streamResultToEmitter(SseEmitter emitter, String rawJson, Long comparisonId, int chunkSize) {
         try {
             int totalLength = rawJson.length();
             int totalChunks = (int) Math.ceil((double) totalLength / streamChunkSize);
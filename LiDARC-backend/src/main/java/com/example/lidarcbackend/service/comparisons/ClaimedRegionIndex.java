@@ -0,0 +1,227 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import com.example.lidarcbackend.model.DTO.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * R-tree over the regions already claimed while planning a comparison group.
+ * Lets each file look up only the claimed zones it actually overlaps instead of scanning every earlier file.
+ * Search results are returned in insertion order, so subtracting them yields the same regions as a linear scan.
+ */
+class ClaimedRegionIndex {
+
+    private static final int MAX_ENTRIES = 16;
+    private static final int MIN_ENTRIES = 6;
+
+    private Node root = new Node(true);
+    private long nextSequence;
+    private int size;
+
+    void insert(BoundingBox box) {
+        Entry entry = new Entry(box, nextSequence++);
+        Node sibling = insert(root, entry);
+        if (sibling != null) {
+            Node newRoot = new Node(false);
+            newRoot.add(root);
+            newRoot.add(sibling);
+            root = newRoot;
+        }
+        size++;
+    }
+
+    /**
+     * Returns all claimed zones whose interior overlaps the query box, ordered by insertion.
+     */
+    List<BoundingBox> search(BoundingBox query) {
+        List<Entry> hits = new ArrayList<>();
+        if (size > 0) {
+            search(root, query.getxMin(), query.getxMax(), query.getyMin(), query.getyMax(), hits);
+        }
+        hits.sort(Comparator.comparingLong(Entry::sequence));
+        List<BoundingBox> result = new ArrayList<>(hits.size());
+        for (Entry hit : hits) {
+            result.add(hit.box());
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void search(Node node, double xMin, double xMax, double yMin, double yMax, List<Entry> hits) {
+        if (node.leaf) {
+            for (Bounded child : node.children) {
+                if (child.overlaps(xMin, xMax, yMin, yMax)) {
+                    hits.add((Entry) child);
+                }
+            }
+            return;
+        }
+        for (Bounded child : node.children) {
+            if (child.overlaps(xMin, xMax, yMin, yMax)) {
+                search((Node) child, xMin, xMax, yMin, yMax, hits);
+            }
+        }
+    }
+
+    /**
+     * Inserts the entry below the given node and returns the new sibling if the node had to be split.
+     */
+    private Node insert(Node node, Entry entry) {
+        if (node.leaf) {
+            node.add(entry);
+        } else {
+            Node target = chooseSubtree(node, entry);
+            Node split = insert(target, entry);
+            node.extend(entry);
+            if (split != null) {
+                node.add(split);
+            }
+        }
+        return node.children.size() > MAX_ENTRIES ? split(node) : null;
+    }
+
+    private Node chooseSubtree(Node node, Bounded entry) {
+        Node best = null;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (Bounded child : node.children) {
+            double area = child.area();
+            double enlargement = child.enlargedArea(entry) - area;
+            if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+                best = (Node) child;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Quadratic split: seeds are the pair wasting the most area, remaining children go where they enlarge least.
+     * The node keeps the first group and the returned sibling receives the second.
+     */
+    private Node split(Node node) {
+        List<Bounded> remaining = new ArrayList<>(node.children);
+        int seedA = 0;
+        int seedB = 1;
+        double worstWaste = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < remaining.size(); i++) {
+            for (int j = i + 1; j < remaining.size(); j++) {
+                Bounded a = remaining.get(i);
+                Bounded b = remaining.get(j);
+                double waste = a.enlargedArea(b) - a.area() - b.area();
+                if (waste > worstWaste) {
+                    worstWaste = waste;
+                    seedA = i;
+                    seedB = j;
+                }
+            }
+        }
+
+        Node groupA = new Node(node.leaf);
+        Node groupB = new Node(node.leaf);
+        groupA.add(remaining.get(seedA));
+        groupB.add(remaining.get(seedB));
+        remaining.remove(seedB);
+        remaining.remove(seedA);
+
+        while (!remaining.isEmpty()) {
+            if (groupA.children.size() + remaining.size() == MIN_ENTRIES) {
+                remaining.forEach(groupA::add);
+                break;
+            }
+            if (groupB.children.size() + remaining.size() == MIN_ENTRIES) {
+                remaining.forEach(groupB::add);
+                break;
+            }
+            Bounded next = remaining.removeLast();
+            double growA = groupA.enlargedArea(next) - groupA.area();
+            double growB = groupB.enlargedArea(next) - groupB.area();
+            if (growA < growB || (growA == growB && groupA.children.size() <= groupB.children.size())) {
+                groupA.add(next);
+            } else {
+                groupB.add(next);
+            }
+        }
+
+        node.children.clear();
+        node.resetBounds();
+        groupA.children.forEach(node::add);
+        return groupB;
+    }
+
+    private abstract static class Bounded {
+        double xMin = Double.POSITIVE_INFINITY;
+        double xMax = Double.NEGATIVE_INFINITY;
+        double yMin = Double.POSITIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+
+        boolean overlaps(double otherXMin, double otherXMax, double otherYMin, double otherYMax) {
+            return xMin < otherXMax && xMax > otherXMin && yMin < otherYMax && yMax > otherYMin;
+        }
+
+        double area() {
+            return (xMax - xMin) * (yMax - yMin);
+        }
+
+        double enlargedArea(Bounded other) {
+            return (Math.max(xMax, other.xMax) - Math.min(xMin, other.xMin))
+                * (Math.max(yMax, other.yMax) - Math.min(yMin, other.yMin));
+        }
+
+        void extend(Bounded other) {
+            xMin = Math.min(xMin, other.xMin);
+            xMax = Math.max(xMax, other.xMax);
+            yMin = Math.min(yMin, other.yMin);
+            yMax = Math.max(yMax, other.yMax);
+        }
+    }
+
+    private static final class Node extends Bounded {
+        private final boolean leaf;
+        private final List<Bounded> children = new ArrayList<>(MAX_ENTRIES + 1);
+
+        private Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        private void add(Bounded child) {
+            children.add(child);
+            extend(child);
+        }
+
+        private void resetBounds() {
+            xMin = Double.POSITIVE_INFINITY;
+            xMax = Double.NEGATIVE_INFINITY;
+            yMin = Double.POSITIVE_INFINITY;
+            yMax = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    private static final class Entry extends Bounded {
+        private final BoundingBox box;
+        private final long sequence;
+
+        private Entry(BoundingBox box, long sequence) {
+            this.box = box;
+            this.sequence = sequence;
+            this.xMin = box.getxMin();
+            this.xMax = box.getxMax();
+            this.yMin = box.getyMin();
+            this.yMax = box.getyMax();
+        }
+
+        private BoundingBox box() {
+            return box;
+        }
+
+        private long sequence() {
+            return sequence;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.lidarcbackend.service.comparisons;
 
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonJobReadyEvent;
 import com.example.lidarcbackend.api.comparison.dtos.PreProcessJobsReadyEvent;
 import com.example.lidarcbackend.model.DTO.StartPreProcessJobDto;
 import com.example.lidarcbackend.service.files.WorkerStartService;
@@ -9,18 +10,31 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+/**
+ * Writes the jobs of a comparison to the outbox before the transaction that planned them commits, so the jobs and
+ * the comparison state that expects their results are committed together.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ComparisonJobTrigger {
     private final WorkerStartService workerStartService;
 
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
     public void onComparisonJobsReady(PreProcessJobsReadyEvent event) {
-        log.info("Transaction committed. Triggering {} preprocess worker jobs.", event.jobsToStart().size());
+        log.info("Triggering {} preprocess worker jobs.", event.jobsToStart().size());
 
         for (StartPreProcessJobDto job : event.jobsToStart()) {
             workerStartService.startPreprocessingJob(job);
         }
     }
+
+    /**
+     * Runs immediately when published outside a transaction, the job is then written in a transaction of its own.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onComparisonJobReady(ComparisonJobReadyEvent event) {
+        log.info("Triggering comparison worker job {} for comparison {}.", event.job().getJobId(), event.job().getComparisonId());
+        workerStartService.startComparisonJob(event.job());
+    }
 }
@@ -5,42 +5,59 @@ import com.example.lidarcbackend.api.comparison.dtos.*;
 import com.example.lidarcbackend.api.folder.dtos.FolderDTO;
 import com.example.lidarcbackend.api.metadata.MetadataMapper;
 import com.example.lidarcbackend.api.metadata.dtos.FileMetadataDTO;
+import com.example.lidarcbackend.configuration.ComparisonEstimateProperties;
+import com.example.lidarcbackend.configuration.ComparisonShardingProperties;
 import com.example.lidarcbackend.configuration.MinioProperties;
 import com.example.lidarcbackend.exception.NotFoundException;
 import com.example.lidarcbackend.exception.ValidationException;
 import com.example.lidarcbackend.model.DTO.*;
+import com.example.lidarcbackend.model.DTO.worker.*;
 import com.example.lidarcbackend.model.JobType;
 import com.example.lidarcbackend.model.TrackedJob;
 import com.example.lidarcbackend.model.entity.*;
 import com.example.lidarcbackend.repository.*;
+import com.example.lidarcbackend.repository.projection.ComparisonFileId;
 import com.example.lidarcbackend.repository.projection.FileUsageCount;
 import com.example.lidarcbackend.repository.projection.FolderUsageCount;
+import com.example.lidarcbackend.repository.projection.LatestReport;
+import com.example.lidarcbackend.service.CursorCodec;
+import com.example.lidarcbackend.service.IInboxService;
 import com.example.lidarcbackend.service.IJobTrackingService;
 import com.example.lidarcbackend.service.files.IMetadataService;
 import com.example.lidarcbackend.service.files.WorkerStartService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.minio.MinioClient;
 import io.minio.RemoveObjectArgs;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
   import java.util.stream.Stream;
 
 
 @Service
 @Slf4j
 public class ComparisonService implements IComparisonService {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final ComparisonRepository comparisonRepository;
     private final ReportRepository reportRepository;
     private final ComparisonFileRepository comparisonFileRepository;
@@ -49,6 +66,7 @@ public class ComparisonService implements IComparisonService {
     private final FolderRepository folderRepository;
     private final IMetadataService metadataService;
     private final IJobTrackingService jobTrackingService;
+    private final IInboxService inboxService;
     private final Validator validator;
     private final RabbitTemplate rabbitTemplate;
     private final ComparisonMapper mapper;
@@ -57,8 +75,14 @@ public class ComparisonService implements IComparisonService {
     private final WorkerStartService workerStartService;
     private final ApplicationEventPublisher eventPublisher;
     private final ChunkingResultCacheService chunkingCacheService;
+    private final ComparisonFileShardRepository comparisonFileShardRepository;
+    private final ComparisonShardingProperties shardingProperties;
+    private final PreprocessingResultRepository preprocessingResultRepository;
+    private final ComparisonEstimateProperties estimateProperties;
+    private final ComparisonPairRepository comparisonPairRepository;
     private final MinioClient minioClient;
     protected final MinioProperties minioProperties;
+    private final EntityManager entityManager;
 
     public ComparisonService(
         ComparisonRepository comparisonRepository,
@@ -67,7 +91,9 @@ public class ComparisonService implements IComparisonService {
         FileRepository fileRepository,
         FolderRepository folderRepository,
         IMetadataService metadataService,
-        IJobTrackingService jobTrackingService,Validator validator,
+        IJobTrackingService jobTrackingService,
+        IInboxService inboxService,
+        Validator validator,
         RabbitTemplate rabbitTemplate,
         ComparisonMapper mapper,
         ObjectMapper objectMapper,
@@ -77,7 +103,13 @@ public class ComparisonService implements IComparisonService {
         ApplicationEventPublisher eventPublisher,
             MinioClient minioClient,
             MinioProperties minioProperties,
-            ChunkingResultCacheService chunkingCacheService
+            ChunkingResultCacheService chunkingCacheService,
+            ComparisonFileShardRepository comparisonFileShardRepository,
+            ComparisonShardingProperties shardingProperties,
+            PreprocessingResultRepository preprocessingResultRepository,
+            ComparisonEstimateProperties estimateProperties,
+            ComparisonPairRepository comparisonPairRepository,
+            EntityManager entityManager
     ) {
 
         this.comparisonRepository = comparisonRepository;
@@ -87,6 +119,7 @@ public class ComparisonService implements IComparisonService {
         this.fileRepository = fileRepository;
         this.metadataService = metadataService;
         this.jobTrackingService = jobTrackingService;
+        this.inboxService = inboxService;
         this.validator = validator;
         this.rabbitTemplate = rabbitTemplate;
         this.mapper = mapper;
@@ -98,9 +131,16 @@ public class ComparisonService implements IComparisonService {
         this.minioClient = minioClient;
         this.minioProperties = minioProperties;
         this.chunkingCacheService = chunkingCacheService;
+        this.comparisonFileShardRepository = comparisonFileShardRepository;
+        this.shardingProperties = shardingProperties;
+        this.preprocessingResultRepository = preprocessingResultRepository;
+        this.estimateProperties = estimateProperties;
+        this.comparisonPairRepository = comparisonPairRepository;
+        this.entityManager = entityManager;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ComparisonDTO> getPagedComparisons(Pageable pageable, String search) {
         Page<Comparison> comparisonPage;
 
@@ -112,48 +152,103 @@ public class ComparisonService implements IComparisonService {
                 pageable
             );
         }
-        List<ComparisonDTO> dtoList = comparisonPage.getContent().stream().map(comparison -> {
-            ComparisonDTO dto = mapper.toDto(comparison);
-            reportRepository.findTopByComparisonIdOrderByCreationDateDesc(comparison.getId())
-                .ifPresent(report -> dto.setLatestReport("/reports/" + report.getId() + "/download"));
-            List<Long> fileMetadataIds = comparisonFileRepository
-                .getComparisonFilesByComparisonId(comparison.getId());
-
-            List<String> fileMetadataIdStrings = fileMetadataIds.stream()
-                .map(String::valueOf)
-                .toList();
-
-            List<FileMetadataDTO> fileMetadataDTOs = metadataService
-                .getMetadataList(fileMetadataIdStrings);
-
-            dto.setFiles(fileMetadataDTOs);
-            return dto;
-        }).toList();
+        List<ComparisonDTO> dtoList = toListDtos(comparisonPage.getContent());
 
         return new PageImpl<>(dtoList, pageable, comparisonPage.getTotalElements());
     }
 
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<ComparisonDTO> scrollComparisons(CursorRequest request, String search) {
+        Sort sort = Sort.by(request.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC, "createdAt", "id");
+        ScrollPosition position = CursorCodec.toScrollPosition(request.getCursor(), "createdAt",
+            sortKey -> LocalDateTime.ofInstant(sortKey, ZoneOffset.UTC));
+        Limit limit = Limit.of(request.getSize());
+        boolean filtered = search != null && !search.isBlank();
+
+        Window<Comparison> window = filtered
+            ? comparisonRepository.findByNameContainingIgnoreCase(search, position, sort, limit)
+            : comparisonRepository.findAllBy(position, sort, limit);
+        Long total = null;
+        if (request.isIncludeTotal()) {
+            total = filtered ? comparisonRepository.countByNameContainingIgnoreCase(search) : comparisonRepository.count();
+        }
+        return new CursorPageDto<>(
+            toListDtos(window.getContent()),
+            CursorCodec.nextCursor(window, comparison -> comparison.getCreatedAt().toInstant(ZoneOffset.UTC), Comparison::getId),
+            total
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ComparisonDTO> getAllComparisons() {
         List<Comparison> comparisons = comparisonRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
 
-        return comparisons.stream().map(comparison -> {
-            ComparisonDTO dto = mapper.toDto(comparison);
-            reportRepository.findTopByComparisonIdOrderByCreationDateDesc(comparison.getId())
-                .ifPresent(report -> dto.setLatestReport("/reports/" + report.getId() + "/download"));
+        return toListDtos(comparisons);
+    }
 
-            List<Long> fileMetadataIds = comparisonFileRepository
-                .getComparisonFilesByComparisonId(comparison.getId());
+    /**
+     * Reads the comparisons through a database cursor and maps them in batches of {@link #STREAM_BATCH_SIZE}.
+     * The persistence context is cleared after every batch, so memory stays flat regardless of the number of rows.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllComparisons(Consumer<ComparisonDTO> consumer) {
+        try (Stream<Comparison> comparisons = comparisonRepository.streamAllNewestFirst()) {
+            List<Comparison> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+            Iterator<Comparison> iterator = comparisons.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == STREAM_BATCH_SIZE || !iterator.hasNext()) {
+                    toListDtos(batch).forEach(consumer);
+                    batch.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+    }
 
-            List<String> fileMetadataIdStrings = fileMetadataIds.stream()
-                .map(String::valueOf)
-                .toList();
+    /**
+     * Builds the list entries of the given comparisons with a fixed number of queries, independent of their count:
+     * latest reports, comparison file ids and file metadata are each loaded for all comparisons at once.
+     */
+    private List<ComparisonDTO> toListDtos(List<Comparison> comparisons) {
+        if (comparisons.isEmpty()) {
+            return List.of();
+        }
+        List<Long> comparisonIds = comparisons.stream().map(Comparison::getId).toList();
 
-            List<FileMetadataDTO> fileMetadataDTOs = metadataService
-                .getMetadataList(fileMetadataIdStrings);
+        Map<Long, Long> latestReportIds = new HashMap<>();
+        for (LatestReport report : reportRepository.findLatestReportsByComparisonIdIn(comparisonIds)) {
+            latestReportIds.put(report.getComparisonId(), report.getReportId());
+        }
 
-            dto.setFiles(fileMetadataDTOs);
+        Map<Long, List<Long>> fileIdsByComparison = new HashMap<>();
+        Set<Long> fileIds = new HashSet<>();
+        for (ComparisonFileId comparisonFile : comparisonFileRepository.findFileIdsByComparisonIdIn(comparisonIds)) {
+            fileIdsByComparison.computeIfAbsent(comparisonFile.getComparisonId(), id -> new ArrayList<>()).add(comparisonFile.getFileId());
+            fileIds.add(comparisonFile.getFileId());
+        }
+
+        Map<Long, FileMetadataDTO> filesById = new HashMap<>();
+        if (!fileIds.isEmpty()) {
+            for (File file : fileRepository.findAllWithFolderAndCoordinateSystemByIdIn(fileIds)) {
+                filesById.put(file.getId(), metadataMapper.toDto(file));
+            }
+        }
+
+        return comparisons.stream().map(comparison -> {
+            ComparisonDTO dto = mapper.toDto(comparison);
+            Long reportId = latestReportIds.get(comparison.getId());
+            if (reportId != null) {
+                dto.setLatestReport("/reports/" + reportId + "/download");
+            }
+            dto.setFiles(fileIdsByComparison.getOrDefault(comparison.getId(), List.of()).stream()
+                .map(filesById::get)
+                .filter(Objects::nonNull)
+                .toList());
             return dto;
         }).toList();
     }
@@ -164,46 +259,22 @@ public class ComparisonService implements IComparisonService {
     public ComparisonDTO saveComparison(CreateComparisonRequest comparisonRequest, List<Long> fileMetadataIds) throws NotFoundException, ValidationException {
         //TODO: Add validation
         validateGrid(comparisonRequest);
+        validateEpochs(comparisonRequest);
 
-        Comparison savedComparison = comparisonRepository.save(mapper.toEntityFromRequest(comparisonRequest));
+        // Pooled ids delay the INSERT to the next flush, the comparison files below are written with plain JDBC
+        Comparison savedComparison = comparisonRepository.saveAndFlush(mapper.toEntityFromRequest(comparisonRequest));
+        Map<String, List<ComparisonFile>> baseFilesByGroup = loadBaseComparisonFiles(comparisonRequest.getBaseComparisonId());
+        Map<Long, File> filesById = loadFiles(requestedFileLists(comparisonRequest, fileMetadataIds),
+            baseFilesByGroup.values().stream().flatMap(List::stream).map(ComparisonFile::getFileId).toList());
         ComparisonPlan fullPlan = new ComparisonPlan();
 
-        if (comparisonRequest.getFolderAFiles() != null && !comparisonRequest.getFolderAFiles().isEmpty()) {
-            File firstFile = fileRepository.findById(comparisonRequest.getFolderAFiles().getFirst()).orElseThrow(() ->
-                new NotFoundException("File for comparison with id: " + comparisonRequest.getFolderAFiles().getFirst() + " not found!"));
-            //TODO test if works for file to file comparisons
-            String groupName;
-            if (firstFile.getFolder() != null) {
-                groupName = firstFile.getFolder().getName();
-            } else {
-                groupName = firstFile.getOriginalFilename();
-            }
-            fullPlan.merge(processFolderGroup(comparisonRequest.getFolderAFiles(), comparisonRequest.getGrid(),
-                savedComparison, groupName, savedComparison.getPointFilterLowerBound(),
+        for (FileGroup group : fileGroups(comparisonRequest, fileMetadataIds, filesById)) {
+            List<ComparisonFile> baseFiles = baseFilesByGroup.getOrDefault(group.name(), List.of());
+            fullPlan.merge(processFolderGroup(group.files(), baseFiles, filesById, comparisonRequest.getGrid(),
+                savedComparison, group.name(), savedComparison.getPointFilterLowerBound(),
                 savedComparison.getPointFilterUpperBound(), savedComparison.getNeedOutlierDetection(),
                 savedComparison.getOutlierDeviationFactor(), savedComparison.getNeedPointFilter()));
         }
-        if (comparisonRequest.getFolderBFiles() != null && !comparisonRequest.getFolderBFiles().isEmpty()) {
-            File firstFile = fileRepository.findById(comparisonRequest.getFolderBFiles().getFirst()).orElseThrow(() ->
-                new NotFoundException("File for comparison with id: " + comparisonRequest.getFolderBFiles().getFirst() + " not found!"));
-            //TODO test if works for file to file comparisons
-            String groupName;
-            if (firstFile.getFolder() != null) {
-                groupName = firstFile.getFolder().getName();
-            } else {
-                groupName = firstFile.getOriginalFilename();
-            }
-            fullPlan.merge(processFolderGroup(comparisonRequest.getFolderBFiles(), comparisonRequest.getGrid(),
-                savedComparison, groupName, savedComparison.getPointFilterLowerBound(),
-                savedComparison.getPointFilterUpperBound(), savedComparison.getNeedOutlierDetection(),
-                savedComparison.getOutlierDeviationFactor(), savedComparison.getNeedPointFilter()));
-        }
-        if (fileMetadataIds != null && !fileMetadataIds.isEmpty()) {
-            fullPlan.merge(processFolderGroup(fileMetadataIds, comparisonRequest.getGrid(), savedComparison,
-                "legacy", savedComparison.getPointFilterLowerBound(), savedComparison.getPointFilterUpperBound(),
-                savedComparison.getNeedOutlierDetection(), savedComparison.getOutlierDeviationFactor(),
-                savedComparison.getNeedPointFilter()));
-        }
 
         //Saving all files (excluded and included)
         List<ComparisonFile> allFiles =
@@ -212,7 +283,12 @@ public class ComparisonService implements IComparisonService {
                 fullPlan.getFilesToExclude().stream()
             ).toList();
 
-        comparisonFileRepository.saveAll(allFiles);
+        comparisonFileRepository.insertAll(allFiles);
+        comparisonFileShardRepository.insertAll(fullPlan.getShardsToSave());
+        jobTrackingService.registerJobs(fullPlan.getJobsToStart().stream().map(this::toTrackedJob).toList());
+        if (hasEpochs(comparisonRequest)) {
+            comparisonPairRepository.saveAll(planPairs(comparisonRequest, savedComparison.getId()));
+        }
 
         //Saving folder <-> comparison connections
         if (comparisonRequest.getFolderAId() != null) {
@@ -221,15 +297,98 @@ public class ComparisonService implements IComparisonService {
         if (comparisonRequest.getFolderBId() != null) {
             comparisonFolderRepository.save(new ComparisonFolder(savedComparison.getId(), comparisonRequest.getFolderBId()));
         }
+        if (hasEpochs(comparisonRequest)) {
+            comparisonRequest.getEpochs().stream()
+                .map(ComparisonEpoch::getFolderId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(folderId -> comparisonFolderRepository.save(new ComparisonFolder(savedComparison.getId(), folderId)));
+        }
 
         ComparisonDTO dto = mapper.toDto(savedComparison);
-        List<Long> allFileIds = allFiles.stream().map(ComparisonFile::getFileId).toList();
-        dto.setFiles(metadataService.getMetadataList(allFileIds.stream().map(String::valueOf).toList()));
+        dto.setFiles(allFiles.stream().map(cf -> metadataMapper.toDto(filesById.get(cf.getFileId()))).toList());
 
+        eventPublisher.publishEvent(new ComparisonChangedEvent(savedComparison.getId()));
         eventPublisher.publishEvent(new PreProcessJobsReadyEvent(fullPlan.getJobsToStart()));
+        if (fullPlan.getJobsToStart().isEmpty() && !fullPlan.getFilesToInclude().isEmpty()) {
+            log.info("Comparison {}: all preprocessing results are reused", savedComparison.getId());
+            checkIfPreprocessingDoneAndStartComparison(savedComparison, savedComparison.getId(), null);
+        }
         return dto;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ComparisonEstimateDTO estimateComparison(CreateComparisonRequest comparisonRequest, List<Long> fileMetadataIds)
+            throws NotFoundException, ValidationException {
+        validateGrid(comparisonRequest);
+        validateEpochs(comparisonRequest);
+
+        Comparison draft = mapper.toEntityFromRequest(comparisonRequest);
+        GridParameters grid = comparisonRequest.getGrid();
+        GridCoverage.CellRange gridCells = toCellRange(new BoundingBox(grid.getxMin(), grid.getxMax(), grid.getyMin(), grid.getyMax()), grid);
+        GridCoverage aoi = GridCoverage.of(gridCells);
+        Map<Long, File> filesById = loadFiles(requestedFileLists(comparisonRequest, fileMetadataIds), List.of());
+
+        ComparisonEstimateDTO estimate = new ComparisonEstimateDTO();
+        estimate.setCellCount(aoi.cellCount());
+        GridCoverage compared = null;
+        for (FileGroup group : fileGroups(comparisonRequest, fileMetadataIds, filesById)) {
+            ComparisonPlan excluded = new ComparisonPlan();
+            List<PlannedFile> plannedFiles = planRegions(group.files(), grid, draft, group.name(), excluded);
+            Set<String> reusableHashes = findReusableResults(plannedFiles);
+
+            GridCoverage groupCoverage = GridCoverage.empty();
+            for (PlannedFile planned : plannedFiles) {
+                boolean reused = reusableHashes.contains(planned.comparisonFile().getInputHash());
+                for (List<GridCoverage.CellRange> shard : planned.shards()) {
+                    GridCoverage shardCoverage = toCoverage(List.of(shard));
+                    groupCoverage = groupCoverage.union(shardCoverage);
+                    if (!reused) {
+                        long points = estimatePoints(planned.file(), shardCoverage.cellCount(), planned.fileCells());
+                        estimate.getJobs().add(new ComparisonEstimateDTO.JobEstimate(group.name(), planned.file().getId(),
+                            toBoundingBoxes(shard, grid), shardCoverage.cellCount(), points));
+                        estimate.setEstimatedPoints(estimate.getEstimatedPoints() + points);
+                    }
+                }
+                if (reused) {
+                    estimate.setReusedFiles(estimate.getReusedFiles() + 1);
+                }
+            }
+
+            GridCoverage coveredAoi = aoi.subtract(aoi.subtract(groupCoverage));
+            estimate.getGroups().add(new ComparisonEstimateDTO.GroupEstimate(group.name(), plannedFiles.size(),
+                excluded.getFilesToExclude().size(), fraction(coveredAoi.cellCount(), estimate.getCellCount())));
+            compared = compared == null ? coveredAoi : compared.subtract(compared.subtract(coveredAoi));
+        }
+
+        estimate.setPreprocessingJobs(estimate.getJobs().size());
+        estimate.setCoveredFraction(compared == null ? 0.0 : fraction(compared.cellCount(), estimate.getCellCount()));
+        estimate.setEstimatedRuntimeSeconds(estimateRuntimeSeconds(estimate.getEstimatedPoints(), estimate.getPreprocessingJobs()));
+        return estimate;
+    }
+
+    /**
+     * Scales the point count of a file by the share of its cells a job actually covers.
+     */
+    private long estimatePoints(File file, long jobCells, GridCoverage.CellRange fileCells) {
+        if (file.getPointCount() == null) {
+            return 0;
+        }
+        long totalCells = (fileCells.colMax() - fileCells.colMin()) * (fileCells.rowMax() - fileCells.rowMin());
+        return totalCells == 0 ? 0 : Math.round((double) file.getPointCount() * jobCells / totalCells);
+    }
+
+    private long estimateRuntimeSeconds(long points, int jobs) {
+        double seconds = (double) points / estimateProperties.getPointsPerSecond()
+            + jobs * estimateProperties.getJobOverheadSeconds();
+        return (long) Math.ceil(seconds / Math.max(1, estimateProperties.getWorkerConcurrency()));
+    }
+
+    private double fraction(long part, long total) {
+        return total == 0 ? 0.0 : (double) part / total;
+    }
+
     private void validateGrid(CreateComparisonRequest comparisonRequest) throws ValidationException {
         List<String> validationErrors = new ArrayList<>();
         GridParameters gridParameters = comparisonRequest.getGrid();
@@ -248,36 +407,303 @@ public class ComparisonService implements IComparisonService {
         }
     }
 
-    private ComparisonPlan processFolderGroup(List<Long> fileIds, GridParameters grid, Comparison savedComparison,
+    private boolean hasEpochs(CreateComparisonRequest comparisonRequest) {
+        return comparisonRequest.getEpochs() != null && !comparisonRequest.getEpochs().isEmpty();
+    }
+
+    private void validateEpochs(CreateComparisonRequest comparisonRequest) throws ValidationException {
+        if (!hasEpochs(comparisonRequest)) {
+            return;
+        }
+        List<String> validationErrors = new ArrayList<>();
+        List<ComparisonEpoch> epochs = comparisonRequest.getEpochs();
+        if (epochs.size() < 2) {
+            validationErrors.add("A multi-epoch comparison needs at least two epochs");
+        }
+        if (comparisonRequest.getFolderAFiles() != null && !comparisonRequest.getFolderAFiles().isEmpty()
+            || comparisonRequest.getFolderBFiles() != null && !comparisonRequest.getFolderBFiles().isEmpty()) {
+            validationErrors.add("Epochs cannot be combined with folder A / folder B files");
+        }
+        Set<String> names = new HashSet<>();
+        Set<Long> fileIds = new HashSet<>();
+        for (ComparisonEpoch epoch : epochs) {
+            if (epoch.getName() == null || epoch.getName().isBlank()) {
+                validationErrors.add("Every epoch needs a name");
+            } else if (!names.add(epoch.getName())) {
+                validationErrors.add("Epoch name " + epoch.getName() + " is used more than once");
+            }
+            if (epoch.getFileIds() == null || epoch.getFileIds().isEmpty()) {
+                validationErrors.add("Epoch " + epoch.getName() + " has no files");
+                continue;
+            }
+            for (Long fileId : epoch.getFileIds()) {
+                if (!fileIds.add(fileId)) {
+                    validationErrors.add("File with id: " + fileId + " is part of more than one epoch");
+                }
+            }
+        }
+
+        if (!validationErrors.isEmpty()) {
+            throw new ValidationException("Validation of epochs for comparison: " + comparisonRequest.getName() + " failed!", validationErrors);
+        }
+    }
+
+    /**
+     * Lists the epoch pairs to compare in output order, the earlier epoch of the request comes first in each pair.
+     */
+    private List<ComparisonPair> planPairs(CreateComparisonRequest comparisonRequest, Long comparisonId) {
+        List<String> names = comparisonRequest.getEpochs().stream().map(ComparisonEpoch::getName).toList();
+        ComparisonPairing pairing = comparisonRequest.getPairing() == null ? ComparisonPairing.CONSECUTIVE : comparisonRequest.getPairing();
+        List<ComparisonPair> pairs = new ArrayList<>();
+        for (int first = 0; first < names.size(); first++) {
+            for (int second = first + 1; second < names.size(); second++) {
+                boolean requested = switch (pairing) {
+                    case CONSECUTIVE -> second == first + 1;
+                    case BASELINE -> first == 0;
+                    case ALL_PAIRS -> true;
+                };
+                if (requested) {
+                    pairs.add(ComparisonPair.builder()
+                        .comparisonId(comparisonId)
+                        .pairOrder(pairs.size())
+                        .groupA(names.get(first))
+                        .groupB(names.get(second))
+                        .status(ComparisonPair.Status.PENDING)
+                        .build());
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Loads every file referenced by the request with one query, including the folder and coordinate system
+     * needed for group names and the returned metadata.
+     */
+    private Map<Long, File> loadFiles(List<List<Long>> requestedFileLists, Collection<Long> baseFileIds) throws NotFoundException {
+        Set<Long> requestedIds = new LinkedHashSet<>();
+        requestedFileLists.forEach(requestedIds::addAll);
+        if (requestedIds.isEmpty()) {
+            return Map.of();
+        }
+
+        // Files that only belong to the base comparison may have been deleted since, they are optional
+        Set<Long> loadedIds = new HashSet<>(requestedIds);
+        loadedIds.addAll(baseFileIds);
+        Map<Long, File> filesById = new HashMap<>();
+        for (File file : fileRepository.findAllWithFolderAndCoordinateSystemByIdIn(loadedIds)) {
+            filesById.put(file.getId(), file);
+        }
+        List<Long> missingIds = requestedIds.stream().filter(id -> !filesById.containsKey(id)).toList();
+        if (missingIds.size() == 1) {
+            throw new NotFoundException("File for comparison with id: " + missingIds.getFirst() + " not found!");
+        }
+        if (!missingIds.isEmpty()) {
+            throw new NotFoundException("Files for comparison with ids: " + missingIds + " not found!");
+        }
+        return filesById;
+    }
+
+    private List<List<Long>> requestedFileLists(CreateComparisonRequest comparisonRequest, List<Long> fileMetadataIds) {
+        List<List<Long>> fileLists = new ArrayList<>();
+        Stream.of(comparisonRequest.getFolderAFiles(), comparisonRequest.getFolderBFiles(), fileMetadataIds)
+            .filter(Objects::nonNull)
+            .forEach(fileLists::add);
+        if (hasEpochs(comparisonRequest)) {
+            comparisonRequest.getEpochs().forEach(epoch -> fileLists.add(epoch.getFileIds()));
+        }
+        return fileLists;
+    }
+
+    /**
+     * Returns the files in request order, which decides which file claims overlapping regions first.
+     */
+    private List<File> orderedFiles(List<Long> fileIds, Map<Long, File> filesById) {
+        return fileIds.stream().map(filesById::get).toList();
+    }
+
+    /**
+     * Loads the comparison files of the base comparison of an incremental request, grouped by group name.
+     */
+    private Map<String, List<ComparisonFile>> loadBaseComparisonFiles(Long baseComparisonId) throws NotFoundException {
+        if (baseComparisonId == null) {
+            return new HashMap<>();
+        }
+        if (!comparisonRepository.existsById(baseComparisonId)) {
+            throw new NotFoundException("Base comparison with id: " + baseComparisonId + " not found!");
+        }
+        Map<String, List<ComparisonFile>> baseFilesByGroup = new HashMap<>();
+        for (ComparisonFile cf : comparisonFileRepository.findAllByComparisonIdOrderByClaimOrderAscFileIdAsc(baseComparisonId)) {
+            baseFilesByGroup.computeIfAbsent(cf.getGroupName(), group -> new ArrayList<>()).add(cf);
+        }
+        return baseFilesByGroup;
+    }
+
+    /**
+     * Splits the requested files into the groups that are compared against each other, each in request order.
+     * Each epoch of a multi-epoch comparison is one group named after the epoch.
+     */
+    private List<FileGroup> fileGroups(CreateComparisonRequest comparisonRequest, List<Long> fileMetadataIds,
+                                       Map<Long, File> filesById) {
+        List<FileGroup> groups = new ArrayList<>();
+        if (hasEpochs(comparisonRequest)) {
+            for (ComparisonEpoch epoch : comparisonRequest.getEpochs()) {
+                groups.add(new FileGroup(epoch.getName(), orderedFiles(epoch.getFileIds(), filesById)));
+            }
+        }
+        //TODO test if works for file to file comparisons
+        for (List<Long> folderFiles : Arrays.asList(comparisonRequest.getFolderAFiles(), comparisonRequest.getFolderBFiles())) {
+            if (folderFiles != null && !folderFiles.isEmpty()) {
+                List<File> groupFiles = orderedFiles(folderFiles, filesById);
+                groups.add(new FileGroup(groupNameOf(groupFiles.getFirst()), groupFiles));
+            }
+        }
+        if (fileMetadataIds != null && !fileMetadataIds.isEmpty()) {
+            groups.add(new FileGroup("legacy", orderedFiles(fileMetadataIds, filesById)));
+        }
+        return groups;
+    }
+
+    private String groupNameOf(File firstFile) {
+        if (firstFile.getFolder() != null) {
+            return firstFile.getFolder().getName();
+        }
+        return firstFile.getOriginalFilename();
+    }
+
+    /**
+     * Plans a group in two phases: the first one computes the regions of every file in memory, the second one
+     * looks up all reusable preprocessing results of the group at once and builds the jobs for the rest.
+     * With base files from a previous comparison the files of that comparison keep their priority, so they keep
+     * their regions and only cells released by removed files or claimed by added files are preprocessed again.
+     */
+    private ComparisonPlan processFolderGroup(List<File> files, List<ComparisonFile> baseFiles, Map<Long, File> filesById,
+                                              GridParameters grid, Comparison savedComparison,
                                               String groupName, Double pointFilterLowerBound, Double pointFilterUpperBound,
-                                              Boolean outlierDetectionEnabled, Double outlierDeviationFactor, Boolean needPointFilter)
-            throws NotFoundException {
+                                              Boolean outlierDetectionEnabled, Double outlierDeviationFactor, Boolean needPointFilter) {
         ComparisonPlan plan = new ComparisonPlan();
-        if (fileIds == null || fileIds.isEmpty()) {
-            return plan;
-        }
+        Set<Long> requestedIds = new HashSet<>();
+        files.forEach(file -> requestedIds.add(file.getId()));
+        Set<Long> baseFileIds = new HashSet<>();
+        baseFiles.forEach(cf -> baseFileIds.add(cf.getFileId()));
+        List<File> unchangedFiles = baseFiles.stream()
+            .map(ComparisonFile::getFileId)
+            .filter(requestedIds::contains)
+            .map(filesById::get)
+            .toList();
+        List<File> planningOrder = baseFiles.isEmpty() ? files : Stream.concat(unchangedFiles.stream(),
+            files.stream().filter(file -> !baseFileIds.contains(file.getId()))).toList();
+        List<PlannedFile> plannedFiles = planRegions(planningOrder, grid, savedComparison, groupName, plan);
+
+        Map<String, PreprocessingResult> reusableResults = acquireReusableResults(plannedFiles);
+        Map<Long, IncrementalRegions> incrementalRegions = baseFiles.isEmpty() ? Map.of()
+            : planIncrementalRegions(plannedFiles, reusableResults, baseFiles, filesById, grid, savedComparison, groupName);
+        for (PlannedFile planned : plannedFiles) {
+            File fileEntity = planned.file();
+            ComparisonFile cf = planned.comparisonFile();
+            PreprocessingResult reusable = cf.getInputHash() == null ? null : reusableResults.get(cf.getInputHash());
+            IncrementalRegions incremental = incrementalRegions.get(fileEntity.getId());
+
+            if (incremental != null && incremental.changedShards().isEmpty()) {
+                cf.setInputHash(incremental.previousResult().getInputHash());
+                reusable = incremental.previousResult();
+            }
 
-        List<File> files = new ArrayList<>();
-        for (Long fileId : fileIds) {
-            files.add(fileRepository.findById(fileId)
-                .orElseThrow(() -> new NotFoundException("File for comparison with id: " + fileId + " not found!")));
+            if (incremental != null && reusable == null) {
+                cf.setInputHash(null);
+                List<StartPreProcessJobDto> shardJobs = new ArrayList<>();
+                List<ComparisonFileShard> shardEntities = new ArrayList<>();
+                shardEntities.add(ComparisonFileShard.builder()
+                    .jobId(UUID.randomUUID())
+                    .comparisonId(savedComparison.getId())
+                    .fileId(fileEntity.getId())
+                    .bucket(incremental.previousResult().getBucket())
+                    .objectKey(incremental.previousResult().getObjectKey())
+                    .inputHash(incremental.previousResult().getInputHash())
+                    .holdsReference(true)
+                    .status(ComparisonFile.Status.COMPLETED)
+                    .build());
+                for (List<GridCoverage.CellRange> shard : incremental.changedShards()) {
+                    StartPreProcessJobDto jobDto = buildPreprocessJob(fileEntity, toBoundingBoxes(shard, grid), grid,
+                        savedComparison, pointFilterLowerBound, pointFilterUpperBound, outlierDetectionEnabled,
+                        outlierDeviationFactor, needPointFilter);
+                    shardJobs.add(jobDto);
+                    shardEntities.add(ComparisonFileShard.builder()
+                        .jobId(UUID.fromString(jobDto.getJobId()))
+                        .comparisonId(savedComparison.getId())
+                        .fileId(fileEntity.getId())
+                        .status(ComparisonFile.Status.PREPROCESSING)
+                        .build());
+                }
+                plan.addShardedFile(cf, shardJobs, shardEntities);
+                log.info("File {} reuses its previous result {}, {} preprocessing jobs for changed cells",
+                    fileEntity.getId(), incremental.previousResult().getObjectKey(), shardJobs.size());
+            } else if (reusable != null) {
+                cf.setBucket(reusable.getBucket());
+                cf.setObjectKey(reusable.getObjectKey());
+                cf.setHoldsReference(true);
+                cf.setStatus(ComparisonFile.Status.COMPLETED);
+                plan.addReusedFile(cf);
+                log.info("Reusing preprocessing result {} for file {}", cf.getObjectKey(), fileEntity.getId());
+            } else if (planned.shards().size() == 1) {
+                List<GridCoverage.CellRange> regions = planned.shards().getFirst();
+                StartPreProcessJobDto jobDto = buildPreprocessJob(fileEntity, toBoundingBoxes(regions, grid), grid,
+                    savedComparison, pointFilterLowerBound, pointFilterUpperBound, outlierDetectionEnabled,
+                    outlierDeviationFactor, needPointFilter);
+                plan.addIncludedFile(cf, jobDto);
+                if (planned.unclaimedRangeCount() > regions.size()) {
+                    log.info("Preprocessing job {} for file {}: coalesced {} bboxes into {}",
+                        jobDto.getJobId(), fileEntity.getId(), planned.unclaimedRangeCount(), regions.size());
+                }
+            } else {
+                List<StartPreProcessJobDto> shardJobs = new ArrayList<>();
+                List<ComparisonFileShard> shardEntities = new ArrayList<>();
+                for (List<GridCoverage.CellRange> shard : planned.shards()) {
+                    StartPreProcessJobDto jobDto = buildPreprocessJob(fileEntity, toBoundingBoxes(shard, grid), grid,
+                        savedComparison, pointFilterLowerBound, pointFilterUpperBound, outlierDetectionEnabled,
+                        outlierDeviationFactor, needPointFilter);
+                    shardJobs.add(jobDto);
+                    shardEntities.add(ComparisonFileShard.builder()
+                        .jobId(UUID.fromString(jobDto.getJobId()))
+                        .comparisonId(savedComparison.getId())
+                        .fileId(fileEntity.getId())
+                        .status(ComparisonFile.Status.PREPROCESSING)
+                        .build());
+                }
+                plan.addShardedFile(cf, shardJobs, shardEntities);
+                log.info("File {} exceeds the sharding threshold, split into {} preprocessing jobs",
+                    fileEntity.getId(), shardJobs.size());
+            }
         }
+        return plan;
+    }
+
+    /**
+     * Computes the unclaimed regions of every file in the group. Files without any region are added to the plan
+     * as excluded, the returned files still need a job or a reusable result.
+     */
+    private List<PlannedFile> planRegions(List<File> files, GridParameters grid, Comparison comparison,
+                                          String groupName, ComparisonPlan plan) {
         BoundingBox gridBox = new BoundingBox(
             grid.getxMin(), grid.getxMax(),
             grid.getyMin(), grid.getyMax()
         );
         //TODO: Order by newer dates so newer file is higher prio
         //TODO: Which dates? Upload or capture year?
-        List<BoundingBox> restrictedZones = new ArrayList<>();
+        GridCoverage.CellRange gridCells = toCellRange(gridBox, grid);
+        ClaimedRegionIndex restrictedZones = new ClaimedRegionIndex();
+        List<PlannedFile> plannedFiles = new ArrayList<>();
+        int claimOrder = 0;
         for (File fileEntity : files) {
             BoundingBox rawBox = new BoundingBox(
                 fileEntity.getMinX(), fileEntity.getMaxX(),
                 fileEntity.getMinY(), fileEntity.getMaxY()
             );
             ComparisonFile cf = new ComparisonFile();
-            cf.setComparisonId(savedComparison.getId());
+            cf.setComparisonId(comparison.getId());
             cf.setFileId(fileEntity.getId());
             cf.setGroupName(groupName);
+            cf.setClaimOrder(claimOrder++);
             cf.setStatus(ComparisonFile.Status.PREPROCESSING);
 
             if (!intersects(rawBox, gridBox)) {
@@ -286,60 +712,30 @@ public class ComparisonService implements IComparisonService {
                 plan.addExcludedFile(cf);
                 continue;
             }
-            BoundingBox snappedBox = snapToGrid(rawBox, grid);
-
-            List<BoundingBox> validRegions = new ArrayList<>();
-            validRegions.add(snappedBox);
+            GridCoverage.CellRange fileCells = toCellRange(rawBox, grid);
+            BoundingBox cellBox = toCellBox(fileCells);
 
-            for (BoundingBox restrictedZone : restrictedZones) {
-                validRegions = subtractRectangleFromList(validRegions, restrictedZone);
-                if (validRegions.isEmpty()) {
+            GridCoverage unclaimed = GridCoverage.of(fileCells);
+            for (BoundingBox claimedCells : restrictedZones.search(cellBox)) {
+                unclaimed = unclaimed.subtract(GridCoverage.of(toCellRange(claimedCells)));
+                if (unclaimed.isEmpty()) {
                     break;
                 }
             }
+            List<GridCoverage.CellRange> unclaimedRanges = unclaimed.toRanges();
+            List<GridCoverage.CellRange> coalescedRanges = RegionCoalescer.coalesce(unclaimedRanges);
 
-            if (!validRegions.isEmpty()) {
+            if (!coalescedRanges.isEmpty()) {
                 cf.setIncluded(true);
-                String uniqueJobId =
-                    UUID.randomUUID().toString();
-                StartPreProcessJobDto jobDto = StartPreProcessJobDto.builder()
-                    .jobId(uniqueJobId)
-                    .grid(grid)
-                    .bboxes(validRegions)
-                    .comparisonId(savedComparison.getId())
-                    .file(new MinioObjectDto("basebucket", fileEntity.getFilename()))
-                    .fileId(fileEntity.getId())
-                    .outlierDetectionEnabled(outlierDetectionEnabled)
-                    .outlierDeviationFactor(outlierDeviationFactor)
-                    .pointFilterEnabled(Boolean.TRUE.equals(needPointFilter))
-                    .build();
-
-                if(savedComparison.getIndividualStatisticsPercentile() != null) {
-                    jobDto.setIndividualPercentile(savedComparison.getIndividualStatisticsPercentile());
-                }
+                restrictedZones.insert(cellBox);
 
-                if (pointFilterLowerBound != null) {
-                    jobDto.setPointFilterLowerBound(pointFilterLowerBound);
-                }
-                if (pointFilterUpperBound != null) {
-                    jobDto.setPointFilterUpperBound(pointFilterUpperBound);
+                List<List<GridCoverage.CellRange>> shards = shouldShard(fileEntity)
+                    ? splitIntoTiles(coalescedRanges)
+                    : List.of(coalescedRanges);
+                if (shards.size() == 1) {
+                    cf.setInputHash(PreprocessingResultKey.of(fileEntity, grid, clampToCells(coalescedRanges, gridCells), comparison));
                 }
-
-                plan.addIncludedFile(cf, jobDto);
-
-                restrictedZones.add(snappedBox);
-
-                UUID jobUuid = UUID.fromString(uniqueJobId);
-
-                TrackedJob trackedJob = new TrackedJob(
-                        jobUuid,
-                        JobType.PREPROCESSING,
-                        Map.of("comparisonId", savedComparison.getId(), "fileId", fileEntity.getId()),
-                        Instant.now(),
-                        Duration.ofMinutes(15)
-                );
-                jobTrackingService.registerJob(trackedJob);
-
+                plannedFiles.add(new PlannedFile(fileEntity, cf, fileCells, unclaimedRanges.size(), shards));
             } else {
                     cf.setIncluded(false);
                     cf.setStatus(ComparisonFile.Status.COMPLETED);
@@ -349,59 +745,254 @@ public class ComparisonService implements IComparisonService {
             //TODO: Check if this is reliable
             //TODO: file1 , file2, file3, ...
         }
-        return plan;
+
+        return plannedFiles;
     }
 
-    //TODO: Rethink that maybe, currently this implies that if one file already covers a small size of a cell that it will take the whole cell, and unsure if we want that?
-    private BoundingBox snapToGrid(BoundingBox rawBox, GridParameters grid) {
-        double cellW = grid.getCellWidth().doubleValue();
-        double cellH = grid.getCellHeight().doubleValue();
-        double gridOriginX = grid.getxMin();
-        double gridOriginY = grid.getyMin();
+    /**
+     * Finds the unchanged files whose regions only grew since the base comparison and takes a reference on their
+     * previous results. The regions of the base comparison are planned again in its claim order, a previous result
+     * is only used if that replanned hash matches the hash stored on the base comparison file.
+     */
+    private Map<Long, IncrementalRegions> planIncrementalRegions(List<PlannedFile> plannedFiles,
+                                                                 Map<String, PreprocessingResult> reusableResults,
+                                                                 List<ComparisonFile> baseFiles, Map<Long, File> filesById,
+                                                                 GridParameters grid, Comparison comparison, String groupName) {
+        List<File> previousOrder = new ArrayList<>();
+        Map<Long, String> previousHashes = new HashMap<>();
+        for (ComparisonFile baseFile : baseFiles) {
+            previousHashes.put(baseFile.getFileId(), baseFile.getInputHash());
+            File previousFile = filesById.get(baseFile.getFileId());
+            if (previousFile != null) {
+                previousOrder.add(previousFile);
+            }
+        }
+        Map<Long, PlannedFile> previousPlan = new HashMap<>();
+        for (PlannedFile previous : planRegions(previousOrder, grid, comparison, groupName, new ComparisonPlan())) {
+            previousPlan.put(previous.file().getId(), previous);
+        }
 
-        //Snap Min (FLOOR)
-        double newXMin = gridOriginX + Math.floor((rawBox.getxMin() - gridOriginX) / cellW) * cellW;
-        double newYMin = gridOriginY + Math.floor((rawBox.getyMin() - gridOriginY) / cellH) * cellH;
+        Map<Long, List<List<GridCoverage.CellRange>>> changedShards = new HashMap<>();
+        Map<Long, String> candidateHashes = new HashMap<>();
+        for (PlannedFile planned : plannedFiles) {
+            String currentHash = planned.comparisonFile().getInputHash();
+            if (currentHash != null && reusableResults.containsKey(currentHash)) {
+                continue;
+            }
+            PlannedFile previous = previousPlan.get(planned.file().getId());
+            String previousHash = previous == null ? null : previous.comparisonFile().getInputHash();
+            if (previousHash == null || !previousHash.equals(previousHashes.get(planned.file().getId()))) {
+                continue;
+            }
+            GridCoverage current = toCoverage(planned.shards());
+            GridCoverage before = toCoverage(previous.shards());
+            if (!before.subtract(current).isEmpty()) {
+                continue;
+            }
+            List<GridCoverage.CellRange> changed = RegionCoalescer.coalesce(current.subtract(before).toRanges());
+            changedShards.put(planned.file().getId(), changed.isEmpty() ? List.of()
+                : shouldShard(planned.file()) ? splitIntoTiles(changed) : List.of(changed));
+            candidateHashes.put(planned.file().getId(), previousHash);
+        }
+        if (candidateHashes.isEmpty()) {
+            return Map.of();
+        }
 
-        //Snap Max (CEIL)
-        double newXMax = gridOriginX + Math.ceil((rawBox.getxMax() - gridOriginX) / cellW) * cellW;
-        double newYMax = gridOriginY + Math.ceil((rawBox.getyMax() - gridOriginY) / cellH) * cellH;
-        return new BoundingBox(newXMin, newXMax, newYMin, newYMax);
+        Map<String, PreprocessingResult> previousResults = new HashMap<>();
+        for (PreprocessingResult result : preprocessingResultRepository.acquireAll(new HashSet<>(candidateHashes.values()))) {
+            previousResults.put(result.getInputHash(), result);
+        }
+        Map<Long, IncrementalRegions> incremental = new HashMap<>();
+        candidateHashes.forEach((fileId, hash) -> {
+            PreprocessingResult result = previousResults.get(hash);
+            if (result != null) {
+                incremental.put(fileId, new IncrementalRegions(result, changedShards.get(fileId)));
+            }
+        });
+        return incremental;
     }
 
-    private List<BoundingBox> subtractRectangleFromList(List<BoundingBox> currentRegions, BoundingBox obstacle) {
-        List<BoundingBox> nextRegions = new ArrayList<>();
-        for (BoundingBox region : currentRegions) {
-            if (!intersects(region, obstacle)) {
-                nextRegions.add(region);
-            } else {
-                nextRegions.addAll(shatterBox(region, obstacle));
+    private GridCoverage toCoverage(List<List<GridCoverage.CellRange>> shards) {
+        GridCoverage coverage = GridCoverage.empty();
+        for (List<GridCoverage.CellRange> shard : shards) {
+            for (GridCoverage.CellRange range : shard) {
+                coverage = coverage.union(GridCoverage.of(range));
+            }
+        }
+        return coverage;
+    }
+
+    /**
+     * Takes a reference on every registered result matching a planned file with one statement.
+     */
+    private Map<String, PreprocessingResult> acquireReusableResults(List<PlannedFile> plannedFiles) {
+        Set<String> inputHashes = inputHashes(plannedFiles);
+        if (inputHashes.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, PreprocessingResult> results = new HashMap<>();
+        for (PreprocessingResult result : preprocessingResultRepository.acquireAll(inputHashes)) {
+            results.put(result.getInputHash(), result);
+        }
+        return results;
+    }
+
+    /**
+     * Read-only variant of {@link #acquireReusableResults(List)} for estimates, no reference is taken.
+     */
+    private Set<String> findReusableResults(List<PlannedFile> plannedFiles) {
+        Set<String> inputHashes = inputHashes(plannedFiles);
+        if (inputHashes.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> reusable = new HashSet<>();
+        for (PreprocessingResult result : preprocessingResultRepository.findAllById(inputHashes)) {
+            reusable.add(result.getInputHash());
+        }
+        return reusable;
+    }
+
+    private Set<String> inputHashes(List<PlannedFile> plannedFiles) {
+        Set<String> inputHashes = new HashSet<>();
+        for (PlannedFile planned : plannedFiles) {
+            if (planned.comparisonFile().getInputHash() != null) {
+                inputHashes.add(planned.comparisonFile().getInputHash());
             }
         }
-        return nextRegions;
+        return inputHashes;
     }
 
-    private List<BoundingBox> shatterBox(BoundingBox a, BoundingBox b) {
-        List<BoundingBox> parts = new ArrayList<>();
+    private StartPreProcessJobDto buildPreprocessJob(File fileEntity, List<BoundingBox> bboxes, GridParameters grid,
+                                                     Comparison savedComparison, Double pointFilterLowerBound,
+                                                     Double pointFilterUpperBound, Boolean outlierDetectionEnabled,
+                                                     Double outlierDeviationFactor, Boolean needPointFilter) {
+        StartPreProcessJobDto jobDto = StartPreProcessJobDto.builder()
+            .jobId(UUID.randomUUID().toString())
+            .grid(grid)
+            .bboxes(bboxes)
+            .comparisonId(savedComparison.getId())
+            .file(new MinioObjectDto("basebucket", fileEntity.getFilename()))
+            .fileId(fileEntity.getId())
+            .outlierDetectionEnabled(outlierDetectionEnabled)
+            .outlierDeviationFactor(outlierDeviationFactor)
+            .pointFilterEnabled(Boolean.TRUE.equals(needPointFilter))
+            .build();
+
+        if(savedComparison.getIndividualStatisticsPercentile() != null) {
+            jobDto.setIndividualPercentile(savedComparison.getIndividualStatisticsPercentile());
+        }
 
-        double interXMin = Math.max(a.getxMin(), b.getxMin());
-        double interXMax = Math.min(a.getxMax(), b.getxMax());
-        double interYMin = Math.max(a.getyMin(), b.getyMin());
-        double interYMax = Math.min(a.getyMax(), b.getyMax());
+        if (pointFilterLowerBound != null) {
+            jobDto.setPointFilterLowerBound(pointFilterLowerBound);
+        }
+        if (pointFilterUpperBound != null) {
+            jobDto.setPointFilterUpperBound(pointFilterUpperBound);
+        }
+        return jobDto;
+    }
 
-        if (a.getyMax() > interYMax) {
-            parts.add(new BoundingBox(a.getxMin(), a.getxMax(), interYMax, a.getyMax()));
+    private TrackedJob toTrackedJob(StartPreProcessJobDto jobDto) {
+        return new TrackedJob(
+                UUID.fromString(jobDto.getJobId()),
+                JobType.PREPROCESSING,
+                Map.of("comparisonId", jobDto.getComparisonId(), "fileId", jobDto.getFileId()),
+                Instant.now(),
+                Duration.ofMinutes(15)
+        );
+    }
+
+    private List<GridCoverage.CellRange> clampToCells(List<GridCoverage.CellRange> ranges, GridCoverage.CellRange bounds) {
+        List<GridCoverage.CellRange> clamped = new ArrayList<>();
+        for (GridCoverage.CellRange range : ranges) {
+            long colMin = Math.max(range.colMin(), bounds.colMin());
+            long colMax = Math.min(range.colMax(), bounds.colMax());
+            long rowMin = Math.max(range.rowMin(), bounds.rowMin());
+            long rowMax = Math.min(range.rowMax(), bounds.rowMax());
+            if (colMin < colMax && rowMin < rowMax) {
+                clamped.add(new GridCoverage.CellRange(colMin, colMax, rowMin, rowMax));
+            }
         }
-        if (a.getyMin() < interYMin) {
-            parts.add(new BoundingBox(a.getxMin(), a.getxMax(), a.getyMin(), interYMin));
+        return clamped;
+    }
+
+    private boolean shouldShard(File fileEntity) {
+        if (!shardingProperties.isEnabled()) {
+            return false;
         }
-        if (a.getxMin() < interXMin) {
-            parts.add(new BoundingBox(a.getxMin(), interXMin, interYMin, interYMax));
+        return (fileEntity.getPointCount() != null && fileEntity.getPointCount() > shardingProperties.getPointThreshold())
+            || (fileEntity.getSizeBytes() != null && fileEntity.getSizeBytes() > shardingProperties.getByteThreshold());
+    }
+
+    /**
+     * Cuts the regions of a file along square tiles of the configured size in cells, one list of regions per tile.
+     * Tiles are aligned to the grid origin, so shards of different files never straddle the same tile border.
+     */
+    private List<List<GridCoverage.CellRange>> splitIntoTiles(List<GridCoverage.CellRange> ranges) {
+        long tile = Math.max(1, shardingProperties.getTileCells());
+        Map<List<Long>, List<GridCoverage.CellRange>> tiles = new TreeMap<>(
+            Comparator.<List<Long>>comparingLong(key -> key.get(0)).thenComparingLong(key -> key.get(1)));
+        for (GridCoverage.CellRange range : ranges) {
+            for (long tileRow = Math.floorDiv(range.rowMin(), tile); tileRow <= Math.floorDiv(range.rowMax() - 1, tile); tileRow++) {
+                for (long tileCol = Math.floorDiv(range.colMin(), tile); tileCol <= Math.floorDiv(range.colMax() - 1, tile); tileCol++) {
+                    GridCoverage.CellRange piece = new GridCoverage.CellRange(
+                        Math.max(range.colMin(), tileCol * tile), Math.min(range.colMax(), (tileCol + 1) * tile),
+                        Math.max(range.rowMin(), tileRow * tile), Math.min(range.rowMax(), (tileRow + 1) * tile)
+                    );
+                    tiles.computeIfAbsent(List.of(tileRow, tileCol), key -> new ArrayList<>()).add(piece);
+                }
+            }
+        }
+        List<List<GridCoverage.CellRange>> shards = new ArrayList<>(tiles.size());
+        for (List<GridCoverage.CellRange> pieces : tiles.values()) {
+            shards.add(RegionCoalescer.coalesce(pieces));
         }
-        if (a.getxMax() > interXMax) {
-            parts.add(new BoundingBox(interXMax, a.getxMax(), interYMin, interYMax));
+        return shards;
+    }
+
+    //TODO: Rethink that maybe, currently this implies that if one file already covers a small size of a cell that it will take the whole cell, and unsure if we want that?
+    private GridCoverage.CellRange toCellRange(BoundingBox rawBox, GridParameters grid) {
+        double cellW = grid.getCellWidth().doubleValue();
+        double cellH = grid.getCellHeight().doubleValue();
+        double gridOriginX = grid.getxMin();
+        double gridOriginY = grid.getyMin();
+
+        //Snap Min (FLOOR), Snap Max (CEIL)
+        return new GridCoverage.CellRange(
+            (long) Math.floor((rawBox.getxMin() - gridOriginX) / cellW),
+            (long) Math.ceil((rawBox.getxMax() - gridOriginX) / cellW),
+            (long) Math.floor((rawBox.getyMin() - gridOriginY) / cellH),
+            (long) Math.ceil((rawBox.getyMax() - gridOriginY) / cellH)
+        );
+    }
+
+    /**
+     * Claimed zones are indexed in cell coordinates, which are exact integers and need no snapping.
+     */
+    private GridCoverage.CellRange toCellRange(BoundingBox cellBox) {
+        return new GridCoverage.CellRange(
+            cellBox.getxMin().longValue(), cellBox.getxMax().longValue(),
+            cellBox.getyMin().longValue(), cellBox.getyMax().longValue()
+        );
+    }
+
+    private BoundingBox toCellBox(GridCoverage.CellRange cells) {
+        return new BoundingBox(
+            (double) cells.colMin(), (double) cells.colMax(),
+            (double) cells.rowMin(), (double) cells.rowMax()
+        );
+    }
+
+    private List<BoundingBox> toBoundingBoxes(List<GridCoverage.CellRange> ranges, GridParameters grid) {
+        double cellW = grid.getCellWidth().doubleValue();
+        double cellH = grid.getCellHeight().doubleValue();
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (GridCoverage.CellRange cells : ranges) {
+            boxes.add(new BoundingBox(
+                grid.getxMin() + cells.colMin() * cellW, grid.getxMin() + cells.colMax() * cellW,
+                grid.getyMin() + cells.rowMin() * cellH, grid.getyMin() + cells.rowMax() * cellH
+            ));
         }
-        return parts;
+        return boxes;
     }
 
     private boolean intersects(BoundingBox a, BoundingBox b) {
@@ -410,6 +1001,25 @@ public class ComparisonService implements IComparisonService {
     }
 
     @Override
+    public Optional<Long> findComparisonVersion(Long comparisonId) {
+        return comparisonRepository.findVersionById(comparisonId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CollectionVersion> getEmbeddedVersions(Long comparisonId) {
+        return List.of(
+            comparisonFileRepository.findFileVersionByComparisonId(comparisonId),
+            comparisonFolderRepository.findFolderVersionByComparisonId(comparisonId));
+    }
+
+    @Override
+    public Long getComparisonsVersion() {
+        return comparisonRepository.findCollectionVersion();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ComparisonDTO getComparison(Long comparisonId) throws NotFoundException {
         ComparisonDTO dto = comparisonRepository.findById(comparisonId).map(mapper::toDto).orElse(null);
         if (dto == null) {
@@ -430,6 +1040,13 @@ public class ComparisonService implements IComparisonService {
                 .toList();
 
         dto.setFiles(independentFilesInComparison);
+        List<ComparisonPairDTO> pairs = comparisonPairRepository.findAllByComparisonIdOrderByPairOrderAsc(comparisonId).stream()
+            .map(pair -> new ComparisonPairDTO(pair.getGroupA(), pair.getGroupB(), pair.getStatus().toString(),
+                pair.getResultBucket(), pair.getResultObjectKey(), pair.getErrorMsg()))
+            .toList();
+        if (!pairs.isEmpty()) {
+            dto.setPairs(pairs);
+        }
 
         return dto;
     }
@@ -476,36 +1093,26 @@ public class ComparisonService implements IComparisonService {
     }
 
     @Override
-    public void saveVisualizationComparison(Map<String, Object> result) {
+    public void saveVisualizationComparison(WorkerResultMessage<ChunkingResultPayload> result) {
         //TODO: This should be at most a debug log -> trashes the whole logs of BE (live)
         //log.info("Received visualization comparison notification");
-        if (!result.containsKey("payload")) {
+        ChunkingResultPayload payload = result.payload();
+        if (payload == null) {
             log.warn("No comparison id or payload found in result of chunking worker");
             return;
         }
-        Map<String, Object> payload = (Map<String, Object>) result.get("payload");
-        if (!payload.containsKey("comparisonId")) {
+        if (payload.comparisonId() == null) {
             log.warn("No comparison id found in result of chunking worker");
             return;
         }
-        Object idObj = payload.get("comparisonId");
-        if (!(idObj instanceof Number)) {
-            log.warn("Invalid comparisonId in result of chunking worker");
-            return;
-        }
-        Long comparisonId = ((Number) idObj).longValue();
-
-        // Extract chunkSize from payload
-        Object chunkSizeObj = payload.get("chunkSize");
-        int chunkSize = (chunkSizeObj instanceof Number) ? ((Number) chunkSizeObj).intValue() : 1;
+        Long comparisonId = payload.comparisonId();
+        int chunkSize = payload.chunkSize() != null ? payload.chunkSize() : 1;
 
         // Check if result is already cached by worker (new flow)
-        Boolean cached = payload.get("cached") instanceof Boolean ? (Boolean) payload.get("cached") : false;
-
-        if (Boolean.TRUE.equals(cached)) {
-            // Worker wrote result directly to Redis - just notify SSE subscribers
+        if (Boolean.TRUE.equals(payload.cached())) {
+            // Worker wrote result directly to Redis - just notify SSE subscribers, they stream the raw JSON from the cache
             log.info("Chunking result for comparison {} (chunkSize={}) already cached by worker, notifying subscribers", comparisonId, chunkSize);
-            Optional<Object> cachedResult = chunkingCacheService.get(comparisonId, chunkSize);
+            Optional<String> cachedResult = chunkingCacheService.getRawJson(comparisonId, chunkSize);
             if (cachedResult.isPresent()) {
                 eventPublisher.publishEvent(new ChunkingResultReadyEvent(this, comparisonId, chunkSize, cachedResult.get()));
             } else {
@@ -515,23 +1122,23 @@ public class ComparisonService implements IComparisonService {
         }
 
         // Fallback: full payload in message (legacy flow or Redis failure in worker)
-        if (!payload.containsKey("chunked_cells")) {
+        if (payload.chunkedCells() == null) {
             log.warn("No chunked cells found in result of chunking worker");
             return;
         }
 
-        //TODO: Eventually fix to real dto / model
-        Map<String, Object> visualizationResult = new HashMap<>();
-        visualizationResult.put("chunked_cells", payload.get("chunked_cells"));
+        // The raw JSON of the cells is written to the cache as it was received
+        Map<String, RawJson> visualizationResult = new LinkedHashMap<>();
+        visualizationResult.put("chunked_cells", payload.chunkedCells());
 
-        if (payload.containsKey("statistics")) {
-            visualizationResult.put("statistics", payload.get("statistics"));
+        if (payload.statistics() != null) {
+            visualizationResult.put("statistics", payload.statistics());
         }
-        if (payload.containsKey("group_mapping")) {
-            visualizationResult.put("group_mapping", payload.get("group_mapping"));
+        if (payload.groupMapping() != null) {
+            visualizationResult.put("group_mapping", payload.groupMapping());
         }
-        if(payload.containsKey("statistics_p")) {
-            visualizationResult.put("statistics_p", payload.get("statistics_p"));
+        if (payload.statisticsP() != null) {
+            visualizationResult.put("statistics_p", payload.statisticsP());
         }
         // Save to Redis cache with chunkSize
         chunkingCacheService.save(comparisonId, chunkSize, visualizationResult);
@@ -574,6 +1181,10 @@ public class ComparisonService implements IComparisonService {
 
         // 3. Delete pre-processing results from minio
         for (ComparisonFile cf : cfs) {
+            // Files whose job is still running or failed carry a hash but no reference, their object is private
+            if (cf.isHoldsReference() && !releasePreprocessingResult(cf.getInputHash())) {
+                continue;
+            }
             try {
                 deleteObjectFromMinio(cf.getBucket(), cf.getObjectKey());
             } catch (Exception error) {
@@ -581,15 +1192,37 @@ public class ComparisonService implements IComparisonService {
             }
         }
 
+        for (ComparisonFileShard shard : comparisonFileShardRepository.findAllByComparisonId(id)) {
+            if (shard.isHoldsReference() && !releasePreprocessingResult(shard.getInputHash())) {
+                continue;
+            }
+            try {
+                deleteObjectFromMinio(shard.getBucket(), shard.getObjectKey());
+            } catch (Exception error) {
+                log.info("Error deleting preprocessing shard result in MinIO.");
+            }
+        }
+
         // 4. Delete comparison result
         try {
             deleteObjectFromMinio(cp.getResultBucket(), cp.getResultObjectKey());
         } catch (Exception error) {
             log.info("Error deleting comparison result in MinIO.");
         }
+        for (ComparisonPair pair : comparisonPairRepository.findAllByComparisonIdOrderByPairOrderAsc(id)) {
+            if (pair.getResultObjectKey() == null || pair.getResultObjectKey().equals(cp.getResultObjectKey())) {
+                continue;
+            }
+            try {
+                deleteObjectFromMinio(pair.getResultBucket(), pair.getResultObjectKey());
+            } catch (Exception error) {
+                log.info("Error deleting pair comparison result in MinIO.");
+            }
+        }
 
         // 5. Delete the comparison
         comparisonRepository.deleteById(id);
+        eventPublisher.publishEvent(new ComparisonChangedEvent(id));
         log.info("Successfully deleted comparison and related reports for id: {}", id);
 
         // 6. Clean up the files and folders
@@ -597,6 +1230,21 @@ public class ComparisonService implements IComparisonService {
         folderRepository.deleteAllById(foldersToRemove);
     }
 
+    /**
+     * Drops the reference a comparison file or shard holds on a shared preprocessing result and returns true if
+     * the object is no longer used.
+     */
+    private boolean releasePreprocessingResult(String inputHash) {
+        preprocessingResultRepository.release(inputHash);
+        Optional<Integer> remaining = preprocessingResultRepository.findReferenceCount(inputHash);
+        if (remaining.isPresent() && remaining.get() > 0) {
+            log.info("Preprocessing result {} is still used by {} comparison files", inputHash, remaining.get());
+            return false;
+        }
+        remaining.ifPresent(count -> preprocessingResultRepository.deleteById(inputHash));
+        return true;
+    }
+
     private void deleteObjectFromMinio(String bucket, String objectKey) {
         try {
             minioClient.removeObject(
@@ -611,33 +1259,65 @@ public class ComparisonService implements IComparisonService {
     }
 
     @Override
-    public void processPreprocessingResult(Map<String, Object> result) {
-        log.info("Processing Preprocessing result...");
-        log.info("Preprocessing result: {}", result);
-        String status = (String) result.get("status");
-        String jobId = (String) result.get("job_id");
-        Map<String, Object> payload = (Map<String, Object>) result.get("payload");
+    @Transactional
+    public void processPreprocessingResult(WorkerResultMessage<PreprocessingResultPayload> result) {
+        processPreprocessingResults(List.of(result));
+    }
 
-        if (status == null || jobId == null || payload == null) {
-            log.error("Invalid result message received, missing jobId, payload or status");
-            return;
+    /**
+     * Applies the results per comparison: the comparison, its files and the shards are loaded once, the updates are
+     * flushed as JDBC batches on commit and whether all files are ready is checked once instead of after every file.
+     * Results of jobs that were processed before are dropped by the inbox.
+     */
+    @Override
+    @Transactional
+    public void processPreprocessingResults(List<WorkerResultMessage<PreprocessingResultPayload>> results) {
+        log.info("Processing {} Preprocessing results...", results.size());
+        List<ReceivedPreprocessingResult> received = new ArrayList<>(results.size());
+        for (WorkerResultMessage<PreprocessingResultPayload> result : results) {
+            log.info("Preprocessing result: {}", result);
+            String status = result.status();
+            String jobId = result.jobId();
+            PreprocessingResultPayload payload = result.payload();
+
+            if (status == null || jobId == null || payload == null) {
+                log.error("Invalid result message received, missing jobId, payload or status");
+                continue;
+            }
+            UUID jobUuid;
+            try {
+                jobUuid = UUID.fromString(jobId);
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid job id received, jobId: " + jobId);
+                continue;
+            }
+            received.add(new ReceivedPreprocessingResult(jobUuid, result));
         }
-        UUID jobUuid;
-        try {
-            jobUuid = UUID.fromString(jobId);
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid job id received, jobId: " + jobId);
+        if (received.isEmpty()) {
             return;
         }
-        jobTrackingService.completeJob(jobUuid);
 
-        Number comparisonIdNum = (Number) payload.get("comparisonId");
-        if (comparisonIdNum == null) {
-            log.error("Missing comparisonId in preprocessing payload.");
-            return;
+        Set<UUID> claimed = new HashSet<>(inboxService.claim(JobType.PREPROCESSING,
+            received.stream().map(ReceivedPreprocessingResult::jobId).toList()));
+        Map<Long, List<ReceivedPreprocessingResult>> resultsByComparison = new LinkedHashMap<>();
+        for (ReceivedPreprocessingResult result : received) {
+            // Each claimed job id is taken once, a second copy within the batch is a duplicate as well
+            if (!claimed.remove(result.jobId())) {
+                continue;
+            }
+            jobTrackingService.completeJob(result.jobId());
+
+            Long comparisonId = result.message().payload().comparisonId();
+            if (comparisonId == null) {
+                log.error("Missing comparisonId in preprocessing payload.");
+                continue;
+            }
+            resultsByComparison.computeIfAbsent(comparisonId, id -> new ArrayList<>()).add(result);
         }
-        Long comparisonId = comparisonIdNum.longValue();
+        resultsByComparison.forEach(this::applyPreprocessingResults);
+    }
 
+    private void applyPreprocessingResults(Long comparisonId, List<ReceivedPreprocessingResult> results) {
         Optional<Comparison> comparisonOpt = comparisonRepository.findComparisonsById(comparisonId);
         if (comparisonOpt.isEmpty()) {
             log.error("comparison file entry not found for comparisonId={}", comparisonId);
@@ -645,67 +1325,127 @@ public class ComparisonService implements IComparisonService {
         }
         Comparison comparison = comparisonOpt.get();
 
-        Number fileIdNum = (Number) payload.get("fileId");
-        if (fileIdNum == null) {
-            log.error("Missing fileId in preprocessing payload.");
-            persistComparisonErrorPreprocessing(comparison, "Received invalid preprocessing results: missing fileId");
-            return;
-        }
-        Long fileId = fileIdNum.longValue();
+        Set<Long> fileIds = results.stream()
+            .map(received -> received.message().payload().fileId())
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<Long, ComparisonFile> comparisonFiles = new HashMap<>();
+        comparisonFileRepository.findAllByComparisonIdAndFileIdIn(comparisonId, fileIds)
+            .forEach(cf -> comparisonFiles.put(cf.getFileId(), cf));
+        Map<UUID, ComparisonFileShard> shards = new HashMap<>();
+        comparisonFileShardRepository.findAllById(results.stream().map(ReceivedPreprocessingResult::jobId).collect(Collectors.toSet()))
+            .forEach(shard -> shards.put(shard.getJobId(), shard));
+
+        List<ComparisonFileShard> completedShards = new ArrayList<>();
+        Map<Long, ComparisonFile> filesWithCompletedShards = new LinkedHashMap<>();
+        List<ComparisonFile> completedFiles = new ArrayList<>();
+        for (ReceivedPreprocessingResult received : results) {
+            String jobId = received.message().jobId();
+            PreprocessingResultPayload payload = received.message().payload();
+            Long fileId = payload.fileId();
+            if (fileId == null) {
+                log.error("Missing fileId in preprocessing payload.");
+                persistComparisonErrorPreprocessing(comparison, "Received invalid preprocessing results: missing fileId");
+                continue;
+            }
 
-        Optional<ComparisonFile> cfOpt = comparisonFileRepository.findComparisonFiles(comparisonId, fileId);
-        if (cfOpt.isEmpty()) {
-            String errorMsg = String.format(
-                    "comparison_file entry not found for comparisonId=%s fileId=%s",
-                    comparisonId,
-                    fileId
-            );
-            persistComparisonErrorPreprocessing(comparison, errorMsg);
-            return;
-        }
-        ComparisonFile cf = cfOpt.get();
+            ComparisonFile cf = comparisonFiles.get(fileId);
+            if (cf == null) {
+                String errorMsg = String.format(
+                        "comparison_file entry not found for comparisonId=%s fileId=%s",
+                        comparisonId,
+                        fileId
+                );
+                persistComparisonErrorPreprocessing(comparison, errorMsg);
+                continue;
+            }
 
-        if (cf.getStatus().equals(ComparisonFile.Status.FAILED)) {
-            return;
-        }
+            if (cf.getStatus().equals(ComparisonFile.Status.FAILED)) {
+                continue;
+            }
+
+            if (!received.message().isSuccess()) {
+                String errorMessage = payload.msg();
+                if (errorMessage != null) {
+                    log.warn("Preprocessing job {} failed: {}", jobId, errorMessage);
+                    ComparisonFileShard shard = shards.get(received.jobId());
+                    if (shard != null) {
+                        shard.setStatus(ComparisonFile.Status.FAILED);
+                        shard.setErrorMsg(errorMessage);
+                        comparisonFileShardRepository.save(shard);
+                    }
+                    persistComparisonFileError(cf, errorMessage);
+                    String comparisonErrorMsg = "Preprocessing failed for one file";
+                    persistComparisonErrorPreprocessing(comparison, comparisonErrorMsg);
+                    continue;
+                }
+            }
 
-        if (!status.equalsIgnoreCase("success")) {
-            Object payloadMsg = ((Map<?, ?>) payload).get("msg");
-            if (payloadMsg instanceof String errorMessage) {
-                log.warn("Preprocessing job {} failed: {}", jobId, errorMessage);
-                persistComparisonFileError(cf, errorMessage);
-                String comparisonErrorMsg = "Preprocessing failed for one file";
+            ResultLocation resultLocation = payload.result();
+            if (resultLocation == null) {
+                log.error("Missing result object for file {}", fileId);
+                persistComparisonFileError(cf, "Received invalid preprocessing results: missing minio references");
+                String comparisonErrorMsg = "Received invalid preprocessing results: missing minio references";
                 persistComparisonErrorPreprocessing(comparison, comparisonErrorMsg);
-                return;
+                continue;
             }
-        }
 
-        Map<String, Object> resultObj = (Map<String, Object>) payload.get("result");
-        if (resultObj == null) {
-            log.error("Missing result object for file {}", fileId);
-            persistComparisonFileError(cf, "Received invalid preprocessing results: missing minio references");
-            String comparisonErrorMsg = "Received invalid preprocessing results: missing minio references";
-            persistComparisonErrorPreprocessing(comparison, comparisonErrorMsg);
+            String bucket = resultLocation.bucket();
+            String objectKey = resultLocation.objectKey();
+            ComparisonFileShard shard = shards.get(received.jobId());
+            if (shard != null) {
+                shard.setBucket(bucket);
+                shard.setObjectKey(objectKey);
+                shard.setStatus(ComparisonFile.Status.COMPLETED);
+                completedShards.add(shard);
+                filesWithCompletedShards.put(fileId, cf);
+            } else {
+                cf.setBucket(bucket);
+                cf.setObjectKey(objectKey);
+                if (cf.getInputHash() != null) {
+                    if (preprocessingResultRepository.registerIfAbsent(cf.getInputHash(), bucket, objectKey) == 0) {
+                        // An equal result was registered in the meantime, this object stays private to the comparison
+                        cf.setInputHash(null);
+                    } else {
+                        cf.setHoldsReference(true);
+                    }
+                }
+                completedFiles.add(cf);
+            }
+        }
+        comparisonFileShardRepository.saveAll(completedShards);
+
+        if (!filesWithCompletedShards.isEmpty()) {
+            Set<Long> filesWithPendingShards = new HashSet<>(comparisonFileShardRepository.findFileIdsWithShardStatusNot(
+                comparisonId, filesWithCompletedShards.keySet(), ComparisonFile.Status.COMPLETED));
+            filesWithCompletedShards.forEach((fileId, cf) -> {
+                if (filesWithPendingShards.contains(fileId)) {
+                    log.info("Shard of file {} finished, waiting for the remaining shards", fileId);
+                } else {
+                    completedFiles.add(cf);
+                }
+            });
+        }
+        if (completedFiles.isEmpty()) {
             return;
         }
 
-        String bucket = (String) resultObj.get("bucket");
-        String objectKey = (String) resultObj.get("objectKey");
-        cf.setBucket(bucket);
-        cf.setObjectKey(objectKey);
-        cf.setErrorMsg(null);
-        cf.setStatus(ComparisonFile.Status.COMPLETED);
-        comparisonFileRepository.save(cf);
-        checkIfPreprocessingDoneAndStartComparison(comparison, comparisonId, jobId);
+        for (ComparisonFile cf : completedFiles) {
+            cf.setErrorMsg(null);
+            cf.setStatus(ComparisonFile.Status.COMPLETED);
+        }
+        comparisonFileRepository.saveAll(completedFiles);
+        checkIfPreprocessingDoneAndStartComparison(comparison, comparisonId, results.getLast().message().jobId());
     }
 
     @Override
-    public void processComparisonResult(Map<String, Object> result) {
+    @Transactional
+    public void processComparisonResult(WorkerResultMessage<ComparisonResultPayload> result) {
         log.info("Processing Comparison result...");
 
-        String status = (String) result.get("status");
-        String jobId = (String) result.get("job_id");
-        Map<String, Object> payload = (Map<String, Object>) result.get("payload");
+        String status = result.status();
+        String jobId = result.jobId();
+        ComparisonResultPayload payload = result.payload();
 
         if (status == null || jobId == null || payload == null) {
             log.error("Invalid result message received, missing jobId, payload or status");
@@ -719,20 +1459,19 @@ public class ComparisonService implements IComparisonService {
             log.error("Invalid job id received, jobId: " + jobId);
             return;
         }
+        if (inboxService.claim(JobType.COMPARISON, List.of(jobUuid)).isEmpty()) {
+            return;
+        }
         jobTrackingService.completeJob(jobUuid);
 
-        Object comparisonIdObj = payload.get("comparisonId");
-        Long comparisonId;
-        if (comparisonIdObj instanceof Number n) {
-            comparisonId = n.longValue();
-        } else if (comparisonIdObj instanceof String s) {
-            comparisonId = Long.parseLong(s);
-        } else {
-            log.error("Invalid comparisonId type: {}", comparisonIdObj);
+        // Numeric strings are accepted as well, the converter coerces them to the Long
+        Long comparisonId = payload.comparisonId();
+        if (comparisonId == null) {
+            log.error("Missing comparisonId in comparison payload.");
             return;
         }
 
-        Optional<Comparison> comparisonOpt = comparisonRepository.findComparisonsById(comparisonId.longValue());
+        Optional<Comparison> comparisonOpt = comparisonRepository.findComparisonsById(comparisonId);
         if (comparisonOpt.isEmpty()) {
             log.error("comparison  entry not found for comparisonId={}", comparisonId);
             return;
@@ -742,18 +1481,24 @@ public class ComparisonService implements IComparisonService {
             return;
         }
 
-        if (!status.equalsIgnoreCase("success")) {
-            Object payloadMsg = ((Map<?, ?>) payload).get("msg");
-            if (payloadMsg instanceof String errorMessage) {
+        Optional<ComparisonPair> pairOpt = comparisonPairRepository.findByJobId(jobUuid);
+        if (pairOpt.isPresent()) {
+            processPairComparisonResult(comparison, pairOpt.get(), result.isSuccess(), payload);
+            return;
+        }
+
+        if (!result.isSuccess()) {
+            String errorMessage = payload.msg();
+            if (errorMessage != null) {
                 log.warn("Comparison job {} failed: {}", jobId, errorMessage);
                 persistComparisonError(comparison, errorMessage);
                 return;
             }
         }
 
-        Map<String, String> resultLocation = (Map<String, String>) payload.get("result");
-        String bucket = resultLocation.get("bucket");
-        String objectKey = resultLocation.get("objectKey");
+        ResultLocation resultLocation = payload.result();
+        String bucket = resultLocation == null ? null : resultLocation.bucket();
+        String objectKey = resultLocation == null ? null : resultLocation.objectKey();
 
         if (bucket == null || objectKey == null) {
             log.error("Missing bucket or objectKey in payload.");
@@ -765,7 +1510,7 @@ public class ComparisonService implements IComparisonService {
         comparison.setErrorMessage(null);
         comparison.setResultBucket(bucket);
         comparison.setResultObjectKey(objectKey);
-        comparisonRepository.save(comparison);
+        saveComparisonState(comparison);
     }
 
     private void checkIfPreprocessingDoneAndStartComparison(Comparison comparison, Long comparisonId, String jobId) {
@@ -773,17 +1518,26 @@ public class ComparisonService implements IComparisonService {
             log.info("Preprocessing of comparison with id {} failed. Comparison worker will not be started.", comparisonId);
             return;
         }
+        // A redelivered result must not start the comparison worker a second time
+        if (comparison.getStatus() != null && comparison.getStatus() != Comparison.Status.PREPROCESSING) {
+            log.info("Comparison {} already left preprocessing with status {}. Comparison worker will not be started again.",
+                comparisonId, comparison.getStatus());
+            return;
+        }
 
         boolean allReady = comparisonFileRepository.areAllIncludedFilesReady(comparisonId);
 
         if (allReady) {
             comparison.setStatus(Comparison.Status.COMPARING);
-            comparisonRepository.save(comparison);
+            saveComparisonState(comparison);
             List<ComparisonFile> comparisonFiles = comparisonFileRepository.findAllByComparisonIdAndIncludedTrue(comparisonId);
-            log.info("Comparison {}: all preprocessing files contain bucket & objectKey. Starting comparison worker...", comparisonId);
-            List<ComparisonWorkerInputFileDto> filesDto = comparisonFiles.stream()
-                .map(cf -> new ComparisonWorkerInputFileDto(cf.getBucket(), cf.getObjectKey(), cf.getGroupName()))
-                .toList();
+            log.info("Comparison {}: all included files are preprocessed. Starting comparison worker...", comparisonId);
+            List<ComparisonWorkerInputFileDto> filesDto = toComparisonInputFiles(comparisonId, comparisonFiles);
+            List<ComparisonPair> pairs = comparisonPairRepository.findAllByComparisonIdOrderByPairOrderAsc(comparisonId);
+            if (!pairs.isEmpty()) {
+                startPairComparisonJobs(comparisonId, pairs, filesDto);
+                return;
+            }
 
             UUID comparisonJobId = UUID.randomUUID();
             StartComparisonJobDto dto = new StartComparisonJobDto(
@@ -801,16 +1555,130 @@ public class ComparisonService implements IComparisonService {
                     Duration.ofMinutes(15)
             );
             jobTrackingService.registerJob(trackedJob);
-            workerStartService.startComparisonJob(dto);
+            eventPublisher.publishEvent(new ComparisonJobReadyEvent(dto));
         } else {
             log.info("Comparison {} is not ready yet. Waiting for other files.", comparisonId);
         }
     }
 
+    /**
+     * Starts one comparison job per epoch pair, each on the shared preprocessing results of its two epochs.
+     */
+    private void startPairComparisonJobs(Long comparisonId, List<ComparisonPair> pairs, List<ComparisonWorkerInputFileDto> filesDto) {
+        Map<String, List<ComparisonWorkerInputFileDto>> filesByGroup = new HashMap<>();
+        for (ComparisonWorkerInputFileDto file : filesDto) {
+            filesByGroup.computeIfAbsent(file.getGroupName(), group -> new ArrayList<>()).add(file);
+        }
+        List<TrackedJob> trackedJobs = new ArrayList<>();
+        List<StartComparisonJobDto> jobs = new ArrayList<>();
+        for (ComparisonPair pair : pairs) {
+            UUID comparisonJobId = UUID.randomUUID();
+            pair.setJobId(comparisonJobId);
+            pair.setStatus(ComparisonPair.Status.COMPARING);
+            List<ComparisonWorkerInputFileDto> pairFiles = new ArrayList<>(filesByGroup.getOrDefault(pair.getGroupA(), List.of()));
+            pairFiles.addAll(filesByGroup.getOrDefault(pair.getGroupB(), List.of()));
+            jobs.add(new StartComparisonJobDto(comparisonJobId.toString(), comparisonId.toString(), pairFiles,
+                pair.getGroupA(), pair.getGroupB()));
+            trackedJobs.add(new TrackedJob(
+                comparisonJobId,
+                JobType.COMPARISON,
+                Map.of("comparisonId", comparisonId),
+                Instant.now(),
+                Duration.ofMinutes(15)
+            ));
+        }
+        comparisonPairRepository.saveAll(pairs);
+        jobTrackingService.registerJobs(trackedJobs);
+        log.info("Comparison {}: starting {} pair comparison jobs", comparisonId, jobs.size());
+        jobs.forEach(job -> eventPublisher.publishEvent(new ComparisonJobReadyEvent(job)));
+    }
+
+    /**
+     * Stores the output of one epoch pair and completes the comparison once every pair has its output.
+     * The comparison result points to the first pair, so single-result consumers keep working.
+     */
+    private void processPairComparisonResult(Comparison comparison, ComparisonPair pair, boolean success, ComparisonResultPayload payload) {
+        if (!success) {
+            String errorMessage = payload.msg() != null ? payload.msg() : "Comparison job failed";
+            log.warn("Comparison job {} of pair {} / {} failed: {}", pair.getJobId(), pair.getGroupA(), pair.getGroupB(), errorMessage);
+            pair.setStatus(ComparisonPair.Status.FAILED);
+            pair.setErrorMsg(errorMessage);
+            comparisonPairRepository.save(pair);
+            persistComparisonError(comparison, "Comparison of " + pair.getGroupA() + " and " + pair.getGroupB() + " failed: " + errorMessage);
+            return;
+        }
+
+        ResultLocation resultLocation = payload.result();
+        String bucket = resultLocation == null ? null : resultLocation.bucket();
+        String objectKey = resultLocation == null ? null : resultLocation.objectKey();
+        if (bucket == null || objectKey == null) {
+            log.error("Missing bucket or objectKey in payload.");
+            pair.setStatus(ComparisonPair.Status.FAILED);
+            pair.setErrorMsg("Missing bucket or objectKey in comparison result payload.");
+            comparisonPairRepository.save(pair);
+            persistComparisonError(comparison, "Missing bucket or objectKey in comparison result payload.");
+            return;
+        }
+
+        pair.setStatus(ComparisonPair.Status.COMPLETED);
+        pair.setErrorMsg(null);
+        pair.setResultBucket(bucket);
+        pair.setResultObjectKey(objectKey);
+        comparisonPairRepository.save(pair);
+        if (pair.getPairOrder() == 0) {
+            comparison.setResultBucket(bucket);
+            comparison.setResultObjectKey(objectKey);
+        }
+        if (comparisonPairRepository.existsByComparisonIdAndStatusNot(comparison.getId(), ComparisonPair.Status.COMPLETED)) {
+            log.info("Pair {} / {} of comparison {} finished, waiting for the remaining pairs",
+                pair.getGroupA(), pair.getGroupB(), comparison.getId());
+            if (pair.getPairOrder() == 0) {
+                saveComparisonState(comparison);
+            } else {
+                comparisonRepository.incrementVersion(comparison.getId());
+            }
+            return;
+        }
+        comparison.setStatus(Comparison.Status.COMPLETED);
+        comparison.setErrorMessage(null);
+        saveComparisonState(comparison);
+    }
+
+    /**
+     * Sharded files have no result object of their own, every shard result is passed to the worker under the file's group.
+     */
+    private List<ComparisonWorkerInputFileDto> toComparisonInputFiles(Long comparisonId, List<ComparisonFile> comparisonFiles) {
+        Map<Long, List<ComparisonFileShard>> shardsByFile = new HashMap<>();
+        if (comparisonFiles.stream().anyMatch(cf -> cf.getObjectKey() == null)) {
+            for (ComparisonFileShard shard : comparisonFileShardRepository.findAllByComparisonId(comparisonId)) {
+                shardsByFile.computeIfAbsent(shard.getFileId(), id -> new ArrayList<>()).add(shard);
+            }
+        }
+        List<ComparisonWorkerInputFileDto> filesDto = new ArrayList<>();
+        for (ComparisonFile cf : comparisonFiles) {
+            if (cf.getObjectKey() != null) {
+                filesDto.add(new ComparisonWorkerInputFileDto(cf.getBucket(), cf.getObjectKey(), cf.getGroupName()));
+                continue;
+            }
+            for (ComparisonFileShard shard : shardsByFile.getOrDefault(cf.getFileId(), List.of())) {
+                filesDto.add(new ComparisonWorkerInputFileDto(shard.getBucket(), shard.getObjectKey(), cf.getGroupName()));
+            }
+        }
+        return filesDto;
+    }
+
+    /**
+     * Saves a status change of the comparison and lets the read models know about it.
+     */
+    private void saveComparisonState(Comparison comparison) {
+        comparisonRepository.save(comparison);
+        eventPublisher.publishEvent(new ComparisonChangedEvent(comparison.getId()));
+    }
+
     private void persistComparisonError(Comparison comparison, String errorMsg) {
         comparison.setStatus(Comparison.Status.FAILED);
         comparison.setErrorMessage(errorMsg);
-        comparisonRepository.save(comparison);
+        saveComparisonState(comparison);
     }
 
     private void persistComparisonErrorPreprocessing(Comparison comparison, String errorMsg) {
@@ -819,7 +1687,7 @@ public class ComparisonService implements IComparisonService {
         }
         comparison.setStatus(Comparison.Status.FAILED);
         comparison.setErrorMessage(errorMsg);
-        comparisonRepository.save(comparison);
+        saveComparisonState(comparison);
     }
 
     private void persistComparisonFileError(ComparisonFile comparisonFile, String errorMsg) {
@@ -827,4 +1695,23 @@ public class ComparisonService implements IComparisonService {
         comparisonFile.setErrorMsg(errorMsg);
         comparisonFileRepository.save(comparisonFile);
     }
+
+    /**
+     * Regions of an included file computed in the first planning phase.
+     */
+    private record PlannedFile(File file, ComparisonFile comparisonFile, GridCoverage.CellRange fileCells,
+                               int unclaimedRangeCount, List<List<GridCoverage.CellRange>> shards) {
+    }
+
+    private record FileGroup(String name, List<File> files) {
+    }
+
+    private record ReceivedPreprocessingResult(UUID jobId, WorkerResultMessage<PreprocessingResultPayload> message) {
+    }
+
+    /**
+     * Previous result of an unchanged file and the shards covering the cells it gained since the base comparison.
+     */
+    private record IncrementalRegions(PreprocessingResult previousResult, List<List<GridCoverage.CellRange>> changedShards) {
+    }
 }
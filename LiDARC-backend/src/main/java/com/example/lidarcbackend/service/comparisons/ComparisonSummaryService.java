@@ -0,0 +1,90 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonChangedEvent;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonSummaryDTO;
+import com.example.lidarcbackend.model.entity.ComparisonSummary;
+import com.example.lidarcbackend.repository.ComparisonSummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Maintains the comparison_summary read model. Every {@link ComparisonChangedEvent} recomputes the row of its
+ * comparison right before the writing transaction commits, so the summary never shows uncommitted or stale state.
+ */
+@Service
+@Slf4j
+public class ComparisonSummaryService implements IComparisonSummaryService {
+
+    private final ComparisonSummaryRepository summaryRepository;
+
+    public ComparisonSummaryService(ComparisonSummaryRepository summaryRepository) {
+        this.summaryRepository = summaryRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ComparisonSummaryDTO> getSummaries(Pageable pageable, String search) {
+        Page<ComparisonSummary> summaries = search == null || search.isBlank()
+            ? summaryRepository.findAll(pageable)
+            : summaryRepository.findByNameContainingIgnoreCase(search, pageable);
+        return summaries.map(this::toDto);
+    }
+
+    @Override
+    public void refresh(Long comparisonId) {
+        if (summaryRepository.refresh(comparisonId) == 0) {
+            log.debug("Comparison {} no longer exists, its summary is removed with it", comparisonId);
+        }
+    }
+
+    /**
+     * Runs immediately when published outside a transaction, e.g. from the result listeners.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onComparisonChanged(ComparisonChangedEvent event) {
+        refresh(event.comparisonId());
+    }
+
+    /**
+     * Fills in comparisons created before the read model existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingSummaries() {
+        try {
+            List<Long> missing = summaryRepository.findComparisonIdsWithoutSummary();
+            if (missing.isEmpty()) {
+                return;
+            }
+            log.info("Building summaries of {} comparisons", missing.size());
+            missing.forEach(this::refresh);
+        } catch (DataAccessException e) {
+            log.warn("Could not build missing comparison summaries: {}", e.getMessage());
+        }
+    }
+
+    private ComparisonSummaryDTO toDto(ComparisonSummary summary) {
+        ComparisonSummaryDTO dto = new ComparisonSummaryDTO();
+        dto.setId(summary.getId());
+        dto.setName(summary.getName());
+        dto.setStatus(summary.getStatus());
+        dto.setCreatedAt(summary.getCreatedAt());
+        if (summary.getLatestReportId() != null) {
+            dto.setLatestReport("/reports/" + summary.getLatestReportId() + "/download");
+        }
+        dto.setFileCount(summary.getFileCount());
+        dto.setFolderNames(summary.getFolderNames() != null ? summary.getFolderNames() : List.of());
+        dto.setCaptureYearMin(summary.getCaptureYearMin());
+        dto.setCaptureYearMax(summary.getCaptureYearMax());
+        return dto;
+    }
+}
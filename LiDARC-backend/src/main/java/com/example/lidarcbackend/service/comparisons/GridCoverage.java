@@ -0,0 +1,193 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Set of grid cells addressed by integer column/row indices relative to the grid origin.
+ * Each row is stored as sorted, half-open column runs and consecutive rows with identical runs share one band,
+ * so memory depends on the shape of the covered area and not on the number of cells.
+ * Instances are immutable, set operations return a new coverage.
+ */
+class GridCoverage {
+
+    private static final long[] NO_RUNS = new long[0];
+    private static final GridCoverage EMPTY = new GridCoverage(new TreeMap<>());
+
+    /**
+     * First row of each band mapped to its runs as flat [start, end) pairs. A band ends where the next one begins,
+     * the last band is always empty.
+     */
+    private final NavigableMap<Long, long[]> bands;
+
+    private GridCoverage(NavigableMap<Long, long[]> bands) {
+        this.bands = bands;
+    }
+
+    static GridCoverage empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Coverage of all cells with colMin <= col < colMax and rowMin <= row < rowMax.
+     */
+    static GridCoverage of(CellRange range) {
+        if (range.colMin() >= range.colMax() || range.rowMin() >= range.rowMax()) {
+            return EMPTY;
+        }
+        NavigableMap<Long, long[]> bands = new TreeMap<>();
+        bands.put(range.rowMin(), new long[] {range.colMin(), range.colMax()});
+        bands.put(range.rowMax(), NO_RUNS);
+        return new GridCoverage(bands);
+    }
+
+    boolean isEmpty() {
+        return bands.isEmpty();
+    }
+
+    GridCoverage union(GridCoverage other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        return isEmpty() ? other : combine(other, false);
+    }
+
+    GridCoverage subtract(GridCoverage other) {
+        if (isEmpty() || other.isEmpty()) {
+            return this;
+        }
+        return combine(other, true);
+    }
+
+    long cellCount() {
+        long count = 0;
+        for (Map.Entry<Long, long[]> band : bands.entrySet()) {
+            long[] runs = band.getValue();
+            if (runs.length == 0) {
+                continue;
+            }
+            long height = bands.higherKey(band.getKey()) - band.getKey();
+            for (int i = 0; i < runs.length; i += 2) {
+                count += (runs[i + 1] - runs[i]) * height;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Decomposes the coverage into disjoint rectangles, one per run and band.
+     * Bands are maximal, so a rectangle only ends where the set of runs of its rows changes.
+     */
+    List<CellRange> toRanges() {
+        List<CellRange> ranges = new ArrayList<>();
+        for (Map.Entry<Long, long[]> band : bands.entrySet()) {
+            long[] runs = band.getValue();
+            if (runs.length == 0) {
+                continue;
+            }
+            long rowMin = band.getKey();
+            long rowMax = bands.higherKey(rowMin);
+            for (int i = 0; i < runs.length; i += 2) {
+                ranges.add(new CellRange(runs[i], runs[i + 1], rowMin, rowMax));
+            }
+        }
+        return ranges;
+    }
+
+    private GridCoverage combine(GridCoverage other, boolean subtract) {
+        TreeSet<Long> breaks = new TreeSet<>(bands.keySet());
+        breaks.addAll(other.bands.keySet());
+
+        NavigableMap<Long, long[]> result = new TreeMap<>();
+        long[] previous = NO_RUNS;
+        for (long row : breaks) {
+            long[] own = runsAt(row);
+            long[] others = other.runsAt(row);
+            long[] runs = subtract ? subtractRuns(own, others) : unionRuns(own, others);
+            if (!Arrays.equals(runs, previous)) {
+                result.put(row, runs);
+                previous = runs;
+            }
+        }
+        return result.isEmpty() ? EMPTY : new GridCoverage(result);
+    }
+
+    private long[] runsAt(long row) {
+        Map.Entry<Long, long[]> band = bands.floorEntry(row);
+        return band == null ? NO_RUNS : band.getValue();
+    }
+
+    private static long[] unionRuns(long[] a, long[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        long[] merged = new long[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            long start;
+            long end;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                start = a[i];
+                end = a[i + 1];
+                i += 2;
+            } else {
+                start = b[j];
+                end = b[j + 1];
+                j += 2;
+            }
+            if (size > 0 && start <= merged[size - 1]) {
+                merged[size - 1] = Math.max(merged[size - 1], end);
+            } else {
+                merged[size++] = start;
+                merged[size++] = end;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static long[] subtractRuns(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a;
+        }
+        long[] remaining = new long[a.length + b.length];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < a.length; i += 2) {
+            long start = a[i];
+            long end = a[i + 1];
+            while (j < b.length && b[j + 1] <= start) {
+                j += 2;
+            }
+            int k = j;
+            while (start < end && k < b.length && b[k] < end) {
+                if (b[k] > start) {
+                    remaining[size++] = start;
+                    remaining[size++] = b[k];
+                }
+                start = Math.max(start, b[k + 1]);
+                k += 2;
+            }
+            if (start < end) {
+                remaining[size++] = start;
+                remaining[size++] = end;
+            }
+        }
+        return size == 0 ? NO_RUNS : Arrays.copyOf(remaining, size);
+    }
+
+    /**
+     * Half-open rectangle of grid cells.
+     */
+    record CellRange(long colMin, long colMax, long rowMin, long rowMax) {
+    }
+}
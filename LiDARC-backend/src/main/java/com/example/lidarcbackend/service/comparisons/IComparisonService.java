@@ -1,35 +1,69 @@
 package com.example.lidarcbackend.service.comparisons;
 
 import com.example.lidarcbackend.api.comparison.dtos.ComparisonDTO;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonEstimateDTO;
 import com.example.lidarcbackend.api.comparison.dtos.CreateComparisonRequest;
 import com.example.lidarcbackend.exception.NotFoundException;
 import com.example.lidarcbackend.exception.ValidationException;
+import com.example.lidarcbackend.model.DTO.CollectionVersion;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
+import com.example.lidarcbackend.model.DTO.worker.ChunkingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.ComparisonResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.PreprocessingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IComparisonService {
     Page<ComparisonDTO> getPagedComparisons(Pageable pageable, String search);
 
+    CursorPageDto<ComparisonDTO> scrollComparisons(CursorRequest request, String search);
+
     List<ComparisonDTO> getAllComparisons();
 
+    /**
+     * Passes all comparisons, newest first, to the consumer one by one without loading them into memory at once.
+     */
+    void streamAllComparisons(Consumer<ComparisonDTO> consumer);
+
     ComparisonDTO saveComparison(CreateComparisonRequest comparison, List<Long> fileMetadataIds) throws NotFoundException, ValidationException;
 
+    ComparisonEstimateDTO estimateComparison(CreateComparisonRequest comparison, List<Long> fileMetadataIds) throws NotFoundException, ValidationException;
+
     ComparisonDTO getComparison(Long comparisonId) throws NotFoundException;
 
+    /**
+     * Version of the comparison including its pairs and reports, empty if the comparison does not exist.
+     */
+    Optional<Long> findComparisonVersion(Long comparisonId);
+
+    /**
+     * Versions of the files and folders embedded in the comparison detail, their updates do not touch the comparison.
+     */
+    List<CollectionVersion> getEmbeddedVersions(Long comparisonId);
+
+    /**
+     * Version of all comparisons, changes whenever any comparison, pair or report is written.
+     */
+    Long getComparisonsVersion();
+
     void startChunkingComparisonJob(Long comparisonId, int chunkSize) throws NotFoundException;
 
-    void saveVisualizationComparison(Map<String, Object> result);
+    void saveVisualizationComparison(WorkerResultMessage<ChunkingResultPayload> result);
 
     Optional<Object> pollVisualizationResults(Long comparisonId, int chunkSize);
 
-    void processPreprocessingResult(Map<String, Object> result);
+    void processPreprocessingResult(WorkerResultMessage<PreprocessingResultPayload> result);
+
+    void processPreprocessingResults(List<WorkerResultMessage<PreprocessingResultPayload>> results);
 
-    void processComparisonResult(Map<String, Object> result);
+    void processComparisonResult(WorkerResultMessage<ComparisonResultPayload> result);
 
     @Transactional
     void deleteComparisonById(Long id) throws NotFoundException;
@@ -0,0 +1,18 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonSummaryDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface IComparisonSummaryService {
+
+    /**
+     * Lists comparisons from the summary read model, one row per comparison without further joins.
+     */
+    Page<ComparisonSummaryDTO> getSummaries(Pageable pageable, String search);
+
+    /**
+     * Brings the summary of the comparison in line with the source tables, removes it if the comparison is gone.
+     */
+    void refresh(Long comparisonId);
+}
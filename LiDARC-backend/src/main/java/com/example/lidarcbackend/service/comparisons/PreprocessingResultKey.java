@@ -0,0 +1,49 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import com.example.lidarcbackend.api.comparison.dtos.GridParameters;
+import com.example.lidarcbackend.model.entity.Comparison;
+import com.example.lidarcbackend.model.entity.File;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Content address of a preprocessing result.
+ * Covers the file, the grid origin and cell size, the regions clipped to the area of interest and every filter setting.
+ * The regions are part of the key because the worker only aggregates points inside them; the AOI extent itself is not,
+ * so comparisons that only differ in name or in an AOI that still contains the regions share a result.
+ */
+final class PreprocessingResultKey {
+
+    private PreprocessingResultKey() {
+    }
+
+    static String of(File file, GridParameters grid, List<GridCoverage.CellRange> regions, Comparison comparison) {
+        StringBuilder canonical = new StringBuilder()
+            .append("file=").append(file.getId()).append(':').append(file.getFilename())
+            .append(";origin=").append(grid.getxMin()).append(',').append(grid.getyMin())
+            .append(";cell=").append(grid.getCellWidth()).append('x').append(grid.getCellHeight())
+            .append(";pointFilter=").append(Boolean.TRUE.equals(comparison.getNeedPointFilter()))
+            .append(',').append(comparison.getPointFilterLowerBound())
+            .append(',').append(comparison.getPointFilterUpperBound())
+            .append(";outliers=").append(comparison.getNeedOutlierDetection())
+            .append(',').append(comparison.getOutlierDeviationFactor())
+            .append(";percentile=").append(comparison.getIndividualStatisticsPercentile())
+            .append(";regions=");
+        for (GridCoverage.CellRange region : regions) {
+            canonical.append('[')
+                .append(region.colMin()).append(',').append(region.colMax()).append(',')
+                .append(region.rowMin()).append(',').append(region.rowMax())
+                .append(']');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.lidarcbackend.service.comparisons;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Merges grid-cell rectangles that share a complete edge, so a preprocessing job carries as few bboxes as possible.
+ * The worker filters every point against each bbox, so fewer rectangles directly means less filtering work.
+ * Merging is greedy: vertical and horizontal passes alternate until neither of them changes anything.
+ */
+final class RegionCoalescer {
+
+    private static final Comparator<GridCoverage.CellRange> ROW_MAJOR = Comparator
+        .comparingLong(GridCoverage.CellRange::rowMin)
+        .thenComparingLong(GridCoverage.CellRange::colMin);
+
+    private RegionCoalescer() {
+    }
+
+    static List<GridCoverage.CellRange> coalesce(List<GridCoverage.CellRange> ranges) {
+        List<GridCoverage.CellRange> current = ranges;
+        int previousSize;
+        do {
+            previousSize = current.size();
+            current = mergeVertically(current);
+            current = mergeHorizontally(current);
+        } while (current.size() < previousSize && current.size() > 1);
+        current = new ArrayList<>(current);
+        current.sort(ROW_MAJOR);
+        return current;
+    }
+
+    /**
+     * Stacks rectangles with identical column spans where one ends on the row the other starts.
+     */
+    private static List<GridCoverage.CellRange> mergeVertically(List<GridCoverage.CellRange> ranges) {
+        return merge(ranges,
+            range -> List.of(range.colMin(), range.colMax()),
+            Comparator.comparingLong(GridCoverage.CellRange::rowMin),
+            (lower, upper) -> lower.rowMax() == upper.rowMin()
+                ? new GridCoverage.CellRange(lower.colMin(), lower.colMax(), lower.rowMin(), upper.rowMax())
+                : null);
+    }
+
+    /**
+     * Joins rectangles with identical row spans where one ends on the column the other starts.
+     */
+    private static List<GridCoverage.CellRange> mergeHorizontally(List<GridCoverage.CellRange> ranges) {
+        return merge(ranges,
+            range -> List.of(range.rowMin(), range.rowMax()),
+            Comparator.comparingLong(GridCoverage.CellRange::colMin),
+            (left, right) -> left.colMax() == right.colMin()
+                ? new GridCoverage.CellRange(left.colMin(), right.colMax(), left.rowMin(), left.rowMax())
+                : null);
+    }
+
+    private static List<GridCoverage.CellRange> merge(List<GridCoverage.CellRange> ranges,
+                                                      Function<GridCoverage.CellRange, List<Long>> sharedEdge,
+                                                      Comparator<GridCoverage.CellRange> order,
+                                                      Merger merger) {
+        Map<List<Long>, List<GridCoverage.CellRange>> candidates = new LinkedHashMap<>();
+        for (GridCoverage.CellRange range : ranges) {
+            candidates.computeIfAbsent(sharedEdge.apply(range), key -> new ArrayList<>()).add(range);
+        }
+
+        List<GridCoverage.CellRange> merged = new ArrayList<>(ranges.size());
+        for (List<GridCoverage.CellRange> group : candidates.values()) {
+            group.sort(order);
+            GridCoverage.CellRange pending = group.getFirst();
+            for (int i = 1; i < group.size(); i++) {
+                GridCoverage.CellRange joined = merger.merge(pending, group.get(i));
+                if (joined != null) {
+                    pending = joined;
+                } else {
+                    merged.add(pending);
+                    pending = group.get(i);
+                }
+            }
+            merged.add(pending);
+        }
+        return merged;
+    }
+
+    @FunctionalInterface
+    private interface Merger {
+        GridCoverage.CellRange merge(GridCoverage.CellRange first, GridCoverage.CellRange second);
+    }
+}
@@ -5,25 +5,59 @@ import com.example.lidarcbackend.api.metadata.dtos.FileMetadataDTO;
 import com.example.lidarcbackend.api.metadata.dtos.FolderFilesDTO;
 import com.example.lidarcbackend.exception.BadRequestException;
 import com.example.lidarcbackend.exception.NotFoundException;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
+import com.example.lidarcbackend.model.DTO.worker.MetadataResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 
 public interface IMetadataService {
     Page<FileMetadataDTO> getPagedMetadataWithoutFolder(Pageable pageable, String search);
 
+    CursorPageDto<FileMetadataDTO> scrollMetadataWithoutFolder(CursorRequest request, String search);
+
     List<FileMetadataDTO> getAllMetadataWithoutFolder();
 
     List<FolderFilesDTO> getMetadataGroupedByFolder();
 
+    /**
+     * Streaming variant of {@link #getAllMetadataWithoutFolder}, passes the metadata to the consumer one by one.
+     */
+    void streamAllMetadataWithoutFolder(Consumer<FileMetadataDTO> consumer);
+
+    /**
+     * Streaming variant of {@link #getMetadataGroupedByFolder}, only the files of one folder are held at a time.
+     */
+    void streamMetadataGroupedByFolder(Consumer<FolderFilesDTO> consumer);
+
     Page<ComparableItemDTO> getAllMetadataGroupedByFolderPaged(Pageable pageable, String search);
 
+    /**
+     * Keyset-paginated variant of {@link #getAllMetadataGroupedByFolderPaged}, always ordered newest first.
+     */
+    CursorPageDto<ComparableItemDTO> scrollComparables(CursorRequest request, String search);
+
     FileMetadataDTO GetMetadata(String metadataId);
 
+    /**
+     * Version of the file metadata, empty if the file does not exist.
+     */
+    Optional<Long> findMetadataVersion(Long id);
+
+    /**
+     * Versions of all files and all folders, together they cover every metadata listing.
+     */
+    List<Long> getMetadataVersions();
+
     List<FileMetadataDTO> getMetadataList(List<String> metadataIds);
 
     @Transactional
@@ -34,5 +68,21 @@ public interface IMetadataService {
      *
      * @param result the result message from the worker; can either be success message or error message
      */
-    void processMetadata(Map<String, Object> result);
+    void processMetadata(WorkerResultMessage<MetadataResultPayload> result);
+
+    /**
+     * Processes several metadata worker result messages in one transaction
+     *
+     * @param results the result messages from the worker, success and error messages may be mixed
+     */
+    void processMetadataResults(List<WorkerResultMessage<MetadataResultPayload>> results);
+
+    /**
+     * Looks up the folders of files by the file names the workers report. Read from the primary, a file whose
+     * metadata result arrives right after the upload may not be on the replica yet.
+     *
+     * @param filenames the unique file names
+     * @return the folder id by file name, without the unknown files and with a null value for files without a folder
+     */
+    Map<String, Long> findFolderIdsByFilenames(Collection<String> filenames);
 }
@@ -2,17 +2,27 @@ package com.example.lidarcbackend.service.files;
 
 import com.example.lidarcbackend.api.metadata.MetadataMapper;
 import com.example.lidarcbackend.api.metadata.dtos.ComparableItemDTO;
+import com.example.lidarcbackend.api.metadata.dtos.ComparableKeysetProjection;
 import com.example.lidarcbackend.api.metadata.dtos.ComparableProjection;
 import com.example.lidarcbackend.api.metadata.dtos.FileMetadataDTO;
+import com.example.lidarcbackend.api.metadata.dtos.FileMetadataProjection;
 import com.example.lidarcbackend.api.metadata.dtos.FolderFilesDTO;
 import com.example.lidarcbackend.configuration.MinioProperties;
 import com.example.lidarcbackend.exception.BadRequestException;
 import com.example.lidarcbackend.exception.NotFoundException;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
+import com.example.lidarcbackend.model.DTO.FileFolderIdDto;
+import com.example.lidarcbackend.model.DTO.worker.MetadataResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
+import com.example.lidarcbackend.model.JobType;
 import com.example.lidarcbackend.model.entity.Comparison;
 import com.example.lidarcbackend.model.entity.CoordinateSystem;
 import com.example.lidarcbackend.model.entity.File;
 import com.example.lidarcbackend.model.entity.Folder;
 import com.example.lidarcbackend.repository.*;
+import com.example.lidarcbackend.service.CursorCodec;
+import com.example.lidarcbackend.service.IInboxService;
 import com.example.lidarcbackend.service.IJobTrackingService;
 import com.example.lidarcbackend.service.folders.IFolderService;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -20,26 +30,36 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.minio.MinioClient;
 import io.minio.RemoveObjectArgs;
 import io.minio.errors.*;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class MetadataService implements IMetadataService {
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+
 
     private final FileRepository fileRepository;
     private final CoordinateSystemRepository coordinateSystemRepository;
@@ -52,6 +72,8 @@ public class MetadataService implements IMetadataService {
     private final MetadataMapper mapper;
     private final IFolderService folderService;
     private final IJobTrackingService jobTrackingService;
+    private final IInboxService inboxService;
+    private final EntityManager entityManager;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public MetadataService(
@@ -65,7 +87,9 @@ public class MetadataService implements IMetadataService {
             Validator validator,
             MetadataMapper mapper,
             IJobTrackingService jobTrackingService,
-            ComparisonFolderRepository comparisonFolderRepository) {
+            IInboxService inboxService,
+            ComparisonFolderRepository comparisonFolderRepository,
+            EntityManager entityManager) {
         this.fileRepository = fileRepository;
         this.coordinateSystemRepository = coordinateSystemRepository;
         this.folderRepository = folderRepository;
@@ -77,76 +101,147 @@ public class MetadataService implements IMetadataService {
         this.validator = validator;
         this.mapper = mapper;
         this.jobTrackingService = jobTrackingService;
+        this.inboxService = inboxService;
+        this.entityManager = entityManager;
     }
 
+    @Transactional(readOnly = true)
     public FileMetadataDTO GetMetadata(String metadataId) {
-        return fileRepository.findById(Long.parseLong(metadataId)).map(mapper::toDto).orElse(null);
+        return fileRepository.findMetadataById(Long.parseLong(metadataId)).map(mapper::toDto).orElse(null);
     }
 
     //TODO: Why take String here?
+    @Transactional(readOnly = true)
     public List<FileMetadataDTO> getMetadataList(List<String> metadataIds) {
 
         List<Long> ids = metadataIds.stream()
             .map(Long::parseLong)
             .toList();
 
-        return fileRepository.findAllById(ids).stream()
+        return fileRepository.findMetadataByIdIn(ids).stream()
             .map(mapper::toDto)
             .toList();
     }
 
+    @Override
+    public Optional<Long> findMetadataVersion(Long id) {
+        return fileRepository.findVersionById(id);
+    }
+
+    @Override
+    public List<Long> getMetadataVersions() {
+        return List.of(fileRepository.findCollectionVersion(), folderRepository.findCollectionVersion());
+    }
+
     public Boolean existsWithId(Long id) {
         return fileRepository.existsById(id);
     }
 
+    @Transactional(readOnly = true)
     public Page<FileMetadataDTO> getPagedMetadataWithoutFolder(Pageable pageable, String search) {
-        Page<File> page;
-
-        if (search == null || search.isBlank()) {
-            page = fileRepository.findPagedByFolderIsNullAndActiveTrue(pageable);
-        } else {
-            page = fileRepository.findPagedByFolderIsNullAndActiveTrueAndOriginalFilenameContainingIgnoreCase(
-                search,
-                pageable
-            );
-        }
+        return fileRepository.findPagedMetadataWithoutFolder(search != null && !search.isBlank() ? search : null, pageable)
+            .map(mapper::toDto);
+    }
 
-        return page.map(mapper::toDto);
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<FileMetadataDTO> scrollMetadataWithoutFolder(CursorRequest request, String search) {
+        Sort sort = Sort.by(request.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC, "uploadedAt", "id");
+        ScrollPosition position = CursorCodec.toScrollPosition(request.getCursor(), "uploadedAt", sortKey -> sortKey);
+        Limit limit = Limit.of(request.getSize());
+        boolean filtered = search != null && !search.isBlank();
+
+        Window<File> window = filtered
+            ? fileRepository.findByFolderIsNullAndActiveTrueAndOriginalFilenameContainingIgnoreCase(search, position, sort, limit)
+            : fileRepository.findByFolderIsNullAndActiveTrue(position, sort, limit);
+        Long total = null;
+        if (request.isIncludeTotal()) {
+            total = filtered
+                ? fileRepository.countByFolderIsNullAndActiveTrueAndOriginalFilenameContainingIgnoreCase(search)
+                : fileRepository.countByFolderIsNullAndActiveTrue();
+        }
+        return new CursorPageDto<>(
+            window.getContent().stream().map(mapper::toDto).toList(),
+            CursorCodec.nextCursor(window, File::getUploadedAt, File::getId),
+            total
+        );
     }
 
+    @Transactional(readOnly = true)
     public List<FileMetadataDTO> getAllMetadataWithoutFolder() {
-        return fileRepository.findAllByFolderIsNull(Sort.by(Sort.Direction.DESC, "uploadedAt")).stream()
+        return fileRepository.findMetadataWithoutFolder().stream()
             .map(mapper::toDto)
             .toList();
     }
 
+    /**
+     * Reads the files through a database cursor. The persistence context is cleared every
+     * {@link #STREAM_CLEAR_INTERVAL} rows, so memory stays flat regardless of the number of files.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllMetadataWithoutFolder(Consumer<FileMetadataDTO> consumer) {
+        try (Stream<File> files = fileRepository.streamAllWithoutFolder()) {
+            int read = 0;
+            for (Iterator<File> iterator = files.iterator(); iterator.hasNext(); ) {
+                consumer.accept(mapper.toDto(iterator.next()));
+                if (++read % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * The files arrive ordered by folder, so a folder is complete and passed on as soon as the first file of the
+     * next folder is read.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamMetadataGroupedByFolder(Consumer<FolderFilesDTO> consumer) {
+        try (Stream<File> files = fileRepository.streamAllWithFolderGroupedByFolder()) {
+            Folder folder = null;
+            List<FileMetadataDTO> folderFiles = new ArrayList<>();
+            int read = 0;
+            for (Iterator<File> iterator = files.iterator(); iterator.hasNext(); ) {
+                File file = iterator.next();
+                if (folder != null && !folder.getId().equals(file.getFolder().getId())) {
+                    consumer.accept(toFolderFilesDto(folder, folderFiles));
+                    folderFiles = new ArrayList<>();
+                }
+                folder = file.getFolder();
+                folderFiles.add(mapper.toDto(file));
+                if (++read % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+            if (folder != null) {
+                consumer.accept(toFolderFilesDto(folder, folderFiles));
+            }
+        }
+    }
+
+    private FolderFilesDTO toFolderFilesDto(Folder folder, List<FileMetadataDTO> files) {
+        return new FolderFilesDTO(folder.getId(), folder.getName(), folder.getCreatedAt(), folder.getStatus(),
+            folder.getActive(), files);
+    }
+
+    @Transactional(readOnly = true)
     public List<FolderFilesDTO> getMetadataGroupedByFolder() {
 
-        List<File> entities =
-            fileRepository.findAllByFolderIsNotNull(
-                Sort.by(Sort.Direction.DESC, "uploadedAt")
-            );
+        Map<Long, List<FileMetadataDTO>> filesByFolderId =
+            fileRepository.findMetadataWithFolder().stream()
+                .collect(Collectors.groupingBy(
+                    FileMetadataProjection::folderId,
+                    Collectors.mapping(mapper::toDto, Collectors.toList())));
 
-        Map<Folder, List<File>> grouped =
-            entities.stream()
-                .collect(Collectors.groupingBy(File::getFolder));
-
-        return grouped.entrySet().stream()
-            .sorted(Comparator.comparing(
-                entry -> entry.getKey().getCreatedAt(),
-                Comparator.reverseOrder()))
-            .map(entry -> new FolderFilesDTO(
-                entry.getKey().getId(),
-                entry.getKey().getName(),
-                entry.getKey().getCreatedAt(),
-                entry.getKey().getStatus(),
-                entry.getKey().getActive(),entry.getValue().stream()
-                    .map(mapper::toDto)
-                    .toList()
-            ))
+        return folderRepository.findAllById(filesByFolderId.keySet()).stream()
+            .sorted(Comparator.comparing(Folder::getCreatedAt, Comparator.reverseOrder()))
+            .map(folder -> toFolderFilesDto(folder, filesByFolderId.get(folder.getId())))
             .toList();
     }
 
+    @Transactional(readOnly = true)
     public Page<ComparableItemDTO> getAllMetadataGroupedByFolderPaged(Pageable pageable, String search) {
         Page<ComparableProjection> page = fileRepository.findComparables(search != null && !search.isBlank() ? search : null, pageable);
 
@@ -177,6 +272,38 @@ public class MetadataService implements IMetadataService {
         });
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<ComparableItemDTO> scrollComparables(CursorRequest request, String search) {
+        String filter = search != null && !search.isBlank() ? search : null;
+        CursorCodec.Position position = CursorCodec.decode(request.getCursor());
+        long cursorMicros = position == null ? 0 : ChronoUnit.MICROS.between(Instant.EPOCH, position.sortKey());
+        long cursorKey = position == null ? 0 : position.id();
+
+        // One row more than requested tells whether another page follows
+        List<ComparableKeysetProjection> rows = fileRepository.findComparablesAfter(filter, position == null, cursorMicros,
+            cursorKey, request.getSize() + 1);
+        boolean hasNext = rows.size() > request.getSize();
+        if (hasNext) {
+            rows = rows.subList(0, request.getSize());
+        }
+
+        Map<Long, FolderFilesDTO> folders = folderService.loadFoldersWithFiles(
+            rows.stream().map(ComparableProjection::getFolderId).filter(Objects::nonNull).toList());
+        Map<Long, FileMetadataDTO> files = loadFiles(
+            rows.stream().map(ComparableProjection::getFileId).filter(Objects::nonNull).toList());
+        List<ComparableItemDTO> items = rows.stream()
+            .map(row -> row.getFolderId() != null ? (ComparableItemDTO) folders.get(row.getFolderId()) : files.get(row.getFileId()))
+            .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            ComparableKeysetProjection last = rows.getLast();
+            nextCursor = CursorCodec.encode(Instant.EPOCH.plus(last.getSortMicros(), ChronoUnit.MICROS), last.getItemKey());
+        }
+        return new CursorPageDto<>(items, nextCursor, request.isIncludeTotal() ? fileRepository.countComparables(filter) : null);
+    }
+
     @Transactional
     @Override
     public void deleteMetadataById(Long id, boolean independentDelete) throws NotFoundException, BadRequestException {
@@ -238,92 +365,134 @@ public class MetadataService implements IMetadataService {
             return Map.of();
         }
 
-        return fileRepository.findAllById(fileIds).stream()
+        return fileRepository.findMetadataByIdIn(fileIds).stream()
             .collect(Collectors.toMap(
-                File::getId,
+                FileMetadataProjection::id,
                 mapper::toDto
             ));
     }
 
     @Override
     @Transactional
-    public void processMetadata(Map<String, Object> result) {
-        log.info("Processing Metadata result...");
-
-        String status = (String) result.get("status");
-        String jobId = (String) result.get("job_id");
+    public void processMetadata(WorkerResultMessage<MetadataResultPayload> result) {
+        processMetadataResults(List.of(result));
+    }
 
-        if (status == null || jobId == null) {
-            log.error("Invalid result message received, missing jobId, fileName or status");
-            return;
+    @Override
+    @Transactional
+    public Map<String, Long> findFolderIdsByFilenames(Collection<String> filenames) {
+        Map<String, Long> folderIds = new HashMap<>();
+        for (FileFolderIdDto file : fileRepository.findFolderIdsByFilenameIn(filenames)) {
+            folderIds.put(file.filename(), file.folderId());
         }
+        return folderIds;
+    }
 
-        UUID jobUuid;
-        try {
-            jobUuid = UUID.fromString(jobId);
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid job id received, jobId: " + jobId);
-            return;
-        }
+    /**
+     * The files of all results are loaded together, and the status of each folder is updated once after all of its
+     * files in the batch are applied. Results of jobs that were processed before are dropped by the inbox.
+     */
+    @Override
+    @Transactional
+    public void processMetadataResults(List<WorkerResultMessage<MetadataResultPayload>> results) {
+        log.info("Processing {} Metadata results...", results.size());
 
-        jobTrackingService.completeJob(jobUuid);
+        Map<UUID, WorkerResultMessage<MetadataResultPayload>> received = new LinkedHashMap<>();
+        for (WorkerResultMessage<MetadataResultPayload> result : results) {
+            String status = result.status();
+            String jobId = result.jobId();
 
-        Object payloadObj = result.get("payload");
-        if (!(payloadObj instanceof Map)) {
-            log.error("Invalid payload for job {}", jobId);
+            if (status == null || jobId == null) {
+                log.error("Invalid result message received, missing jobId, fileName or status");
+                continue;
+            }
+
+            UUID jobUuid;
+            try {
+                jobUuid = UUID.fromString(jobId);
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid job id received, jobId: " + jobId);
+                continue;
+            }
+            // A second copy of a job within the batch is dropped like any other duplicate
+            received.putIfAbsent(jobUuid, result);
+        }
+        if (received.isEmpty()) {
             return;
         }
 
-        if (!status.equalsIgnoreCase("success")) {
-            Object payload = result.get("payload");
-            if (payload instanceof Map) {
-                Object payloadMsg = ((Map<?, ?>) payload).get("msg");
-                Object payloadFileName = ((Map<?, ?>) payload).get("file_name");
-                if (payloadMsg instanceof String errorMessage && payloadFileName instanceof String fileName) {
-                    log.warn("Metadata job {} failed: {}", jobId, errorMessage);
-                    this.persistMetadataError(fileName, errorMessage);
-                    return;
+        Set<UUID> claimed = inboxService.claim(JobType.METADATA, received.keySet());
+        List<WorkerResultMessage<MetadataResultPayload>> successes = new ArrayList<>();
+        for (Map.Entry<UUID, WorkerResultMessage<MetadataResultPayload>> entry : received.entrySet()) {
+            if (!claimed.contains(entry.getKey())) {
+                continue;
+            }
+            WorkerResultMessage<MetadataResultPayload> result = entry.getValue();
+            String jobId = result.jobId();
+            jobTrackingService.completeJob(entry.getKey());
+
+            MetadataResultPayload payload = result.payload();
+            if (payload == null) {
+                log.error("Invalid payload for job {}", jobId);
+                continue;
+            }
+
+            if (!result.isSuccess()) {
+                if (payload.msg() != null && payload.fileName() != null) {
+                    log.warn("Metadata job {} failed: {}", jobId, payload.msg());
+                    this.persistMetadataError(payload.fileName(), payload.msg());
                 } else {
                     log.error("Invalid error payload for job {}", jobId);
-                    return;
                 }
+                continue;
+            }
+            if (payload.fileName() == null) {
+                log.warn("Invalid metadata payload for job {}", jobId);
+                continue;
             }
+            successes.add(result);
         }
-        Map<String, Object> payload = (Map<String, Object>) payloadObj;
-        Object metadataObj = ((Map<?, ?>) payload).get("metadata");
-        Object payloadFileName = ((Map<?, ?>) payload).get("file_name");
-        if ((payloadFileName instanceof String fileName)) {
-            Optional<File> old = fileRepository.findFileByFilename(fileName);
-            if (old.isEmpty()) {
+        if (successes.isEmpty()) {
+            return;
+        }
+
+        Map<String, File> filesByName = fileRepository.findFilesByFilenames(
+                successes.stream().map(result -> result.payload().fileName()).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(File::getFilename, file -> file));
+        List<File> processedFiles = new ArrayList<>();
+        Map<Long, File> lastProcessedFileByFolder = new LinkedHashMap<>();
+        for (WorkerResultMessage<MetadataResultPayload> result : successes) {
+            String jobId = result.jobId();
+            String fileName = result.payload().fileName();
+            File file = filesByName.get(fileName);
+            if (file == null) {
                 log.warn("Original file not found in database, skipping save: {}", fileName);
-                return;
+                continue;
             }
-            File file = old.get();
             if (file.getStatus().equals(File.FileStatus.FAILED)) {
                 log.warn("File status is already filed (metadata job timeout): {}", fileName);
-                return;
+                continue;
             }
 
-            if (!(metadataObj instanceof Map)) {
+            if (result.payload().metadata() == null) {
                 log.error("Invalid metadata object for job {}", jobId);
                 persistMetadataError(fileName, "Received invalid payload from metadata worker");
+            } else if (parseMetadata(result.payload().metadata(), file) == null) {
+                log.error("Invalid metadata object for job {}", jobId);
+                this.persistMetadataError(fileName, "Received invalid payload from metadata worker");
             } else {
-                Map<String, Object> metadata = (Map<String, Object>) metadataObj;
-                file = parseMetadata(metadata, file);
-                if (file == null) {
-                    log.error("Invalid metadata object for job {}", jobId);
-                    this.persistMetadataError(fileName, "Received invalid payload from metadata worker");
-                } else {
-                    file.setErrorMsg(null);
-                    tryUpdateFolderStatusToProcessed(file);
-                    fileRepository.save(file);
-                    log.info("Saved FileMetadata for file: {}", file.getFilename());
+                file.setErrorMsg(null);
+                processedFiles.add(file);
+                if (file.getFolder() != null) {
+                    lastProcessedFileByFolder.put(file.getFolder().getId(), file);
                 }
             }
-        } else {
-            log.warn("Invalid metadata payload for job {}", jobId);
         }
 
+        lastProcessedFileByFolder.values().forEach(this::tryUpdateFolderStatusToProcessed);
+        fileRepository.saveAll(processedFiles);
+        log.info("Saved FileMetadata for {} files", processedFiles.size());
     }
 
     @Transactional
@@ -357,8 +526,8 @@ public class MetadataService implements IMetadataService {
         }
     }
 
-    private File parseMetadata(Map<String, Object> metadata, File file) {
-        try {String csString = (String) metadata.get("coordinate_system");
+    private File parseMetadata(MetadataResultPayload.Metadata metadata, File file) {
+        try {String csString = metadata.coordinateSystem();
         CoordinateSystem cs = null;
         if (csString != null && !csString.isEmpty()) {
             String[] parts = csString.split(":");
@@ -376,29 +545,29 @@ public class MetadataService implements IMetadataService {
                 }
             }
             //text
-            file.setLasVersion((String) metadata.get("las_version"));
-            file.setCaptureSoftware((String) metadata.get("capture_software"));
-            file.setSystemIdentifier((String) metadata.get("system_identifier"));
+            file.setLasVersion(metadata.lasVersion());
+            file.setCaptureSoftware(metadata.captureSoftware());
+            file.setSystemIdentifier(metadata.systemIdentifier());
 
             //numeric
-            if (metadata.get("capture_year") != null) {
-                short captureYear = castToShort(metadata.get("capture_year"));
+            if (metadata.captureYear() != null) {
+                short captureYear = metadata.captureYear().shortValue();
                 if (captureYear > 1990) {
                     file.setCaptureYear(captureYear);
                 }
             }
 
-            file.setSizeBytes(castToLong(metadata.get("size_bytes")));
-            file.setMinX(castToDouble(metadata.get("min_x")));
-            file.setMinY(castToDouble(metadata.get("min_y")));
-            file.setMinZ(castToDouble(metadata.get("min_z")));
-            file.setMaxX(castToDouble(metadata.get("max_x")));
-            file.setMaxY(castToDouble(metadata.get("max_y")));
-            file.setMaxZ(castToDouble(metadata.get("max_z")));
-            file.setPointCount(castToLong(metadata.get("point_count")));
+            file.setSizeBytes(metadata.sizeBytes());
+            file.setMinX(metadata.minX());
+            file.setMinY(metadata.minY());
+            file.setMinZ(metadata.minZ());
+            file.setMaxX(metadata.maxX());
+            file.setMaxY(metadata.maxY());
+            file.setMaxZ(metadata.maxZ());
+            file.setPointCount(metadata.pointCount());
 
             //date
-            file.setFileCreationDate(castToLocalDate(metadata.get("file_creation_date")));
+            file.setFileCreationDate(castToLocalDate(metadata.fileCreationDate()));
 
             //coordinate system
             if (cs != null) {
@@ -425,48 +594,6 @@ public class MetadataService implements IMetadataService {
 
     }
 
-    private Double castToDouble(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof Number) {
-            return ((Number) obj).doubleValue();
-        }
-        try {
-            return Double.parseDouble(obj.toString());
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-
-    private Short castToShort(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof Number) {
-            return ((Number) obj).shortValue();
-        }
-        try {
-            return Short.parseShort(obj.toString());
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-
-    private Long castToLong(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof Number) {
-            return ((Number) obj).longValue();
-        }
-        try {
-            return Long.parseLong(obj.toString());
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-
     private LocalDate castToLocalDate(Object obj) {
         if (obj == null) {
             return null;
@@ -0,0 +1,7 @@
+package com.example.lidarcbackend.service.files;
+
+/**
+ * Published whenever a worker job is written to the outbox, wakes the relay once the transaction commits.
+ */
+public record OutboxMessagesWrittenEvent() {
+}
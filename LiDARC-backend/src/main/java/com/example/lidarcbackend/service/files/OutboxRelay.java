@@ -0,0 +1,130 @@
+package com.example.lidarcbackend.service.files;
+
+import com.example.lidarcbackend.configuration.OutboxProperties;
+import com.example.lidarcbackend.model.entity.OutboxMessage;
+import com.example.lidarcbackend.repository.OutboxMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the worker jobs of the outbox. Runs right after a transaction that wrote jobs commits, and on a fixed
+ * delay for jobs whose relay failed or whose backend instance went down before the relay.
+ * <p>
+ * A batch is locked, published on one channel, confirmed by the broker as a whole and only then marked as sent in
+ * the same transaction. A crash or a missing confirm leaves the batch unsent, it is published again by the next
+ * run, so workers may receive a job twice but never lose one. Runs of one instance never overlap.
+ */
+@Component
+@Slf4j
+public class OutboxRelay implements DisposableBean {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final OutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean relayRequested = new AtomicBoolean();
+    private final ExecutorService relayExecutor =
+        Executors.newSingleThreadExecutor(Thread.ofVirtual().name("outbox-relay").factory());
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository, RabbitTemplate rabbitTemplate,
+                       OutboxProperties properties, PlatformTransactionManager transactionManager) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOutboxMessagesWritten(OutboxMessagesWrittenEvent event) {
+        requestRelay();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void pollOutbox() {
+        requestRelay();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:3600000}")
+    public void deleteSentMessages() {
+        Integer deleted = transactionTemplate.execute(status ->
+            outboxMessageRepository.deleteSentBefore(Instant.now().minus(properties.getRetention())));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} sent outbox messages", deleted);
+        }
+    }
+
+    /**
+     * Schedules a relay run unless one is already waiting, the waiting run picks up all jobs committed so far.
+     */
+    public void requestRelay() {
+        if (relayRequested.compareAndSet(false, true)) {
+            relayExecutor.execute(this::relayPending);
+        }
+    }
+
+    /**
+     * Publishes all unsent messages on the calling thread, batch by batch.
+     */
+    public void relayPending() {
+        // Cleared before reading, jobs committed while this run is busy request a further run
+        relayRequested.set(false);
+        try {
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } while (sent != null && sent == properties.getBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("Relaying the outbox failed, retrying with the next poll: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> batch = outboxMessageRepository.lockUnsent(properties.getBatchSize());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxMessage outboxMessage : batch) {
+                operations.send(outboxMessage.getExchange(), outboxMessage.getRoutingKey(), toMessage(outboxMessage));
+            }
+            operations.waitForConfirmsOrDie(properties.getConfirmTimeout().toMillis());
+            return null;
+        });
+        outboxMessageRepository.markSent(batch.stream().map(OutboxMessage::getId).toList(), Instant.now());
+        log.debug("Relayed {} outbox messages", batch.size());
+        return batch.size();
+    }
+
+    private Message toMessage(OutboxMessage outboxMessage) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setMessageId("outbox-" + outboxMessage.getId());
+        if (outboxMessage.getPayloadType() != null) {
+            messageProperties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, outboxMessage.getPayloadType());
+        }
+        return new Message(outboxMessage.getPayload().getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+    @Override
+    public void destroy() {
+        relayExecutor.close();
+    }
+}
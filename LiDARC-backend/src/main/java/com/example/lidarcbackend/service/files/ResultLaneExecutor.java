@@ -0,0 +1,94 @@
+package com.example.lidarcbackend.service.files;
+
+import com.example.lidarcbackend.configuration.WorkerResultLaneProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ordered lanes for worker results, each lane is a single virtual thread working off its tasks in submission order.
+ * Results with the same key always land on the same lane, so they never run at the same time, while results with
+ * different keys run in parallel on different lanes. The caller blocks until its tasks are done and gets the first
+ * failure rethrown, so a listener only acknowledges messages that were handled.
+ */
+@Component
+public class ResultLaneExecutor implements DisposableBean {
+
+    private final List<ExecutorService> lanes;
+
+    public ResultLaneExecutor(WorkerResultLaneProperties properties) {
+        ThreadFactory threadFactory = Thread.ofVirtual().name("result-lane-", 0).factory();
+        int laneCount = Math.max(1, properties.getCount());
+        this.lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(Executors.newSingleThreadExecutor(threadFactory));
+        }
+    }
+
+    /**
+     * Runs a single task on the lane of its key.
+     */
+    public void run(Object key, Runnable task) {
+        await(List.of(laneOf(key).submit(task)));
+    }
+
+    /**
+     * Splits the items by the lane of their key and hands every lane its share in one call, keeping the order of
+     * the items within a lane.
+     */
+    public <T> void runGrouped(Collection<T> items, Function<T, ?> keyOf, Consumer<List<T>> handler) {
+        Map<ExecutorService, List<T>> itemsByLane = new LinkedHashMap<>();
+        for (T item : items) {
+            itemsByLane.computeIfAbsent(laneOf(keyOf.apply(item)), lane -> new ArrayList<>()).add(item);
+        }
+        List<Future<?>> futures = new ArrayList<>(itemsByLane.size());
+        itemsByLane.forEach((lane, laneItems) -> futures.add(lane.submit(() -> handler.accept(laneItems))));
+        await(futures);
+    }
+
+    private ExecutorService laneOf(Object key) {
+        return lanes.get(Math.floorMod(Objects.hashCode(key), lanes.size()));
+    }
+
+    private void await(List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the result lanes", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        lanes.forEach(ExecutorService::close);
+    }
+}
@@ -1,45 +1,109 @@
 package com.example.lidarcbackend.service.files;
 
 import com.example.lidarcbackend.configuration.RabbitConfig;
+import com.example.lidarcbackend.model.DTO.worker.ChunkingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.ComparisonResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.MetadataResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.PreprocessingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
 import com.example.lidarcbackend.service.comparisons.IComparisonService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Component
+@Slf4j
 public class WorkerResultListener {
 
+    private static final ParameterizedTypeReference<WorkerResultMessage<PreprocessingResultPayload>> PREPROCESSING_RESULT =
+        new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<WorkerResultMessage<MetadataResultPayload>> METADATA_RESULT =
+        new ParameterizedTypeReference<>() {};
+    private static final String RESULT_CONSUMERS = "${app.worker.result-lanes.consumers:4}";
+
     private final IMetadataService metadataService;
     private final IComparisonService comparisonService;
+    private final SmartMessageConverter messageConverter;
+    private final ResultLaneExecutor resultLanes;
 
 
-    public WorkerResultListener(IMetadataService metadataService, IComparisonService comparisonService) {
+    public WorkerResultListener(IMetadataService metadataService, IComparisonService comparisonService,
+                                SmartMessageConverter messageConverter, ResultLaneExecutor resultLanes) {
         this.metadataService = metadataService;
         this.comparisonService = comparisonService;
+        this.messageConverter = messageConverter;
+        this.resultLanes = resultLanes;
     }
 
     //TODO: HANDLE EXCEPTIONS CORRECTLY FOR EXAMPLE METADATA -> Capture Year < 1900 --> Exception
     //TODO
     // set Input Parameter for every method
-    @RabbitListener(queues = RabbitConfig.WORKER_PREPROCESSING_RESULT_QUEUE)
-    public void handlePreprocessingResult(Map<String, Object> result) {
-        comparisonService.processPreprocessingResult(result);
+    @RabbitListener(queues = RabbitConfig.WORKER_PREPROCESSING_RESULT_QUEUE, containerFactory = RabbitConfig.BATCH_LISTENER_CONTAINER_FACTORY,
+        concurrency = RESULT_CONSUMERS)
+    public void handlePreprocessingResults(List<Message> messages) {
+        resultLanes.runGrouped(decode(messages, PREPROCESSING_RESULT),
+            result -> result.payload() == null ? null : result.payload().comparisonId(),
+            comparisonService::processPreprocessingResults);
+    }
+
+    @RabbitListener(queues = RabbitConfig.WORKER_COMPARISON_RESULT_QUEUE, concurrency = RESULT_CONSUMERS)
+    public void handleComparisonResult(WorkerResultMessage<ComparisonResultPayload> result) {
+        resultLanes.run(result.payload() == null ? null : result.payload().comparisonId(),
+            () -> comparisonService.processComparisonResult(result));
     }
 
-    @RabbitListener(queues = RabbitConfig.WORKER_COMPARISON_RESULT_QUEUE)
-    public void handleComparisonResult(Map<String, Object> result) {
-        comparisonService.processComparisonResult(result);
+    /**
+     * Metadata results are laned by folder instead of by file, the last file of a folder decides the folder status
+     * and has to see the other files of the folder committed.
+     */
+    @RabbitListener(queues = RabbitConfig.WORKER_METADATA_RESULT_QUEUE, containerFactory = RabbitConfig.BATCH_LISTENER_CONTAINER_FACTORY,
+        concurrency = RESULT_CONSUMERS)
+    public void handleMetadataResults(List<Message> messages) {
+        List<WorkerResultMessage<MetadataResultPayload>> results = decode(messages, METADATA_RESULT);
+        Map<String, Long> folderIds = metadataService.findFolderIdsByFilenames(results.stream()
+            .map(result -> result.payload() == null ? null : result.payload().fileName())
+            .filter(Objects::nonNull)
+            .toList());
+        resultLanes.runGrouped(results, result -> {
+                String fileName = result.payload() == null ? null : result.payload().fileName();
+                Long folderId = folderIds.get(fileName);
+                return folderId != null ? folderId : fileName;
+            },
+            metadataService::processMetadataResults);
     }
 
-    @RabbitListener(queues = RabbitConfig.WORKER_METADATA_RESULT_QUEUE)
-    public void handleMetadataResult(Map<String, Object> result) {
-        metadataService.processMetadata(result);
+    @RabbitListener(queues = RabbitConfig.WORKER_CHUNKING_COMPARISON_RESULT_QUEUE, concurrency = RESULT_CONSUMERS)
+    public void handleChunkingComparisonResult(WorkerResultMessage<ChunkingResultPayload> result) {
+        resultLanes.run(result.payload() == null ? null : result.payload().comparisonId(),
+            () -> comparisonService.saveVisualizationComparison(result));
     }
 
-    @RabbitListener(queues = RabbitConfig.WORKER_CHUNKING_COMPARISON_RESULT_QUEUE)
-    public void handleChunkingComparisonResult(Map<String, Object> result) {
-        comparisonService.saveVisualizationComparison(result);
+    /**
+     * Decodes the messages of a batch one by one, so a malformed message is dropped on its own instead of
+     * rejecting the whole batch.
+     */
+    @SuppressWarnings("unchecked")
+    private <P> List<WorkerResultMessage<P>> decode(List<Message> messages,
+                                                    ParameterizedTypeReference<WorkerResultMessage<P>> type) {
+        List<WorkerResultMessage<P>> results = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                results.add((WorkerResultMessage<P>) messageConverter.fromMessage(message, type));
+            } catch (MessageConversionException e) {
+                log.error("Dropping undecodable message from queue {}: {}",
+                    message.getMessageProperties().getConsumerQueue(), e.getMessage());
+            }
+        }
+        return results;
     }
 
 }
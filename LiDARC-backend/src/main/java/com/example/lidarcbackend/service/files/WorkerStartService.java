@@ -5,22 +5,44 @@ import com.example.lidarcbackend.model.DTO.StartChunkingJobDto;
 import com.example.lidarcbackend.model.DTO.StartComparisonJobDto;
 import com.example.lidarcbackend.model.DTO.StartMetadataJobDto;
 import com.example.lidarcbackend.model.DTO.StartPreProcessJobDto;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.example.lidarcbackend.model.entity.OutboxMessage;
+import com.example.lidarcbackend.repository.OutboxMessageRepository;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Starts worker jobs by writing them to the outbox in the transaction of the caller, the {@link OutboxRelay}
+ * publishes them after the commit. A job is therefore sent if and only if the state that expects its result
+ * is committed, at least once.
+ */
 @Service
+@Transactional
 public class WorkerStartService {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final Jackson2JsonMessageConverter messageConverter;
+    private final ApplicationEventPublisher eventPublisher;
 
 
-    public WorkerStartService(RabbitTemplate rabbitTemplate) {
-        this.rabbitTemplate = rabbitTemplate;
+    public WorkerStartService(OutboxMessageRepository outboxMessageRepository,
+                              Jackson2JsonMessageConverter messageConverter,
+                              ApplicationEventPublisher eventPublisher) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.messageConverter = messageConverter;
+        this.eventPublisher = eventPublisher;
     }
 
 
     public void startMetadataJob(StartMetadataJobDto startMetadataJobDto) {
-        rabbitTemplate.convertAndSend(
+        enqueue(
                 RabbitConfig.WORKER_JOB_EXCHANGE,                       // → worker-job
                 RabbitConfig.WORKER_METADATA_START_ROUTING_KEY,     // → worker.metadata.job.start
                 startMetadataJobDto
@@ -28,7 +50,7 @@ public class WorkerStartService {
     }
 
     public void startPreprocessingJob(StartPreProcessJobDto startPreProcessJobDto) {
-        rabbitTemplate.convertAndSend(
+        enqueue(
                 RabbitConfig.WORKER_JOB_EXCHANGE,
                 RabbitConfig.WORKER_PREPROCESSING_START_ROUTING_KEY,
                 startPreProcessJobDto
@@ -36,7 +58,7 @@ public class WorkerStartService {
     }
 
     public void startComparisonJob(StartComparisonJobDto startComparisonJobDto) {
-        rabbitTemplate.convertAndSend(
+        enqueue(
                 RabbitConfig.WORKER_JOB_EXCHANGE,
                 RabbitConfig.WORKER_COMPARISON_START_ROUTING_KEY,
                 startComparisonJobDto
@@ -44,10 +66,23 @@ public class WorkerStartService {
     }
 
     public void startChunkingComparisonJob(StartChunkingJobDto startChunkingJobDto) {
-        rabbitTemplate.convertAndSend(
+        enqueue(
                 RabbitConfig.WORKER_JOB_EXCHANGE,
                 RabbitConfig.WORKER_CHUNKING_COMPARISON_START_ROUTING_KEY,
             startChunkingJobDto
         );
     }
+
+    private void enqueue(String exchange, String routingKey, Object job) {
+        Message message = messageConverter.toMessage(job, new MessageProperties());
+        Object payloadType = message.getMessageProperties().getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .exchange(exchange)
+                .routingKey(routingKey)
+                .payloadType(payloadType == null ? null : payloadType.toString())
+                .payload(new String(message.getBody(), StandardCharsets.UTF_8))
+                .createdAt(Instant.now())
+                .build());
+        eventPublisher.publishEvent(new OutboxMessagesWrittenEvent());
+    }
 }
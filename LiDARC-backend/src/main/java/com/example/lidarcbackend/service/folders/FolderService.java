@@ -20,6 +20,7 @@ import com.example.lidarcbackend.api.folder.dtos.CreateFolderDTO;
 import com.example.lidarcbackend.api.folder.dtos.FolderDTO;
 import com.example.lidarcbackend.api.metadata.MetadataMapper;
 import com.example.lidarcbackend.api.metadata.dtos.FileMetadataDTO;
+import com.example.lidarcbackend.api.metadata.dtos.FileMetadataProjection;
 import com.example.lidarcbackend.api.metadata.dtos.FolderFilesDTO;
 import com.example.lidarcbackend.exception.BadRequestException;
 import com.example.lidarcbackend.model.DTO.CreateEmptyFolderDto;
@@ -75,11 +76,7 @@ public class FolderService implements IFolderService {
     public FolderFilesDTO loadFolderWithFiles(Long folderId) {
         Folder folder = folderRepository.findById(folderId).orElseThrow();
 
-        List<File> files =
-                fileRepository.findAllByFolderId(
-                        folderId,
-                        Sort.by(Sort.Direction.DESC, "uploadedAt")
-                );
+        List<FileMetadataProjection> files = fileRepository.findMetadataByFolderId(folderId);
 
         return new FolderFilesDTO(
                 folder.getId(),
@@ -99,16 +96,12 @@ public class FolderService implements IFolderService {
 
         List<Folder> folders = folderRepository.findAllById(folderIds);
 
-        List<File> files =
-                fileRepository.findAllByFolderIdIn(
-                        folderIds,
-                        Sort.by(Sort.Direction.DESC, "uploadedAt")
-                );
+        List<FileMetadataProjection> files = fileRepository.findMetadataByFolderIdIn(folderIds);
 
         Map<Long, List<FileMetadataDTO>> filesByFolderId =
                 files.stream()
                         .collect(Collectors.groupingBy(
-                                f -> f.getFolder().getId(),
+                                FileMetadataProjection::folderId,
                                 Collectors.mapping(mapper::toDto, Collectors.toList())
                         ));
 
@@ -134,7 +127,6 @@ public class FolderService implements IFolderService {
     @Transactional
     public Folder createFolder(CreateFolderDTO dto) {
         // 1. Validate fileIds exist and are not already assigned
-        List<File> files = fileRepository.findAllById(dto.getFileIds());
         metadataService.checkFileAssignability(dto.getFileIds());
 
         // 2. Create folder
@@ -146,11 +138,8 @@ public class FolderService implements IFolderService {
 
         folder = folderRepository.save(folder);
 
-        // 3. Attach files
-        for (File file : files) {
-            file.setFolder(folder);
-        }
-        fileRepository.saveAll(files);
+        // 3. Attach files with one UPDATE instead of one per file
+        fileRepository.updateFolderForMetadata(dto.getFileIds(), folder);
 
         return folder;
     }
@@ -2,6 +2,8 @@ package com.example.lidarcbackend.service.reports;
 
 import com.example.lidarcbackend.exception.NotFoundException;
 import com.example.lidarcbackend.model.DTO.CreateReportDto;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
 import com.example.lidarcbackend.model.DTO.ReportInfoDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -20,5 +22,7 @@ public interface IReportService {
 
     Page<ReportInfoDto> getAllReports(Pageable pageable, String search);
 
+    CursorPageDto<ReportInfoDto> scrollReports(CursorRequest request, String search);
+
     void deleteReport(Long reportId) throws NotFoundException;
 }
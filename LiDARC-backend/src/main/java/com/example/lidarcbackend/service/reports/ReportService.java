@@ -1,7 +1,10 @@
 package com.example.lidarcbackend.service.reports;
 
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonChangedEvent;
 import com.example.lidarcbackend.exception.NotFoundException;
 import com.example.lidarcbackend.model.DTO.CreateReportDto;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
 import com.example.lidarcbackend.model.DTO.DifferenceMetricsDto;
 import com.example.lidarcbackend.model.DTO.FileMetricsDto;
 import com.example.lidarcbackend.model.DTO.PercentilesDto;
@@ -19,6 +22,7 @@ import com.example.lidarcbackend.repository.ComparisonRepository;
 import com.example.lidarcbackend.repository.FileRepository;
 import com.example.lidarcbackend.repository.FolderRepository;
 import com.example.lidarcbackend.repository.ReportRepository;
+import com.example.lidarcbackend.service.CursorCodec;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.ColumnText;
 import com.itextpdf.text.pdf.PdfContentByte;
@@ -30,10 +34,14 @@ import com.itextpdf.text.pdf.draw.LineSeparator;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -59,12 +67,14 @@ public class ReportService implements IReportService {
     private final ComparisonFolderRepository comparisonFolderRepository;
     private final FileRepository fileRepository;
     private final FolderRepository folderRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private static final String LOGO_PATH = "src/main/resources/static/images/lidarc_logo.png";
     @Value("${app.upload.dir:/app/uploads}")
     private String UPLOAD_DIRECTORY;
 
     public ReportService(ReportComponentFactory reportComponentFactory, ReportRepository reportRepository, ComparisonRepository comparisonRepository, ComparisonFileRepository comparisonFileRepository,
-                         ComparisonFolderRepository comparisonFolderRepository, FileRepository fileRepository, FolderRepository folderRepository) {
+                         ComparisonFolderRepository comparisonFolderRepository, FileRepository fileRepository, FolderRepository folderRepository,
+                         ApplicationEventPublisher eventPublisher) {
         this.reportComponentFactory = reportComponentFactory;
         this.reportRepository = reportRepository;
         this.comparisonRepository = comparisonRepository;
@@ -72,6 +82,7 @@ public class ReportService implements IReportService {
         this.comparisonFolderRepository = comparisonFolderRepository;
         this.fileRepository = fileRepository;
         this.folderRepository = folderRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -91,6 +102,8 @@ public class ReportService implements IReportService {
         }
         Report toCreate = Report.builder().title(report.getTitle()).fileName(filename).comparison(comparison).build();
         Report created = reportRepository.save(toCreate);
+        comparisonRepository.incrementVersion(comparison.getId());
+        eventPublisher.publishEvent(new ComparisonChangedEvent(comparison.getId()));
         return ReportInfoDto.builder().id(created.getId()).fileName(created.getFileName()).title(created.getTitle()).build();
     }
 
@@ -145,22 +158,53 @@ public class ReportService implements IReportService {
         } else {
             reports = reportRepository.findAll(pageable);
         }
-        return reports.map(report -> ReportInfoDto.builder()
+        return reports.map(this::toInfoDto);
+    }
+
+    @Override
+    public CursorPageDto<ReportInfoDto> scrollReports(CursorRequest request, String search) {
+        log.trace("scrollReports({}, {})", request, search);
+        Sort sort = Sort.by(request.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC, "creationDate", "id");
+        ScrollPosition position = CursorCodec.toScrollPosition(request.getCursor(), "creationDate", sortKey -> sortKey);
+        Limit limit = Limit.of(request.getSize());
+        boolean filtered = search != null && !search.trim().isEmpty();
+
+        Window<Report> window = filtered
+            ? reportRepository.findByTitleContainingIgnoreCaseOrFileNameContainingIgnoreCase(search, search, position, sort, limit)
+            : reportRepository.findAllBy(position, sort, limit);
+        Long total = null;
+        if (request.isIncludeTotal()) {
+            total = filtered
+                ? reportRepository.countByTitleContainingIgnoreCaseOrFileNameContainingIgnoreCase(search, search)
+                : reportRepository.count();
+        }
+        return new CursorPageDto<>(
+            window.getContent().stream().map(this::toInfoDto).toList(),
+            CursorCodec.nextCursor(window, Report::getCreationDate, Report::getId),
+            total
+        );
+    }
+
+    private ReportInfoDto toInfoDto(Report report) {
+        return ReportInfoDto.builder()
             .id(report.getId())
             .title(report.getTitle())
             .fileName(report.getFileName())
             .creationDate(report.getCreationDate())
             .comparisonId(report.getComparison() != null ? report.getComparison().getId() : null) //Currently like this for potential that in the future comparison might be null?
-            .build());
+            .build();
     }
 
 
     @Transactional
     public void deleteReport(Long reportId) throws NotFoundException {
-        if (!reportRepository.existsById(reportId)) {
-            throw new NotFoundException("Report with id " + reportId + " not found");
+        Report report = reportRepository.findById(reportId).orElseThrow(
+            () -> new NotFoundException("Report with id " + reportId + " not found"));
+        reportRepository.delete(report);
+        if (report.getComparison() != null) {
+            comparisonRepository.incrementVersion(report.getComparison().getId());
+            eventPublisher.publishEvent(new ComparisonChangedEvent(report.getComparison().getId()));
         }
-        reportRepository.deleteById(reportId);
     }
 
     private Document assembleReport(CreateReportDto reportDto, MultipartFile[] files, Document document) throws IOException {
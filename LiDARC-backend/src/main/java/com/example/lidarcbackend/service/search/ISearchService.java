@@ -0,0 +1,19 @@
+package com.example.lidarcbackend.service.search;
+
+import com.example.lidarcbackend.api.search.dtos.SearchHitDTO;
+import com.example.lidarcbackend.api.search.dtos.SearchType;
+import com.example.lidarcbackend.exception.BadRequestException;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ISearchService {
+
+    /**
+     * Searches the names of the given types (all types if empty) with ranked exact, prefix, substring and fuzzy
+     * matching.
+     *
+     * @throws BadRequestException if the query is blank or the limit is out of range
+     */
+    List<SearchHitDTO> search(String query, Set<SearchType> types, int limit);
+}
@@ -0,0 +1,45 @@
+package com.example.lidarcbackend.service.search;
+
+import com.example.lidarcbackend.api.search.dtos.SearchHitDTO;
+import com.example.lidarcbackend.api.search.dtos.SearchType;
+import com.example.lidarcbackend.exception.BadRequestException;
+import com.example.lidarcbackend.repository.SearchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class SearchService implements ISearchService {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private final SearchRepository searchRepository;
+
+    public SearchService(SearchRepository searchRepository) {
+        this.searchRepository = searchRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SearchHitDTO> search(String query, Set<SearchType> types, int limit) {
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.isEmpty()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+        if (trimmed.length() > MAX_QUERY_LENGTH) {
+            throw new BadRequestException("Search query cannot exceed " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        Set<SearchType> searched = types == null || types.isEmpty() ? EnumSet.allOf(SearchType.class) : EnumSet.copyOf(types);
+        log.debug("search({}, {}, {})", trimmed, searched, limit);
+        return searchRepository.search(trimmed, searched, limit);
+    }
+}
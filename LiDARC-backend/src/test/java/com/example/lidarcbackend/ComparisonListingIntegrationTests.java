@@ -0,0 +1,199 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.api.comparison.ComparisonMapper;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonDTO;
+import com.example.lidarcbackend.api.metadata.MetadataMapper;
+import com.example.lidarcbackend.configuration.ComparisonEstimateProperties;
+import com.example.lidarcbackend.configuration.ComparisonShardingProperties;
+import com.example.lidarcbackend.configuration.MinioProperties;
+import com.example.lidarcbackend.model.entity.Comparison;
+import com.example.lidarcbackend.model.entity.ComparisonFile;
+import com.example.lidarcbackend.model.entity.CoordinateSystem;
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.Folder;
+import com.example.lidarcbackend.model.entity.Report;
+import com.example.lidarcbackend.repository.ComparisonFileRepository;
+import com.example.lidarcbackend.repository.ComparisonFileShardRepository;
+import com.example.lidarcbackend.repository.ComparisonFolderRepository;
+import com.example.lidarcbackend.repository.ComparisonPairRepository;
+import com.example.lidarcbackend.repository.ComparisonRepository;
+import com.example.lidarcbackend.repository.FileRepository;
+import com.example.lidarcbackend.repository.FolderRepository;
+import com.example.lidarcbackend.repository.PreprocessingResultRepository;
+import com.example.lidarcbackend.repository.ReportRepository;
+import com.example.lidarcbackend.service.IInboxService;
+import com.example.lidarcbackend.service.IJobTrackingService;
+import com.example.lidarcbackend.service.comparisons.ChunkingResultCacheService;
+import com.example.lidarcbackend.service.comparisons.ComparisonService;
+import com.example.lidarcbackend.service.files.IMetadataService;
+import com.example.lidarcbackend.service.files.WorkerStartService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.MinioClient;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Counts the statements of the comparison listings through Hibernate statistics, so per-comparison queries
+ * or lazy loading of file details cannot come back unnoticed. Runs against the production schema.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class ComparisonListingIntegrationTests {
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(postgres));
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+    registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+  }
+
+  @Autowired
+  private EntityManager entityManager;
+  @Autowired
+  private ComparisonRepository comparisonRepository;
+  @Autowired
+  private ComparisonFileRepository comparisonFileRepository;
+  @Autowired
+  private FileRepository fileRepository;
+  @Autowired
+  private ReportRepository reportRepository;
+
+  private ComparisonService comparisonService;
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUpService() {
+    comparisonService = new ComparisonService(
+        comparisonRepository,
+        comparisonFileRepository,
+        mock(ComparisonFolderRepository.class),
+        fileRepository,
+        mock(FolderRepository.class),
+        mock(IMetadataService.class),
+        mock(IJobTrackingService.class),
+        mock(IInboxService.class),
+        mock(Validator.class),
+        mock(RabbitTemplate.class),
+        new ComparisonMapper(),
+        new ObjectMapper(),
+        new MetadataMapper(),
+        reportRepository,
+        mock(WorkerStartService.class),
+        mock(ApplicationEventPublisher.class),
+        mock(MinioClient.class),
+        new MinioProperties(),
+        mock(ChunkingResultCacheService.class),
+        mock(ComparisonFileShardRepository.class),
+        new ComparisonShardingProperties(),
+        mock(PreprocessingResultRepository.class),
+        new ComparisonEstimateProperties(),
+        mock(ComparisonPairRepository.class),
+        entityManager
+    );
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 50})
+  void getAllComparisons_ShouldNotQueryPerComparison(int comparisonCount) {
+    createComparisons(comparisonCount);
+    statistics.clear();
+
+    List<ComparisonDTO> comparisons = comparisonService.getAllComparisons();
+
+    assertThat(comparisons).hasSize(comparisonCount);
+    assertThat(comparisons).allSatisfy(dto -> {
+      assertThat(dto.getFiles()).hasSize(3);
+      assertThat(dto.getFiles()).allSatisfy(file -> assertThat(file.getCoordinateSystem()).isEqualTo("EPSG:31256"));
+      assertThat(dto.getLatestReport()).isNotNull();
+    });
+    // Comparisons, latest reports, comparison file ids and files with folder and coordinate system
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 50})
+  void getPagedComparisons_ShouldNotQueryPerComparison(int comparisonCount) {
+    createComparisons(comparisonCount + 1);
+    statistics.clear();
+
+    List<ComparisonDTO> page = comparisonService
+        .getPagedComparisons(PageRequest.of(0, comparisonCount, Sort.by("createdAt").descending()), null)
+        .getContent();
+
+    assertThat(page).hasSize(comparisonCount);
+    // The page needs a count query on top of the four listing queries
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+  }
+
+  private void createComparisons(int count) {
+    CoordinateSystem coordinateSystem = new CoordinateSystem();
+    coordinateSystem.setAuthority("EPSG");
+    coordinateSystem.setCode("31256");
+    entityManager.persist(coordinateSystem);
+    Folder folder = Folder.builder().name("flight-2023").status("UPLOADED").active(true).build();
+    entityManager.persist(folder);
+
+    for (int i = 0; i < count; i++) {
+      Comparison comparison = new Comparison();
+      comparison.setName("comparison-" + i);
+      comparison.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+      comparison.setStatus(Comparison.Status.COMPLETED);
+      entityManager.persist(comparison);
+      for (int j = 0; j < 3; j++) {
+        File file = File.builder()
+            .filename("comparison-" + i + "-file-" + j + ".laz")
+            .status(File.FileStatus.PROCESSED)
+            .coordinateSystem(coordinateSystem)
+            .folder(folder)
+            .active(true)
+            .build();
+        entityManager.persist(file);
+        entityManager.persist(ComparisonFile.builder()
+            .comparisonId(comparison.getId())
+            .fileId(file.getId())
+            .included(true)
+            .groupName(folder.getName())
+            .status(ComparisonFile.Status.COMPLETED)
+            .build());
+      }
+      for (int j = 0; j < 2; j++) {
+        entityManager.persist(Report.builder()
+            .fileName("comparison-" + i + "-report-" + j + ".pdf")
+            .comparison(comparison)
+            .build());
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+}
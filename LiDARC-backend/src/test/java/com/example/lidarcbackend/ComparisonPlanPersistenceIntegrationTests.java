@@ -0,0 +1,348 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.api.comparison.ComparisonMapper;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonDTO;
+import com.example.lidarcbackend.api.comparison.dtos.CreateComparisonRequest;
+import com.example.lidarcbackend.api.comparison.dtos.GridParameters;
+import com.example.lidarcbackend.api.metadata.MetadataMapper;
+import com.example.lidarcbackend.configuration.ComparisonEstimateProperties;
+import com.example.lidarcbackend.configuration.ComparisonShardingProperties;
+import com.example.lidarcbackend.configuration.MinioProperties;
+import com.example.lidarcbackend.model.DTO.worker.PreprocessingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.ResultLocation;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
+import com.example.lidarcbackend.model.entity.ComparisonFile;
+import com.example.lidarcbackend.model.entity.CoordinateSystem;
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.Folder;
+import com.example.lidarcbackend.repository.ComparisonFileRepository;
+import com.example.lidarcbackend.repository.ComparisonFileShardRepository;
+import com.example.lidarcbackend.repository.ComparisonFolderRepository;
+import com.example.lidarcbackend.repository.ComparisonPairRepository;
+import com.example.lidarcbackend.repository.ComparisonRepository;
+import com.example.lidarcbackend.repository.FileRepository;
+import com.example.lidarcbackend.repository.FolderRepository;
+import com.example.lidarcbackend.repository.PreprocessingResultRepository;
+import com.example.lidarcbackend.repository.ReportRepository;
+import com.example.lidarcbackend.service.IInboxService;
+import com.example.lidarcbackend.service.IJobTrackingService;
+import com.example.lidarcbackend.service.comparisons.ChunkingResultCacheService;
+import com.example.lidarcbackend.service.comparisons.ComparisonService;
+import com.example.lidarcbackend.service.files.IMetadataService;
+import com.example.lidarcbackend.service.files.WorkerStartService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectArgs;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Creates, completes and deletes comparisons through the service against the production schema, so the order of
+ * the JPA and JDBC writes, the statements per plan and the reference counts of shared preprocessing results are
+ * checked on real rows.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class ComparisonPlanPersistenceIntegrationTests {
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(postgres));
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+  }
+
+  @Autowired
+  private EntityManager entityManager;
+  @Autowired
+  private ComparisonRepository comparisonRepository;
+  @Autowired
+  private ComparisonFileRepository comparisonFileRepository;
+  @Autowired
+  private ComparisonFileShardRepository comparisonFileShardRepository;
+  @Autowired
+  private ComparisonFolderRepository comparisonFolderRepository;
+  @Autowired
+  private ComparisonPairRepository comparisonPairRepository;
+  @Autowired
+  private FileRepository fileRepository;
+  @Autowired
+  private FolderRepository folderRepository;
+  @Autowired
+  private ReportRepository reportRepository;
+  @Autowired
+  private PreprocessingResultRepository preprocessingResultRepository;
+  @Autowired
+  private DataSource dataSource;
+
+  private final ComparisonShardingProperties shardingProperties = new ComparisonShardingProperties();
+  private MinioClient minioClient;
+  private ComparisonService comparisonService;
+
+  @BeforeEach
+  void setUpService() {
+    IInboxService inboxService = mock(IInboxService.class);
+    when(inboxService.claim(any(), any())).thenAnswer(invocation -> new HashSet<>(invocation.<Collection<UUID>>getArgument(1)));
+    minioClient = mock(MinioClient.class);
+    comparisonService = new ComparisonService(
+        comparisonRepository,
+        comparisonFileRepository,
+        comparisonFolderRepository,
+        fileRepository,
+        folderRepository,
+        mock(IMetadataService.class),
+        mock(IJobTrackingService.class),
+        inboxService,
+        mock(Validator.class),
+        mock(RabbitTemplate.class),
+        new ComparisonMapper(),
+        new ObjectMapper(),
+        new MetadataMapper(),
+        reportRepository,
+        mock(WorkerStartService.class),
+        mock(ApplicationEventPublisher.class),
+        minioClient,
+        new MinioProperties(),
+        mock(ChunkingResultCacheService.class),
+        comparisonFileShardRepository,
+        shardingProperties,
+        preprocessingResultRepository,
+        new ComparisonEstimateProperties(),
+        comparisonPairRepository,
+        entityManager
+    );
+  }
+
+  @Test
+  void saveComparison_StatementCount_ShouldNotGrowWithFileCount() throws Exception {
+    StatementCountingDataSource statements = (StatementCountingDataSource) dataSource;
+    // The first comparison pays for the initial sequence calls of the pooled optimizer
+    saveTwoGroupComparison("warmup", 1);
+
+    statements.reset();
+    saveTwoGroupComparison("small", 2);
+    int smallPlan = statements.count();
+    statements.reset();
+    saveTwoGroupComparison("large", 100);
+    int largePlan = statements.count();
+
+    // Includes the JDBC batches and the reference updates that bypass Hibernate
+    assertThat(smallPlan).isPositive();
+    assertThat(largePlan).isEqualTo(smallPlan);
+  }
+
+  @Test
+  void saveComparison_AllFilesSharded_ShouldInsertComparisonBeforeItsFiles() throws Exception {
+    shardingProperties.setPointThreshold(1_000L);
+    shardingProperties.setTileCells(10);
+    File first = createFile("sharded-1.laz", 5_000L);
+    File second = createFile("sharded-2.laz", 5_000L);
+
+    // No file has an input hash, so nothing but the service itself flushes the comparison before the JDBC inserts
+    ComparisonDTO comparison = comparisonService.saveComparison(createRequest("sharded"), List.of(first.getId(), second.getId()));
+    entityManager.flush();
+    entityManager.clear();
+
+    assertThat(comparisonRepository.existsById(comparison.getId())).isTrue();
+    List<ComparisonFile> files = comparisonFileRepository.findAllByComparisonIdAndIncludedTrue(comparison.getId());
+    assertThat(files).hasSize(1);
+    assertThat(files.getFirst().getInputHash()).isNull();
+    // The 50 x 50 cells of the first file split into 5 x 5 tiles, the second file is covered by the first
+    assertThat(comparisonFileShardRepository.findAllByComparisonId(comparison.getId())).hasSize(25);
+  }
+
+  @Test
+  void deleteComparison_InFlightWithSharedHash_ShouldKeepReferenceOfOtherComparison() throws Exception {
+    File file = createFile("shared.laz", 1_000L);
+    // Both comparisons plan the same input before either result is registered
+    ComparisonDTO finished = comparisonService.saveComparison(createRequest("finished"), List.of(file.getId()));
+    ComparisonDTO inFlight = comparisonService.saveComparison(createRequest("in-flight"), List.of(file.getId()));
+    String inputHash = comparisonFileRepository.findAllByComparisonIdAndIncludedTrue(finished.getId()).getFirst().getInputHash();
+    assertThat(inputHash).isNotNull();
+
+    comparisonService.processPreprocessingResults(List.of(new WorkerResultMessage<>("success", UUID.randomUUID().toString(),
+        new PreprocessingResultPayload(finished.getId(), file.getId(), null, new ResultLocation("results", "shared.csv")))));
+    entityManager.flush();
+    entityManager.clear();
+    assertThat(preprocessingResultRepository.findReferenceCount(inputHash)).contains(1);
+    ComparisonFile pending = comparisonFileRepository.findAllByComparisonIdAndIncludedTrue(inFlight.getId()).getFirst();
+    assertThat(pending.getInputHash()).isEqualTo(inputHash);
+    assertThat(pending.isHoldsReference()).isFalse();
+
+    comparisonService.deleteComparisonById(inFlight.getId());
+    entityManager.flush();
+
+    assertThat(preprocessingResultRepository.findReferenceCount(inputHash)).contains(1);
+    assertThat(removedObjectKeys()).doesNotContain("shared.csv");
+
+    comparisonService.deleteComparisonById(finished.getId());
+    entityManager.flush();
+
+    assertThat(preprocessingResultRepository.findReferenceCount(inputHash)).isEmpty();
+    assertThat(removedObjectKeys()).contains("shared.csv");
+  }
+
+  private void saveTwoGroupComparison(String name, int filesPerGroup) throws Exception {
+    List<Long> folderAFiles = new ArrayList<>();
+    List<Long> folderBFiles = new ArrayList<>();
+    for (int i = 0; i < filesPerGroup; i++) {
+      double xMin = (i % 50) * 2.0;
+      folderAFiles.add(createFile(name + "-a-" + i + ".laz", 1_000L, xMin, xMin + 2.0).getId());
+      folderBFiles.add(createFile(name + "-b-" + i + ".laz", 1_000L, xMin, xMin + 2.0).getId());
+    }
+    CreateComparisonRequest request = createRequest(name);
+    request.setFolderAFiles(folderAFiles);
+    request.setFolderBFiles(folderBFiles);
+    comparisonService.saveComparison(request, List.of());
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  private List<String> removedObjectKeys() throws Exception {
+    ArgumentCaptor<RemoveObjectArgs> captor = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+    verify(minioClient, atLeast(0)).removeObject(captor.capture());
+    return captor.getAllValues().stream().map(RemoveObjectArgs::object).toList();
+  }
+
+  private CreateComparisonRequest createRequest(String name) {
+    GridParameters grid = new GridParameters();
+    grid.setCellWidth(2);
+    grid.setCellHeight(2);
+    grid.setxMin(0.0);
+    grid.setyMin(0.0);
+    grid.setxMax(100.0);
+    grid.setyMax(100.0);
+    CreateComparisonRequest request = new CreateComparisonRequest();
+    request.setName(name);
+    request.setGrid(grid);
+    return request;
+  }
+
+  private File createFile(String filename, long pointCount) {
+    return createFile(filename, pointCount, 0.0, 100.0);
+  }
+
+  private File createFile(String filename, long pointCount, double minX, double maxX) {
+    CoordinateSystem coordinateSystem = new CoordinateSystem();
+    coordinateSystem.setAuthority("EPSG");
+    coordinateSystem.setCode("31256");
+    entityManager.persist(coordinateSystem);
+    Folder folder = Folder.builder().name("folder-" + filename).status("UPLOADED").active(true).build();
+    entityManager.persist(folder);
+    File file = File.builder()
+        .filename(filename)
+        .status(File.FileStatus.PROCESSED)
+        .coordinateSystem(coordinateSystem)
+        .folder(folder)
+        .pointCount(pointCount)
+        .minX(minX)
+        .maxX(maxX)
+        .minY(0.0)
+        .maxY(100.0)
+        .active(true)
+        .build();
+    entityManager.persist(file);
+    entityManager.flush();
+    entityManager.clear();
+    return file;
+  }
+
+  @TestConfiguration
+  static class StatementCountingConfiguration {
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSource() {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource target ? new StatementCountingDataSource(target) : bean;
+        }
+      };
+    }
+  }
+
+  /**
+   * Counts the statements prepared on its connections, by Hibernate and by JdbcTemplate alike.
+   */
+  static final class StatementCountingDataSource extends DelegatingDataSource {
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    StatementCountingDataSource(DataSource target) {
+      super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return counting(super.getConnection(username, password));
+    }
+
+    int count() {
+      return statements.get();
+    }
+
+    void reset() {
+      statements.set(0);
+    }
+
+    private Connection counting(Connection connection) {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+          (proxy, method, args) -> {
+            if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+              statements.incrementAndGet();
+            }
+            try {
+              return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+              throw e.getCause();
+            }
+          });
+    }
+  }
+}
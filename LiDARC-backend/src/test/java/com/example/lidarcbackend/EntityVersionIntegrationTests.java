@@ -0,0 +1,112 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.Folder;
+import com.example.lidarcbackend.repository.FileRepository;
+import com.example.lidarcbackend.repository.FolderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the version triggers of the production schema behind the ETags: every update of a row raises its version,
+ * without optimistic locking between concurrent writers, and every committed transaction raises the write counter
+ * of the table once. Every repository call runs in a transaction of its own as in the services.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EntityVersionIntegrationTests {
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(postgres));
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+  }
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private FileRepository fileRepository;
+  @Autowired
+  private FolderRepository folderRepository;
+
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Test
+  void save_StaleInstances_ShouldBothBeWrittenAndRaiseTheVersion() {
+    Long fileId = fileRepository.save(file("raced.laz", null)).getId();
+    File first = fileRepository.findById(fileId).orElseThrow();
+    File second = fileRepository.findById(fileId).orElseThrow();
+
+    first.setStatus(File.FileStatus.PROCESSING);
+    fileRepository.save(first);
+    second.setErrorMsg("metadata job timed out");
+    fileRepository.save(second);
+
+    assertThat(fileRepository.findVersionById(fileId)).contains(2L);
+  }
+
+  @Test
+  void updateFolderForMetadata_ShouldRaiseTheVersionOfTheMovedFiles() {
+    Folder folder = folderRepository.save(Folder.builder().name("target").files(new ArrayList<>()).build());
+    Long fileId = fileRepository.save(file("moved.laz", null)).getId();
+
+    transactionTemplate.executeWithoutResult(status -> fileRepository.updateFolderForMetadata(List.of(fileId), folder));
+
+    assertThat(fileRepository.findVersionById(fileId)).contains(1L);
+  }
+
+  @Test
+  void findCollectionVersion_ShouldCountCommittedTransactions() {
+    Long before = fileRepository.findCollectionVersion();
+
+    transactionTemplate.executeWithoutResult(status ->
+        fileRepository.saveAll(List.of(file("batch-1.laz", null), file("batch-2.laz", null))));
+    assertThat(fileRepository.findCollectionVersion()).isEqualTo(before + 1);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      fileRepository.save(file("rolled-back.laz", null));
+      status.setRollbackOnly();
+    });
+    assertThat(fileRepository.findCollectionVersion()).isEqualTo(before + 1);
+  }
+
+  private static File file(String filename, Folder folder) {
+    return File.builder()
+        .filename(filename)
+        .originalFilename(filename)
+        .status(File.FileStatus.UPLOADED)
+        .uploaded(true)
+        .active(true)
+        .folder(folder)
+        .build();
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.model.JobType;
+import com.example.lidarcbackend.repository.InboxMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the claim of the inbox against the production schema: one INSERT for a batch that only returns the job ids
+ * not recorded before, per job type.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(InboxMessageRepository.class)
+public class InboxIntegrationTests {
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(postgres));
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+  }
+
+  @Autowired
+  private InboxMessageRepository inboxMessageRepository;
+
+  @Test
+  void claim_ShouldReturnOnlyJobIdsNotRecordedBefore() {
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    assertThat(inboxMessageRepository.claim(JobType.PREPROCESSING, List.of(first))).containsExactly(first);
+    assertThat(inboxMessageRepository.claim(JobType.PREPROCESSING, List.of(first, second, second)))
+        .containsExactly(second);
+    assertThat(inboxMessageRepository.claim(JobType.COMPARISON, List.of(first))).containsExactly(first);
+  }
+
+  @Test
+  void deleteProcessedBefore_ShouldForgetExpiredEntries() {
+    UUID jobId = UUID.randomUUID();
+    inboxMessageRepository.claim(JobType.METADATA, List.of(jobId));
+
+    assertThat(inboxMessageRepository.deleteProcessedBefore(Instant.now().plusSeconds(60))).isEqualTo(1);
+    assertThat(inboxMessageRepository.claim(JobType.METADATA, List.of(jobId))).containsExactly(jobId);
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.Url;
+import io.minio.http.Method;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that files and their URLs are written as JDBC batches with ids from the pooled sequences of the
+ * production schema, and with -Dbenchmark=true compares the insert throughput with batching switched off.
+ * <p>
+ * The throughput gain of batching has not been measured yet, the benchmark needs Docker and was never run. Record
+ * the printed rows per second of both runs with the change that first runs it.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class InsertBatchingIntegrationTests {
+
+  private static final int BATCH_SIZE = 50;
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(postgres));
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+    registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+  }
+
+  @Autowired
+  private EntityManager entityManager;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  void persistFilesWithUrls_ShouldInsertInBatches() {
+    int fileCount = 1_000;
+    statistics.clear();
+
+    persistFilesWithUrls("batched", fileCount);
+
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(2L * fileCount);
+    // Per 50 files one batch and one sequence call for each of the two tables instead of one INSERT per row,
+    // plus the extra call the pooled optimizer makes on the first use of a sequence
+    long expectedStatements = 4L * fileCount / BATCH_SIZE + 2;
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(expectedStatements);
+  }
+
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void persistFilesWithUrls_ThroughputWithAndWithoutBatching() {
+    int fileCount = 20_000;
+    persistFilesWithUrls("warmup", 2_000);
+
+    entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+    double unbatched = persistFilesWithUrls("unbatched", fileCount);
+    entityManager.unwrap(Session.class).setJdbcBatchSize(BATCH_SIZE);
+    double batched = persistFilesWithUrls("batched", fileCount);
+
+    System.out.printf("Batching speedup: %.1fx%n", batched / unbatched);
+    assertThat(batched).isGreaterThan(unbatched);
+  }
+
+  /**
+   * @return inserted rows per second
+   */
+  private double persistFilesWithUrls(String label, int fileCount) {
+    long start = System.nanoTime();
+    for (int i = 0; i < fileCount; i++) {
+      File file = File.builder()
+          .filename(label + "-" + i + ".laz")
+          .originalFilename(label + "-" + i + ".laz")
+          .status(File.FileStatus.UPLOADING)
+          .uploaded(false)
+          .active(true)
+          .build();
+      entityManager.persist(file);
+      entityManager.persist(Url.builder()
+          .file(file)
+          .bucket("basebucket")
+          .presignedURL("http://minio/" + file.getFilename())
+          .method(Method.PUT)
+          .createdAt(Instant.now())
+          .expiresAt(Instant.now().plusSeconds(3600))
+          .build());
+      if ((i + 1) % BATCH_SIZE == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    double rowsPerSecond = 2.0 * fileCount * 1000 / millis;
+    System.out.printf("%-10s %6d rows in %6d ms (%.0f rows/s)%n", label, 2 * fileCount, millis, rowsPerSecond);
+    return rowsPerSecond;
+  }
+}
@@ -0,0 +1,129 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.model.entity.OutboxMessage;
+import com.example.lidarcbackend.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the outbox queries of the relay against the production schema: concurrent relays lock disjoint batches,
+ * and sent messages leave the unsent set and are deleted after the retention.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OutboxIntegrationTests {
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(postgres));
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+  }
+
+  @Autowired
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    outboxMessageRepository.saveAll(List.of(outboxMessage("a"), outboxMessage("b"), outboxMessage("c")));
+  }
+
+  @AfterEach
+  void tearDown() {
+    outboxMessageRepository.deleteAll();
+  }
+
+  @Test
+  void lockUnsent_ConcurrentRelays_ShouldLockDisjointBatches() throws Exception {
+    CountDownLatch firstLocked = new CountDownLatch(1);
+    CountDownLatch secondDone = new CountDownLatch(1);
+
+    CompletableFuture<List<String>> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+      List<String> payloads = payloads(outboxMessageRepository.lockUnsent(2));
+      firstLocked.countDown();
+      await(secondDone);
+      return payloads;
+    }));
+    await(firstLocked);
+    List<String> second = transactionTemplate.execute(status -> payloads(outboxMessageRepository.lockUnsent(10)));
+    secondDone.countDown();
+
+    assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly("a", "b");
+    assertThat(second).containsExactly("c");
+  }
+
+  @Test
+  void markSent_ShouldRemoveMessagesFromUnsentAndLetCleanupDeleteThem() {
+    transactionTemplate.executeWithoutResult(status -> {
+      List<OutboxMessage> batch = outboxMessageRepository.lockUnsent(2);
+      outboxMessageRepository.markSent(batch.stream().map(OutboxMessage::getId).toList(),
+          Instant.now().minus(Duration.ofDays(2)));
+    });
+
+    List<String> unsent = transactionTemplate.execute(status -> payloads(outboxMessageRepository.lockUnsent(10)));
+    Integer deleted = transactionTemplate.execute(status ->
+        outboxMessageRepository.deleteSentBefore(Instant.now().minus(Duration.ofDays(1))));
+
+    assertThat(unsent).containsExactly("c");
+    assertThat(deleted).isEqualTo(2);
+    assertThat(outboxMessageRepository.count()).isEqualTo(1);
+  }
+
+  private static OutboxMessage outboxMessage(String payload) {
+    return OutboxMessage.builder()
+        .exchange("worker-job")
+        .routingKey("worker.preprocessing.job.start")
+        .payload(payload)
+        .createdAt(Instant.now())
+        .build();
+  }
+
+  private static List<String> payloads(List<OutboxMessage> messages) {
+    return messages.stream().map(OutboxMessage::getPayload).toList();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(10, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Timed out waiting for the other relay");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
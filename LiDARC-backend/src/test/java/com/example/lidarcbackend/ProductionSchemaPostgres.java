@@ -0,0 +1,25 @@
+package com.example.lidarcbackend;
+
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.MountableFile;
+
+/**
+ * Postgres container initialized with the production init.sql. The script creates and switches to its own
+ * database, so connections have to go to lidarc_db instead of the container's default database.
+ */
+final class ProductionSchemaPostgres {
+
+  private static final String DATABASE = "lidarc_db";
+
+  private ProductionSchemaPostgres() {
+  }
+
+  static PostgreSQLContainer create() {
+    return new PostgreSQLContainer("postgres:16-alpine")
+        .withCopyFileToContainer(MountableFile.forHostPath("../postgres/config/init.sql"), "/docker-entrypoint-initdb.d/init.sql");
+  }
+
+  static String jdbcUrl(PostgreSQLContainer postgres) {
+    return postgres.getJdbcUrl().replace("/" + postgres.getDatabaseName(), "/" + DATABASE);
+  }
+}
@@ -0,0 +1,178 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonChangedEvent;
+import com.example.lidarcbackend.configuration.ReadReplicaConfig;
+import com.example.lidarcbackend.configuration.ReadReplicaProperties;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the routing against a primary with the production schema and a streaming replica cloned from it with
+ * pg_basebackup. Replication lag is simulated by pausing the WAL replay on the replica.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(ReadReplicaConfig.class)
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReadReplicaRoutingIntegrationTests {
+
+  private static final Network NETWORK = Network.newNetwork();
+
+  @Container
+  static PostgreSQLContainer primary = ProductionSchemaPostgres.create()
+      .withNetwork(NETWORK)
+      .withNetworkAliases("primary")
+      .withCopyToContainer(
+          Transferable.of("echo 'host replication all all trust' >> \"$PGDATA/pg_hba.conf\""),
+          "/docker-entrypoint-initdb.d/00-replication.sh");
+
+  @Container
+  static GenericContainer<?> replica = new GenericContainer<>("postgres:16-alpine")
+      .withNetwork(NETWORK)
+      .dependsOn(primary)
+      .withExposedPorts(5432)
+      .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres"))
+      .withCommand("sh", "-c", """
+          rm -rf "$PGDATA"/*
+          until pg_basebackup -h primary -U test -D "$PGDATA" -R -X stream; do sleep 1; done
+          chmod 700 "$PGDATA"
+          exec postgres -c hot_standby=on
+          """)
+      .withEnv("PGDATA", "/var/lib/postgresql/data")
+      .waitingFor(Wait.forLogMessage(".*ready to accept read.only connections.*", 1)
+          .withStartupTimeout(Duration.ofMinutes(2)));
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(primary));
+    registry.add("spring.datasource.username", primary::getUsername);
+    registry.add("spring.datasource.password", primary::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+    registry.add("app.datasource.replica.enabled", () -> "true");
+    registry.add("app.datasource.replica.url", ReadReplicaRoutingIntegrationTests::replicaJdbcUrl);
+  }
+
+  @Autowired
+  private EntityManager entityManager;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  private TransactionTemplate readOnly;
+  private TransactionTemplate readWrite;
+
+  @BeforeEach
+  void setUp() {
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+    readWrite = new TransactionTemplate(transactionManager);
+  }
+
+  @AfterEach
+  void resumeReplay() throws SQLException {
+    executeOnReplica("SELECT pg_wal_replay_resume()");
+  }
+
+  @Test
+  void readOnlyTransaction_ShouldUseReplica() {
+    Boolean inRecovery = readOnly.execute(status -> isInRecovery());
+    assertThat(inRecovery).isTrue();
+  }
+
+  @Test
+  void readWriteTransaction_ShouldUsePrimary() {
+    Boolean inRecovery = readWrite.execute(status -> isInRecovery());
+    assertThat(inRecovery).isFalse();
+  }
+
+  @Test
+  void write_ShouldBeReadFromReplicaAfterReplication() throws InterruptedException {
+    readWrite.executeWithoutResult(status -> entityManager
+        .createNativeQuery("INSERT INTO folders (name) VALUES ('replicated')")
+        .executeUpdate());
+
+    awaitReplicaRead(() -> countFolders("replicated") == 1);
+  }
+
+  @Test
+  void comparisonChanged_ReplicaBehind_ShouldReadFromPrimaryUntilReplayed() throws Exception {
+    executeOnReplica("SELECT pg_wal_replay_pause()");
+
+    readWrite.executeWithoutResult(status -> {
+      entityManager.createNativeQuery("INSERT INTO folders (name) VALUES ('read-your-write')").executeUpdate();
+      eventPublisher.publishEvent(new ComparisonChangedEvent(1L));
+    });
+
+    Boolean inRecovery = readOnly.execute(status -> isInRecovery());
+    assertThat(inRecovery).as("read after the comparison changed").isFalse();
+    assertThat(countFolders("read-your-write")).isEqualTo(1);
+
+    executeOnReplica("SELECT pg_wal_replay_resume()");
+    awaitReplicaRead(() -> true);
+    assertThat(countFolders("read-your-write")).isEqualTo(1);
+  }
+
+  private boolean isInRecovery() {
+    return (Boolean) entityManager.createNativeQuery("SELECT pg_is_in_recovery()").getSingleResult();
+  }
+
+  private long countFolders(String name) {
+    return readOnly.execute(status -> ((Number) entityManager
+        .createNativeQuery("SELECT count(*) FROM folders WHERE name = :name")
+        .setParameter("name", name)
+        .getSingleResult()).longValue());
+  }
+
+  private void awaitReplicaRead(BooleanSupplier condition) throws InterruptedException {
+    Instant deadline = Instant.now().plusSeconds(30);
+    while (!(Boolean.TRUE.equals(readOnly.execute(status -> isInRecovery())) && condition.getAsBoolean())) {
+      assertThat(Instant.now()).as("replica caught up").isBefore(deadline);
+      Thread.sleep(100);
+    }
+  }
+
+  private static void executeOnReplica(String sql) throws SQLException {
+    try (Connection connection = DriverManager.getConnection(replicaJdbcUrl(), primary.getUsername(), primary.getPassword());
+         Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static String replicaJdbcUrl() {
+    return "jdbc:postgresql://" + replica.getHost() + ":" + replica.getMappedPort(5432) + "/lidarc_db";
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.api.search.dtos.SearchHitDTO;
+import com.example.lidarcbackend.api.search.dtos.SearchType;
+import com.example.lidarcbackend.repository.SearchRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the search against 1M files and reports the latency of substring, prefix and fuzzy queries.
+ * Loading the files takes a while, so the benchmark only runs with -Dbenchmark=true.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SearchBenchmarkIntegrationTests {
+
+  private static final int FILE_COUNT = 1_000_000;
+  private static final int RUNS = 20;
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  private static JdbcTemplate jdbcTemplate;
+  private static SearchRepository searchRepository;
+
+  @BeforeAll
+  static void loadFiles() {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        ProductionSchemaPostgres.jdbcUrl(postgres), postgres.getUsername(), postgres.getPassword());
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    searchRepository = new SearchRepository(new NamedParameterJdbcTemplate(jdbcTemplate));
+
+    long start = System.nanoTime();
+    jdbcTemplate.update("""
+        INSERT INTO files (filename, original_filename, capture_year, status, uploaded, uploaded_at, active)
+        SELECT 'file-' || i || '.laz',
+               'graz' || (2000 + i % 25) || '_block' || (i % 997) || '_' || lpad((i % 1000)::text, 3, '0') || '_' || md5(i::text) || '_elv.laz',
+               2000 + i % 25, 'PROCESSED', true, now() - i * INTERVAL '1 second', true
+        FROM generate_series(1, ?) AS i
+        """, FILE_COUNT);
+    jdbcTemplate.execute("ANALYZE files");
+    System.out.printf("Loaded %d files in %d ms%n", FILE_COUNT, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @Test
+  void substringSearch_ShouldUseTrigramIndex() {
+    String plan = String.join("\n", jdbcTemplate.queryForList(
+        "EXPLAIN SELECT id FROM files WHERE UPPER(original_filename) LIKE UPPER('%block42_%')", String.class));
+
+    assertThat(plan).contains("idx_files_original_filename_trgm");
+  }
+
+  @Test
+  void search_OneMillionFiles() {
+    report("substring", "block42_");
+    report("prefix", "graz2017_block9");
+    report("fuzzy", "grz2017_blok9");
+    report("hash fragment", "e4da3b7fbbce2345");
+  }
+
+  private void report(String kind, String query) {
+    List<SearchHitDTO> hits = searchRepository.search(query, EnumSet.of(SearchType.FILE), 20);
+    long[] millis = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      searchRepository.search(query, EnumSet.of(SearchType.FILE), 20);
+      millis[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    Arrays.sort(millis);
+    System.out.printf("%-14s %-20s hits=%2d p50=%4d ms p95=%4d ms%n",
+        kind, query, hits.size(), millis[RUNS / 2], millis[RUNS * 95 / 100]);
+    assertThat(hits).isNotEmpty();
+  }
+}
@@ -0,0 +1,174 @@
+package com.example.lidarcbackend;
+
+import com.example.lidarcbackend.configuration.SecondLevelCacheConfig;
+import com.example.lidarcbackend.configuration.SecondLevelCacheProperties;
+import com.example.lidarcbackend.model.entity.CoordinateSystem;
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.Folder;
+import com.example.lidarcbackend.repository.CoordinateSystemRepository;
+import com.example.lidarcbackend.repository.FileRepository;
+import com.example.lidarcbackend.repository.FolderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that repeated lookups of reference entities are answered from the second-level cache and that writes,
+ * including the bulk folder assignment, invalidate what they change. Every repository call runs in a transaction
+ * of its own as in the services, so entities only reach the cache on commit.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(SecondLevelCacheConfig.class)
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheIntegrationTests {
+
+  @Container
+  static PostgreSQLContainer postgres = ProductionSchemaPostgres.create();
+
+  @DynamicPropertySource
+  static void overrideProps(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> ProductionSchemaPostgres.jdbcUrl(postgres));
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+    registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    registry.add("spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy", () -> "fail");
+  }
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private CoordinateSystemRepository coordinateSystemRepository;
+  @Autowired
+  private FileRepository fileRepository;
+  @Autowired
+  private FolderRepository folderRepository;
+
+  private Statistics statistics;
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Test
+  void findByAuthorityAndCode_RepeatedLookup_ShouldNotQueryDatabase() {
+    CoordinateSystem coordinateSystem = new CoordinateSystem();
+    coordinateSystem.setAuthority("EPSG");
+    coordinateSystem.setCode("31256");
+    coordinateSystemRepository.save(coordinateSystem);
+    coordinateSystemRepository.findByAuthorityAndCode("EPSG", "31256");
+
+    statistics.clear();
+    assertThat(coordinateSystemRepository.findByAuthorityAndCode("EPSG", "31256")).isPresent();
+
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+    assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void findByAuthorityAndCode_AfterInsert_ShouldSeeNewCoordinateSystem() {
+    assertThat(coordinateSystemRepository.findByAuthorityAndCode("EPSG", "32633")).isEmpty();
+
+    CoordinateSystem coordinateSystem = new CoordinateSystem();
+    coordinateSystem.setAuthority("EPSG");
+    coordinateSystem.setCode("32633");
+    coordinateSystemRepository.save(coordinateSystem);
+
+    assertThat(coordinateSystemRepository.findByAuthorityAndCode("EPSG", "32633")).isPresent();
+  }
+
+  @Test
+  void findFileByFilename_RepeatedLookup_ShouldNotQueryDatabase() {
+    fileRepository.save(file("cached.laz", null));
+    fileRepository.findFileByFilename("cached.laz");
+
+    statistics.clear();
+    assertThat(fileRepository.findFileByFilename("cached.laz")).isPresent();
+
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+    assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void findFileByFilename_AfterStatusUpdate_ShouldReturnUpdatedFile() {
+    File file = fileRepository.save(file("updated.laz", null));
+    fileRepository.findFileByFilename("updated.laz");
+
+    file.setStatus(File.FileStatus.PROCESSED);
+    fileRepository.save(file);
+
+    assertThat(fileRepository.findFileByFilename("updated.laz").orElseThrow().getStatus())
+        .isEqualTo(File.FileStatus.PROCESSED);
+  }
+
+  @Test
+  void updateFolderForMetadata_ShouldInvalidateCachedFilesAndFolderFiles() {
+    Folder folder = folderRepository.save(Folder.builder().name("target").files(new ArrayList<>()).build());
+    File file = fileRepository.save(file("assigned.laz", null));
+    assertThat(fileRepository.findById(file.getId()).orElseThrow().getFolder()).isNull();
+    assertThat(folderFileIds(folder.getId())).isEmpty();
+
+    transactionTemplate.executeWithoutResult(status -> fileRepository.updateFolderForMetadata(List.of(file.getId()), folder));
+
+    Long folderId = transactionTemplate.execute(status ->
+        fileRepository.findById(file.getId()).orElseThrow().getFolder().getId());
+    assertThat(folderId).isEqualTo(folder.getId());
+    assertThat(folderFileIds(folder.getId())).containsExactly(file.getId());
+  }
+
+  @Test
+  void saveFile_IntoCachedFolder_ShouldEvictFolderFiles() {
+    Folder folder = folderRepository.save(Folder.builder().name("growing").files(new ArrayList<>()).build());
+    fileRepository.save(file("first.laz", folder));
+    assertThat(folderFileIds(folder.getId())).hasSize(1);
+
+    fileRepository.save(file("second.laz", folder));
+
+    assertThat(folderFileIds(folder.getId())).hasSize(2);
+  }
+
+  private List<Long> folderFileIds(Long folderId) {
+    return transactionTemplate.execute(status -> folderRepository.findById(folderId).orElseThrow()
+        .getFiles().stream().map(File::getId).toList());
+  }
+
+  private static File file(String filename, Folder folder) {
+    return File.builder()
+        .filename(filename)
+        .originalFilename(filename)
+        .status(File.FileStatus.UPLOADED)
+        .uploaded(true)
+        .active(true)
+        .folder(folder)
+        .build();
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.lidarcbackend.unit.Endpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import com.example.lidarcbackend.api.comparison.ComparisonController;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonDTO;
+import com.example.lidarcbackend.model.DTO.CollectionVersion;
+import com.example.lidarcbackend.service.comparisons.ChunkingSseService;
+import com.example.lidarcbackend.service.comparisons.IComparisonService;
+import com.example.lidarcbackend.service.comparisons.IComparisonSummaryService;
+import com.example.lidarcbackend.service.reports.IReportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+public class ComparisonEndpointTests {
+
+  @Mock
+  private IComparisonService comparisonService;
+  @Mock
+  private IComparisonSummaryService comparisonSummaryService;
+  @Mock
+  private IReportService reportService;
+  @Mock
+  private ChunkingSseService chunkingSseService;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    ComparisonController controller = new ComparisonController(
+        comparisonService, comparisonSummaryService, reportService, chunkingSseService, new ObjectMapper());
+    this.mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+  }
+
+  @Test
+  void getComparison_WithoutIfNoneMatch_ShouldReturnComparisonWithETag() throws Exception {
+    ComparisonDTO dto = new ComparisonDTO();
+    dto.setId(7L);
+    when(comparisonService.findComparisonVersion(7L)).thenReturn(Optional.of(3L));
+    when(comparisonService.getComparison(7L)).thenReturn(dto);
+
+    MvcResult result = mockMvc.perform(get("/api/v1/comparisons/7")).andReturn();
+
+    assertEquals(200, result.getResponse().getStatus());
+    assertEquals(List.of("W/\"comparison-7-3\""), result.getResponse().getHeaders(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void getComparison_MatchingIfNoneMatch_ShouldReturnNotModifiedWithoutLoadingComparison() throws Exception {
+    when(comparisonService.findComparisonVersion(7L)).thenReturn(Optional.of(3L));
+
+    MvcResult result = mockMvc.perform(get("/api/v1/comparisons/7")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"comparison-7-3\"")).andReturn();
+
+    assertEquals(304, result.getResponse().getStatus());
+    assertEquals(0, result.getResponse().getContentLength());
+    verify(comparisonService, never()).getComparison(7L);
+  }
+
+  @Test
+  void getComparison_OutdatedIfNoneMatch_ShouldReturnComparison() throws Exception {
+    when(comparisonService.findComparisonVersion(7L)).thenReturn(Optional.of(4L));
+    when(comparisonService.getComparison(7L)).thenReturn(new ComparisonDTO());
+
+    MvcResult result = mockMvc.perform(get("/api/v1/comparisons/7")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"comparison-7-3\"")).andReturn();
+
+    assertEquals(200, result.getResponse().getStatus());
+    assertEquals("W/\"comparison-7-4\"", result.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void getComparison_EmbeddedFileChanged_ShouldReturnComparison() throws Exception {
+    when(comparisonService.findComparisonVersion(7L)).thenReturn(Optional.of(3L));
+    when(comparisonService.getEmbeddedVersions(7L))
+        .thenReturn(List.of(new CollectionVersion(2L, 15L, 5L), new CollectionVersion(1L, 9L, 2L)));
+    when(comparisonService.getComparison(7L)).thenReturn(new ComparisonDTO());
+
+    MvcResult result = mockMvc.perform(get("/api/v1/comparisons/7")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"comparison-7-3-2.15.4-1.9.2\"")).andReturn();
+
+    assertEquals(200, result.getResponse().getStatus());
+    assertEquals("W/\"comparison-7-3-2.15.5-1.9.2\"", result.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void getComparison_Missing_ShouldReturnNotFound() throws Exception {
+    when(comparisonService.findComparisonVersion(7L)).thenReturn(Optional.empty());
+
+    MvcResult result = mockMvc.perform(get("/api/v1/comparisons/7")).andReturn();
+
+    assertEquals(404, result.getResponse().getStatus());
+    verify(comparisonService, never()).getComparison(7L);
+  }
+
+  @Test
+  void getAllComparisons_MatchingIfNoneMatch_ShouldReturnNotModifiedWithoutListing() throws Exception {
+    when(comparisonService.getComparisonsVersion()).thenReturn(55L);
+
+    MvcResult result = mockMvc.perform(get("/api/v1/comparisons/all")
+        .header(HttpHeaders.IF_NONE_MATCH, "W/\"comparisons-55\"")).andReturn();
+
+    assertEquals(304, result.getResponse().getStatus());
+    verify(comparisonService, never()).getAllComparisons();
+  }
+
+  @Test
+  void getAllComparisons_NoWritesYet_ShouldReturnListWithETag() throws Exception {
+    when(comparisonService.getComparisonsVersion()).thenReturn(0L);
+    when(comparisonService.getAllComparisons()).thenReturn(List.of());
+
+    MvcResult result = mockMvc.perform(get("/api/v1/comparisons/all")).andReturn();
+
+    assertEquals(200, result.getResponse().getStatus());
+    assertEquals(List.of("W/\"comparisons-0\""), result.getResponse().getHeaders(HttpHeaders.ETAG));
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.api.cache.dtos.CacheRegionStatsDTO;
+import com.example.lidarcbackend.configuration.SecondLevelCacheConfig;
+import com.example.lidarcbackend.configuration.SecondLevelCacheProperties;
+import com.example.lidarcbackend.service.cache.CacheStatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheStatisticsServiceTest {
+
+    private CacheManager cacheManager;
+    private CacheStatisticsService cacheStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        SecondLevelCacheProperties properties = new SecondLevelCacheProperties();
+        properties.getRegions().put("files", region(2, Duration.ofHours(1)));
+        properties.getRegions().put("coordinate-systems", region(100, null));
+        cacheManager = new SecondLevelCacheConfig().secondLevelCacheManager(properties);
+        cacheStatisticsService = new CacheStatisticsService(cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void getRegionStatistics_ShouldCountHitsAndMissesPerRegion() {
+        Cache<Object, Object> files = cacheManager.getCache("files");
+        files.put(1L, "file-1");
+        files.get(1L);
+        files.get(1L);
+        files.get(2L);
+
+        List<CacheRegionStatsDTO> statistics = cacheStatisticsService.getRegionStatistics();
+
+        assertEquals(List.of("coordinate-systems", "files"), statistics.stream().map(CacheRegionStatsDTO::getRegion).toList());
+        CacheRegionStatsDTO fileStats = statistics.get(1);
+        assertEquals(1, fileStats.getSize());
+        assertEquals(2L, fileStats.getMaxSize());
+        assertEquals(2, fileStats.getHitCount());
+        assertEquals(1, fileStats.getMissCount());
+        assertEquals(2.0 / 3, fileStats.getHitRate(), 1e-9);
+        assertEquals(0, statistics.get(0).getHitCount());
+    }
+
+    @Test
+    void getRegionStatistics_RegionFull_ShouldEvictDownToMaxSize() {
+        Cache<Object, Object> files = cacheManager.getCache("files");
+        for (long id = 0; id < 10; id++) {
+            files.put(id, "file-" + id);
+        }
+        files.unwrap(com.github.benmanes.caffeine.cache.Cache.class).cleanUp();
+
+        CacheRegionStatsDTO fileStats = cacheStatisticsService.getRegionStatistics().get(1);
+
+        assertEquals(2, fileStats.getSize());
+        assertEquals(8, fileStats.getEvictionCount());
+    }
+
+    @Test
+    void secondLevelCacheManager_RegionWithoutTtl_ShouldOnlyBeBoundedBySize() {
+        CacheRegionStatsDTO coordinateSystemStats = cacheStatisticsService.getRegionStatistics().get(0);
+
+        assertEquals(100L, coordinateSystemStats.getMaxSize());
+        assertTrue(cacheManager.getCache("coordinate-systems")
+            .unwrap(com.github.benmanes.caffeine.cache.Cache.class)
+            .policy().expireAfterWrite().isEmpty());
+    }
+
+    private static SecondLevelCacheProperties.Region region(long maxSize, Duration ttl) {
+        SecondLevelCacheProperties.Region region = new SecondLevelCacheProperties.Region();
+        region.setMaxSize(maxSize);
+        region.setTtl(ttl);
+        return region;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.api.comparison.ComparisonMapper;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonDTO;
+import com.example.lidarcbackend.api.comparison.dtos.CreateComparisonRequest;
+import com.example.lidarcbackend.api.comparison.dtos.GridParameters;
+import com.example.lidarcbackend.api.comparison.dtos.PreProcessJobsReadyEvent;
+import com.example.lidarcbackend.api.metadata.MetadataMapper;
+import com.example.lidarcbackend.configuration.ComparisonEstimateProperties;
+import com.example.lidarcbackend.configuration.ComparisonShardingProperties;
+import com.example.lidarcbackend.model.DTO.BoundingBox;
+import com.example.lidarcbackend.model.DTO.StartPreProcessJobDto;
+import com.example.lidarcbackend.model.entity.Comparison;
+import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.repository.ComparisonFileRepository;
+import com.example.lidarcbackend.repository.ComparisonFileShardRepository;
+import com.example.lidarcbackend.repository.ComparisonPairRepository;
+import com.example.lidarcbackend.repository.ComparisonRepository;
+import com.example.lidarcbackend.repository.FileRepository;
+import com.example.lidarcbackend.repository.PreprocessingResultRepository;
+import com.example.lidarcbackend.service.IJobTrackingService;
+import com.example.lidarcbackend.service.comparisons.ComparisonService;
+import com.example.lidarcbackend.service.files.MetadataService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plans a comparison over a 100 x 100 mosaic of overlapping tiles and checks that the claimed regions cover it exactly.
+ * Every tile overlaps its neighbours by one cell, so each file has to be clipped against the zones claimed before it.
+ * The planning time itself is measured by the JMH {@code ComparisonPlanningBenchmark}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ComparisonPlanningCoverageTest {
+
+    private static final int TILES_PER_SIDE = 100;
+    private static final double TILE_SIZE = 10.0;
+
+    @Mock
+    private ComparisonRepository comparisonRepository;
+    @Mock
+    private ComparisonFileRepository comparisonFileRepository;
+    @Mock
+    private ComparisonFileShardRepository comparisonFileShardRepository;
+    @Mock
+    private ComparisonPairRepository comparisonPairRepository;
+    @Mock
+    private FileRepository fileRepository;
+    @Mock
+    private PreprocessingResultRepository preprocessingResultRepository;
+    @Spy
+    private ComparisonShardingProperties shardingProperties = new ComparisonShardingProperties();
+    @Spy
+    private ComparisonEstimateProperties estimateProperties = new ComparisonEstimateProperties();
+    @Mock
+    private MetadataService metadataService;
+    @Mock
+    private MetadataMapper metadataMapper;
+    @Mock
+    private ComparisonMapper comparisonMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private IJobTrackingService jobTrackingService;
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ComparisonService comparisonService;
+
+    @Test
+    void saveComparison_TenThousandOverlappingTiles_CoversMosaicExactlyOnce() throws Exception {
+        GridParameters grid = new GridParameters();
+        grid.setCellWidth(2);
+        grid.setCellHeight(2);
+        grid.setxMin(0.0);
+        grid.setyMin(0.0);
+        grid.setxMax(TILES_PER_SIDE * TILE_SIZE);
+        grid.setyMax(TILES_PER_SIDE * TILE_SIZE);
+
+        Map<Long, File> files = new HashMap<>();
+        List<Long> fileIds = new ArrayList<>();
+        long id = 1;
+        for (int row = 0; row < TILES_PER_SIDE; row++) {
+            for (int col = 0; col < TILES_PER_SIDE; col++) {
+                File file = new File();
+                file.setId(id);
+                file.setFilename("tile-" + id);
+                file.setMinX(col * TILE_SIZE - 1);
+                file.setMaxX((col + 1) * TILE_SIZE + 1);
+                file.setMinY(row * TILE_SIZE - 1);
+                file.setMaxY((row + 1) * TILE_SIZE + 1);
+                files.put(id, file);
+                fileIds.add(id);
+                id++;
+            }
+        }
+
+        Comparison savedComparison = new Comparison();
+        savedComparison.setId(1L);
+        when(comparisonMapper.toEntityFromRequest(any())).thenReturn(savedComparison);
+        when(comparisonRepository.saveAndFlush(any())).thenReturn(savedComparison);
+        when(comparisonMapper.toDto(any())).thenReturn(new ComparisonDTO());
+        when(fileRepository.findAllWithFolderAndCoordinateSystemByIdIn(any())).thenReturn(List.copyOf(files.values()));
+
+        CreateComparisonRequest request = new CreateComparisonRequest();
+        request.setGrid(grid);
+
+        comparisonService.saveComparison(request, fileIds);
+
+        ArgumentCaptor<PreProcessJobsReadyEvent> eventCaptor = ArgumentCaptor.forClass(PreProcessJobsReadyEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        List<StartPreProcessJobDto> jobs = eventCaptor.getValue().jobsToStart();
+        assertEquals(fileIds.size(), jobs.size());
+
+        // Snapped tiles extend one cell beyond the mosaic, the claimed regions must tile that area without gaps or overlaps
+        double mosaicSide = TILES_PER_SIDE * TILE_SIZE + 4;
+        double coveredArea = 0;
+        for (StartPreProcessJobDto job : jobs) {
+            for (BoundingBox box : job.getBboxes()) {
+                coveredArea += (box.getxMax() - box.getxMin()) * (box.getyMax() - box.getyMin());
+            }
+        }
+        assertEquals(mosaicSide * mosaicSide, coveredArea, 1e-6);
+    }
+}
@@ -1,41 +1,106 @@
 package com.example.lidarcbackend.unit.service;
 
 import com.example.lidarcbackend.api.comparison.ComparisonMapper;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonChangedEvent;
 import com.example.lidarcbackend.api.comparison.dtos.ComparisonDTO;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonEpoch;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonEstimateDTO;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonJobReadyEvent;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonPairing;
 import com.example.lidarcbackend.api.comparison.dtos.CreateComparisonRequest;
 import com.example.lidarcbackend.api.comparison.dtos.GridParameters;
 import com.example.lidarcbackend.api.comparison.dtos.PreProcessJobsReadyEvent;
+import com.example.lidarcbackend.api.metadata.MetadataMapper;
+import com.example.lidarcbackend.configuration.ComparisonEstimateProperties;
+import com.example.lidarcbackend.configuration.ComparisonShardingProperties;
 import com.example.lidarcbackend.exception.NotFoundException;
 import com.example.lidarcbackend.exception.ValidationException;
 import com.example.lidarcbackend.model.DTO.BoundingBox;
+import com.example.lidarcbackend.model.DTO.ComparisonWorkerInputFileDto;
+import com.example.lidarcbackend.model.DTO.CursorPageDto;
+import com.example.lidarcbackend.model.DTO.CursorRequest;
 import com.example.lidarcbackend.model.DTO.StartPreProcessJobDto;
+import com.example.lidarcbackend.model.DTO.worker.ChunkingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.ComparisonResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.PreprocessingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.ResultLocation;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
+import com.example.lidarcbackend.model.JobType;
+import com.example.lidarcbackend.model.TrackedJob;
 import com.example.lidarcbackend.model.entity.Comparison;
+import com.example.lidarcbackend.model.entity.ComparisonFile;
+import com.example.lidarcbackend.model.entity.ComparisonFileShard;
+import com.example.lidarcbackend.model.entity.ComparisonPair;
 import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.PreprocessingResult;
 import com.example.lidarcbackend.repository.ComparisonFileRepository;
+import com.example.lidarcbackend.repository.ComparisonFileShardRepository;
+import com.example.lidarcbackend.repository.ComparisonFolderRepository;
+import com.example.lidarcbackend.repository.ComparisonPairRepository;
 import com.example.lidarcbackend.repository.ComparisonRepository;
 import com.example.lidarcbackend.repository.FileRepository;
+import com.example.lidarcbackend.repository.FolderRepository;
+import com.example.lidarcbackend.repository.PreprocessingResultRepository;
+import com.example.lidarcbackend.repository.ReportRepository;
+import com.example.lidarcbackend.service.CursorCodec;
+import com.example.lidarcbackend.service.IInboxService;
 import com.example.lidarcbackend.service.IJobTrackingService;
+import com.example.lidarcbackend.service.comparisons.ChunkingResultCacheService;
+import com.example.lidarcbackend.service.comparisons.ChunkingResultReadyEvent;
 import com.example.lidarcbackend.service.comparisons.ComparisonService;
 import com.example.lidarcbackend.service.files.MetadataService;
 import com.example.lidarcbackend.service.files.WorkerStartService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.MinioClient;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.support.converter.JacksonUtils;
 import org.springframework.context.ApplicationEventPublisher;
-
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,20 +111,46 @@ public class ComparisonServiceTest {
     @Mock
     private ComparisonFileRepository comparisonFileRepository;
     @Mock
+    private ComparisonFileShardRepository comparisonFileShardRepository;
+    @Mock
+    private ComparisonPairRepository comparisonPairRepository;
+    @Mock
     private FileRepository fileRepository;
     @Mock
+    private ReportRepository reportRepository;
+    @Mock
+    private PreprocessingResultRepository preprocessingResultRepository;
+    @Mock
+    private ComparisonFolderRepository comparisonFolderRepository;
+    @Mock
+    private FolderRepository folderRepository;
+    @Mock
+    private MinioClient minioClient;
+    @Spy
+    private ComparisonShardingProperties shardingProperties = new ComparisonShardingProperties();
+    @Spy
+    private ComparisonEstimateProperties estimateProperties = new ComparisonEstimateProperties();
+    @Mock
     private WorkerStartService workerStartService;
 
     @Mock
     private MetadataService metadataService;
+    @Mock
+    private MetadataMapper metadataMapper;
 
     @Mock
     private ComparisonMapper comparisonMapper;
     @Mock
     private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ChunkingResultCacheService chunkingCacheService;
 
     @Mock
     private IJobTrackingService jobTrackingService;
+    @Mock
+    private IInboxService inboxService;
+    @Mock
+    private EntityManager entityManager;
 
     @InjectMocks
     private ComparisonService comparisonService;
@@ -84,8 +175,10 @@ public class ComparisonServiceTest {
         savedComparison = new Comparison();
         savedComparison.setId(999L);
         lenient().when(comparisonMapper.toEntityFromRequest(any())).thenReturn(savedComparison);
-        lenient().when(comparisonRepository.save(any())).thenReturn(savedComparison);
+        lenient().when(comparisonRepository.saveAndFlush(any())).thenReturn(savedComparison);
         lenient().when(comparisonMapper.toDto(any())).thenReturn(new ComparisonDTO());
+        // Every result is new unless a test says otherwise
+        lenient().when(inboxService.claim(any(), any())).thenAnswer(invocation -> new HashSet<UUID>(invocation.getArgument(1)));
 
     }
 
@@ -98,6 +191,10 @@ public class ComparisonServiceTest {
         return eventCaptor.getValue().jobsToStart();
     }
 
+    private void stubFiles(File... files) {
+        when(fileRepository.findAllWithFolderAndCoordinateSystemByIdIn(any())).thenReturn(List.of(files));
+    }
+
     private File createFile(Long id, double xMin, double xMax, double yMin, double yMax) {
         File f = new File();
         f.setId(id);
@@ -116,8 +213,7 @@ public class ComparisonServiceTest {
         File file1 = createFile(fileId1, 0.0, 10.0, 0.0, 10.0);   // 0-10
         File file2 = createFile(fileId2, 20.0, 30.0, 0.0, 10.0);  // 20-30
 
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
@@ -145,8 +241,7 @@ public class ComparisonServiceTest {
 
         File file1 = createFile(fileId1, 0.0, 100.0, 0.0, 10.0);
         File file2 = createFile(fileId2, 95.0, 110.0, 0.0, 10.0);
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
@@ -168,8 +263,7 @@ public class ComparisonServiceTest {
         Long fileId2 = 2L;
         File file1 = createFile(fileId1, 0.0, 100.0, 0.0, 100.0);
         File file2 = createFile(fileId2, 20.0, 80.0, 20.0, 80.0);
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
 
@@ -189,8 +283,7 @@ public class ComparisonServiceTest {
         File file1 = createFile(fileId1, 40.0, 60.0, 40.0, 60.0);
         File file2 = createFile(fileId2, 0.0, 100.0, 0.0, 100.0);
 
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
@@ -222,8 +315,7 @@ public class ComparisonServiceTest {
         File file1 = createFile(fileId1, 40.0, 60.0, 50.0, 100.0);
         File file2 = createFile(fileId2, 0.0, 100.0, 0.0, 100.0);
 
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
 
@@ -250,8 +342,7 @@ public class ComparisonServiceTest {
         Long fileId2 = 2L;
         File file1 = createFile(fileId1, 0.0, 100.0, 50.0, 100.0);
         File file2 = createFile(fileId2, 0.0, 100.0, 0.0, 100.0);
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
         List<StartPreProcessJobDto> jobs = captureJobs();
@@ -282,7 +373,7 @@ public class ComparisonServiceTest {
         createRequest.setGrid(hugeGrid);
         createRequest.setFileMetadataIds(List.of(fileId));
 
-        when(fileRepository.findById(fileId)).thenReturn(Optional.of(file));
+        stubFiles(file);
 
         comparisonService.saveComparison(createRequest, List.of(fileId));
 
@@ -301,10 +392,7 @@ public class ComparisonServiceTest {
         File f3 = createFile(id3, 30.0, 60.0, 0.0, 10.0);
         File f4 = createFile(id4, 50.0, 80.0, 0.0, 10.0);
 
-        when(fileRepository.findById(id1)).thenReturn(Optional.of(f1));
-        when(fileRepository.findById(id2)).thenReturn(Optional.of(f2));
-        when(fileRepository.findById(id3)).thenReturn(Optional.of(f3));
-        when(fileRepository.findById(id4)).thenReturn(Optional.of(f4));
+        stubFiles(f1, f2, f3, f4);
 
         List<Long> fileIds = List.of(id1, id2, id3, id4);
         createRequest.setFileMetadataIds(fileIds);
@@ -346,8 +434,7 @@ public class ComparisonServiceTest {
 
         File file1 = createFile(fileId1, 0.0, 101.0, 0.0, 10.0);
         File file2 = createFile(fileId2, 90.0, 120.0, 0.0, 10.0);
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
@@ -374,8 +461,7 @@ public class ComparisonServiceTest {
         File file1 = createFile(fileId1, 0.0, 100.0, 0.0, 100.0);
         File file2 = createFile(fileId2, 0.0, 100.0, 0.0, 100.0);
 
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFolderAFiles(List.of(fileId1));
         createRequest.setFolderBFiles(List.of(fileId2));
@@ -410,9 +496,7 @@ public class ComparisonServiceTest {
         File file2 = createFile(fileId2, 0.0, 100.0, 0.0, 100.0);
         File file3 = createFile(fileId3, 30.0, 60.0, 30.0, 60.0);
 
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
-        when(fileRepository.findById(fileId3)).thenReturn(Optional.of(file3));
+        stubFiles(file1, file2, file3);
         createRequest.setFolderAFiles(List.of(fileId1, fileId3));
         createRequest.setFolderBFiles(List.of(fileId2));
 
@@ -450,7 +534,7 @@ public class ComparisonServiceTest {
     void saveComparison_FileOutsideAOI_ShouldStartNoJobs() throws NotFoundException, ValidationException {
         Long fileId1 = 1L;
         File file1 = createFile(fileId1, 200.0, 300.0, 200.0, 300.0);
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
+        stubFiles(file1);
 
         createRequest.setFileMetadataIds(List.of(fileId1));
         comparisonService.saveComparison(createRequest, List.of(fileId1));
@@ -466,8 +550,7 @@ public class ComparisonServiceTest {
         File file1 = createFile(fileId1, -50.0, 0.0, 0.0, 50.0);
         File file2 = createFile(fileId2, 100.0, 150.0, 0.0, 50.0);
 
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
@@ -482,8 +565,7 @@ public class ComparisonServiceTest {
         File file1 = createFile(fileId1, -50.0, 10.0, 0.0, 50.0);
         File file2 = createFile(fileId2, 100.0, 150.0, 0.0, 50.0);
 
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFileMetadataIds(List.of(fileId1, fileId2));
         comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
@@ -513,8 +595,7 @@ public class ComparisonServiceTest {
         createRequest.setGrid(offsetGrid);
         File file1 = createFile(fileId1, 0.0, 40.0, 0.0, 100.0);
         File file2 = createFile(fileId2, 30.0, 100.0, 0.0, 100.0);
-        when(fileRepository.findById(fileId1)).thenReturn(Optional.of(file1));
-        when(fileRepository.findById(fileId2)).thenReturn(Optional.of(file2));
+        stubFiles(file1, file2);
 
         createRequest.setFolderAFiles(List.of(fileId1, fileId2));
 
@@ -529,6 +610,637 @@ public class ComparisonServiceTest {
         assertBoundingBox(regions.getFirst(), 30.0, 100.0, 0.0, 100.0);
     }
 
+    @Test
+    void saveComparison_HugeGridWithCenterHole_ShouldSplitIntoFour() throws NotFoundException, ValidationException {
+        // 100k x 100k cells, the coverage must stay proportional to the shape and not to the cell count
+        createRequest.getGrid().setCellWidth(1);
+        createRequest.getGrid().setCellHeight(1);
+        createRequest.getGrid().setxMax(100000.0);
+        createRequest.getGrid().setyMax(100000.0);
+        Long fileId1 = 1L;
+        Long fileId2 = 2L;
+        File file1 = createFile(fileId1, 40000.5, 60000.0, 40000.0, 60000.0);
+        File file2 = createFile(fileId2, 0.0, 100000.0, 0.0, 100000.0);
+
+        stubFiles(file1, file2);
+
+        comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
+
+        List<StartPreProcessJobDto> jobs = captureJobs();
+        assertEquals(2, jobs.size());
+        assertBoundingBox(jobs.getFirst().getBboxes().getFirst(), 40000.0, 60000.0, 40000.0, 60000.0);
+
+        List<BoundingBox> regions = jobs.get(1).getBboxes();
+        assertEquals(4, regions.size());
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 0, 100000, 60000, 100000)), "Missing Top Strip");
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 0, 100000, 0, 40000)), "Missing Bottom Strip");
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 0, 40000, 40000, 60000)), "Missing Left Strip");
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 60000, 100000, 40000, 60000)), "Missing Right Strip");
+    }
+
+    @Test
+    void saveComparison_HoleAndNotch_ShouldCoalesceLeftStrip() throws NotFoundException, ValidationException {
+        Long fileId1 = 1L;
+        Long fileId2 = 2L;
+        Long fileId3 = 3L;
+        File hole = createFile(fileId1, 40.0, 60.0, 40.0, 60.0);
+        File notch = createFile(fileId2, 90.0, 100.0, 50.0, 60.0);
+        File full = createFile(fileId3, 0.0, 100.0, 0.0, 100.0);
+
+        stubFiles(hole, notch, full);
+
+        comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2, fileId3));
+
+        List<StartPreProcessJobDto> jobs = captureJobs();
+        assertEquals(3, jobs.size());
+        List<BoundingBox> regions = jobs.get(2).getBboxes();
+
+        // Row bands 40-50 and 50-60 both start with the same left run, which is merged into one strip
+        assertEquals(5, regions.size());
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 0, 100, 0, 40)), "Missing Bottom Strip");
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 0, 40, 40, 60)), "Missing merged Left Strip");
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 60, 100, 40, 50)), "Missing Right Strip below notch");
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 60, 90, 50, 60)), "Missing Right Strip next to notch");
+        assertTrue(regions.stream().anyMatch(b -> isApprox(b, 0, 100, 60, 100)), "Missing Top Strip");
+    }
+
+    @Test
+    void saveComparison_FileAboveShardingThreshold_ShouldSplitIntoTileJobs() throws NotFoundException, ValidationException {
+        shardingProperties.setPointThreshold(1_000);
+        shardingProperties.setTileCells(10);
+        Long fileId1 = 1L;
+        File bigFile = createFile(fileId1, 0.0, 40.0, 0.0, 20.0);
+        bigFile.setPointCount(5_000L);
+
+        stubFiles(bigFile);
+
+        comparisonService.saveComparison(createRequest, List.of(fileId1));
+
+        // 20 x 10 cells of size 2 are cut along tiles of 10 x 10 cells
+        List<StartPreProcessJobDto> jobs = captureJobs();
+        assertEquals(2, jobs.size());
+        assertTrue(jobs.stream().allMatch(job -> fileId1.equals(job.getFileId())));
+        assertBoundingBox(jobs.get(0).getBboxes().getFirst(), 0.0, 20.0, 0.0, 20.0);
+        assertBoundingBox(jobs.get(1).getBboxes().getFirst(), 20.0, 40.0, 0.0, 20.0);
+
+        ArgumentCaptor<List<ComparisonFileShard>> shardCaptor = ArgumentCaptor.captor();
+        verify(comparisonFileShardRepository).insertAll(shardCaptor.capture());
+        assertEquals(2, shardCaptor.getValue().size());
+        ArgumentCaptor<List<TrackedJob>> trackedCaptor = ArgumentCaptor.captor();
+        verify(jobTrackingService).registerJobs(trackedCaptor.capture());
+        assertEquals(2, trackedCaptor.getValue().size());
+    }
+
+    @Test
+    void processPreprocessingResult_ShardWithPendingSiblings_ShouldNotStartComparison() {
+        UUID shardJobId = UUID.randomUUID();
+        savedComparison.setStatus(Comparison.Status.PREPROCESSING);
+        ComparisonFile cf = new ComparisonFile();
+        cf.setComparisonId(999L);
+        cf.setFileId(1L);
+        cf.setStatus(ComparisonFile.Status.PREPROCESSING);
+        ComparisonFileShard shard = ComparisonFileShard.builder()
+            .jobId(shardJobId).comparisonId(999L).fileId(1L).status(ComparisonFile.Status.PREPROCESSING).build();
+
+        when(comparisonRepository.findComparisonsById(999L)).thenReturn(Optional.of(savedComparison));
+        when(comparisonFileRepository.findAllByComparisonIdAndFileIdIn(999L, Set.of(1L))).thenReturn(List.of(cf));
+        when(comparisonFileShardRepository.findAllById(Set.of(shardJobId))).thenReturn(List.of(shard));
+        when(comparisonFileShardRepository.findFileIdsWithShardStatusNot(999L, Set.of(1L), ComparisonFile.Status.COMPLETED))
+            .thenReturn(List.of(1L));
+
+        comparisonService.processPreprocessingResult(new WorkerResultMessage<>("success", shardJobId.toString(),
+            new PreprocessingResultPayload(999L, 1L, null, new ResultLocation("results", "shard-0.csv"))));
+
+        assertEquals(ComparisonFile.Status.COMPLETED, shard.getStatus());
+        assertEquals("shard-0.csv", shard.getObjectKey());
+        assertEquals(ComparisonFile.Status.PREPROCESSING, cf.getStatus());
+        verify(comparisonFileRepository, never()).save(any());
+        verifyNoInteractions(workerStartService);
+    }
+
+    @Test
+    void saveComparison_AllResultsRegistered_ShouldReuseAndStartComparison() throws NotFoundException, ValidationException {
+        Long fileId1 = 1L;
+        Long fileId2 = 2L;
+        File file1 = createFile(fileId1, 0.0, 10.0, 0.0, 10.0);
+        File file2 = createFile(fileId2, 20.0, 30.0, 0.0, 10.0);
+
+        stubFiles(file1, file2);
+        when(preprocessingResultRepository.acquireAll(any())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+            .stream()
+            .map(hash -> PreprocessingResult.builder()
+                .inputHash(hash).bucket("results").objectKey("shared.csv").referenceCount(2).build())
+            .toList());
+        when(comparisonFileRepository.areAllIncludedFilesReady(999L)).thenReturn(true);
+
+        comparisonService.saveComparison(createRequest, List.of(fileId1, fileId2));
+
+        ArgumentCaptor<List<ComparisonFile>> filesCaptor = ArgumentCaptor.captor();
+        verify(comparisonFileRepository).insertAll(filesCaptor.capture());
+        assertEquals(2, filesCaptor.getValue().size());
+        assertTrue(filesCaptor.getValue().stream().allMatch(cf ->
+            cf.getIncluded() && cf.getStatus() == ComparisonFile.Status.COMPLETED && "shared.csv".equals(cf.getObjectKey())));
+        assertTrue(filesCaptor.getValue().stream().allMatch(ComparisonFile::isHoldsReference));
+
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(4)).publishEvent(eventCaptor.capture());
+        List<Object> jobEvents = eventCaptor.getAllValues().stream()
+            .filter(event -> !(event instanceof ComparisonChangedEvent))
+            .toList();
+        assertEquals(2, jobEvents.size());
+        assertTrue(((PreProcessJobsReadyEvent) jobEvents.get(0)).jobsToStart().isEmpty());
+        assertTrue(jobEvents.get(1) instanceof ComparisonJobReadyEvent);
+        verify(jobTrackingService).registerJobs(List.of());
+    }
+
+    @Test
+    void deleteComparison_FileWithoutReference_ShouldOnlyReleaseHeldReferences() throws NotFoundException {
+        // The first file is still preprocessing, its hash may be registered by another comparison in the meantime
+        ComparisonFile pending = ComparisonFile.builder()
+            .comparisonId(999L).fileId(1L).included(true).inputHash("pending").status(ComparisonFile.Status.PREPROCESSING).build();
+        ComparisonFile reused = ComparisonFile.builder()
+            .comparisonId(999L).fileId(2L).included(true).inputHash("reused").holdsReference(true)
+            .bucket("results").objectKey("reused.csv").status(ComparisonFile.Status.COMPLETED).build();
+        when(comparisonRepository.findById(999L)).thenReturn(Optional.of(savedComparison));
+        when(comparisonFileRepository.findAllByComparisonIdAndIncludedTrue(999L)).thenReturn(List.of(pending, reused));
+        when(preprocessingResultRepository.findReferenceCount("reused")).thenReturn(Optional.of(1));
+
+        comparisonService.deleteComparisonById(999L);
+
+        verify(preprocessingResultRepository).release("reused");
+        verify(preprocessingResultRepository, never()).release("pending");
+        verify(comparisonRepository).deleteById(999L);
+    }
+
+    @Test
+    void saveComparison_SameInputs_ShouldProduceSameInputHash() throws NotFoundException, ValidationException {
+        Long fileId1 = 1L;
+        File file1 = createFile(fileId1, 0.0, 10.0, 0.0, 10.0);
+        stubFiles(file1);
+
+        comparisonService.saveComparison(createRequest, List.of(fileId1));
+        // A different AOI extent on the same origin and cell size keeps the key
+        createRequest.getGrid().setxMax(50.0);
+        comparisonService.saveComparison(createRequest, List.of(fileId1));
+
+        ArgumentCaptor<List<ComparisonFile>> filesCaptor = ArgumentCaptor.captor();
+        verify(comparisonFileRepository, times(2)).insertAll(filesCaptor.capture());
+        String firstHash = filesCaptor.getAllValues().get(0).getFirst().getInputHash();
+        assertEquals(64, firstHash.length());
+        assertEquals(firstHash, filesCaptor.getAllValues().get(1).getFirst().getInputHash());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 1000})
+    void saveComparison_RepositoryRoundTrips_ShouldNotGrowWithFileCount(int filesPerGroup) throws NotFoundException, ValidationException {
+        List<File> files = new ArrayList<>();
+        List<Long> folderAFiles = new ArrayList<>();
+        List<Long> folderBFiles = new ArrayList<>();
+        for (int i = 0; i < filesPerGroup; i++) {
+            double xMin = (i % 50) * 2.0;
+            files.add(createFile(i + 1L, xMin, xMin + 2.0, 0.0, 100.0));
+            files.add(createFile(100_000L + i, xMin, xMin + 2.0, 0.0, 100.0));
+            folderAFiles.add(i + 1L);
+            folderBFiles.add(100_000L + i);
+        }
+        when(fileRepository.findAllWithFolderAndCoordinateSystemByIdIn(any())).thenReturn(files);
+        createRequest.setFolderAFiles(folderAFiles);
+        createRequest.setFolderBFiles(folderBFiles);
+
+        comparisonService.saveComparison(createRequest, List.of());
+
+        verify(comparisonRepository).saveAndFlush(any());
+        verify(fileRepository).findAllWithFolderAndCoordinateSystemByIdIn(any());
+        verify(preprocessingResultRepository, times(2)).acquireAll(any());
+        verify(comparisonFileRepository).insertAll(any());
+        verify(comparisonFileShardRepository).insertAll(any());
+        verify(jobTrackingService).registerJobs(any());
+        verifyNoMoreInteractions(comparisonRepository, fileRepository, preprocessingResultRepository,
+            comparisonFileRepository, comparisonFileShardRepository, jobTrackingService);
+        verifyNoInteractions(metadataService, comparisonPairRepository);
+    }
+
+    @Test
+    void estimateComparison_TwoGroups_ShouldReportCoverageAndScaledPoints() throws NotFoundException, ValidationException {
+        File left = createFile(1L, 0.0, 50.0, 0.0, 100.0);
+        left.setPointCount(1_000L);
+        File full = createFile(2L, 0.0, 100.0, 0.0, 100.0);
+        full.setPointCount(4_000L);
+        File lower = createFile(3L, 0.0, 100.0, 0.0, 60.0);
+        lower.setPointCount(3_000L);
+        left.setOriginalFilename("a.laz");
+        lower.setOriginalFilename("b.laz");
+        stubFiles(left, full, lower);
+        createRequest.setFolderAFiles(List.of(1L, 2L));
+        createRequest.setFolderBFiles(List.of(3L));
+
+        ComparisonEstimateDTO estimate = comparisonService.estimateComparison(createRequest, List.of());
+
+        assertEquals(2_500, estimate.getCellCount());
+        assertEquals(3, estimate.getPreprocessingJobs());
+        assertEquals(0.6, estimate.getCoveredFraction(), 1e-9);
+        assertEquals(1.0, estimate.getGroups().get(0).getCoveredFraction(), 1e-9);
+        assertEquals(0.6, estimate.getGroups().get(1).getCoveredFraction(), 1e-9);
+        // The second file of group A only keeps its right half
+        assertEquals(2_000, estimate.getJobs().get(1).getEstimatedPoints());
+        assertBoundingBox(estimate.getJobs().get(1).getBboxes().getFirst(), 50.0, 100.0, 0.0, 100.0);
+        assertEquals(6_000, estimate.getEstimatedPoints());
+        // 6000 points at 1M points/s plus 2 s overhead per job
+        assertEquals(7, estimate.getEstimatedRuntimeSeconds());
+
+        verify(comparisonRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(comparisonFileRepository, comparisonFileShardRepository, jobTrackingService, eventPublisher);
+        verify(preprocessingResultRepository, never()).acquireAll(any());
+    }
+
+    @Test
+    void estimateComparison_RegisteredResult_ShouldCountAsReused() throws NotFoundException, ValidationException {
+        stubFiles(createFile(1L, 0.0, 10.0, 0.0, 10.0));
+        when(preprocessingResultRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<String> hashes = invocation.getArgument(0);
+            List<PreprocessingResult> results = new ArrayList<>();
+            hashes.forEach(hash -> results.add(PreprocessingResult.builder().inputHash(hash).build()));
+            return results;
+        });
+
+        ComparisonEstimateDTO estimate = comparisonService.estimateComparison(createRequest, List.of(1L));
+
+        assertEquals(0, estimate.getPreprocessingJobs());
+        assertEquals(1, estimate.getReusedFiles());
+        assertEquals(0.01, estimate.getCoveredFraction(), 1e-9);
+        verify(preprocessingResultRepository, never()).acquireAll(any());
+    }
+
+    @Test
+    void saveComparison_IncrementalWithRemovedFile_ShouldOnlyPreprocessReleasedCells() throws NotFoundException, ValidationException {
+        File left = createFile(1L, 0.0, 50.0, 0.0, 100.0);
+        File full = createFile(2L, 0.0, 100.0, 0.0, 100.0);
+        stubFiles(left, full);
+        comparisonService.saveComparison(createRequest, List.of(1L, 2L));
+        ArgumentCaptor<List<ComparisonFile>> baseCaptor = ArgumentCaptor.captor();
+        verify(comparisonFileRepository).insertAll(baseCaptor.capture());
+        List<ComparisonFile> baseFiles = baseCaptor.getValue();
+        String previousHash = baseFiles.get(1).getInputHash();
+
+        when(comparisonRepository.existsById(999L)).thenReturn(true);
+        when(comparisonFileRepository.findAllByComparisonIdOrderByClaimOrderAscFileIdAsc(999L)).thenReturn(baseFiles);
+        when(preprocessingResultRepository.acquireAll(any())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+            .stream()
+            .filter(previousHash::equals)
+            .map(hash -> PreprocessingResult.builder()
+                .inputHash(hash).bucket("results").objectKey("previous.csv").referenceCount(2).build())
+            .toList());
+        createRequest.setBaseComparisonId(999L);
+
+        comparisonService.saveComparison(createRequest, List.of(2L));
+
+        // The right half is still covered by the previous result, only the left half released by file 1 is new
+        ArgumentCaptor<PreProcessJobsReadyEvent> eventCaptor = ArgumentCaptor.forClass(PreProcessJobsReadyEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+        List<StartPreProcessJobDto> jobs = eventCaptor.getValue().jobsToStart();
+        assertEquals(1, jobs.size());
+        assertEquals(1, jobs.getFirst().getBboxes().size());
+        assertBoundingBox(jobs.getFirst().getBboxes().getFirst(), 0.0, 50.0, 0.0, 100.0);
+
+        ArgumentCaptor<List<ComparisonFileShard>> shardCaptor = ArgumentCaptor.captor();
+        verify(comparisonFileShardRepository, times(2)).insertAll(shardCaptor.capture());
+        List<ComparisonFileShard> shards = shardCaptor.getValue();
+        assertEquals(2, shards.size());
+        assertEquals(ComparisonFile.Status.COMPLETED, shards.getFirst().getStatus());
+        assertEquals("previous.csv", shards.getFirst().getObjectKey());
+        assertEquals(previousHash, shards.getFirst().getInputHash());
+        assertEquals(UUID.fromString(jobs.getFirst().getJobId()), shards.get(1).getJobId());
+    }
+
+    @Test
+    void saveComparison_IncrementalWithAddedFile_ShouldKeepRegionsOfBaseFiles() throws NotFoundException, ValidationException {
+        File left = createFile(1L, 0.0, 50.0, 0.0, 100.0);
+        File full = createFile(2L, 0.0, 100.0, 0.0, 100.0);
+        stubFiles(left, full);
+        comparisonService.saveComparison(createRequest, List.of(1L));
+        ArgumentCaptor<List<ComparisonFile>> baseCaptor = ArgumentCaptor.captor();
+        verify(comparisonFileRepository).insertAll(baseCaptor.capture());
+        List<ComparisonFile> baseFiles = baseCaptor.getValue();
+
+        when(comparisonRepository.existsById(999L)).thenReturn(true);
+        when(comparisonFileRepository.findAllByComparisonIdOrderByClaimOrderAscFileIdAsc(999L)).thenReturn(baseFiles);
+        when(preprocessingResultRepository.acquireAll(any())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+            .stream()
+            .filter(baseFiles.getFirst().getInputHash()::equals)
+            .map(hash -> PreprocessingResult.builder()
+                .inputHash(hash).bucket("results").objectKey("previous.csv").referenceCount(2).build())
+            .toList());
+        createRequest.setBaseComparisonId(999L);
+
+        // The new file comes first in the request but must not take cells away from the unchanged file
+        comparisonService.saveComparison(createRequest, List.of(2L, 1L));
+
+        ArgumentCaptor<PreProcessJobsReadyEvent> eventCaptor = ArgumentCaptor.forClass(PreProcessJobsReadyEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+        List<StartPreProcessJobDto> jobs = eventCaptor.getValue().jobsToStart();
+        assertEquals(1, jobs.size());
+        assertEquals(2L, jobs.getFirst().getFileId());
+        assertBoundingBox(jobs.getFirst().getBboxes().getFirst(), 50.0, 100.0, 0.0, 100.0);
+    }
+
+    @Test
+    void saveComparison_UnknownBaseComparison_ShouldThrowNotFound() {
+        createRequest.setBaseComparisonId(12L);
+        when(comparisonRepository.existsById(12L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> comparisonService.saveComparison(createRequest, List.of(1L)));
+    }
+
+    private ComparisonEpoch epoch(String name, Long... fileIds) {
+        ComparisonEpoch epoch = new ComparisonEpoch();
+        epoch.setName(name);
+        epoch.setFileIds(List.of(fileIds));
+        return epoch;
+    }
+
+    @Test
+    void saveComparison_ThreeEpochs_ShouldPreprocessEachEpochOnceAndPlanConsecutivePairs() throws NotFoundException, ValidationException {
+        stubFiles(createFile(1L, 0.0, 100.0, 0.0, 100.0), createFile(2L, 0.0, 100.0, 0.0, 100.0),
+            createFile(3L, 0.0, 100.0, 0.0, 100.0));
+        createRequest.setEpochs(List.of(epoch("2019", 1L), epoch("2021", 2L), epoch("2023", 3L)));
+
+        comparisonService.saveComparison(createRequest, null);
+
+        List<StartPreProcessJobDto> jobs = captureJobs();
+        assertEquals(3, jobs.size());
+        ArgumentCaptor<List<ComparisonPair>> pairCaptor = ArgumentCaptor.captor();
+        verify(comparisonPairRepository).saveAll(pairCaptor.capture());
+        List<ComparisonPair> pairs = pairCaptor.getValue();
+        assertEquals(2, pairs.size());
+        assertEquals("2019", pairs.get(0).getGroupA());
+        assertEquals("2021", pairs.get(0).getGroupB());
+        assertEquals("2021", pairs.get(1).getGroupA());
+        assertEquals("2023", pairs.get(1).getGroupB());
+        assertTrue(pairs.stream().allMatch(pair -> pair.getStatus() == ComparisonPair.Status.PENDING));
+    }
+
+    @Test
+    void saveComparison_EpochsWithAllPairs_ShouldPlanEveryPair() throws NotFoundException, ValidationException {
+        stubFiles(createFile(1L, 0.0, 100.0, 0.0, 100.0), createFile(2L, 0.0, 100.0, 0.0, 100.0),
+            createFile(3L, 0.0, 100.0, 0.0, 100.0), createFile(4L, 0.0, 100.0, 0.0, 100.0));
+        createRequest.setEpochs(List.of(epoch("2017", 1L), epoch("2019", 2L), epoch("2021", 3L), epoch("2023", 4L)));
+        createRequest.setPairing(ComparisonPairing.ALL_PAIRS);
+
+        comparisonService.saveComparison(createRequest, null);
+
+        ArgumentCaptor<List<ComparisonPair>> pairCaptor = ArgumentCaptor.captor();
+        verify(comparisonPairRepository).saveAll(pairCaptor.capture());
+        assertEquals(6, pairCaptor.getValue().size());
+        assertEquals(4, captureJobs().size());
+    }
+
+    @Test
+    void saveComparison_DuplicateEpochNames_ShouldThrowValidation() {
+        createRequest.setEpochs(List.of(epoch("2019", 1L), epoch("2019", 2L)));
+
+        assertThrows(ValidationException.class, () -> comparisonService.saveComparison(createRequest, null));
+        verifyNoInteractions(comparisonRepository, fileRepository);
+    }
+
+    @Test
+    void processPreprocessingResult_LastFileOfEpochs_ShouldStartOneJobPerPair() {
+        UUID jobId = UUID.randomUUID();
+        savedComparison.setStatus(Comparison.Status.PREPROCESSING);
+        ComparisonFile cf = new ComparisonFile();
+        cf.setComparisonId(999L);
+        cf.setFileId(3L);
+        cf.setStatus(ComparisonFile.Status.PREPROCESSING);
+        List<ComparisonFile> included = List.of(
+            ComparisonFile.builder().fileId(1L).groupName("2019").bucket("results").objectKey("1.csv").build(),
+            ComparisonFile.builder().fileId(2L).groupName("2021").bucket("results").objectKey("2.csv").build(),
+            ComparisonFile.builder().fileId(3L).groupName("2023").bucket("results").objectKey("3.csv").build());
+        List<ComparisonPair> pairs = List.of(
+            ComparisonPair.builder().comparisonId(999L).pairOrder(0).groupA("2019").groupB("2021").status(ComparisonPair.Status.PENDING).build(),
+            ComparisonPair.builder().comparisonId(999L).pairOrder(1).groupA("2021").groupB("2023").status(ComparisonPair.Status.PENDING).build());
+
+        when(comparisonRepository.findComparisonsById(999L)).thenReturn(Optional.of(savedComparison));
+        when(comparisonFileRepository.findAllByComparisonIdAndFileIdIn(999L, Set.of(3L))).thenReturn(List.of(cf));
+        when(comparisonFileRepository.areAllIncludedFilesReady(999L)).thenReturn(true);
+        when(comparisonFileRepository.findAllByComparisonIdAndIncludedTrue(999L)).thenReturn(included);
+        when(comparisonPairRepository.findAllByComparisonIdOrderByPairOrderAsc(999L)).thenReturn(pairs);
+
+        comparisonService.processPreprocessingResult(new WorkerResultMessage<>("success", jobId.toString(),
+            new PreprocessingResultPayload(999L, 3L, null, new ResultLocation("results", "3.csv"))));
+
+        ArgumentCaptor<ComparisonJobReadyEvent> eventCaptor = ArgumentCaptor.forClass(ComparisonJobReadyEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+        List<ComparisonJobReadyEvent> events = eventCaptor.getAllValues();
+        assertEquals(List.of("1.csv", "2.csv"), events.get(0).job().getFiles().stream().map(ComparisonWorkerInputFileDto::getObjectKey).toList());
+        assertEquals(List.of("2.csv", "3.csv"), events.get(1).job().getFiles().stream().map(ComparisonWorkerInputFileDto::getObjectKey).toList());
+        assertEquals(pairs.get(0).getJobId().toString(), events.get(0).job().getJobId());
+        assertEquals("2021", events.get(1).job().getGroupA());
+        assertEquals("2023", events.get(1).job().getGroupB());
+        assertTrue(pairs.stream().allMatch(pair -> pair.getStatus() == ComparisonPair.Status.COMPARING));
+        verify(jobTrackingService).registerJobs(any());
+    }
+
+    @Test
+    void processPreprocessingResults_BatchOfOneComparison_ShouldCheckReadinessOnce() {
+        savedComparison.setStatus(Comparison.Status.PREPROCESSING);
+        List<ComparisonFile> files = LongStream.rangeClosed(1, 3)
+            .mapToObj(fileId -> ComparisonFile.builder().comparisonId(999L).fileId(fileId)
+                .status(ComparisonFile.Status.PREPROCESSING).build())
+            .toList();
+        when(comparisonRepository.findComparisonsById(999L)).thenReturn(Optional.of(savedComparison));
+        when(comparisonFileRepository.findAllByComparisonIdAndFileIdIn(999L, Set.of(1L, 2L, 3L))).thenReturn(files);
+        when(comparisonFileRepository.areAllIncludedFilesReady(999L)).thenReturn(true);
+        when(comparisonFileRepository.findAllByComparisonIdAndIncludedTrue(999L)).thenReturn(files);
+
+        comparisonService.processPreprocessingResults(LongStream.rangeClosed(1, 3)
+            .mapToObj(fileId -> new WorkerResultMessage<>("success", UUID.randomUUID().toString(),
+                new PreprocessingResultPayload(999L, fileId, null, new ResultLocation("results", fileId + ".csv"))))
+            .toList());
+
+        assertTrue(files.stream().allMatch(cf -> cf.getStatus() == ComparisonFile.Status.COMPLETED));
+        verify(comparisonRepository).findComparisonsById(999L);
+        verify(comparisonFileRepository).saveAll(files);
+        verify(comparisonFileRepository, never()).save(any());
+        verify(comparisonFileRepository).areAllIncludedFilesReady(999L);
+        verify(eventPublisher).publishEvent(any(ComparisonJobReadyEvent.class));
+        verify(jobTrackingService, times(3)).completeJob(any());
+    }
+
+    @Test
+    void processPreprocessingResults_DuplicateResults_ShouldBeDroppedByInbox() {
+        UUID processed = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        when(inboxService.claim(JobType.PREPROCESSING, List.of(processed, fresh, fresh))).thenReturn(Set.of(fresh));
+        ComparisonFile file = ComparisonFile.builder().comparisonId(999L).fileId(2L)
+            .status(ComparisonFile.Status.PREPROCESSING).build();
+        when(comparisonRepository.findComparisonsById(999L)).thenReturn(Optional.of(savedComparison));
+        when(comparisonFileRepository.findAllByComparisonIdAndFileIdIn(999L, Set.of(2L))).thenReturn(List.of(file));
+
+        comparisonService.processPreprocessingResults(List.of(
+            new WorkerResultMessage<>("success", processed.toString(),
+                new PreprocessingResultPayload(999L, 1L, null, new ResultLocation("results", "1.csv"))),
+            new WorkerResultMessage<>("success", fresh.toString(),
+                new PreprocessingResultPayload(999L, 2L, null, new ResultLocation("results", "2.csv"))),
+            new WorkerResultMessage<>("success", fresh.toString(),
+                new PreprocessingResultPayload(999L, 2L, null, new ResultLocation("results", "2.csv")))));
+
+        verify(jobTrackingService).completeJob(fresh);
+        verify(jobTrackingService, never()).completeJob(processed);
+        assertEquals(ComparisonFile.Status.COMPLETED, file.getStatus());
+        verify(comparisonFileRepository).saveAll(List.of(file));
+    }
+
+    @Test
+    void processPreprocessingResult_RedeliveredAfterComparisonStarted_ShouldNotStartAgain() {
+        savedComparison.setStatus(Comparison.Status.COMPARING);
+        ComparisonFile file = ComparisonFile.builder().comparisonId(999L).fileId(1L)
+            .status(ComparisonFile.Status.COMPLETED).build();
+        when(comparisonRepository.findComparisonsById(999L)).thenReturn(Optional.of(savedComparison));
+        when(comparisonFileRepository.findAllByComparisonIdAndFileIdIn(999L, Set.of(1L))).thenReturn(List.of(file));
+
+        comparisonService.processPreprocessingResult(new WorkerResultMessage<>("success", UUID.randomUUID().toString(),
+            new PreprocessingResultPayload(999L, 1L, null, new ResultLocation("results", "1.csv"))));
+
+        assertEquals(Comparison.Status.COMPARING, savedComparison.getStatus());
+        verify(comparisonFileRepository, never()).areAllIncludedFilesReady(anyLong());
+        verify(eventPublisher, never()).publishEvent(any(ComparisonJobReadyEvent.class));
+    }
+
+    @Test
+    void processComparisonResult_PairWithPendingSiblings_ShouldNotCompleteComparison() {
+        UUID jobId = UUID.randomUUID();
+        savedComparison.setStatus(Comparison.Status.COMPARING);
+        ComparisonPair pair = ComparisonPair.builder().comparisonId(999L).pairOrder(1).groupA("2021").groupB("2023")
+            .jobId(jobId).status(ComparisonPair.Status.COMPARING).build();
+        when(comparisonRepository.findComparisonsById(999L)).thenReturn(Optional.of(savedComparison));
+        when(comparisonPairRepository.findByJobId(jobId)).thenReturn(Optional.of(pair));
+        when(comparisonPairRepository.existsByComparisonIdAndStatusNot(999L, ComparisonPair.Status.COMPLETED)).thenReturn(true);
+
+        comparisonService.processComparisonResult(new WorkerResultMessage<>("success", jobId.toString(),
+            new ComparisonResultPayload(999L, null, new ResultLocation("results", "pair-1.json"))));
+
+        assertEquals(ComparisonPair.Status.COMPLETED, pair.getStatus());
+        assertEquals("pair-1.json", pair.getResultObjectKey());
+        assertEquals(Comparison.Status.COMPARING, savedComparison.getStatus());
+        verify(comparisonRepository, never()).save(any());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50})
+    void getPagedComparisons_ShouldLoadPageDetailsInFixedNumberOfQueries(int comparisonCount) {
+        List<Comparison> comparisons = new ArrayList<>();
+        for (long id = 1; id <= comparisonCount; id++) {
+            Comparison comparison = new Comparison();
+            comparison.setId(id);
+            comparisons.add(comparison);
+        }
+        PageRequest pageable = PageRequest.of(0, comparisonCount);
+        when(comparisonRepository.findAll(pageable)).thenReturn(new PageImpl<>(comparisons, pageable, comparisonCount));
+        when(comparisonMapper.toDto(any())).thenAnswer(invocation -> new ComparisonDTO());
+
+        List<ComparisonDTO> page = comparisonService.getPagedComparisons(pageable, null).getContent();
+
+        assertEquals(comparisonCount, page.size());
+        verify(reportRepository).findLatestReportsByComparisonIdIn(any());
+        verify(comparisonFileRepository).findFileIdsByComparisonIdIn(any());
+        verify(comparisonRepository).findAll(pageable);
+        verifyNoMoreInteractions(reportRepository, comparisonFileRepository, comparisonRepository);
+        verifyNoInteractions(metadataService);
+    }
+
+    @Test
+    void streamAllComparisons_ShouldMapInBatchesAndClearPersistenceContext() {
+        List<Comparison> comparisons = LongStream.rangeClosed(1, 1200).mapToObj(id -> {
+            Comparison comparison = new Comparison();
+            comparison.setId(id);
+            return comparison;
+        }).toList();
+        when(comparisonRepository.streamAllNewestFirst()).thenReturn(comparisons.stream());
+        when(comparisonMapper.toDto(any())).thenAnswer(invocation -> {
+            ComparisonDTO dto = new ComparisonDTO();
+            dto.setId(invocation.<Comparison>getArgument(0).getId());
+            return dto;
+        });
+
+        List<Long> streamedIds = new ArrayList<>();
+        comparisonService.streamAllComparisons(dto -> streamedIds.add(dto.getId()));
+
+        assertEquals(comparisons.stream().map(Comparison::getId).toList(), streamedIds);
+        // 500 + 500 + 200 comparisons
+        verify(reportRepository, times(3)).findLatestReportsByComparisonIdIn(any());
+        verify(comparisonFileRepository, times(3)).findFileIdsByComparisonIdIn(any());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void scrollComparisons_ShouldContinueBehindLastItemOfPreviousPage() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+        Comparison first = new Comparison();
+        first.setId(7L);
+        first.setCreatedAt(createdAt);
+        Comparison second = new Comparison();
+        second.setId(6L);
+        second.setCreatedAt(createdAt);
+        CursorRequest request = new CursorRequest();
+        request.setSize(2);
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        when(comparisonRepository.findAllBy(ScrollPosition.keyset(), sort, Limit.of(2)))
+            .thenReturn(Window.from(List.of(first, second), ScrollPosition::offset, true));
+
+        CursorPageDto<ComparisonDTO> page = comparisonService.scrollComparisons(request, null);
+
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getTotalItems());
+        CursorCodec.Position position = CursorCodec.decode(page.getNextCursor());
+        assertEquals(createdAt.toInstant(ZoneOffset.UTC), position.sortKey());
+        assertEquals(6L, position.id());
+
+        request.setCursor(page.getNextCursor());
+        ArgumentCaptor<ScrollPosition> positionCaptor = ArgumentCaptor.forClass(ScrollPosition.class);
+        when(comparisonRepository.findAllBy(positionCaptor.capture(), eq(sort), eq(Limit.of(2))))
+            .thenReturn(Window.from(List.of(), ScrollPosition::offset, false));
+
+        CursorPageDto<ComparisonDTO> lastPage = comparisonService.scrollComparisons(request, null);
+
+        assertTrue(lastPage.getItems().isEmpty());
+        assertNull(lastPage.getNextCursor());
+        Map<String, Object> keys = ((KeysetScrollPosition) positionCaptor.getValue()).getKeys();
+        assertEquals(createdAt, keys.get("createdAt"));
+        assertEquals(6L, keys.get("id"));
+        verify(comparisonRepository, never()).count();
+    }
+
+    @Test
+    void saveVisualizationComparison_CellsInMessage_ShouldCacheRawJsonUnchanged() throws Exception {
+        String cells = "[{\"x\":0,\"y\":1,\"values\":[1.5,-2.25,null],\"label\":\"a\\\"b\"}]";
+        String statistics = "{\"mean\":0.5,\"count\":3}";
+        byte[] body = ("{\"payload\":{\"comparisonId\":999,\"chunkSize\":32,\"cached\":false,"
+            + "\"chunked_cells\":" + cells + ",\"statistics\":" + statistics + ",\"unknown\":true}}").getBytes(StandardCharsets.UTF_8);
+        ObjectMapper converterMapper = JacksonUtils.enhancedObjectMapper();
+        WorkerResultMessage<ChunkingResultPayload> message = converterMapper.readValue(body, new TypeReference<>() {});
+
+        comparisonService.saveVisualizationComparison(message);
+
+        ArgumentCaptor<Object> resultCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(chunkingCacheService).save(eq(999L), eq(32), resultCaptor.capture());
+        assertEquals("{\"chunked_cells\":" + cells + ",\"statistics\":" + statistics + "}",
+            new ObjectMapper().writeValueAsString(resultCaptor.getValue()));
+        verify(eventPublisher).publishEvent(any(ChunkingResultReadyEvent.class));
+    }
+
+    @Test
+    void saveVisualizationComparison_CachedByWorker_ShouldNotifyWithoutParsingResult() {
+        when(chunkingCacheService.getRawJson(999L, 16)).thenReturn(Optional.of("{\"chunked_cells\":[]}"));
+
+        comparisonService.saveVisualizationComparison(new WorkerResultMessage<>(null, null,
+            new ChunkingResultPayload(999L, 16, true, null, null, null, null)));
+
+        ArgumentCaptor<ChunkingResultReadyEvent> eventCaptor = ArgumentCaptor.forClass(ChunkingResultReadyEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals("{\"chunked_cells\":[]}", eventCaptor.getValue().getResult());
+        verify(chunkingCacheService, never()).get(any(), anyInt());
+        verify(chunkingCacheService, never()).save(any(), anyInt(), any());
+    }
+
     private void assertBoundingBox(BoundingBox box, double xMin, double xMax, double yMin, double yMax) {
         assertEquals(xMin, box.getxMin(), "xMin mismatch");
         assertEquals(xMax, box.getxMax(), "xMax mismatch");
@@ -0,0 +1,71 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonChangedEvent;
+import com.example.lidarcbackend.api.comparison.dtos.ComparisonSummaryDTO;
+import com.example.lidarcbackend.model.entity.ComparisonSummary;
+import com.example.lidarcbackend.repository.ComparisonSummaryRepository;
+import com.example.lidarcbackend.service.comparisons.ComparisonSummaryService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ComparisonSummaryServiceTest {
+
+    @Mock
+    private ComparisonSummaryRepository summaryRepository;
+
+    @InjectMocks
+    private ComparisonSummaryService summaryService;
+
+    @Test
+    void onComparisonChanged_ShouldRefreshSummaryOfComparison() {
+        summaryService.onComparisonChanged(new ComparisonChangedEvent(42L));
+
+        verify(summaryRepository).refresh(42L);
+    }
+
+    @Test
+    void getSummaries_WithSearch_ShouldFilterByNameAndMapRows() {
+        ComparisonSummary withReport = summary(1L, 7L, List.of("flight-2021", "flight-2023"));
+        ComparisonSummary withoutReport = summary(2L, null, null);
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(summaryRepository.findByNameContainingIgnoreCase("graz", pageable))
+            .thenReturn(new PageImpl<>(List.of(withReport, withoutReport), pageable, 2));
+
+        List<ComparisonSummaryDTO> summaries = summaryService.getSummaries(pageable, "graz").getContent();
+
+        assertEquals("/reports/7/download", summaries.get(0).getLatestReport());
+        assertEquals(List.of("flight-2021", "flight-2023"), summaries.get(0).getFolderNames());
+        assertEquals(3, summaries.get(0).getFileCount());
+        assertEquals((short) 2021, summaries.get(0).getCaptureYearMin());
+        assertNull(summaries.get(1).getLatestReport());
+        assertEquals(List.of(), summaries.get(1).getFolderNames());
+        verify(summaryRepository, never()).findAll(pageable);
+    }
+
+    private ComparisonSummary summary(Long id, Long latestReportId, List<String> folderNames) {
+        ComparisonSummary summary = new ComparisonSummary();
+        summary.setId(id);
+        summary.setName("graz-" + id);
+        summary.setStatus("COMPLETED");
+        summary.setLatestReportId(latestReportId);
+        summary.setFileCount(3);
+        summary.setFolderNames(folderNames);
+        summary.setCaptureYearMin((short) 2021);
+        summary.setCaptureYearMax((short) 2023);
+        return summary;
+    }
+}
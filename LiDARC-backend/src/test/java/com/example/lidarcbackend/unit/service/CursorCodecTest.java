@@ -0,0 +1,48 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.exception.BadRequestException;
+import com.example.lidarcbackend.service.CursorCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CursorCodecTest {
+
+    @Test
+    void decode_ShouldReturnEncodedPosition() {
+        Instant sortKey = Instant.parse("2025-05-01T12:00:00.123456Z");
+
+        CursorCodec.Position position = CursorCodec.decode(CursorCodec.encode(sortKey, 42L));
+
+        assertEquals(sortKey, position.sortKey());
+        assertEquals(42L, position.id());
+    }
+
+    @Test
+    void decode_MissingCursor_ShouldReturnNull() {
+        assertNull(CursorCodec.decode(null));
+        assertNull(CursorCodec.decode(" "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not a cursor", "djF8eHx5", "djJ8MjAyNS0wNS0wMVQxMjowMDowMFp8MQ"})
+    void decode_MalformedCursor_ShouldThrowBadRequest(String token) {
+        assertThrows(BadRequestException.class, () -> CursorCodec.decode(token));
+    }
+
+    @Test
+    void decode_NegativeIdOfFileItem_ShouldBeKept() {
+        String token = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("v1|2025-05-01T12:00:00Z|-5".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(-5L, CursorCodec.decode(token).id());
+    }
+}
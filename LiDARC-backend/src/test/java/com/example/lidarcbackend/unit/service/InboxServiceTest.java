@@ -0,0 +1,118 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.configuration.WorkerInboxProperties;
+import com.example.lidarcbackend.exception.DuplicateWorkerResultException;
+import com.example.lidarcbackend.model.JobType;
+import com.example.lidarcbackend.repository.InboxMessageRepository;
+import com.example.lidarcbackend.service.InboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class InboxServiceTest {
+
+    @Mock
+    private InboxMessageRepository inboxMessageRepository;
+
+    private InboxService inboxService;
+
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        inboxService = new InboxService(inboxMessageRepository, new WorkerInboxProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void claim_CommittedJobsReceivedAgain_ShouldBeDroppedWithoutDatabase() {
+        when(inboxMessageRepository.claim(JobType.PREPROCESSING, Set.of(first, second))).thenReturn(Set.of(first, second));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(Set.of(first, second), inboxService.claim(JobType.PREPROCESSING, List.of(first, second)));
+        verifyNoInteractions(inboxMessageRepository);
+        commit();
+
+        assertTrue(inboxService.claim(JobType.PREPROCESSING, List.of(first, second)).isEmpty());
+        verify(inboxMessageRepository, times(1)).claim(any(), any());
+    }
+
+    @Test
+    void claim_RolledBackJobs_ShouldBeClaimedAgain() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        inboxService.claim(JobType.COMPARISON, List.of(first));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(Set.of(first), inboxService.claim(JobType.COMPARISON, List.of(first)));
+        verifyNoInteractions(inboxMessageRepository);
+    }
+
+    @Test
+    void claim_JobRecordedByAnotherTransaction_ShouldFailCommitAndBeDroppedOnRedelivery() {
+        when(inboxMessageRepository.claim(JobType.METADATA, Set.of(first, second))).thenReturn(Set.of(second));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(Set.of(first, second), inboxService.claim(JobType.METADATA, List.of(first, second, second)));
+        assertThrows(DuplicateWorkerResultException.class, this::commit);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(inboxService.claim(JobType.METADATA, List.of(first)).isEmpty());
+        assertEquals(Set.of(second), inboxService.claim(JobType.METADATA, List.of(second)));
+    }
+
+    @Test
+    void claim_WithoutTransaction_ShouldRecordRightAway() {
+        when(inboxMessageRepository.claim(JobType.METADATA, Set.of(first, second))).thenReturn(Set.of(second));
+
+        assertEquals(Set.of(second), inboxService.claim(JobType.METADATA, List.of(first, second)));
+        assertTrue(inboxService.claim(JobType.METADATA, List.of(first, second)).isEmpty());
+
+        verify(inboxMessageRepository).claim(JobType.METADATA, Set.of(first, second));
+        verifyNoMoreInteractions(inboxMessageRepository);
+    }
+
+    @Test
+    void claim_SameJobIdOfAnotherType_ShouldNotBeDropped() {
+        when(inboxMessageRepository.claim(any(), any())).thenReturn(Set.of(first));
+
+        inboxService.claim(JobType.PREPROCESSING, List.of(first));
+
+        assertEquals(Set.of(first), inboxService.claim(JobType.COMPARISON, List.of(first)));
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
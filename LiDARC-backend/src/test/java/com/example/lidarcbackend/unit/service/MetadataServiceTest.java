@@ -1,10 +1,17 @@
 package com.example.lidarcbackend.unit.service;
 
+import com.example.lidarcbackend.model.DTO.worker.MetadataResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
 import com.example.lidarcbackend.model.entity.CoordinateSystem;
 import com.example.lidarcbackend.model.entity.File;
+import com.example.lidarcbackend.model.entity.Folder;
 import com.example.lidarcbackend.repository.CoordinateSystemRepository;
 import com.example.lidarcbackend.repository.FileRepository;
+import com.example.lidarcbackend.repository.FolderRepository;
+import com.example.lidarcbackend.service.IInboxService;
+import com.example.lidarcbackend.service.IJobTrackingService;
 import com.example.lidarcbackend.service.files.MetadataService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,15 +20,22 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.support.converter.JacksonUtils;
 
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -37,18 +51,34 @@ public class MetadataServiceTest {
     @Mock
     private Validator validator;
 
+    @Mock
+    private FolderRepository folderRepository;
+
+    @Mock
+    private IJobTrackingService jobTrackingService;
+
+    @Mock
+    private IInboxService inboxService;
+
     @InjectMocks
     private MetadataService metadataService;
 
+    private static final String JOB_ID = "4a7c1f5e-9d3b-4f0a-8a61-3f2b7c9d0e11";
+
     private File existingFile;
 
     @BeforeEach
     public void setUp() {
         existingFile = new File();
         existingFile.setFilename("graz2021_block6_060_065_elv.las");
+        existingFile.setStatus(File.FileStatus.PROCESSING);
 
         lenient().when(fileRepository.findFileByFilename(any()))
                 .thenReturn(Optional.of(existingFile));
+        lenient().when(fileRepository.findFilesByFilenames(Set.of("graz2021_block6_060_065_elv.las")))
+                .thenReturn(List.of(existingFile));
+        lenient().when(inboxService.claim(any(), any()))
+                .thenAnswer(invocation -> new HashSet<UUID>(invocation.getArgument(1)));
 
     }
 
@@ -81,11 +111,27 @@ public class MetadataServiceTest {
     private Map<String, Object> successResult(Map<String, Object> metadata) {
         return Map.of(
                 "status", "success",
-                "job_id", "job-123",
+                "job_id", JOB_ID,
                 "payload", Map.of("metadata", metadata, "file_name","graz2021_block6_060_065_elv.las")
         );
     }
 
+    /**
+     * Binds the result like the message converter of the listener does.
+     */
+    private WorkerResultMessage<MetadataResultPayload> message(Map<String, Object> result) {
+        return JacksonUtils.enhancedObjectMapper().convertValue(result, new TypeReference<>() {});
+    }
+
+    /**
+     * Files with applied metadata are saved together at the end of a batch.
+     */
+    private List<File> savedFiles() {
+        ArgumentCaptor<List<File>> captor = ArgumentCaptor.captor();
+        verify(fileRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
     @Test
     void processMetadata_success_shouldSaveFile() {
         CoordinateSystem cs = new CoordinateSystem();
@@ -97,12 +143,11 @@ public class MetadataServiceTest {
 
         Map<String, Object> result = successResult(validMetadata(null));
 
-        metadataService.processMetadata(result);
-
-        ArgumentCaptor<File> captor = ArgumentCaptor.forClass(File.class);
-        verify(fileRepository).save(captor.capture());
+        metadataService.processMetadata(message(result));
 
-        File saved = captor.getValue();
+        List<File> savedFiles = savedFiles();
+        assertEquals(1, savedFiles.size());
+        File saved = savedFiles.get(0);
         assertEquals("graz2021_block6_060_065_elv.las", saved.getFilename());
         assertEquals((short) 2021, saved.getCaptureYear());
         assertEquals(12345L, saved.getSizeBytes());
@@ -117,26 +162,27 @@ public class MetadataServiceTest {
                 "payload", Map.of("metadata", validMetadata(null), "file_name", "graz2021_block6_060_065_elv.las")
         );
 
-        metadataService.processMetadata(result);
+        metadataService.processMetadata(message(result));
 
         verify(fileRepository, never()).save(any());
     }
 
     @Test
     void processMetadata_metadataWithoutExistingFile_shouldSkipSave() {
-        when(fileRepository.findFileByFilename("unknown.las"))
-                .thenReturn(Optional.empty());
+        when(fileRepository.findFilesByFilenames(Set.of("unknown.las")))
+                .thenReturn(List.of());
 
-        metadataService.processMetadata(Map.of(
+        metadataService.processMetadata(message(Map.of(
                 "status", "success",
-                "job_id", "job-123",
+                "job_id", JOB_ID,
                 "payload", Map.of(
                         "metadata", validMetadata(Map.of("filename", "unknown.las")),
                         "file_name", "unknown.las"
                         )
-                ));
+                )));
 
         verify(fileRepository, never()).save(any());
+        assertTrue(savedFiles().isEmpty());
     }
 
     @Test
@@ -145,12 +191,9 @@ public class MetadataServiceTest {
                 "capture_year", 1800
         ));
 
-        metadataService.processMetadata(successResult(metadata));
+        metadataService.processMetadata(message(successResult(metadata)));
 
-        ArgumentCaptor<File> captor = ArgumentCaptor.forClass(File.class);
-        verify(fileRepository).save(captor.capture());
-
-        assertNull(captor.getValue().getCaptureYear());
+        assertNull(savedFiles().get(0).getCaptureYear());
     }
 
     @Test
@@ -160,12 +203,9 @@ public class MetadataServiceTest {
 
         Map<String, Object> metadata = validMetadata(overrides);
 
-        metadataService.processMetadata(successResult(metadata));
+        metadataService.processMetadata(message(successResult(metadata)));
 
-        ArgumentCaptor<File> captor = ArgumentCaptor.forClass(File.class);
-        verify(fileRepository).save(captor.capture());
-
-        assertNull(captor.getValue().getCaptureYear());
+        assertNull(savedFiles().get(0).getCaptureYear());
     }
 
     @Test
@@ -180,21 +220,21 @@ public class MetadataServiceTest {
                 "coordinate_system", "EPSG:9999"
         ));
 
-        metadataService.processMetadata(successResult(metadata));
+        metadataService.processMetadata(message(successResult(metadata)));
 
         verify(coordinateSystemRepository).save(any(CoordinateSystem.class));
-        verify(fileRepository).save(any(File.class));
+        assertEquals(List.of(existingFile), savedFiles());
     }
 
     @Test
     void processMetadata_errorStatus_shouldNotSave() {
         Map<String, Object> result = Map.of(
                 "status", "error",
-                "job_id", "job-123",
+                "job_id", JOB_ID,
                 "payload", Map.of("msg", "worker failed", "file_name", "graz2021_block6_060_065_elv.las")
         );
 
-        metadataService.processMetadata(result);
+        metadataService.processMetadata(message(result));
         ArgumentCaptor<File> captor = ArgumentCaptor.forClass(File.class);
         verify(fileRepository).save(captor.capture());
 
@@ -203,4 +243,33 @@ public class MetadataServiceTest {
         assertEquals("worker failed", saved.getErrorMsg());
     }
 
+    @Test
+    void processMetadataResults_filesOfOneFolder_shouldSaveFilesTogetherAndUpdateFolderOnce() {
+        Folder folder = Folder.builder().id(7L).status("UPLOADED").files(new ArrayList<>()).build();
+        List<File> files = new ArrayList<>();
+        for (long id = 1; id <= 2; id++) {
+            File file = new File();
+            file.setId(id);
+            file.setFilename("file-" + id + ".las");
+            file.setStatus(File.FileStatus.PROCESSING);
+            file.setFolder(folder);
+            folder.getFiles().add(file);
+            files.add(file);
+        }
+        when(fileRepository.findFilesByFilenames(Set.of("file-1.las", "file-2.las"))).thenReturn(files);
+
+        metadataService.processMetadataResults(files.stream()
+                .map(file -> message(Map.of(
+                        "status", "success",
+                        "job_id", UUID.randomUUID().toString(),
+                        "payload", Map.of("metadata", validMetadata(null), "file_name", file.getFilename()))))
+                .toList());
+
+        verify(fileRepository).saveAll(files);
+        verify(fileRepository, never()).findFileByFilename(any());
+        verify(folderRepository, times(1)).save(folder);
+        assertEquals("PROCESSED", folder.getStatus());
+        verify(jobTrackingService, times(2)).completeJob(any());
+    }
+
 }
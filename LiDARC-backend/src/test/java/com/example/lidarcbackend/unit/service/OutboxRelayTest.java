@@ -0,0 +1,105 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.configuration.OutboxProperties;
+import com.example.lidarcbackend.model.entity.OutboxMessage;
+import com.example.lidarcbackend.repository.OutboxMessageRepository;
+import com.example.lidarcbackend.service.files.OutboxRelay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations operations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setBatchSize(2);
+        outboxRelay = new OutboxRelay(outboxMessageRepository, rabbitTemplate, properties, transactionManager);
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+            invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRelay.destroy();
+    }
+
+    @Test
+    void relayPending_FullBatch_ShouldPublishConfirmAndMarkSentUntilOutboxIsEmpty() {
+        when(outboxMessageRepository.lockUnsent(2))
+            .thenReturn(List.of(outboxMessage(1L), outboxMessage(2L)))
+            .thenReturn(List.of(outboxMessage(3L)));
+
+        outboxRelay.relayPending();
+
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(operations, times(3)).send(eq("worker-job"), eq("worker.comparison.job.start"), captor.capture());
+        Message first = captor.getAllValues().getFirst();
+        assertEquals("{\"jobId\":\"1\"}", new String(first.getBody(), StandardCharsets.UTF_8));
+        assertEquals("outbox-1", first.getMessageProperties().getMessageId());
+        assertEquals("com.example.Job", first.getMessageProperties().getHeader("__TypeId__"));
+        verify(operations, times(2)).waitForConfirmsOrDie(anyLong());
+        verify(outboxMessageRepository).markSent(eq(List.of(1L, 2L)), any(Instant.class));
+        verify(outboxMessageRepository).markSent(eq(List.of(3L)), any(Instant.class));
+    }
+
+    @Test
+    void relayPending_MissingConfirm_ShouldLeaveBatchUnsent() {
+        when(outboxMessageRepository.lockUnsent(2)).thenReturn(List.of(outboxMessage(1L)));
+        doThrow(new AmqpTimeoutException("no confirm")).when(operations).waitForConfirmsOrDie(anyLong());
+
+        outboxRelay.relayPending();
+
+        verify(outboxMessageRepository, never()).markSent(anyCollection(), any());
+    }
+
+    private OutboxMessage outboxMessage(Long id) {
+        return OutboxMessage.builder()
+            .id(id)
+            .exchange("worker-job")
+            .routingKey("worker.comparison.job.start")
+            .payloadType("com.example.Job")
+            .payload("{\"jobId\":\"" + id + "\"}")
+            .createdAt(Instant.now())
+            .build();
+    }
+}
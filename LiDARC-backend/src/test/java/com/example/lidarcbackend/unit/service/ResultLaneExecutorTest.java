@@ -0,0 +1,100 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.configuration.WorkerResultLaneProperties;
+import com.example.lidarcbackend.service.files.ResultLaneExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultLaneExecutorTest {
+
+    private ResultLaneExecutor resultLanes;
+
+    @BeforeEach
+    void setUp() {
+        resultLanes = new ResultLaneExecutor(new WorkerResultLaneProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        resultLanes.destroy();
+    }
+
+    @Test
+    void run_SameKeyFromSeveralConsumers_ShouldNeverRunConcurrently() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try (ExecutorService consumers = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> futures = IntStream.range(0, 20)
+                .<Future<?>>mapToObj(i -> consumers.submit(() -> resultLanes.run(999L, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(5);
+                    running.decrementAndGet();
+                })))
+                .toList();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void runGrouped_DifferentKeys_ShouldRunInParallel() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        resultLanes.runGrouped(List.of(1L, 2L), Function.identity(), items -> {
+            bothStarted.countDown();
+            try {
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(0, bothStarted.getCount());
+    }
+
+    @Test
+    void runGrouped_ShouldKeepOrderWithinLaneAndRethrowFailure() {
+        List<Long> items = List.of(1L, 17L, 2L, 33L);
+        List<List<Long>> handled = new CopyOnWriteArrayList<>();
+
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class,
+            () -> resultLanes.runGrouped(items, Function.identity(), laneItems -> {
+                handled.add(laneItems);
+                if (laneItems.contains(2L)) {
+                    throw new IllegalArgumentException("lane failed");
+                }
+            }));
+
+        assertEquals("lane failed", failure.getMessage());
+        // 1, 17 and 33 share a lane of 16, 2 has its own
+        assertTrue(handled.contains(List.of(1L, 17L, 33L)));
+        assertTrue(handled.contains(List.of(2L)));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.api.search.dtos.SearchType;
+import com.example.lidarcbackend.exception.BadRequestException;
+import com.example.lidarcbackend.repository.SearchRepository;
+import com.example.lidarcbackend.service.search.SearchService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class SearchServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    void search_BlankQuery_ShouldThrowBadRequest() {
+        SearchService searchService = new SearchService(new SearchRepository(jdbcTemplate));
+
+        assertThrows(BadRequestException.class, () -> searchService.search("  ", Set.of(), 20));
+        assertThrows(BadRequestException.class, () -> searchService.search("graz", Set.of(), 0));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void search_WithoutTypes_ShouldSearchAllTypes() {
+        SearchService searchService = new SearchService(new SearchRepository(jdbcTemplate));
+
+        searchService.search("graz", null, 20);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sqlCaptor.capture(), any(MapSqlParameterSource.class), ArgumentMatchers.<RowMapper<Object>>any());
+        for (SearchType type : SearchType.values()) {
+            assertTrue(sqlCaptor.getValue().contains("'" + type.name() + "' AS type"), type.name());
+        }
+    }
+
+    @Test
+    void search_ShouldEscapeLikeWildcardsAndOnlyQueryRequestedTypes() {
+        SearchService searchService = new SearchService(new SearchRepository(jdbcTemplate));
+
+        searchService.search(" 50%_tile ", EnumSet.of(SearchType.FILE), 10);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> paramsCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).query(sqlCaptor.capture(), paramsCaptor.capture(), ArgumentMatchers.<RowMapper<Object>>any());
+        assertTrue(sqlCaptor.getValue().contains("FROM files t"));
+        assertFalse(sqlCaptor.getValue().contains("FROM comparisons t"));
+        assertEquals("50%_tile", paramsCaptor.getValue().getValue("query"));
+        assertEquals("%50\\%\\_tile%", paramsCaptor.getValue().getValue("contains"));
+        assertEquals("50\\%\\_tile%", paramsCaptor.getValue().getValue("prefix"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.configuration.WorkerResultLaneProperties;
+import com.example.lidarcbackend.model.DTO.worker.MetadataResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.PreprocessingResultPayload;
+import com.example.lidarcbackend.model.DTO.worker.WorkerResultMessage;
+import com.example.lidarcbackend.service.comparisons.IComparisonService;
+import com.example.lidarcbackend.service.files.IMetadataService;
+import com.example.lidarcbackend.service.files.ResultLaneExecutor;
+import com.example.lidarcbackend.service.files.WorkerResultListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WorkerResultListenerTest {
+
+    @Mock
+    private IMetadataService metadataService;
+
+    @Mock
+    private IComparisonService comparisonService;
+
+    private WorkerResultListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new WorkerResultListener(metadataService, comparisonService, new Jackson2JsonMessageConverter(),
+            new ResultLaneExecutor(new WorkerResultLaneProperties()));
+    }
+
+    @Test
+    void handlePreprocessingResults_MalformedMessageInBatch_ShouldPassOnTheOthers() {
+        List<Message> messages = List.of(
+            json("{\"status\":\"success\",\"job_id\":\"a\",\"payload\":{\"comparisonId\":1,\"fileId\":2,"
+                + "\"result\":{\"bucket\":\"results\",\"objectKey\":\"2.csv\"}}}"),
+            json("{\"status\":\"success\",\"job_id\":"),
+            json("{\"status\":\"error\",\"job_id\":\"c\",\"payload\":{\"comparisonId\":1,\"fileId\":3,\"msg\":\"failed\"}}"));
+
+        listener.handlePreprocessingResults(messages);
+
+        ArgumentCaptor<List<WorkerResultMessage<PreprocessingResultPayload>>> captor = ArgumentCaptor.captor();
+        verify(comparisonService).processPreprocessingResults(captor.capture());
+        List<WorkerResultMessage<PreprocessingResultPayload>> results = captor.getValue();
+        assertEquals(List.of("a", "c"), results.stream().map(WorkerResultMessage::jobId).toList());
+        assertEquals("2.csv", results.get(0).payload().result().objectKey());
+        assertEquals("failed", results.get(1).payload().msg());
+    }
+
+    @Test
+    void handleMetadataResults_FilesOfTwoFolders_ShouldHandEachFolderItsOwnBatch() {
+        when(metadataService.findFolderIdsByFilenames(List.of("a.laz", "b.laz", "c.laz")))
+            .thenReturn(Map.of("a.laz", 1L, "b.laz", 2L, "c.laz", 1L));
+
+        listener.handleMetadataResults(List.of(metadata("a.laz"), metadata("b.laz"), metadata("c.laz")));
+
+        ArgumentCaptor<List<WorkerResultMessage<MetadataResultPayload>>> captor = ArgumentCaptor.captor();
+        verify(metadataService, times(2)).processMetadataResults(captor.capture());
+        Set<List<String>> fileNamesByFolder = captor.getAllValues().stream()
+            .map(results -> results.stream().map(result -> result.payload().fileName()).toList())
+            .collect(Collectors.toSet());
+        assertEquals(Set.of(List.of("a.laz", "c.laz"), List.of("b.laz")), fileNamesByFolder);
+    }
+
+    private Message metadata(String fileName) {
+        return json("{\"status\":\"success\",\"job_id\":\"" + fileName + "\",\"payload\":{\"file_name\":\"" + fileName + "\"}}");
+    }
+
+    private Message json(String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
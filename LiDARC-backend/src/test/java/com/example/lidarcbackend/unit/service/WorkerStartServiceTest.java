@@ -0,0 +1,58 @@
+package com.example.lidarcbackend.unit.service;
+
+import com.example.lidarcbackend.configuration.RabbitConfig;
+import com.example.lidarcbackend.model.DTO.StartComparisonJobDto;
+import com.example.lidarcbackend.model.entity.OutboxMessage;
+import com.example.lidarcbackend.repository.OutboxMessageRepository;
+import com.example.lidarcbackend.service.files.OutboxMessagesWrittenEvent;
+import com.example.lidarcbackend.service.files.WorkerStartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class WorkerStartServiceTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private WorkerStartService workerStartService;
+
+    @BeforeEach
+    void setUp() {
+        workerStartService = new WorkerStartService(outboxMessageRepository, new Jackson2JsonMessageConverter(), eventPublisher);
+    }
+
+    @Test
+    void startComparisonJob_ShouldWriteConvertedMessageToOutbox() {
+        workerStartService.startComparisonJob(new StartComparisonJobDto("job-1", "999", List.of()));
+
+        ArgumentCaptor<OutboxMessage> captor = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxMessageRepository).save(captor.capture());
+        OutboxMessage outboxMessage = captor.getValue();
+        assertEquals(RabbitConfig.WORKER_JOB_EXCHANGE, outboxMessage.getExchange());
+        assertEquals(RabbitConfig.WORKER_COMPARISON_START_ROUTING_KEY, outboxMessage.getRoutingKey());
+        assertEquals(StartComparisonJobDto.class.getName(), outboxMessage.getPayloadType());
+        assertTrue(outboxMessage.getPayload().contains("\"job-1\""));
+        assertNotNull(outboxMessage.getCreatedAt());
+        assertNull(outboxMessage.getSentAt());
+        verify(eventPublisher).publishEvent(any(OutboxMessagesWrittenEvent.class));
+    }
+}
@@ -72,6 +72,24 @@ def validate_request(json_req):
         logging.warning(f"The comparison job request is invalid")
         return False
 
+def select_groups(json_req):
+    """
+    Returns (group_a, group_b), differences are computed as group_b - group_a. Jobs of epoch pairs name the
+    direction in groupA and groupB, other jobs fall back to the alphabetical order of the group names.
+    Returns (None, None) if the files do not have exactly these two groups.
+    """
+    group_names = {f["groupName"] for f in json_req["files"]}
+    group_a = json_req.get("groupA")
+    group_b = json_req.get("groupB")
+    if group_a is not None or group_b is not None:
+        if group_a == group_b or group_names != {group_a, group_b}:
+            return None, None
+        return group_a, group_b
+    if len(group_names) != 2:
+        return None, None
+    group_a, group_b = sorted(group_names)
+    return group_a, group_b
+
 def round_floats(obj, ndigits=2):
     if isinstance(obj, float):
         return round(obj, ndigits)
@@ -448,10 +466,9 @@ def process_req(ch, method, props, body):
         #        return
 
 
-        group_names = sorted({f["groupName"] for f in req["files"]})
-        group_a, group_b = group_names[0], group_names[1]
-        if len(group_names) != 2:
-            publish_response(ch,mk_error_msg(job_id,"Exactly two distinct groupName values are required",comparison_id))
+        group_a, group_b = select_groups(req)
+        if group_a is None:
+            publish_response(ch, mk_error_msg(job_id, "Exactly two distinct groupName values are required, matching groupA and groupB if given", comparison_id))
             return
 
 
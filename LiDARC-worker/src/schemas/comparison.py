@@ -10,6 +10,14 @@ schema = {
             "type": "string",
             "minLength": 1
         },
+        "groupA": {
+            "type": "string",
+            "minLength": 1
+        },
+        "groupB": {
+            "type": "string",
+            "minLength": 1
+        },
         "files": {
             "type": "array",
             "minItems": 2,
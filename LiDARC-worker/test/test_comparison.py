@@ -0,0 +1,36 @@
+from comparison.comparison_worker import select_groups, validate_request
+
+
+def comparison_job(group_names, **groups):
+    job = {
+        "jobId": "job-1",
+        "comparisonId": "1",
+        "files": [{"bucket": "results", "objectKey": f"{name}.csv", "groupName": name} for name in group_names],
+    }
+    job.update(groups)
+    return job
+
+
+def test_select_groups_uses_requested_direction_over_name_order():
+    job = comparison_job(["2024-spring", "2023-autumn"], groupA="2024-spring", groupB="2023-autumn")
+
+    assert validate_request(job)
+    assert select_groups(job) == ("2024-spring", "2023-autumn")
+
+
+def test_select_groups_without_direction_orders_names():
+    job = comparison_job(["folder-b", "folder-a"])
+
+    assert select_groups(job) == ("folder-a", "folder-b")
+
+
+def test_select_groups_rejects_direction_not_matching_files():
+    job = comparison_job(["2019", "2021"], groupA="2019", groupB="2023")
+
+    assert select_groups(job) == (None, None)
+
+
+def test_select_groups_rejects_single_group():
+    job = comparison_job(["2019", "2019"])
+
+    assert select_groups(job) == (None, None)
@@ -4,16 +4,31 @@ CREATE DATABASE "lidarc_db";
 -- Connect to the new database and create tables
 \c lidarc_db
 
+-- Trigram matching for the name searches
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Ids of the tables Hibernate inserts in JDBC batches. Hibernate reserves 50 ids per call (pooled optimizer),
+-- rows inserted by plain SQL take a single value of the sequence. Databases created before these sequences have to
+-- be moved onto them with postgres/migrations/001-pooled-id-sequences.sql.
+CREATE SEQUENCE IF NOT EXISTS files_id_seq AS INTEGER INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS urls_id_seq AS INTEGER INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS coordinate_system_id_seq AS INTEGER INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comparisons_id_seq AS INTEGER INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comparison_pair_id_seq AS INTEGER INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS reports_id_seq AS INTEGER INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS outbox_message_id_seq AS BIGINT INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS folders (
     id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
     name TEXT NOT NULL,
     status VARCHAR(32) NOT NULL DEFAULT 'UPLOADED' CHECK (status in ('UPLOADING', 'UPLOADED', 'PROCESSING', 'PROCESSED', 'FAILED')),
     created_at TIMESTAMP,
-    active BOOLEAN DEFAULT TRUE
+    active BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS files (
-    id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('files_id_seq'),
     filename TEXT NOT NULL UNIQUE,
     capture_year SMALLINT CHECK (capture_year BETWEEN 1900 AND 9999),
     size_bytes BIGINT,
@@ -36,11 +51,12 @@ CREATE TABLE IF NOT EXISTS files (
     uploaded_at TIMESTAMP,
     folder_id INTEGER,
     active BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_folder_id FOREIGN KEY (folder_id) REFERENCES folders(id) ON DELETE SET NULL
 );
 
 CREATE TABLE IF NOT EXISTS urls (
-    id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('urls_id_seq'),
     file_id INTEGER NOT NULL,
     s3_bucket TEXT DEFAULT 'basebucket',
     s3_url TEXT NOT NULL,
@@ -51,13 +67,13 @@ CREATE TABLE IF NOT EXISTS urls (
 );
 
 CREATE TABLE IF NOT EXISTS coordinate_system (
-    id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('coordinate_system_id_seq'),
     authority VARCHAR(50) NOT NULL,
     code VARCHAR(50)
 );
 
 CREATE TABLE IF NOT EXISTS comparisons (
-    id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+    id INTEGER PRIMARY KEY DEFAULT nextval('comparisons_id_seq'),
     name TEXT NOT NULL,
     need_outlier_detection BOOLEAN DEFAULT FALSE,
     individual_statistics_percentile DOUBLE PRECISION,
@@ -75,7 +91,8 @@ CREATE TABLE IF NOT EXISTS comparisons (
     need_point_filter BOOLEAN DEFAULT FALSE,
     result_bucket TEXT,
     result_object_key TEXT,
-    outlier_deviation_factor DOUBLE PRECISION
+    outlier_deviation_factor DOUBLE PRECISION,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS comparison_file (
@@ -87,11 +104,49 @@ CREATE TABLE IF NOT EXISTS comparison_file (
     group_name TEXT,
     status VARCHAR(32) NOT NULL DEFAULT 'PREPROCESSING' CHECK (status in ('PREPROCESSING', 'COMPLETED', 'FAILED')),
     error_msg TEXT,
+    input_hash VARCHAR(64),
+    holds_reference BOOLEAN NOT NULL DEFAULT FALSE,
+    claim_order INTEGER,
     CONSTRAINT pk_comparison_file PRIMARY KEY (comparison_id, file_id),
     CONSTRAINT fk_comparison_id FOREIGN KEY (comparison_id) REFERENCES comparisons(id) ON DELETE CASCADE,
     CONSTRAINT fk_file_id FOREIGN KEY (file_id) REFERENCES files(id)
 );
 
+CREATE TABLE IF NOT EXISTS preprocessing_result (
+    input_hash VARCHAR(64) PRIMARY KEY,
+    bucket TEXT NOT NULL,
+    object_key TEXT NOT NULL,
+    reference_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS comparison_file_shard (
+    job_id UUID PRIMARY KEY,
+    comparison_id INTEGER NOT NULL,
+    file_id INTEGER NOT NULL,
+    bucket TEXT,
+    object_key TEXT,
+    status VARCHAR(32) NOT NULL DEFAULT 'PREPROCESSING' CHECK (status in ('PREPROCESSING', 'COMPLETED', 'FAILED')),
+    error_msg TEXT,
+    input_hash VARCHAR(64),
+    holds_reference BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT fk_comparison_file FOREIGN KEY (comparison_id, file_id) REFERENCES comparison_file(comparison_id, file_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS comparison_pair (
+    id INTEGER PRIMARY KEY DEFAULT nextval('comparison_pair_id_seq'),
+    comparison_id INTEGER NOT NULL,
+    pair_order INTEGER NOT NULL,
+    group_a TEXT NOT NULL,
+    group_b TEXT NOT NULL,
+    job_id UUID UNIQUE,
+    status VARCHAR(32) NOT NULL DEFAULT 'PENDING' CHECK (status in ('PENDING', 'COMPARING', 'COMPLETED', 'FAILED')),
+    result_bucket TEXT,
+    result_object_key TEXT,
+    error_msg TEXT,
+    CONSTRAINT fk_comparison_pair_comparison_id FOREIGN KEY (comparison_id) REFERENCES comparisons(id) ON DELETE CASCADE
+);
+
 CREATE TABLE IF NOT EXISTS comparison_folder (
     comparison_id INTEGER NOT NULL,
     folder_id INTEGER NOT NULL,
@@ -101,7 +156,7 @@ CREATE TABLE IF NOT EXISTS comparison_folder (
 );
 
 CREATE TABLE IF NOT EXISTS reports (
-   id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+   id INTEGER PRIMARY KEY DEFAULT nextval('reports_id_seq'),
    file_name TEXT NOT NULL UNIQUE,
    title TEXT,
    creation_date TIMESTAMP,
@@ -109,6 +164,83 @@ CREATE TABLE IF NOT EXISTS reports (
    CONSTRAINT fk_comparison_id FOREIGN KEY(comparison_id) REFERENCES comparisons(id) ON DELETE CASCADE
 );
 
+-- Read model of the comparison list, refreshed whenever a comparison, its files or its reports change
+CREATE TABLE IF NOT EXISTS comparison_summary (
+    comparison_id INTEGER PRIMARY KEY,
+    name TEXT NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    created_at TIMESTAMP,
+    latest_report_id INTEGER,
+    file_count INTEGER NOT NULL DEFAULT 0,
+    folder_names TEXT[],
+    capture_year_min SMALLINT,
+    capture_year_max SMALLINT,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_comparison_summary_comparison_id FOREIGN KEY (comparison_id) REFERENCES comparisons(id) ON DELETE CASCADE
+);
+
+-- Worker jobs written in the transaction that creates them, published and marked as sent by the OutboxRelay
+CREATE TABLE IF NOT EXISTS outbox_message (
+    id BIGINT PRIMARY KEY DEFAULT nextval('outbox_message_id_seq'),
+    exchange TEXT NOT NULL,
+    routing_key TEXT NOT NULL,
+    payload_type TEXT,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP
+);
+
+-- Worker results already processed, a redelivered result finds its row and is dropped (see InboxService)
+CREATE TABLE IF NOT EXISTS inbox_message (
+    job_id UUID NOT NULL,
+    job_type VARCHAR(32) NOT NULL CHECK (job_type in ('METADATA', 'PREPROCESSING', 'COMPARISON')),
+    processed_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_inbox_message PRIMARY KEY (job_id, job_type)
+);
+
+-- Versions behind the ETags (see ETags). Every UPDATE of a comparison, file or folder bumps the version of the row,
+-- whichever statement wrote it, and every committed write bumps the version of the table in collection_version.
+-- Databases created before are moved onto them with postgres/migrations/002-entity-versions.sql.
+CREATE TABLE IF NOT EXISTS collection_version (
+    name VARCHAR(32) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+INSERT INTO collection_version (name) VALUES ('comparisons'), ('files'), ('folders') ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_row_version() RETURNS trigger AS $$
+BEGIN
+    NEW.version := OLD.version + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Deferred to the commit, so the counter row is only locked while committing, and bumped once per transaction.
+CREATE OR REPLACE FUNCTION bump_collection_version() RETURNS trigger AS $$
+DECLARE
+    marker TEXT := 'lidarc.collection_bumped_' || TG_ARGV[0];
+BEGIN
+    IF current_setting(marker, true) IS DISTINCT FROM txid_current()::text THEN
+        PERFORM set_config(marker, txid_current()::text, true);
+        UPDATE collection_version SET version = version + 1 WHERE name = TG_ARGV[0];
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_comparisons_row_version BEFORE UPDATE ON comparisons
+    FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+CREATE TRIGGER trg_files_row_version BEFORE UPDATE ON files
+    FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+CREATE TRIGGER trg_folders_row_version BEFORE UPDATE ON folders
+    FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+
+CREATE CONSTRAINT TRIGGER trg_comparisons_collection_version AFTER INSERT OR UPDATE OR DELETE ON comparisons
+    DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION bump_collection_version('comparisons');
+CREATE CONSTRAINT TRIGGER trg_files_collection_version AFTER INSERT OR UPDATE OR DELETE ON files
+    DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION bump_collection_version('files');
+CREATE CONSTRAINT TRIGGER trg_folders_collection_version AFTER INSERT OR UPDATE OR DELETE ON folders
+    DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION bump_collection_version('folders');
+
 ALTER TABLE files 
 ADD CONSTRAINT fk_files_coordinate_system FOREIGN KEY (coordinate_system) REFERENCES coordinate_system(id);
 
@@ -131,3 +263,26 @@ CREATE INDEX idx_files_uploaded_at_null_folder
 ON files(uploaded_at DESC)
 WHERE folder_id IS NULL;
 
+-- 5. Index on comparison_file_shard for collecting the shards of a comparison
+CREATE INDEX idx_comparison_file_shard_comparison_id ON comparison_file_shard(comparison_id, file_id);
+
+-- 6. Index on comparison_pair for collecting the pairs of a multi-epoch comparison
+CREATE INDEX idx_comparison_pair_comparison_id ON comparison_pair(comparison_id, pair_order);
+
+-- 7. Index on comparison_summary for the default newest-first listing
+CREATE INDEX idx_comparison_summary_created_at ON comparison_summary(created_at DESC, comparison_id DESC);
+
+-- 8. Partial index on outbox_message for the relay, sent rows drop out of it
+CREATE INDEX idx_outbox_message_unsent ON outbox_message(id) WHERE sent_at IS NULL;
+
+-- 9. Index on inbox_message for deleting entries past the retention
+CREATE INDEX idx_inbox_message_processed_at ON inbox_message(processed_at);
+
+-- 10. Trigram indexes for substring and fuzzy name search. They are built on UPPER(...) because that is the
+--     expression Spring Data generates for ContainingIgnoreCase, so derived queries and the search API share them.
+CREATE INDEX idx_comparisons_name_trgm ON comparisons USING gin (UPPER(name) gin_trgm_ops);
+CREATE INDEX idx_comparison_summary_name_trgm ON comparison_summary USING gin (UPPER(name) gin_trgm_ops);
+CREATE INDEX idx_files_original_filename_trgm ON files USING gin (UPPER(original_filename) gin_trgm_ops);
+CREATE INDEX idx_folders_name_trgm ON folders USING gin (UPPER(name) gin_trgm_ops);
+CREATE INDEX idx_reports_title_trgm ON reports USING gin (UPPER(title) gin_trgm_ops);
+CREATE INDEX idx_reports_file_name_trgm ON reports USING gin (UPPER(file_name) gin_trgm_ops);
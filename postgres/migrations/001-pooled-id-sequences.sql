@@ -0,0 +1,28 @@
+-- Moves a database created before the pooled id sequences onto them.
+-- init.sql only runs on an empty data directory, so an existing database keeps its IDENTITY ids, whose sequences
+-- step by 1. Hibernate reserves 50 ids per sequence call and would hand out ids that are already taken.
+--
+-- Run once with the backend stopped:
+--   psql -U admin -d lidarc_db -f postgres/migrations/001-pooled-id-sequences.sql
+-- Running it again is harmless, it only moves the sequences past the highest ids.
+
+BEGIN;
+
+DO $$
+DECLARE
+    tbl TEXT;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['files', 'urls', 'coordinate_system', 'comparisons', 'comparison_pair', 'reports'] LOOP
+        -- Dropping the identity also drops its sequence, which has the same name as the new one
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tbl);
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I AS INTEGER INCREMENT BY 50 OWNED BY %I.id', tbl || '_id_seq', tbl);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', tbl || '_id_seq');
+        -- Hibernate takes the value of a call as the last id of its block, so the next call has to end 50 past the
+        -- highest id
+        EXECUTE format('SELECT setval(%L, COALESCE(MAX(id), 0) + 50, false) FROM %I', tbl || '_id_seq', tbl);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', tbl, tbl || '_id_seq');
+    END LOOP;
+END
+$$;
+
+COMMIT;
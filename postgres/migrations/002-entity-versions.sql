@@ -0,0 +1,61 @@
+-- Moves a database created before the entity versions onto them, see the versions section of init.sql.
+-- init.sql only runs on an empty data directory, so an existing database has neither the version columns nor the
+-- triggers that maintain them.
+--
+-- Run once with the backend stopped:
+--   psql -U admin -d lidarc_db -f postgres/migrations/002-entity-versions.sql
+-- Running it again is harmless.
+
+BEGIN;
+
+ALTER TABLE comparisons ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE files ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE folders ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS collection_version (
+    name VARCHAR(32) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+INSERT INTO collection_version (name) VALUES ('comparisons'), ('files'), ('folders') ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_row_version() RETURNS trigger AS $$
+BEGIN
+    NEW.version := OLD.version + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Deferred to the commit, so the counter row is only locked while committing, and bumped once per transaction.
+CREATE OR REPLACE FUNCTION bump_collection_version() RETURNS trigger AS $$
+DECLARE
+    marker TEXT := 'lidarc.collection_bumped_' || TG_ARGV[0];
+BEGIN
+    IF current_setting(marker, true) IS DISTINCT FROM txid_current()::text THEN
+        PERFORM set_config(marker, txid_current()::text, true);
+        UPDATE collection_version SET version = version + 1 WHERE name = TG_ARGV[0];
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_comparisons_row_version ON comparisons;
+CREATE TRIGGER trg_comparisons_row_version BEFORE UPDATE ON comparisons
+    FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+DROP TRIGGER IF EXISTS trg_files_row_version ON files;
+CREATE TRIGGER trg_files_row_version BEFORE UPDATE ON files
+    FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+DROP TRIGGER IF EXISTS trg_folders_row_version ON folders;
+CREATE TRIGGER trg_folders_row_version BEFORE UPDATE ON folders
+    FOR EACH ROW EXECUTE FUNCTION bump_row_version();
+
+DROP TRIGGER IF EXISTS trg_comparisons_collection_version ON comparisons;
+CREATE CONSTRAINT TRIGGER trg_comparisons_collection_version AFTER INSERT OR UPDATE OR DELETE ON comparisons
+    DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION bump_collection_version('comparisons');
+DROP TRIGGER IF EXISTS trg_files_collection_version ON files;
+CREATE CONSTRAINT TRIGGER trg_files_collection_version AFTER INSERT OR UPDATE OR DELETE ON files
+    DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION bump_collection_version('files');
+DROP TRIGGER IF EXISTS trg_folders_collection_version ON folders;
+CREATE CONSTRAINT TRIGGER trg_folders_collection_version AFTER INSERT OR UPDATE OR DELETE ON folders
+    DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION bump_collection_version('folders');
+
+COMMIT;